@@ -0,0 +1,52 @@
+package com.paymybuddy.cache;
+
+/**
+ * Counters of one region of the second-level cache, see
+ * {@link SecondLevelCacheStatistics}. <br>
+ * - hits, misses and puts : counted by Hibernate, <br>
+ * - evictions : the entries removed by the cache to respect its size, counted
+ * by the cache provider. <br>
+ */
+public class RegionStatistics {
+
+	private final String region;
+	private final long hits;
+	private final long misses;
+	private final long puts;
+	private final long evictions;
+
+	public RegionStatistics(String region, long hits, long misses, long puts, long evictions) {
+		this.region = region;
+		this.hits = hits;
+		this.misses = misses;
+		this.puts = puts;
+		this.evictions = evictions;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getPuts() {
+		return puts;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public String toString() {
+		return "RegionStatistics [region=" + region + ", hits=" + hits + ", misses=" + misses + ", puts=" + puts
+				+ ", evictions=" + evictions + "]";
+	}
+
+}
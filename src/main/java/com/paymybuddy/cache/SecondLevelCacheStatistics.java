@@ -0,0 +1,66 @@
+package com.paymybuddy.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publish the counters of every region of the Hibernate second-level cache,
+ * the entity regions as the natural id regions. <br>
+ * The hits, misses and puts come from the Hibernate statistics, enabled by
+ * <b>hibernate.generate_statistics</b>. The evictions come from the JCache
+ * statistics MBeans of the cache provider, enabled in <b>ehcache.xml</b>.
+ */
+@Component
+public class SecondLevelCacheStatistics {
+
+	private static final String JCACHE_STATISTICS = "javax.cache:type=CacheStatistics,*";
+
+	private final Statistics statistics;
+	private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+	@Autowired
+	public SecondLevelCacheStatistics(EntityManagerFactory entityManagerFactory) {
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	/**
+	 * @return the counters of the regions, by region name
+	 */
+	public Map<String, RegionStatistics> getStatistics() {
+		Map<String, Long> evictions = readEvictions();
+		Map<String, RegionStatistics> result = new TreeMap<>();
+		for (String region : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+			result.put(region, new RegionStatistics(region, regionStatistics.getHitCount(),
+					regionStatistics.getMissCount(), regionStatistics.getPutCount(),
+					evictions.getOrDefault(region, 0L)));
+		}
+		return result;
+	}
+
+	private Map<String, Long> readEvictions() {
+		Map<String, Long> evictions = new TreeMap<>();
+		try {
+			for (ObjectName name : mBeanServer.queryNames(new ObjectName(JCACHE_STATISTICS), null)) {
+				Object cacheEvictions = mBeanServer.getAttribute(name, "CacheEvictions");
+				evictions.merge(name.getKeyProperty("Cache"), ((Number) cacheEvictions).longValue(), Long::sum);
+			}
+		} catch (JMException e) {
+			// The provider does not publish its statistics, no eviction is reported.
+		}
+		return evictions;
+	}
+
+}
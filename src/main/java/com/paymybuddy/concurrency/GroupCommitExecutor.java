@@ -0,0 +1,169 @@
+package com.paymybuddy.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
+import com.paymybuddy.service.PayMyBuddyService;
+
+/**
+ * Apply the transfers submitted concurrently together, in a single database
+ * transaction, so that they share its commit. <br>
+ * <br>
+ * The first transfer submitted opens a group, its caller waits up to
+ * <b>paymybuddy.transfer.group-commit.window-ms</b> for others to join, or
+ * until the group holds <b>paymybuddy.transfer.group-commit.max-size</b>
+ * transfers, then applies the whole group with
+ * {@link PayMyBuddyService#createTransactions}. The next transfers open the
+ * next group while this one is being committed. <br>
+ * A transfer which cannot be done only fails itself: when the group cannot be
+ * committed, its transfers are done again one by one. Every caller gets the
+ * result of its own transfer. <br>
+ * The groups, and the transfers they held, are counted, see
+ * {@link #getGroups()}.
+ */
+@Component
+public class GroupCommitExecutor {
+
+	private final PayMyBuddyService payMyBuddyService;
+	private final int maxSize;
+	private final long windowNanos;
+
+	private final Object lock = new Object();
+	private final LongAdder groups = new LongAdder();
+	private final LongAdder transfers = new LongAdder();
+	private List<PendingTransfer> openGroup;
+
+	@Autowired
+	public GroupCommitExecutor(PayMyBuddyService payMyBuddyService,
+			@Value("${paymybuddy.transfer.group-commit.max-size:100}") int maxSize,
+			@Value("${paymybuddy.transfer.group-commit.window-ms:2}") long windowMs) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The provided group size: << " + maxSize + " >> is not valid.");
+		}
+		if (windowMs < 0) {
+			throw new IllegalArgumentException("The provided window: << " + windowMs + " >> is not valid.");
+		}
+		this.payMyBuddyService = payMyBuddyService;
+		this.maxSize = maxSize;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+	}
+
+	/**
+	 * Do a transfer with the others submitted meanwhile. <br>
+	 *
+	 * @param transferRequest : the transfer to do
+	 * @return the result of the transfer, once its group is committed
+	 */
+	public TransferResult submit(TransferRequest transferRequest) {
+		PendingTransfer pendingTransfer = new PendingTransfer(transferRequest);
+		List<PendingTransfer> group;
+		boolean leader;
+		synchronized (lock) {
+			leader = openGroup == null;
+			if (leader) {
+				openGroup = new ArrayList<>(maxSize);
+			}
+			group = openGroup;
+			group.add(pendingTransfer);
+			if (group.size() >= maxSize) {
+				openGroup = null;
+				lock.notifyAll();
+			}
+			if (leader) {
+				awaitGroup(group);
+			}
+		}
+		if (leader) {
+			commit(group);
+		}
+
+		try {
+			return pendingTransfer.result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the number of groups committed so far
+	 */
+	public long getGroups() {
+		return groups.sum();
+	}
+
+	/**
+	 * @return the number of transfers committed so far, by all the groups
+	 */
+	public long getTransfers() {
+		return transfers.sum();
+	}
+
+	/**
+	 * Wait, holding the lock, for the group to be full or for the window to
+	 * elapse, then close the group.
+	 */
+	private void awaitGroup(List<PendingTransfer> group) {
+		long deadline = System.nanoTime() + windowNanos;
+		boolean interrupted = false;
+		long remaining;
+		while (openGroup == group && (remaining = deadline - System.nanoTime()) > 0) {
+			try {
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			} catch (InterruptedException e) {
+				// The transfers of the group are waited for, commit them now.
+				interrupted = true;
+				break;
+			}
+		}
+		if (openGroup == group) {
+			openGroup = null;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void commit(List<PendingTransfer> group) {
+		List<TransferRequest> transferRequests = new ArrayList<>(group.size());
+		for (PendingTransfer pendingTransfer : group) {
+			transferRequests.add(pendingTransfer.transferRequest);
+		}
+		try {
+			List<TransferResult> transferResults = payMyBuddyService.createTransactions(transferRequests);
+			groups.increment();
+			transfers.add(group.size());
+			for (int i = 0; i < group.size(); i++) {
+				group.get(i).result.complete(transferResults.get(i));
+			}
+		} catch (RuntimeException | Error e) {
+			for (PendingTransfer pendingTransfer : group) {
+				pendingTransfer.result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private static final class PendingTransfer {
+
+		private final TransferRequest transferRequest;
+		private final CompletableFuture<TransferResult> result = new CompletableFuture<>();
+
+		private PendingTransfer(TransferRequest transferRequest) {
+			this.transferRequest = transferRequest;
+		}
+
+	}
+
+}
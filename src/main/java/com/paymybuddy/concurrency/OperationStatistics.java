@@ -0,0 +1,57 @@
+package com.paymybuddy.concurrency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention counters of one operation run by the
+ * {@link OptimisticRetryExecutor}. <br>
+ * - conflicts : the attempts which failed because of a concurrent update, <br>
+ * - retries : the attempts done again after a conflict, <br>
+ * - give-ups : the operations which failed after their last attempt. <br>
+ */
+public class OperationStatistics {
+
+	private final String operation;
+	private final LongAdder conflicts = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder giveUps = new LongAdder();
+
+	public OperationStatistics(String operation) {
+		this.operation = operation;
+	}
+
+	void incrementConflicts() {
+		conflicts.increment();
+	}
+
+	void incrementRetries() {
+		retries.increment();
+	}
+
+	void incrementGiveUps() {
+		giveUps.increment();
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public long getConflicts() {
+		return conflicts.sum();
+	}
+
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	public long getGiveUps() {
+		return giveUps.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "OperationStatistics [operation=" + operation + ", conflicts=" + conflicts + ", retries=" + retries
+				+ ", giveUps=" + giveUps + "]";
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.paymybuddy.concurrency;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.persistence.OptimisticLockException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Run an operation in its own database transaction, doing it again when it
+ * conflicts with a concurrent update. <br>
+ * <br>
+ * The {@link com.paymybuddy.model.User} rows are versioned, a transaction
+ * updating a user modified in the meantime is rolled back instead of
+ * overwriting the other update. The operation is then done again, from a fresh
+ * read of the database, up to <b>paymybuddy.retry.max-attempts</b> times. <br>
+ * Between two attempts, the executor wait for a random delay between 0 and an
+ * exponential backoff, bounded by <b>paymybuddy.retry.max-backoff-ms</b>, so
+ * that the conflicting operations do not collide again. <br>
+ * <br>
+ * When the operation is called inside an existing transaction, it joins it and
+ * cannot be retried here: the conflict is counted and thrown to the caller.
+ * <br>
+ * The conflicts, retries and give-ups are counted per operation, see
+ * {@link #getStatistics()}.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+	private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+	private final TransactionTemplate transactionTemplate;
+	private final int maxAttempts;
+	private final long initialBackoffMs;
+	private final long maxBackoffMs;
+	private final Map<String, OperationStatistics> statistics = new ConcurrentHashMap<>();
+
+	@Autowired
+	public OptimisticRetryExecutor(TransactionTemplate transactionTemplate,
+			@Value("${paymybuddy.retry.max-attempts:5}") int maxAttempts,
+			@Value("${paymybuddy.retry.initial-backoff-ms:10}") long initialBackoffMs,
+			@Value("${paymybuddy.retry.max-backoff-ms:200}") long maxBackoffMs) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("The maximum number of attempts: << " + maxAttempts
+					+ " >> is not valid.");
+		}
+		if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+			throw new IllegalArgumentException("The backoff: << " + initialBackoffMs + ", " + maxBackoffMs
+					+ " >> is not valid.");
+		}
+		this.transactionTemplate = transactionTemplate;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMs = initialBackoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+	}
+
+	/**
+	 * Run the action in a database transaction, retrying it on conflicts. <br>
+	 * The action must read the entities it update from the database, as it may
+	 * be run more than once. <br>
+	 *
+	 * @param operation : the name the statistics are counted under
+	 * @param action    : the work to do
+	 */
+	public void execute(String operation, Runnable action) {
+		OperationStatistics operationStatistics = statistics.computeIfAbsent(operation, OperationStatistics::new);
+
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			try {
+				action.run();
+				return;
+			} catch (RuntimeException e) {
+				if (isConflict(e)) {
+					operationStatistics.incrementConflicts();
+					operationStatistics.incrementGiveUps();
+				}
+				throw e;
+			}
+		}
+
+		for (int attempt = 1;; attempt++) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> action.run());
+				return;
+			} catch (RuntimeException e) {
+				if (!isConflict(e)) {
+					throw e;
+				}
+				operationStatistics.incrementConflicts();
+				if (attempt >= maxAttempts) {
+					operationStatistics.incrementGiveUps();
+					logger.warn("{} gave up after {} conflicting attempts", operation, attempt);
+					throw e;
+				}
+				logger.debug("{} conflicted with a concurrent update, attempt {}", operation, attempt);
+				if (!backoff(attempt)) {
+					operationStatistics.incrementGiveUps();
+					throw e;
+				}
+				operationStatistics.incrementRetries();
+			}
+		}
+	}
+
+	/**
+	 * @return the statistics of every operation run so far, by operation name
+	 */
+	public Map<String, OperationStatistics> getStatistics() {
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	/**
+	 * @return the statistics of the operation, empty ones if it never ran
+	 */
+	public OperationStatistics getStatistics(String operation) {
+		return statistics.getOrDefault(operation, new OperationStatistics(operation));
+	}
+
+	/**
+	 * Wait before the next attempt, for a random delay up to
+	 * initialBackoffMs * 2^(attempt - 1), bounded by maxBackoffMs.
+	 *
+	 * @return false if the thread was interrupted while waiting
+	 */
+	private boolean backoff(int attempt) {
+		long ceiling = initialBackoffMs << Math.min(attempt - 1, 30);
+		if (ceiling > maxBackoffMs || ceiling < 0) {
+			ceiling = maxBackoffMs;
+		}
+		if (ceiling == 0) {
+			return true;
+		}
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static boolean isConflict(Throwable exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConcurrencyFailureException || cause instanceof OptimisticLockException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.paymybuddy.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.security.AccessTokenAuthenticationFilter;
+import com.paymybuddy.security.AccessTokenService;
+import com.paymybuddy.security.UserPrincipal;
+
+/**
+ * Controller used to exchange the credentials of a user for an access token.
+ * <br>
+ * <b>POST /login/token</b> with the <b>email</b> and <b>password</b>
+ * parameters check the password, once, and return the token to send as
+ * <b>Authorization: Bearer</b> header with the next requests. <br>
+ * <b>POST /logout/token</b> revoke the token of the Authorization header.
+ */
+@RestController
+public class AccessTokenController {
+
+	private final AuthenticationManager authenticationManager;
+	private final AccessTokenService accessTokenService;
+
+	@Autowired
+	public AccessTokenController(AuthenticationManager authenticationManager,
+			AccessTokenService accessTokenService) {
+		this.authenticationManager = authenticationManager;
+		this.accessTokenService = accessTokenService;
+	}
+
+	@PostMapping("/login/token")
+	public ResponseEntity<Map<String, Object>> login(@RequestParam String email, @RequestParam String password) {
+		Authentication authentication;
+		try {
+			authentication = authenticationManager
+					.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+		} catch (AuthenticationException e) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+
+		// The user name of the principal is the first name, the token is bound to the email.
+		UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("accessToken", accessTokenService.issue(principal.getEmail()));
+		body.put("tokenType", "Bearer");
+		body.put("expiresIn", accessTokenService.getTimeToLiveMs() / 1000);
+		return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, "no-store").body(body);
+	}
+
+	@PostMapping("/logout/token")
+	public ResponseEntity<Void> logout(HttpServletRequest request) {
+		String token = AccessTokenAuthenticationFilter.getBearerToken(request);
+		if (token == null) {
+			return ResponseEntity.badRequest().build();
+		}
+		accessTokenService.validate(token).ifPresent(accessTokenService::revoke);
+		return ResponseEntity.noContent().build();
+	}
+
+}
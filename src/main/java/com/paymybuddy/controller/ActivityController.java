@@ -0,0 +1,51 @@
+package com.paymybuddy.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.ActivityEntry;
+import com.paymybuddy.model.TransactionCursor;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.service.TransactionService;
+import com.paymybuddy.service.UserService;
+
+/**
+ * Controller used to read the activity feed of a user, the transactions it
+ * sent and received, from the most recent one. <br>
+ * <b>GET /activity?userId=1&limit=20</b> for the first page, then
+ * <b>GET /activity?userId=1&limit=20&after=2020-07-01_1234</b> with the cursor
+ * of the last entry of the previous page. <br>
+ * The feed of another user than the authenticated one is refused with a 403
+ * status, see {@link AuthenticatedUser}.
+ */
+@RestController
+public class ActivityController {
+
+	private final TransactionService transactionService;
+	private final UserService userService;
+
+	@Autowired
+	public ActivityController(TransactionService transactionService, UserService userService) {
+		this.transactionService = transactionService;
+		this.userService = userService;
+	}
+
+	@GetMapping("/activity")
+	public ResponseEntity<List<ActivityEntry>> findActivity(Authentication authentication,
+			@RequestParam long userId, @RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "20") int limit) {
+		if (!AuthenticatedUser.isUser(authentication, userId, userService)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		TransactionCursor afterCursor = after == null ? null : TransactionCursor.parse(after);
+		return ResponseEntity.ok(transactionService.findActivity(userId, afterCursor, limit));
+	}
+
+}
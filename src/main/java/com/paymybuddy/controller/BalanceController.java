@@ -0,0 +1,60 @@
+package com.paymybuddy.controller;
+
+import java.sql.Date;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.BalancePoint;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.service.BalanceSnapshotService;
+import com.paymybuddy.service.UserService;
+
+/**
+ * Controller used to read the past balances of a user: <br>
+ * - <b>GET /balance?userId=1&date=2020-07-01</b> for the balance at the end of
+ * a day, <br>
+ * - <b>GET /balance/daily?userId=1&from=2020-06-01&to=2020-06-30</b> for the
+ * balance at the end of every day of a period. <br>
+ * The balances of another user than the authenticated one are refused with a
+ * 403 status, see {@link AuthenticatedUser}.
+ */
+@RestController
+public class BalanceController {
+
+	private final BalanceSnapshotService balanceSnapshotService;
+	private final UserService userService;
+
+	@Autowired
+	public BalanceController(BalanceSnapshotService balanceSnapshotService, UserService userService) {
+		this.balanceSnapshotService = balanceSnapshotService;
+		this.userService = userService;
+	}
+
+	@GetMapping("/balance")
+	public ResponseEntity<Money> getBalanceAt(Authentication authentication, @RequestParam long userId,
+			@RequestParam String date) {
+		if (!AuthenticatedUser.isUser(authentication, userId, userService)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		return ResponseEntity.ok(balanceSnapshotService.getBalanceAt(userId, Date.valueOf(date)));
+	}
+
+	@GetMapping("/balance/daily")
+	public ResponseEntity<List<BalancePoint>> getDailyBalances(Authentication authentication,
+			@RequestParam long userId, @RequestParam String from, @RequestParam String to) {
+		if (!AuthenticatedUser.isUser(authentication, userId, userService)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		return ResponseEntity
+				.ok(balanceSnapshotService.getDailyBalances(userId, Date.valueOf(from), Date.valueOf(to)));
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.paymybuddy.controller;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.service.BankAccountService;
+import com.paymybuddy.service.PayMyBuddyService;
+import com.paymybuddy.service.UserService;
+
+/**
+ * Controller used to move money between the account of the authenticated user
+ * and its bank account: <br>
+ * - <b>POST /bankTransfer/deposit?iban=FR76...&amount=10.00</b> to add money
+ * from the bank account, <br>
+ * - <b>POST /bankTransfer/withdrawal?iban=FR76...&amount=10.00</b> to send
+ * money to the bank account. <br>
+ * A transfer sent with an <b>Idempotency-Key</b> header is done once per key
+ * of the user: sent again with the same key, it is answered the same way
+ * without moving the money twice.
+ */
+@RestController
+public class BankTransferController {
+
+	private final UserService userService;
+	private final BankAccountService bankAccountService;
+	private final PayMyBuddyService payMyBuddyService;
+
+	@Autowired
+	public BankTransferController(UserService userService, BankAccountService bankAccountService,
+			PayMyBuddyService payMyBuddyService) {
+		this.userService = userService;
+		this.bankAccountService = bankAccountService;
+		this.payMyBuddyService = payMyBuddyService;
+	}
+
+	@PostMapping("/bankTransfer/deposit")
+	public ResponseEntity<String> deposit(Authentication authentication, @RequestParam String iban,
+			@RequestParam String amount,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+		return transfer(authentication, iban, amount, (user, bankAccount, amountTransfered) -> payMyBuddyService
+				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered, idempotencyKey));
+	}
+
+	@PostMapping("/bankTransfer/withdrawal")
+	public ResponseEntity<String> withdrawal(Authentication authentication, @RequestParam String iban,
+			@RequestParam String amount,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+		return transfer(authentication, iban, amount,
+				(user, bankAccount, amountTransfered) -> payMyBuddyService
+						.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount,
+								amountTransfered, idempotencyKey));
+	}
+
+	private ResponseEntity<String> transfer(Authentication authentication, String iban, String amount,
+			BankTransfer bankTransfer) {
+		Optional<String> email = AuthenticatedUser.getEmail(authentication);
+		if (!email.isPresent()) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		try {
+			User user = userService.getUser(email.get()).orElseThrow(() -> new NoSuchElementException(
+					"The provided User: << " + email.get() + " >> cannot be found."));
+			BankAccount bankAccount = bankAccountService.getBankAccount(iban).orElseThrow(
+					() -> new NoSuchElementException("The provided Bank account: << " + iban + " >> cannot be found."));
+			bankTransfer.transfer(user, bankAccount, Money.parse(amount));
+			return ResponseEntity.ok().build();
+		} catch (NoSuchElementException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@FunctionalInterface
+	private interface BankTransfer {
+
+		void transfer(User user, BankAccount bankAccount, Money amountTransfered);
+
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.paymybuddy.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.paymybuddy.service.ResourceVersionService;
+
+/**
+ * Filter answering the conditional GET of the polled Spring Data REST
+ * resources: <br>
+ * - <b>/user/{id}</b> and <b>/user/search/findByEmail?email=</b>, which carry
+ * the balance of the user, <br>
+ * - <b>/transaction/search/history*?userId=</b>. <br>
+ * The ETag is read by the {@link ResourceVersionService}, from a single
+ * column. When it matches the <b>If-None-Match</b> header, the request is
+ * answered with a 304 status and the resource is never loaded. Otherwise the
+ * ETag is read before the resource: if the resource change in between, the
+ * client only get a full response once more. It is set on the response only
+ * if its status is a success, when the body starts to be written or once the
+ * request is done, so that a 404 or an error is never cached with it.
+ */
+@Component
+public class ConditionalGetFilter extends OncePerRequestFilter {
+
+	private static final Pattern USER_PATH = Pattern.compile("/user/(\\d+)");
+	private static final String USER_BY_EMAIL_PATH = "/user/search/findByEmail";
+	private static final Pattern HISTORY_PATH = Pattern
+			.compile("/transaction/search/(history|historyAfter|historySummary|historySummaryAfter)");
+
+	private final ResourceVersionService resourceVersionService;
+
+	@Autowired
+	public ConditionalGetFilter(ResourceVersionService resourceVersionService) {
+		this.resourceVersionService = resourceVersionService;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.GET.matches(request.getMethod());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		Optional<String> eTag = getETag(request);
+		if (!eTag.isPresent()) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag.get())) {
+			response.setHeader(HttpHeaders.ETAG, eTag.get());
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		ETagResponse eTagResponse = new ETagResponse(response, eTag.get());
+		filterChain.doFilter(request, eTagResponse);
+		eTagResponse.setETagIfSuccessful();
+	}
+
+	private Optional<String> getETag(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		try {
+			Matcher userMatcher = USER_PATH.matcher(path);
+			if (userMatcher.matches()) {
+				return resourceVersionService.getUserETag(Long.parseLong(userMatcher.group(1)));
+			}
+			if (USER_BY_EMAIL_PATH.equals(path) && request.getParameter("email") != null) {
+				return resourceVersionService.getUserETagByEmail(request.getParameter("email"));
+			}
+			if (HISTORY_PATH.matcher(path).matches() && request.getParameter("userId") != null) {
+				return Optional.of(resourceVersionService.getHistoryETag(Long.parseLong(request.getParameter("userId"))));
+			}
+		} catch (NumberFormatException e) {
+			// Not a valid id, Spring Data REST answer the request.
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @return true if the If-None-Match header contains the ETag, compared weakly
+	 *         as required for a GET, or is <b>*</b>
+	 */
+	private static boolean matches(String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String trimmed = candidate.trim();
+			if (trimmed.equals("*") || weak(trimmed).equals(weak(eTag))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String weak(String eTag) {
+		return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+	}
+
+	/**
+	 * Response setting the ETag before its body is written, if its status is a
+	 * success.
+	 */
+	private static final class ETagResponse extends HttpServletResponseWrapper {
+
+		private final String eTag;
+		private boolean eTagChecked;
+
+		private ETagResponse(HttpServletResponse response, String eTag) {
+			super(response);
+			this.eTag = eTag;
+		}
+
+		private void setETagIfSuccessful() {
+			if (eTagChecked || isCommitted()) {
+				return;
+			}
+			eTagChecked = true;
+			if (getStatus() >= 200 && getStatus() < 300) {
+				setHeader(HttpHeaders.ETAG, eTag);
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			setETagIfSuccessful();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			setETagIfSuccessful();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			setETagIfSuccessful();
+			super.flushBuffer();
+		}
+
+	}
+
+}
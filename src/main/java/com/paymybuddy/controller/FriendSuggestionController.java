@@ -0,0 +1,47 @@
+package com.paymybuddy.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.FriendSuggestion;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.service.FriendSuggestionService;
+import com.paymybuddy.service.UserService;
+
+/**
+ * Controller used to suggest new friends to a user. <br>
+ * <b>GET /suggestion/friend?userId=1</b> <br>
+ * The suggestions are the friends of the friends of the user, the ones having
+ * the most mutual friends first. <br>
+ * The suggestions of another user than the authenticated one are refused with
+ * a 403 status, see {@link AuthenticatedUser}.
+ */
+@RestController
+public class FriendSuggestionController {
+
+	private final FriendSuggestionService friendSuggestionService;
+	private final UserService userService;
+
+	@Autowired
+	public FriendSuggestionController(FriendSuggestionService friendSuggestionService, UserService userService) {
+		this.friendSuggestionService = friendSuggestionService;
+		this.userService = userService;
+	}
+
+	@GetMapping("/suggestion/friend")
+	public ResponseEntity<List<FriendSuggestion>> suggestFriends(Authentication authentication,
+			@RequestParam long userId) {
+		if (!AuthenticatedUser.isUser(authentication, userId, userService)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		return ResponseEntity.ok(friendSuggestionService.suggestFriends(userId));
+	}
+
+}
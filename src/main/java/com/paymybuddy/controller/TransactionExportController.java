@@ -0,0 +1,78 @@
+package com.paymybuddy.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.TransactionExportFormat;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.service.TransactionService;
+import com.paymybuddy.service.UserService;
+
+/**
+ * Controller used to download the full transaction history of a user. <br>
+ * <b>GET /export/transaction?userId=1&format=csv&gzip=true</b> <br>
+ * The rows are written to the response while they are read from the database,
+ * the response is never built in memory. With <b>gzip</b>, the body is
+ * compressed on the fly and sent with the gzip Content-Encoding. <br>
+ * The history of another user than the authenticated one is refused with a
+ * 403 status, see {@link AuthenticatedUser}.
+ */
+@RestController
+public class TransactionExportController {
+
+	private final TransactionService transactionService;
+	private final UserService userService;
+
+	@Autowired
+	public TransactionExportController(TransactionService transactionService, UserService userService) {
+		this.transactionService = transactionService;
+		this.userService = userService;
+	}
+
+	@GetMapping("/export/transaction")
+	public void exportHistory(Authentication authentication, @RequestParam long userId,
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response) throws IOException {
+		if (!AuthenticatedUser.isUser(authentication, userId, userService)) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+		TransactionExportFormat exportFormat;
+		try {
+			exportFormat = TransactionExportFormat.valueOf(format.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+					"The provided format: << " + format + " >> is not valid.");
+			return;
+		}
+
+		response.setContentType(exportFormat.getContentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"transactions-" + userId + "." + exportFormat.getFileExtension() + "\"");
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+
+		OutputStream outputStream = gzip ? new GZIPOutputStream(response.getOutputStream())
+				: response.getOutputStream();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+			transactionService.exportHistory(userId, exportFormat, writer);
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.paymybuddy.controller;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.concurrency.GroupCommitExecutor;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
+import com.paymybuddy.model.TransferStatus;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.wal.WriteAheadTransferService;
+
+/**
+ * Controller used to send money to another user: <br>
+ * <b>POST /transfer?to=b@mail.com&amount=10.00&description=</b> <br>
+ * The money is sent by the authenticated user, see {@link AuthenticatedUser}.
+ * A <b>from</b> parameter naming another user is refused with a 403 status.
+ * <br>
+ * When the transfer journal is enabled, the transfer is answered with a 202
+ * status and its sequence once written to the journal, it is applied to the
+ * database afterwards: its sender reads whether it was applied or rejected with
+ * <b>GET /transfer/{sequence}</b>, see {@link TransferStatus}. Otherwise it is
+ * committed with the transfers received meanwhile by the
+ * {@link GroupCommitExecutor} and answered with its {@link TransferResult}.
+ * <br>
+ * An amount which is not a number, or has more than two decimals, is refused
+ * with a 400 status. <br>
+ * A transfer sent with an <b>Idempotency-Key</b> header takes the same way
+ * and is done once per key of its sender: sent again with the same key, it is
+ * answered with the same result, or the same sequence, without moving the
+ * money twice.
+ */
+@RestController
+public class TransferController {
+
+	private final GroupCommitExecutor groupCommitExecutor;
+	private final WriteAheadTransferService writeAheadTransferService;
+
+	@Autowired
+	public TransferController(GroupCommitExecutor groupCommitExecutor,
+			WriteAheadTransferService writeAheadTransferService) {
+		this.groupCommitExecutor = groupCommitExecutor;
+		this.writeAheadTransferService = writeAheadTransferService;
+	}
+
+	@PostMapping("/transfer")
+	public ResponseEntity<Object> transfer(Authentication authentication,
+			@RequestParam(required = false) String from, @RequestParam String to, @RequestParam String amount,
+			@RequestParam(required = false) String description,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+		Optional<String> emailOfTheUserSendingMoney = AuthenticatedUser.getEmail(authentication);
+		if (!emailOfTheUserSendingMoney.isPresent()
+				|| (from != null && !from.equals(emailOfTheUserSendingMoney.get()))) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+
+		try {
+			TransferRequest transferRequest = new TransferRequest(emailOfTheUserSendingMoney.get(), to, description,
+					Money.parse(amount), idempotencyKey);
+			if (writeAheadTransferService.isEnabled()) {
+				return ResponseEntity.status(HttpStatus.ACCEPTED)
+						.body(writeAheadTransferService.submit(transferRequest));
+			}
+			return ResponseEntity.ok(groupCommitExecutor.submit(transferRequest));
+		} catch (NoSuchElementException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@GetMapping("/transfer/{sequence}")
+	public ResponseEntity<TransferStatus> getStatus(Authentication authentication, @PathVariable long sequence) {
+		Optional<String> emailOfTheUserSendingMoney = AuthenticatedUser.getEmail(authentication);
+		if (!emailOfTheUserSendingMoney.isPresent()) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		if (!writeAheadTransferService.isEnabled()) {
+			return ResponseEntity.notFound().build();
+		}
+		try {
+			return ResponseEntity.ok(writeAheadTransferService.getStatus(emailOfTheUserSendingMoney.get(), sequence));
+		} catch (NoSuchElementException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+}
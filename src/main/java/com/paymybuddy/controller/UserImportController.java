@@ -0,0 +1,52 @@
+package com.paymybuddy.controller;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.paymybuddy.model.UserImportCheckpoint;
+import com.paymybuddy.model.UserImportFormat;
+import com.paymybuddy.service.UserImportService;
+
+/**
+ * Controller used to create the users of a file in bulk. <br>
+ * <b>POST /import/user?importId=partner-2020-07&format=csv</b> with the file as
+ * request body. <br>
+ * The body is read as a stream, it is never loaded in memory. The same request
+ * sent again after a failure resume the import where it stopped.
+ */
+@RestController
+public class UserImportController {
+
+	private final UserImportService userImportService;
+
+	@Autowired
+	public UserImportController(UserImportService userImportService) {
+		this.userImportService = userImportService;
+	}
+
+	@PostMapping("/import/user")
+	public ResponseEntity<UserImportCheckpoint> importUsers(@RequestParam String importId,
+			@RequestParam(defaultValue = "csv") String format, HttpServletRequest request) throws IOException {
+		UserImportFormat importFormat;
+		try {
+			importFormat = UserImportFormat.valueOf(format.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		try (Reader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+			return ResponseEntity.ok(userImportService.importUsers(importId, importFormat, reader));
+		}
+	}
+
+}
@@ -0,0 +1,401 @@
+package com.paymybuddy.graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.repository.UserRepository;
+
+/**
+ * In-memory copy of the user_friends table, answering the friendship
+ * questions without loading any {@link com.paymybuddy.model.User}. <br>
+ * <br>
+ * The friend ids of a user are kept in a sorted <b>long[]</b>, the arrays
+ * being held by an open addressing hash table keyed by user id. An edge costs
+ * 8 bytes, plus a few tens of bytes per user. A friendship check is a hash
+ * lookup and a binary search, it does not allocate. <br>
+ * <br>
+ * The index is loaded from the database on first use and then kept up to date
+ * by {@link #friendsChanged(long, int, long[])}, applied when the database
+ * transaction commits. Every write of a user, whichever the way, is told to
+ * the index by the {@link UserFriendsListener}. <br>
+ * The transactions commit in the order of the user version but their
+ * callbacks may run in any order: each list is stamped with the version of the
+ * user it was read from, a list older than the one held is ignored. So a
+ * change committed while the index is loaded is not lost nor applied twice,
+ * and a late callback does not bring back a stale list. <br>
+ * The {@link FriendshipListener} are told of every change applied.
+ */
+@Component
+public class FriendIndex {
+
+	private static final long[] NO_FRIENDS = new long[0];
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int NO_VERSION = -1;
+
+	private final UserRepository userRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final StampedLock lock = new StampedLock();
+	private final List<FriendshipListener> listeners = new CopyOnWriteArrayList<>();
+
+	private long[] userIds;
+	private long[][] friendIds;
+	private int[] versions;
+	private int numberOfUsers;
+	private long numberOfEdges;
+	private volatile boolean loaded;
+
+	@Autowired
+	public FriendIndex(UserRepository userRepository, TransactionTemplate transactionTemplate) {
+		this.userRepository = userRepository;
+		this.transactionTemplate = transactionTemplate;
+		clear(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @return true if the friend is in the friend list of the user
+	 */
+	public boolean isFriend(long userId, long friendId) {
+		ensureLoaded();
+		long stamp = lock.readLock();
+		try {
+			return Arrays.binarySearch(friendsOf(userId), friendId) >= 0;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @return the number of friends of the user
+	 */
+	public int countFriends(long userId) {
+		ensureLoaded();
+		long stamp = lock.readLock();
+		try {
+			return friendsOf(userId).length;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * @return a copy of the friend ids of the user, in ascending order
+	 */
+	public long[] getFriendIds(long userId) {
+		ensureLoaded();
+		long stamp = lock.readLock();
+		try {
+			long[] friends = friendsOf(userId);
+			return friends.length == 0 ? NO_FRIENDS : friends.clone();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Call the consumer with every friend id of the user, in ascending order,
+	 * without copying them. <br>
+	 * The friend list is read as it was when the call started.
+	 */
+	public void forEachFriend(long userId, LongConsumer consumer) {
+		ensureLoaded();
+		long[] friends;
+		long stamp = lock.readLock();
+		try {
+			friends = friendsOf(userId);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		// The arrays are never modified once published, only replaced.
+		for (long friendId : friends) {
+			consumer.accept(friendId);
+		}
+	}
+
+	/**
+	 * Record a friend added to the friend list of the user, once the current
+	 * database transaction commits, at once if there is none. <br>
+	 * The change is not stamped with a version: it is meant for a friendship
+	 * not written through a {@link com.paymybuddy.model.User} entity.
+	 */
+	public void friendAdded(long userId, long friendId) {
+		afterCommit(() -> add(userId, friendId));
+	}
+
+	/**
+	 * Record a friend removed from the friend list of the user, once the current
+	 * database transaction commits, at once if there is none. <br>
+	 * The change is not stamped with a version: it is meant for a friendship
+	 * not written through a {@link com.paymybuddy.model.User} entity.
+	 */
+	public void friendRemoved(long userId, long friendId) {
+		afterCommit(() -> remove(userId, friendId));
+	}
+
+	/**
+	 * Record the whole friend list of the user, once the current database
+	 * transaction commits, at once if there is none. The friends added and
+	 * removed since the list held by the index are told to the listeners. <br>
+	 * The list is ignored if the one held was read from the same or a newer
+	 * version of the user.
+	 */
+	public void friendsChanged(long userId, int version, long[] friendIds) {
+		long[] friends = LongStream.of(friendIds).sorted().distinct().toArray();
+		afterCommit(() -> replace(userId, version, friends));
+	}
+
+	public void addListener(FriendshipListener listener) {
+		listeners.add(listener);
+	}
+
+	public int getNumberOfUsers() {
+		long stamp = lock.readLock();
+		try {
+			return numberOfUsers;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public long getNumberOfEdges() {
+		long stamp = lock.readLock();
+		try {
+			return numberOfEdges;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		long stamp = lock.writeLock();
+		try {
+			if (!loaded) {
+				load();
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Read the rows ordered by user id, so that the friend ids of a user come
+	 * sorted and contiguous. A user without friend comes in a single row
+	 * without friend id, its version is kept all the same. Called with the write
+	 * lock held.
+	 */
+	private void load() {
+		clear(INITIAL_CAPACITY);
+		transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<Object[]> friendships = userRepository.streamFriendships()) {
+				long currentUserId = EMPTY_KEY;
+				int currentVersion = NO_VERSION;
+				long[] buffer = new long[16];
+				int size = 0;
+				Iterator<Object[]> iterator = friendships.iterator();
+				while (iterator.hasNext()) {
+					Object[] friendship = iterator.next();
+					long userId = ((Number) friendship[0]).longValue();
+					if (userId != currentUserId) {
+						putLoaded(currentUserId, currentVersion, buffer, size);
+						currentUserId = userId;
+						currentVersion = ((Number) friendship[1]).intValue();
+						size = 0;
+					}
+					if (friendship[2] == null) {
+						continue;
+					}
+					long friendId = ((Number) friendship[2]).longValue();
+					if (size > 0 && buffer[size - 1] == friendId) {
+						continue;
+					}
+					if (size == buffer.length) {
+						buffer = Arrays.copyOf(buffer, size * 2);
+					}
+					buffer[size++] = friendId;
+				}
+				putLoaded(currentUserId, currentVersion, buffer, size);
+			}
+		});
+		loaded = true;
+	}
+
+	private void putLoaded(long userId, int version, long[] buffer, int size) {
+		if (userId != EMPTY_KEY) {
+			put(userId, size == 0 ? NO_FRIENDS : Arrays.copyOf(buffer, size), version);
+			numberOfEdges += size;
+		}
+	}
+
+	private void add(long userId, long friendId) {
+		long stamp = lock.writeLock();
+		try {
+			long[] friends = friendsOf(userId);
+			int position = Arrays.binarySearch(friends, friendId);
+			if (position >= 0) {
+				return;
+			}
+			int insertion = -position - 1;
+			long[] newFriends = new long[friends.length + 1];
+			System.arraycopy(friends, 0, newFriends, 0, insertion);
+			newFriends[insertion] = friendId;
+			System.arraycopy(friends, insertion, newFriends, insertion + 1, friends.length - insertion);
+			put(userId, newFriends, versionOf(userId));
+			numberOfEdges++;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		notifyListeners(userId, friendId);
+	}
+
+	private void remove(long userId, long friendId) {
+		long stamp = lock.writeLock();
+		try {
+			long[] friends = friendsOf(userId);
+			int position = Arrays.binarySearch(friends, friendId);
+			if (position < 0) {
+				return;
+			}
+			long[] newFriends = new long[friends.length - 1];
+			System.arraycopy(friends, 0, newFriends, 0, position);
+			System.arraycopy(friends, position + 1, newFriends, position, friends.length - position - 1);
+			// A user without friend keep its slot, the table never shrinks.
+			put(userId, newFriends, versionOf(userId));
+			numberOfEdges--;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		notifyListeners(userId, friendId);
+	}
+
+	private void replace(long userId, int version, long[] newFriends) {
+		long[] oldFriends;
+		long stamp = lock.writeLock();
+		try {
+			if (version <= versionOf(userId)) {
+				// Read before the list held, its transaction committed first.
+				return;
+			}
+			oldFriends = friendsOf(userId);
+			put(userId, newFriends.length == 0 ? NO_FRIENDS : newFriends, version);
+			if (Arrays.equals(oldFriends, newFriends)) {
+				return;
+			}
+			numberOfEdges += newFriends.length - oldFriends.length;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		// Both lists are sorted, the friends in only one of them changed.
+		int i = 0;
+		int j = 0;
+		while (i < oldFriends.length || j < newFriends.length) {
+			if (j == newFriends.length || (i < oldFriends.length && oldFriends[i] < newFriends[j])) {
+				notifyListeners(userId, oldFriends[i++]);
+			} else if (i == oldFriends.length || newFriends[j] < oldFriends[i]) {
+				notifyListeners(userId, newFriends[j++]);
+			} else {
+				i++;
+				j++;
+			}
+		}
+	}
+
+	private void notifyListeners(long userId, long friendId) {
+		for (FriendshipListener listener : listeners) {
+			listener.friendshipChanged(userId, friendId);
+		}
+	}
+
+	private void afterCommit(Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+		});
+	}
+
+	private long[] friendsOf(long userId) {
+		int slot = slot(userIds, userId);
+		return userIds[slot] == userId ? friendIds[slot] : NO_FRIENDS;
+	}
+
+	private int versionOf(long userId) {
+		int slot = slot(userIds, userId);
+		return userIds[slot] == userId ? versions[slot] : NO_VERSION;
+	}
+
+	private void put(long userId, long[] friends, int version) {
+		int slot = slot(userIds, userId);
+		if (userIds[slot] != userId) {
+			// Keep the load factor under 1/2, the probe sequences stay short.
+			if ((numberOfUsers + 1) * 2 > userIds.length) {
+				resize(userIds.length * 2);
+				slot = slot(userIds, userId);
+			}
+			userIds[slot] = userId;
+			numberOfUsers++;
+		}
+		friendIds[slot] = friends;
+		versions[slot] = version;
+	}
+
+	private void resize(int capacity) {
+		long[] oldUserIds = userIds;
+		long[][] oldFriendIds = friendIds;
+		int[] oldVersions = versions;
+		userIds = new long[capacity];
+		Arrays.fill(userIds, EMPTY_KEY);
+		friendIds = new long[capacity][];
+		versions = new int[capacity];
+		for (int i = 0; i < oldUserIds.length; i++) {
+			if (oldUserIds[i] != EMPTY_KEY) {
+				int slot = slot(userIds, oldUserIds[i]);
+				userIds[slot] = oldUserIds[i];
+				friendIds[slot] = oldFriendIds[i];
+				versions[slot] = oldVersions[i];
+			}
+		}
+	}
+
+	private void clear(int capacity) {
+		userIds = new long[capacity];
+		Arrays.fill(userIds, EMPTY_KEY);
+		friendIds = new long[capacity][];
+		versions = new int[capacity];
+		numberOfUsers = 0;
+		numberOfEdges = 0;
+	}
+
+	/**
+	 * @return the slot holding the user id, or the empty slot where to put it
+	 */
+	private static int slot(long[] keys, long userId) {
+		int mask = keys.length - 1;
+		long hash = userId * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (keys[slot] != EMPTY_KEY && keys[slot] != userId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+}
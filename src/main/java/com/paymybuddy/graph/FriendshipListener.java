@@ -0,0 +1,14 @@
+package com.paymybuddy.graph;
+
+/**
+ * Told by the {@link FriendIndex} of the friendships changes, once they are
+ * applied to the index.
+ */
+public interface FriendshipListener {
+
+	/**
+	 * The friend was added to, or removed from, the friend list of the user.
+	 */
+	void friendshipChanged(long userId, long friendId);
+
+}
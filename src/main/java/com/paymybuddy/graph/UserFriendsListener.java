@@ -0,0 +1,63 @@
+package com.paymybuddy.graph;
+
+import java.util.List;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.paymybuddy.model.User;
+
+/**
+ * Entity listener of the {@link User} telling the {@link FriendIndex} of its
+ * friend list, whichever the way it is written: by the services, by the
+ * <b>/user/{id}/friends</b> association resource or by a whole user resource.
+ * <br>
+ * The friend list of a user saved is recorded when it is loaded, the one of a
+ * user deleted is emptied. A friend list being owned by its user, a change of
+ * the list increments the version of the user: each list is told with that
+ * version, so that the index keeps the last one committed. The list of a user
+ * deleted is told with the greatest version, nothing can come after it.
+ */
+public class UserFriendsListener {
+
+	private static final long[] NO_FRIENDS = new long[0];
+
+	private final ObjectProvider<FriendIndex> friendIndex;
+
+	@Autowired
+	public UserFriendsListener(ObjectProvider<FriendIndex> friendIndex) {
+		this.friendIndex = friendIndex;
+	}
+
+	@PostPersist
+	@PostUpdate
+	public void userSaved(User user) {
+		List<User> friends = user.getFriends();
+		if (friends == null || !Hibernate.isInitialized(friends)) {
+			return;
+		}
+		long[] friendIds = new long[friends.size()];
+		for (int i = 0; i < friendIds.length; i++) {
+			friendIds[i] = friends.get(i).getId();
+		}
+		friendsChanged(user.getId(), user.getVersion(), friendIds);
+	}
+
+	@PostRemove
+	public void userRemoved(User user) {
+		friendsChanged(user.getId(), Integer.MAX_VALUE, NO_FRIENDS);
+	}
+
+	private void friendsChanged(long userId, int version, long[] friendIds) {
+		FriendIndex index = friendIndex.getIfAvailable();
+		if (index != null) {
+			index.friendsChanged(userId, version, friendIds);
+		}
+	}
+
+}
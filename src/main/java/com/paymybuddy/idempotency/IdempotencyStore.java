@@ -0,0 +1,387 @@
+package com.paymybuddy.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.model.IdempotencyRecord;
+import com.paymybuddy.model.IdempotencyRecord.Outcome;
+import com.paymybuddy.repository.IdempotencyRecordRepository;
+
+/**
+ * Run an operation once per idempotency key, so that a request sent again by
+ * a client, after a timeout for instance, does not move the money twice. <br>
+ * <br>
+ * The outcome of the operation is kept at least
+ * <b>paymybuddy.idempotency.ttl-ms</b>, until purged by the
+ * {@link com.paymybuddy.job.IdempotencyRecordPurgeJob}. An operation done
+ * again with the same key is not run, its outcome is given again: it returns
+ * if it succeeded, it throws the same exception if it was refused. <br>
+ * - the outcomes are first looked up in memory, where at most
+ * <b>paymybuddy.idempotency.cache-size</b> are kept, the least recently used
+ * one being evicted first, <br>
+ * - then in the idempotency_record table, where the outcome of a succeeded
+ * operation is saved in the same database transaction as the operation: a key
+ * is never committed without its operation, nor the reverse. <br>
+ * The refused operations moved no money, their outcome is only kept in
+ * memory. A failure of the database is not kept, the operation is run again
+ * when sent again. <br>
+ * <br>
+ * Two requests with the same key on the same instance are not run
+ * concurrently, the second one waits for the outcome of the first. On
+ * different instances, the one committed second fails on the primary key of
+ * the record and gives the outcome of the first one. <br>
+ * A key sent again for other arguments is refused. The keys are scoped by
+ * their owner, the user doing the operation: two users choosing the same key
+ * do not share its outcome. A record expired and not purged yet is reused
+ * for a new operation. <br>
+ * The operations done in a database transaction of their own, the transfers
+ * committed by group or journaled, look up and save their record in it with
+ * {@link #find} and {@link #saveSucceeded}. <br>
+ * The lookups, and those answered by memory or by the table, are counted.
+ */
+@Component
+public class IdempotencyStore {
+
+	public static final int MAXIMUM_KEY_LENGTH = 64;
+
+	private final IdempotencyRecordRepository idempotencyRecordRepository;
+	private final OptimisticRetryExecutor optimisticRetryExecutor;
+	private final TransactionTemplate transactionTemplate;
+	private final long timeToLiveMs;
+	private final int cacheSize;
+	private final Clock clock;
+	private final Map<String, IdempotencyRecord> records;
+	private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> operationsRunning = new ConcurrentHashMap<>();
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder memoryHits = new LongAdder();
+	private final LongAdder tableHits = new LongAdder();
+
+	@Autowired
+	public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+			OptimisticRetryExecutor optimisticRetryExecutor, TransactionTemplate transactionTemplate,
+			@Value("${paymybuddy.idempotency.ttl-ms:86400000}") long timeToLiveMs,
+			@Value("${paymybuddy.idempotency.cache-size:10000}") int cacheSize) {
+		this(idempotencyRecordRepository, optimisticRetryExecutor, transactionTemplate, timeToLiveMs, cacheSize,
+				Clock.systemUTC());
+	}
+
+	public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+			OptimisticRetryExecutor optimisticRetryExecutor, TransactionTemplate transactionTemplate,
+			long timeToLiveMs, int cacheSize, Clock clock) {
+		if (timeToLiveMs <= 0 || cacheSize < 0) {
+			throw new IllegalArgumentException("The provided idempotency store limits: << " + timeToLiveMs + ", "
+					+ cacheSize + " >> are not valid.");
+		}
+		this.idempotencyRecordRepository = idempotencyRecordRepository;
+		this.optimisticRetryExecutor = optimisticRetryExecutor;
+		this.transactionTemplate = transactionTemplate;
+		this.timeToLiveMs = timeToLiveMs;
+		this.cacheSize = cacheSize;
+		this.clock = clock;
+		this.records = new LinkedHashMap<String, IdempotencyRecord>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+				return size() > IdempotencyStore.this.cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Run an operation in a database transaction, unless it was already done
+	 * by the same owner with the same key. <br>
+	 *
+	 * @param owner          : the user doing the operation, the key is scoped
+	 *                       by it
+	 * @param idempotencyKey : the key chosen by the client, the operation is
+	 *                       always run without one
+	 * @param operation      : the name of the operation
+	 * @param action         : the operation, reading from the database the
+	 *                       entities it updates
+	 * @param arguments      : the arguments the key is bound to
+	 */
+	public void execute(String owner, String idempotencyKey, String operation, Runnable action,
+			Object... arguments) {
+		if (idempotencyKey == null) {
+			action.run();
+			return;
+		}
+		String recordKey = recordKey(owner, idempotencyKey);
+		String fingerprint = fingerprint(operation, arguments);
+		lookups.increment();
+
+		CompletableFuture<IdempotencyRecord> outcome = new CompletableFuture<>();
+		while (true) {
+			IdempotencyRecord remembered = remembered(recordKey);
+			if (remembered != null) {
+				memoryHits.increment();
+				replay(remembered, idempotencyKey, fingerprint);
+				return;
+			}
+			CompletableFuture<IdempotencyRecord> running = operationsRunning.putIfAbsent(recordKey, outcome);
+			if (running == null) {
+				break;
+			}
+			// The outcome of a failure which is not kept is null, the operation
+			// is then run again.
+			IdempotencyRecord runningOutcome = running.join();
+			if (runningOutcome != null) {
+				memoryHits.increment();
+				replay(runningOutcome, idempotencyKey, fingerprint);
+				return;
+			}
+		}
+
+		AtomicBoolean done = new AtomicBoolean();
+		IdempotencyRecord record = null;
+		try {
+			record = run(recordKey, operation, fingerprint, action, done);
+		} catch (IllegalArgumentException e) {
+			record = refused(recordKey, operation, fingerprint, Outcome.NOT_VALID, e);
+			throw e;
+		} catch (NoSuchElementException e) {
+			record = refused(recordKey, operation, fingerprint, Outcome.NOT_FOUND, e);
+			throw e;
+		} finally {
+			if (record != null) {
+				remember(record);
+			}
+			operationsRunning.remove(recordKey, outcome);
+			outcome.complete(record);
+		}
+		if (!done.get()) {
+			tableHits.increment();
+			replay(record, idempotencyKey, fingerprint);
+		}
+	}
+
+	/**
+	 * Read the outcome of an operation already done by the same owner with the
+	 * same key, from memory then from the table, in the database transaction of
+	 * the caller. <br>
+	 *
+	 * @param owner          : the user doing the operation
+	 * @param idempotencyKey : the key chosen by the client
+	 * @return the record of the operation, empty when it was not done or its
+	 *         record expired
+	 */
+	public Optional<IdempotencyRecord> find(String owner, String idempotencyKey) {
+		String recordKey = recordKey(owner, idempotencyKey);
+		lookups.increment();
+		IdempotencyRecord remembered = remembered(recordKey);
+		if (remembered != null) {
+			memoryHits.increment();
+			return Optional.of(remembered);
+		}
+		Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(recordKey)
+				.filter(record -> record.getExpiresAt().isAfter(clock.instant()));
+		if (stored.isPresent()) {
+			tableHits.increment();
+		}
+		return stored;
+	}
+
+	/**
+	 * Save the record of an operation which succeeded, in the database
+	 * transaction of the caller doing it. It is remembered once committed.
+	 * <br>
+	 *
+	 * @param owner           : the user doing the operation
+	 * @param idempotencyKey  : the key chosen by the client
+	 * @param operation       : the name of the operation
+	 * @param journalSequence : the sequence of the journaled transfer, null
+	 *                        when the operation is not journaled
+	 * @param arguments       : the arguments the key is bound to
+	 */
+	public void saveSucceeded(String owner, String idempotencyKey, String operation, Long journalSequence,
+			Object... arguments) {
+		String recordKey = recordKey(owner, idempotencyKey);
+		String fingerprint = fingerprint(operation, arguments);
+		Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(recordKey);
+		IdempotencyRecord succeeded;
+		if (stored.isPresent()) {
+			succeeded = stored.get();
+			succeeded.renew(operation, fingerprint, journalSequence, expiresAt());
+		} else {
+			succeeded = new IdempotencyRecord(recordKey, operation, fingerprint, Outcome.SUCCEEDED, null,
+					journalSequence, expiresAt());
+		}
+		IdempotencyRecord saved = idempotencyRecordRepository.save(succeeded);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			remember(saved);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				remember(saved);
+			}
+		});
+	}
+
+	/**
+	 * @return true if the record is the one of the operation done with the same
+	 *         arguments, false if its key was used for another request
+	 */
+	public boolean matches(IdempotencyRecord record, String operation, Object... arguments) {
+		return record.getFingerprint().equals(fingerprint(operation, arguments));
+	}
+
+	/**
+	 * Delete the records expired from the table.
+	 *
+	 * @return the number of records deleted
+	 */
+	public int purgeExpired() {
+		Instant now = clock.instant();
+		synchronized (records) {
+			records.values().removeIf(record -> !record.getExpiresAt().isAfter(now));
+		}
+		return transactionTemplate.execute(status -> idempotencyRecordRepository.deleteByExpiresAtBefore(now));
+	}
+
+	/**
+	 * @return the number of operations done with a key so far
+	 */
+	public long getLookups() {
+		return lookups.sum();
+	}
+
+	/**
+	 * @return the number of operations given again from memory
+	 */
+	public long getMemoryHits() {
+		return memoryHits.sum();
+	}
+
+	/**
+	 * @return the number of operations given again from the table
+	 */
+	public long getTableHits() {
+		return tableHits.sum();
+	}
+
+	/**
+	 * Run the operation and save its record in the same transaction, or read
+	 * the record of the operation already done. An expired record is renewed
+	 * for the operation, as if it was already purged.
+	 *
+	 * @param done : set when the operation is run here
+	 */
+	private IdempotencyRecord run(String recordKey, String operation, String fingerprint, Runnable action,
+			AtomicBoolean done) {
+		AtomicReference<IdempotencyRecord> record = new AtomicReference<>();
+		try {
+			optimisticRetryExecutor.execute(operation, () -> {
+				done.set(false);
+				Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(recordKey);
+				if (stored.isPresent() && stored.get().getExpiresAt().isAfter(clock.instant())) {
+					record.set(stored.get());
+					return;
+				}
+				action.run();
+				IdempotencyRecord succeeded;
+				if (stored.isPresent()) {
+					succeeded = stored.get();
+					succeeded.renew(operation, fingerprint, null, expiresAt());
+				} else {
+					succeeded = new IdempotencyRecord(recordKey, operation, fingerprint, Outcome.SUCCEEDED, null,
+							expiresAt());
+				}
+				record.set(idempotencyRecordRepository.save(succeeded));
+				done.set(true);
+			});
+		} catch (DataIntegrityViolationException e) {
+			// A concurrent request with the same key was committed first.
+			record.set(transactionTemplate.execute(status -> idempotencyRecordRepository.findById(recordKey))
+					.orElseThrow(() -> e));
+			done.set(false);
+		}
+		return record.get();
+	}
+
+	private IdempotencyRecord refused(String recordKey, String operation, String fingerprint, Outcome outcome,
+			RuntimeException e) {
+		return new IdempotencyRecord(recordKey, operation, fingerprint, outcome, e.getMessage(), expiresAt());
+	}
+
+	private void replay(IdempotencyRecord record, String idempotencyKey, String fingerprint) {
+		if (!record.getFingerprint().equals(fingerprint)) {
+			throw new IllegalArgumentException("The provided idempotency key: << " + idempotencyKey
+					+ " >> is already used by another request.");
+		}
+		record.replay();
+	}
+
+	private IdempotencyRecord remembered(String recordKey) {
+		synchronized (records) {
+			IdempotencyRecord record = records.get(recordKey);
+			if (record != null && !record.getExpiresAt().isAfter(clock.instant())) {
+				records.remove(recordKey);
+				return null;
+			}
+			return record;
+		}
+	}
+
+	private void remember(IdempotencyRecord record) {
+		if (cacheSize == 0) {
+			return;
+		}
+		synchronized (records) {
+			records.put(record.getIdempotencyKey(), record);
+		}
+	}
+
+	private Instant expiresAt() {
+		return clock.instant().plusMillis(timeToLiveMs);
+	}
+
+	/**
+	 * @return the key of the record: a digest of the owner, then the key chosen
+	 *         by the client
+	 */
+	private static String recordKey(String owner, String idempotencyKey) {
+		if (idempotencyKey == null || idempotencyKey.trim().isEmpty()
+				|| idempotencyKey.length() > MAXIMUM_KEY_LENGTH) {
+			throw new IllegalArgumentException("The provided idempotency key: << " + idempotencyKey
+					+ " >> is not valid.");
+		}
+		if (owner == null) {
+			throw new IllegalArgumentException("The provided idempotency key owner: << " + owner
+					+ " >> is not valid.");
+		}
+		return DigestUtils.md5DigestAsHex(owner.getBytes(StandardCharsets.UTF_8)) + ":" + idempotencyKey;
+	}
+
+	private static String fingerprint(String operation, Object... arguments) {
+		StringBuilder builder = new StringBuilder(operation);
+		for (Object argument : arguments) {
+			builder.append('\n').append(argument);
+		}
+		return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.paymybuddy.job;
+
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.paymybuddy.service.BalanceSnapshotService;
+
+/**
+ * Scheduled job writing the balance snapshots of the days before the first
+ * snapshot of the users, from their transactions. <br>
+ * The delay between two runs is defined by the
+ * <b>paymybuddy.snapshot.backfill-interval-ms</b> property, a run with no user
+ * left to backfill only search them. A user failing is backfilled by the next
+ * run.
+ */
+@Component
+public class BalanceSnapshotBackfillJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(BalanceSnapshotBackfillJob.class);
+
+	private final BalanceSnapshotService balanceSnapshotService;
+
+	@Autowired
+	public BalanceSnapshotBackfillJob(BalanceSnapshotService balanceSnapshotService) {
+		this.balanceSnapshotService = balanceSnapshotService;
+	}
+
+	@Scheduled(fixedDelayString = "${paymybuddy.snapshot.backfill-interval-ms:86400000}")
+	public void backfill() {
+		int written = 0;
+		for (long userId : balanceSnapshotService.findUserIdsToBackfill()) {
+			try {
+				written += balanceSnapshotService.backfill(userId);
+			} catch (DataAccessException | NoSuchElementException e) {
+				logger.warn("The balance snapshots of the user {} cannot be backfilled: {}", userId, e.getMessage());
+			}
+		}
+		if (written > 0) {
+			logger.debug("Balance snapshots backfilled: {}", written);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.paymybuddy.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.paymybuddy.idempotency.IdempotencyStore;
+
+/**
+ * Scheduled job deleting the expired idempotency records. <br>
+ * The delay between two purges is defined by the
+ * <b>paymybuddy.idempotency.purge-interval-ms</b> property.
+ */
+@Component
+public class IdempotencyRecordPurgeJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyRecordPurgeJob.class);
+
+	private final IdempotencyStore idempotencyStore;
+
+	@Autowired
+	public IdempotencyRecordPurgeJob(IdempotencyStore idempotencyStore) {
+		this.idempotencyStore = idempotencyStore;
+	}
+
+	@Scheduled(fixedDelayString = "${paymybuddy.idempotency.purge-interval-ms:3600000}")
+	public void purgeExpired() {
+		int deleted = idempotencyStore.purgeExpired();
+		if (deleted > 0) {
+			logger.debug("Expired idempotency records deleted: {}", deleted);
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.paymybuddy.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.paymybuddy.ledger.Ledger;
+
+/**
+ * Scheduled job writing a snapshot of the ledger, when it is enabled. <br>
+ * The delay between two snapshots is defined by the
+ * <b>paymybuddy.ledger.snapshot-interval-ms</b> property.
+ */
+@Component
+public class LedgerSnapshotJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(LedgerSnapshotJob.class);
+
+	private final Ledger ledger;
+
+	@Autowired
+	public LedgerSnapshotJob(Ledger ledger) {
+		this.ledger = ledger;
+	}
+
+	@Scheduled(fixedDelayString = "${paymybuddy.ledger.snapshot-interval-ms:3600000}")
+	public void snapshot() {
+		if (!ledger.isEnabled()) {
+			return;
+		}
+		try {
+			long lastEntryId = ledger.snapshot();
+			logger.debug("Ledger snapshot up to the journal entry: {}", lastEntryId);
+		} catch (DataIntegrityViolationException e) {
+			// Another instance wrote the same snapshot.
+			logger.warn(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.paymybuddy.job;
+
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.service.FeeService;
+
+/**
+ * Scheduled job crediting the pending fees to the paymybuddy account. <br>
+ * The delay between two flushes is defined by the
+ * <b>paymybuddy.fee.flush-interval-ms</b> property.
+ */
+@Component
+public class PendingFeeFlushJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(PendingFeeFlushJob.class);
+
+	private final FeeService feeService;
+
+	@Autowired
+	public PendingFeeFlushJob(FeeService feeService) {
+		this.feeService = feeService;
+	}
+
+	@Scheduled(fixedDelayString = "${paymybuddy.fee.flush-interval-ms:5000}")
+	public void flushPendingFees() {
+		try {
+			Money amountCredited = feeService.flushPendingFees();
+			if (amountCredited.isPositive()) {
+				logger.debug("Pending fees credited to the paymybuddy account: {}", amountCredited);
+			}
+		} catch (NoSuchElementException e) {
+			// The fees stay pending until the paymybuddy account exists.
+			logger.warn(e.getMessage());
+		}
+	}
+
+}
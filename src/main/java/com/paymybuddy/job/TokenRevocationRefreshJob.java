@@ -0,0 +1,41 @@
+package com.paymybuddy.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import com.paymybuddy.security.AccessTokenService;
+
+/**
+ * Scheduled job reading the access tokens revoked by every instance of the
+ * application. <br>
+ * The delay between two reads is defined by the
+ * <b>paymybuddy.security.token.revocation-refresh-ms</b> property, it is the
+ * longest time a token revoked by an instance is still accepted by another.
+ */
+@Component
+public class TokenRevocationRefreshJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRefreshJob.class);
+
+	private final AccessTokenService accessTokenService;
+
+	@Autowired
+	public TokenRevocationRefreshJob(AccessTokenService accessTokenService) {
+		this.accessTokenService = accessTokenService;
+	}
+
+	@Scheduled(fixedDelayString = "${paymybuddy.security.token.revocation-refresh-ms:1000}")
+	public void refreshRevocations() {
+		try {
+			accessTokenService.refreshRevocations();
+		} catch (DataAccessException | TransactionException e) {
+			logger.warn("The token revocations cannot be read, trying again at the next refresh", e);
+		}
+	}
+
+}
@@ -0,0 +1,339 @@
+package com.paymybuddy.ledger;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.model.JournalEntry;
+import com.paymybuddy.model.JournalEntry.Kind;
+import com.paymybuddy.model.JournalEntry.Side;
+import com.paymybuddy.model.LedgerSnapshot;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.repository.JournalEntryRepository;
+import com.paymybuddy.repository.LedgerSnapshotRepository;
+import com.paymybuddy.repository.UserRepository;
+
+/**
+ * Append-only double-entry ledger of the money moved by the application,
+ * enabled by the <b>paymybuddy.ledger.enabled</b> property. <br>
+ * <br>
+ * Every transfer appends, in the database transaction updating the users, the
+ * debit of the sender and the credit of the receiver for the amount, then the
+ * debit of the sender and the credit of {@link #HOUSE_ACCOUNT_ID} for the fee.
+ * The money coming from, or going to, a bank account is recorded against
+ * {@link #BANK_ACCOUNT_ID}. The journal is never updated: when a balance is
+ * wrong, its entries tell how it got there. <br>
+ * <br>
+ * The balances of the accounts are kept in memory, loaded on first use from
+ * the last snapshot and the entries written after it, then kept up to date by
+ * the entries of every committed database transaction. An entry read by the
+ * load is not applied a second time when its transaction completes. <br>
+ * <br>
+ * A snapshot is written by {@link #snapshot()}, from the previous one and the
+ * entries written in between, so that a load only reads the entries written
+ * since. The entry ids being given at insert time, a snapshot stop before the
+ * entries written during the last <b>paymybuddy.ledger.snapshot-lag-ms</b>,
+ * which may not be committed yet. <br>
+ * The first snapshot opens the ledger from the balances of the users, the bank
+ * account holding the opposite of their sum. The end of the journal then the
+ * balances are read with a shared lock: the transfers in progress commit
+ * before, the next ones append their entries after the opening. <br>
+ * <br>
+ * The balances of the users are still updated in place, and still decide
+ * whether a transfer is allowed: the ledger records and reads, it does not
+ * replace them. The balances in memory follow the entries committed by this
+ * instance of the application only.
+ */
+@Component
+public class Ledger {
+
+	/**
+	 * Account credited with every fee collected, whether or not already
+	 * credited to the paymybuddy user by the fee flush.
+	 */
+	public static final long HOUSE_ACCOUNT_ID = 0;
+	/**
+	 * Account standing for the money outside of the application, in the bank
+	 * accounts of the users.
+	 */
+	public static final long BANK_ACCOUNT_ID = -1;
+
+	private final JournalEntryRepository journalEntryRepository;
+	private final LedgerSnapshotRepository ledgerSnapshotRepository;
+	private final UserRepository userRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final long snapshotLagMs;
+	private final Clock clock;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Set<Long> uncommittedEntryIds = ConcurrentHashMap.newKeySet();
+	private final Set<Long> loadedEntryIds = ConcurrentHashMap.newKeySet();
+
+	private volatile Map<Long, Long> balances;
+
+	@Autowired
+	public Ledger(JournalEntryRepository journalEntryRepository, LedgerSnapshotRepository ledgerSnapshotRepository,
+			UserRepository userRepository, TransactionTemplate transactionTemplate,
+			@Value("${paymybuddy.ledger.enabled:false}") boolean enabled,
+			@Value("${paymybuddy.ledger.snapshot-lag-ms:60000}") long snapshotLagMs) {
+		this(journalEntryRepository, ledgerSnapshotRepository, userRepository, transactionTemplate, enabled,
+				snapshotLagMs, Clock.systemUTC());
+	}
+
+	public Ledger(JournalEntryRepository journalEntryRepository, LedgerSnapshotRepository ledgerSnapshotRepository,
+			UserRepository userRepository, TransactionTemplate transactionTemplate, boolean enabled,
+			long snapshotLagMs, Clock clock) {
+		if (snapshotLagMs < 0) {
+			throw new IllegalArgumentException("The provided snapshot lag: << " + snapshotLagMs + " >> is not valid.");
+		}
+		this.journalEntryRepository = journalEntryRepository;
+		this.ledgerSnapshotRepository = ledgerSnapshotRepository;
+		this.userRepository = userRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.enabled = enabled;
+		this.snapshotLagMs = snapshotLagMs;
+		this.clock = clock;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Append the entries of a transfer between two users, does nothing when the
+	 * ledger is not enabled.
+	 */
+	public void recordTransfer(long senderId, long receiverId, Money amount, Money fee) {
+		if (!enabled) {
+			return;
+		}
+		String transferId = UUID.randomUUID().toString();
+		Instant now = clock.instant();
+		List<JournalEntry> entries = new ArrayList<>(4);
+		entries.add(new JournalEntry(transferId, senderId, Side.DEBIT, Kind.AMOUNT, amount, now));
+		entries.add(new JournalEntry(transferId, receiverId, Side.CREDIT, Kind.AMOUNT, amount, now));
+		if (fee.isPositive()) {
+			entries.add(new JournalEntry(transferId, senderId, Side.DEBIT, Kind.FEE, fee, now));
+			entries.add(new JournalEntry(transferId, HOUSE_ACCOUNT_ID, Side.CREDIT, Kind.FEE, fee, now));
+		}
+		append(entries);
+	}
+
+	/**
+	 * Append the entries of money added from the bank account of a user, does
+	 * nothing when the ledger is not enabled.
+	 */
+	public void recordBankDeposit(long userId, Money amount) {
+		recordBankTransfer(BANK_ACCOUNT_ID, userId, amount);
+	}
+
+	/**
+	 * Append the entries of money sent to the bank account of a user, does
+	 * nothing when the ledger is not enabled.
+	 */
+	public void recordBankWithdrawal(long userId, Money amount) {
+		recordBankTransfer(userId, BANK_ACCOUNT_ID, amount);
+	}
+
+	/**
+	 * @return the balance of the account, read from memory
+	 */
+	public Money getBalance(long accountId) {
+		if (!enabled) {
+			throw new IllegalStateException("The ledger is not enabled.");
+		}
+		ensureLoaded();
+		return Money.ofMinorUnits(balances.getOrDefault(accountId, 0L));
+	}
+
+	/**
+	 * Write a new snapshot, from the previous one and the entries written since,
+	 * then delete the previous one. <br>
+	 *
+	 * @return the last entry id of the last snapshot, -1 when the ledger is not
+	 *         enabled
+	 */
+	public long snapshot() {
+		if (!enabled) {
+			return -1;
+		}
+		return transactionTemplate.execute(status -> {
+			Long lastEntryId = ledgerSnapshotRepository.findLastEntryId();
+			if (lastEntryId == null) {
+				return open();
+			}
+
+			long upToId = findCommittedUpToId();
+			if (upToId <= lastEntryId) {
+				return lastEntryId;
+			}
+			Map<Long, Long> snapshotBalances = new HashMap<>();
+			for (LedgerSnapshot snapshot : ledgerSnapshotRepository.findByLastEntryId(lastEntryId)) {
+				snapshotBalances.put(snapshot.getAccountId(), snapshot.getBalance().getMinorUnits());
+			}
+			for (Object[] sum : journalEntryRepository.sumByAccountAndSide(lastEntryId, upToId)) {
+				long minorUnits = Money.of(sum[2].toString()).getMinorUnits();
+				snapshotBalances.merge(((Number) sum[0]).longValue(),
+						Side.CREDIT.name().equals(sum[1]) ? minorUnits : -minorUnits, Math::addExact);
+			}
+			saveSnapshot(upToId, snapshotBalances);
+			ledgerSnapshotRepository.deleteByLastEntryIdLessThan(upToId);
+			return upToId;
+		});
+	}
+
+	private void recordBankTransfer(long debitedAccountId, long creditedAccountId, Money amount) {
+		if (!enabled) {
+			return;
+		}
+		String transferId = UUID.randomUUID().toString();
+		Instant now = clock.instant();
+		List<JournalEntry> entries = new ArrayList<>(2);
+		entries.add(new JournalEntry(transferId, debitedAccountId, Side.DEBIT, Kind.BANK_TRANSFER, amount, now));
+		entries.add(new JournalEntry(transferId, creditedAccountId, Side.CREDIT, Kind.BANK_TRANSFER, amount, now));
+		append(entries);
+	}
+
+	private void append(List<JournalEntry> entries) {
+		journalEntryRepository.saveAll(entries);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			completed(entries, true);
+			return;
+		}
+		for (JournalEntry entry : entries) {
+			uncommittedEntryIds.add(entry.getId());
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				completed(entries, status == TransactionSynchronization.STATUS_COMMITTED);
+			}
+		});
+	}
+
+	/**
+	 * Apply the entries of a committed database transaction to the balances in
+	 * memory, unless the load already read them. The entries completed before
+	 * the first load are read by the load.
+	 */
+	private void completed(List<JournalEntry> entries, boolean committed) {
+		lock.readLock().lock();
+		try {
+			Map<Long, Long> currentBalances = balances;
+			for (JournalEntry entry : entries) {
+				uncommittedEntryIds.remove(entry.getId());
+				boolean loaded = loadedEntryIds.remove(entry.getId());
+				if (committed && !loaded && currentBalances != null) {
+					currentBalances.merge(entry.getAccountId(), entry.getSignedMinorUnits(), Math::addExact);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void ensureLoaded() {
+		if (balances != null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			if (balances == null) {
+				load();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Read the last snapshot, opening the ledger if there is none, and the
+	 * entries written after it. Called with the write lock held: the database
+	 * transactions completing meanwhile wait for the load, an entry they wrote
+	 * and the load read being remembered so that it is not applied twice.
+	 */
+	private void load() {
+		Long lastSnapshotEntryId = ledgerSnapshotRepository.findLastEntryId();
+		long lastEntryId = lastSnapshotEntryId == null ? snapshot() : lastSnapshotEntryId;
+		Map<Long, Long> loadedBalances = new ConcurrentHashMap<>();
+		transactionTemplate.executeWithoutResult(status -> {
+			for (LedgerSnapshot snapshot : ledgerSnapshotRepository.findByLastEntryId(lastEntryId)) {
+				loadedBalances.put(snapshot.getAccountId(), snapshot.getBalance().getMinorUnits());
+			}
+			try (Stream<JournalEntry> entries = journalEntryRepository.streamAfter(lastEntryId)) {
+				entries.forEach(entry -> {
+					if (uncommittedEntryIds.contains(entry.getId())) {
+						loadedEntryIds.add(entry.getId());
+					}
+					loadedBalances.merge(entry.getAccountId(), entry.getSignedMinorUnits(), Math::addExact);
+				});
+			}
+		});
+		balances = loadedBalances;
+	}
+
+	/**
+	 * Write the first snapshot from the balances of the users, at the last entry
+	 * written. Called inside a database transaction. <br>
+	 * The last entry is read first, with a lock waiting for the entries not
+	 * committed yet and holding back the new ones, then the balances, with a
+	 * lock waiting for the users being updated: every transfer is either in the
+	 * opening balances and up to the last entry, or in neither.
+	 */
+	private long open() {
+		long lastEntryId = journalEntryRepository.findFirstByOrderByIdDesc().map(JournalEntry::getId).orElse(0L);
+		Map<Long, Long> openingBalances = new HashMap<>();
+		long total = 0;
+		try (Stream<Object[]> users = userRepository.streamBalancesForShare()) {
+			for (Object[] user : (Iterable<Object[]>) users::iterator) {
+				long minorUnits = ((Money) user[1]).getMinorUnits();
+				openingBalances.put(((Number) user[0]).longValue(), minorUnits);
+				total = Math.addExact(total, minorUnits);
+			}
+		}
+		openingBalances.put(HOUSE_ACCOUNT_ID, 0L);
+		openingBalances.put(BANK_ACCOUNT_ID, -total);
+		saveSnapshot(lastEntryId, openingBalances);
+		return lastEntryId;
+	}
+
+	/**
+	 * @return the id up to which every entry is committed: the one before the
+	 *         first entry written during the snapshot lag, the last one if there
+	 *         is none
+	 */
+	private long findCommittedUpToId() {
+		Instant cutoff = clock.instant().minusMillis(snapshotLagMs);
+		Optional<JournalEntry> firstRecentEntry = journalEntryRepository
+				.findFirstByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(cutoff);
+		if (firstRecentEntry.isPresent()) {
+			return firstRecentEntry.get().getId() - 1;
+		}
+		return Optional.ofNullable(journalEntryRepository.findLastId()).orElse(0L);
+	}
+
+	private void saveSnapshot(long lastEntryId, Map<Long, Long> snapshotBalances) {
+		List<LedgerSnapshot> snapshots = new ArrayList<>(snapshotBalances.size());
+		snapshotBalances.forEach((accountId, balance) -> snapshots
+				.add(new LedgerSnapshot(lastEntryId, accountId, Money.ofMinorUnits(balance))));
+		ledgerSnapshotRepository.saveAll(snapshots);
+	}
+
+}
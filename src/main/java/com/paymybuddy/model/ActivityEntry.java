@@ -0,0 +1,77 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+
+/**
+ * Line of the activity feed of a user, a transaction it sent or received. <br>
+ * The amount is signed from the point of view of the user: negative when it
+ * sent the money, positive when it received it. The fee paid by the sender is
+ * not included. The counterpart is the email of the other user.
+ */
+public class ActivityEntry {
+
+	private final long transactionId;
+	private final Date date;
+	private final String description;
+	private final Money amount;
+	private final String counterpartEmail;
+
+	public ActivityEntry(long transactionId, Date date, String description, Money amount, String counterpartEmail) {
+		this.transactionId = transactionId;
+		this.date = date;
+		this.description = description;
+		this.amount = amount;
+		this.counterpartEmail = counterpartEmail;
+	}
+
+	/**
+	 * @return the entry of a transaction sent by the user
+	 */
+	public static ActivityEntry sent(TransactionExportRow row) {
+		return new ActivityEntry(row.getId(), row.getDate(), row.getDescription(),
+				Money.ZERO.minus(row.getAmount()), row.getEmailOfTheUserGettingMoney());
+	}
+
+	/**
+	 * @return the entry of a transaction received by the user
+	 */
+	public static ActivityEntry received(TransactionExportRow row) {
+		return new ActivityEntry(row.getId(), row.getDate(), row.getDescription(), row.getAmount(),
+				row.getEmailOfTheUserSendingMoney());
+	}
+
+	public long getTransactionId() {
+		return transactionId;
+	}
+
+	public Date getDate() {
+		return date;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	public String getCounterpartEmail() {
+		return counterpartEmail;
+	}
+
+	/**
+	 * @return the cursor of the next page, when this entry is the last one of
+	 *         its page, null without date
+	 */
+	public String getCursor() {
+		return date == null ? null : new TransactionCursor(date, transactionId).toString();
+	}
+
+	@Override
+	public String toString() {
+		return "ActivityEntry [transactionId=" + transactionId + ", date=" + date + ", description=" + description
+				+ ", amount=" + amount + ", counterpartEmail=" + counterpartEmail + "]";
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+
+/**
+ * Balance of a user at the end of a day, a point of its balance chart.
+ */
+public class BalancePoint {
+
+	private final Date date;
+	private final Money balance;
+
+	public BalancePoint(Date date, Money balance) {
+		this.date = date;
+		this.balance = balance;
+	}
+
+	public Date getDate() {
+		return date;
+	}
+
+	public Money getBalance() {
+		return balance;
+	}
+
+	@Override
+	public String toString() {
+		return "BalancePoint [date=" + date + ", balance=" + balance + "]";
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Balance of a user at the opening and at the end of a day, written for every
+ * day on which its balance changed. <br>
+ * The balances are copied from the money available of the user, in the
+ * database transaction changing it: they count the transactions, the bank
+ * transfers and the fees as they were done, and the day is the one the change
+ * was committed on. <br>
+ * The user is kept as an id, a snapshot is never loaded with its user.
+ */
+@Entity
+@Table(indexes = @Index(name = "balance_snapshot_user_id_snapshot_date_idx", columnList = "userId, snapshotDate",
+		unique = true))
+public class BalanceSnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+	private long userId;
+	private Date snapshotDate;
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money openingBalance;
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money balance;
+
+	protected BalanceSnapshot() {
+	}
+
+	public BalanceSnapshot(long userId, Date snapshotDate, Money openingBalance, Money balance) {
+		this.userId = userId;
+		this.snapshotDate = snapshotDate;
+		this.openingBalance = openingBalance;
+		this.balance = balance;
+	}
+
+	/**
+	 * Record the balance after another change of the day.
+	 */
+	public void close(Money balance) {
+		this.balance = balance;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public Date getSnapshotDate() {
+		return snapshotDate;
+	}
+
+	/**
+	 * @return the balance before the first change of the day
+	 */
+	public Money getOpeningBalance() {
+		return openingBalance;
+	}
+
+	/**
+	 * @return the balance at the end of the day
+	 */
+	public Money getBalance() {
+		return balance;
+	}
+
+	@Override
+	public String toString() {
+		return "BalanceSnapshot [id=" + id + ", userId=" + userId + ", snapshotDate=" + snapshotDate
+				+ ", openingBalance=" + openingBalance + ", balance=" + balance + "]";
+	}
+
+}
@@ -1,18 +1,42 @@
 package com.paymybuddy.model;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+/**
+ * Bank account of a user. <br>
+ * The bank accounts are kept in the second-level cache, and looked up by their
+ * IBAN through the natural id cache.
+ */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@Table(indexes = @Index(name = "bank_account_iban_idx", columnList = "IBAN", unique = true))
 public class BankAccount {
 
 	@Id
-	private int id;
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "bank_account_id")
+	@TableGenerator(name = "bank_account_id", table = IdSequence.TABLE,
+			pkColumnName = IdSequence.NAME_COLUMN, valueColumnName = IdSequence.VALUE_COLUMN,
+			pkColumnValue = "bank_account", allocationSize = IdSequence.ALLOCATION_SIZE)
+	private long id;
+	@NaturalId(mutable = true)
 	private String IBAN;
 	private String description;
-	@OneToOne
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user")
 	private User user;
 
@@ -24,11 +48,11 @@ public class BankAccount {
 		this.description = description;
 	}
 
-	public int getId() {
+	public long getId() {
 		return id;
 	}
 
-	public void setId(int id) {
+	public void setId(long id) {
 		this.id = id;
 	}
 
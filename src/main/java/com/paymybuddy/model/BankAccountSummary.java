@@ -0,0 +1,20 @@
+package com.paymybuddy.model;
+
+import org.springframework.data.rest.core.config.Projection;
+
+/**
+ * Flat view of a {@link BankAccount}, without its user. <br>
+ * It is the excerpt of the bank account resources, and is read straight from
+ * the columns by
+ * {@link com.paymybuddy.repository.BankAccountRepository#findSummaries}.
+ */
+@Projection(name = "summary", types = BankAccount.class)
+public interface BankAccountSummary {
+
+	long getId();
+
+	String getIBAN();
+
+	String getDescription();
+
+}
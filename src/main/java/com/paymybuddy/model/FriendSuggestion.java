@@ -0,0 +1,48 @@
+package com.paymybuddy.model;
+
+/**
+ * User suggested as a new friend, a friend of some friends of the user the
+ * suggestion is made to. <br>
+ * The suggestions are ranked by number of mutual friends.
+ */
+public final class FriendSuggestion {
+
+	private final long userId;
+	private final int mutualFriends;
+
+	public FriendSuggestion(long userId, int mutualFriends) {
+		this.userId = userId;
+		this.mutualFriends = mutualFriends;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public int getMutualFriends() {
+		return mutualFriends;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FriendSuggestion)) {
+			return false;
+		}
+		FriendSuggestion other = (FriendSuggestion) obj;
+		return userId == other.userId && mutualFriends == other.mutualFriends;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(userId) * 31 + mutualFriends;
+	}
+
+	@Override
+	public String toString() {
+		return "FriendSuggestion [userId=" + userId + ", mutualFriends=" + mutualFriends + "]";
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.paymybuddy.model;
+
+/**
+ * Table the ids of the {@link User}, {@link Transaction} and
+ * {@link BankAccount} entities are generated from. <br>
+ * It hold one row per entity, the next value to reserve. <br>
+ * Every node reserve the ids by blocks of {@link #ALLOCATION_SIZE}, a single
+ * update of the table, and then generate them in memory. The inserts do not
+ * need to read back a generated key and can be sent as JDBC batches.
+ */
+public final class IdSequence {
+
+	public static final String TABLE = "id_sequence";
+	public static final String NAME_COLUMN = "sequence_name";
+	public static final String VALUE_COLUMN = "next_val";
+	public static final int ALLOCATION_SIZE = 50;
+
+	private IdSequence() {
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.paymybuddy.model;
+
+import java.time.Instant;
+import java.util.NoSuchElementException;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * Outcome of an operation done with an idempotency key, see
+ * {@link com.paymybuddy.idempotency.IdempotencyStore}. <br>
+ * The key is the one chosen by the client, prefixed by a digest of the user
+ * owning it. The fingerprint is a digest of the arguments of the operation, a
+ * key used again for other arguments is refused. <br>
+ * A transfer acknowledged once written to the transfer journal keeps its
+ * sequence in the journal, given back to the request sent again. <br>
+ * The record is saved in the same database transaction as the operation, and
+ * deleted once expired by the
+ * {@link com.paymybuddy.job.IdempotencyRecordPurgeJob}.
+ */
+@Entity
+@Table(indexes = @Index(name = "idempotency_record_expires_at_idx", columnList = "expiresAt"))
+public class IdempotencyRecord {
+
+	public enum Outcome {
+		SUCCEEDED, NOT_VALID, NOT_FOUND
+	}
+
+	@Id
+	@Column(length = 100)
+	private String idempotencyKey;
+	@Column(length = 64, nullable = false)
+	private String operation;
+	@Column(length = 32, nullable = false)
+	private String fingerprint;
+	@Enumerated(EnumType.STRING)
+	@Column(length = 16, nullable = false)
+	private Outcome outcome;
+	@Column(length = 512)
+	private String message;
+	private Long journalSequence;
+	@Column(nullable = false)
+	private Instant expiresAt;
+	// A new record has no version, so that it is inserted, and not merged with
+	// the record of a concurrent request committed meanwhile.
+	@Version
+	private Long version;
+
+	protected IdempotencyRecord() {
+	}
+
+	public IdempotencyRecord(String idempotencyKey, String operation, String fingerprint, Outcome outcome,
+			String message, Instant expiresAt) {
+		this(idempotencyKey, operation, fingerprint, outcome, message, null, expiresAt);
+	}
+
+	public IdempotencyRecord(String idempotencyKey, String operation, String fingerprint, Outcome outcome,
+			String message, Long journalSequence, Instant expiresAt) {
+		this.idempotencyKey = idempotencyKey;
+		this.operation = operation;
+		this.fingerprint = fingerprint;
+		this.outcome = outcome;
+		this.message = message;
+		this.journalSequence = journalSequence;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * Give the outcome of the operation again: return if it succeeded, throw the
+	 * exception it failed with otherwise.
+	 */
+	public void replay() {
+		if (outcome == Outcome.NOT_VALID) {
+			throw new IllegalArgumentException(message);
+		}
+		if (outcome == Outcome.NOT_FOUND) {
+			throw new NoSuchElementException(message);
+		}
+	}
+
+	/**
+	 * Reuse an expired record for a new operation which succeeded.
+	 */
+	public void renew(String operation, String fingerprint, Long journalSequence, Instant expiresAt) {
+		this.operation = operation;
+		this.fingerprint = fingerprint;
+		this.outcome = Outcome.SUCCEEDED;
+		this.message = null;
+		this.journalSequence = journalSequence;
+		this.expiresAt = expiresAt;
+	}
+
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the sequence of the transfer in the transfer journal, null when
+	 *         the operation was not journaled
+	 */
+	public Long getJournalSequence() {
+		return journalSequence;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "IdempotencyRecord [idempotencyKey=" + idempotencyKey + ", operation=" + operation + ", outcome="
+				+ outcome + ", expiresAt=" + expiresAt + "]";
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.paymybuddy.model;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Immutable line of the double-entry journal of the ledger. <br>
+ * Every movement of money is recorded by a debit and a credit of the same
+ * amount, sharing the same transfer id: the sum of the credits minus the sum
+ * of the debits over all the accounts is always zero. <br>
+ * An account is a user id, or one of the accounts of
+ * {@link com.paymybuddy.ledger.Ledger} standing for the fees and the bank
+ * accounts. <br>
+ * The rows are only ever inserted, the ids being given by the database in the
+ * order of the inserts.
+ */
+@Entity
+@Table(indexes = @Index(name = "journal_entry_created_at_idx", columnList = "createdAt"))
+public class JournalEntry {
+
+	public enum Side {
+		DEBIT, CREDIT
+	}
+
+	public enum Kind {
+		AMOUNT, FEE, BANK_TRANSFER
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+	@Column(length = 36, nullable = false)
+	private String transferId;
+	private long accountId;
+	@Enumerated(EnumType.STRING)
+	@Column(length = 8, nullable = false)
+	private Side side;
+	@Enumerated(EnumType.STRING)
+	@Column(length = 16, nullable = false)
+	private Kind kind;
+	@Column(precision = 19, scale = Money.SCALE, nullable = false)
+	private Money amount;
+	@Column(nullable = false)
+	private Instant createdAt;
+
+	protected JournalEntry() {
+	}
+
+	public JournalEntry(String transferId, long accountId, Side side, Kind kind, Money amount, Instant createdAt) {
+		this.transferId = transferId;
+		this.accountId = accountId;
+		this.side = side;
+		this.kind = kind;
+		this.amount = amount;
+		this.createdAt = createdAt;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getTransferId() {
+		return transferId;
+	}
+
+	public long getAccountId() {
+		return accountId;
+	}
+
+	public Side getSide() {
+		return side;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * @return the amount added to the balance of the account, in minor units
+	 */
+	public long getSignedMinorUnits() {
+		return side == Side.CREDIT ? amount.getMinorUnits() : -amount.getMinorUnits();
+	}
+
+	@Override
+	public String toString() {
+		return "JournalEntry [id=" + id + ", transferId=" + transferId + ", accountId=" + accountId + ", side=" + side
+				+ ", kind=" + kind + ", amount=" + amount + ", createdAt=" + createdAt + "]";
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Balance of an account of the ledger once every journal entry up to
+ * <b>lastEntryId</b> is applied. <br>
+ * A snapshot is the set of the rows sharing the same last entry id, one per
+ * account. The next snapshot is written from the last one and the journal
+ * entries written after it. Two snapshots of the same entries cannot both be
+ * written, the second one failing on the unique index.
+ */
+@Entity
+@Table(indexes = @Index(name = "ledger_snapshot_last_entry_id_account_id_idx", columnList = "lastEntryId, accountId",
+		unique = true))
+public class LedgerSnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+	private long lastEntryId;
+	private long accountId;
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money balance;
+
+	protected LedgerSnapshot() {
+	}
+
+	public LedgerSnapshot(long lastEntryId, long accountId, Money balance) {
+		this.lastEntryId = lastEntryId;
+		this.accountId = accountId;
+		this.balance = balance;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getLastEntryId() {
+		return lastEntryId;
+	}
+
+	public long getAccountId() {
+		return accountId;
+	}
+
+	public Money getBalance() {
+		return balance;
+	}
+
+	@Override
+	public String toString() {
+		return "LedgerSnapshot [id=" + id + ", lastEntryId=" + lastEntryId + ", accountId=" + accountId
+				+ ", balance=" + balance + "]";
+	}
+
+}
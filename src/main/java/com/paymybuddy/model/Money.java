@@ -0,0 +1,141 @@
+package com.paymybuddy.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Immutable amount of money stored as a number of minor units (cents) in a
+ * primitive <b>long</b>. <br>
+ * <br>
+ * Rounding rules: <br>
+ * - an amount is always stored with {@value #SCALE} decimals, <br>
+ * - an amount provided with more decimals is rounded to the nearest cent, the
+ * ties being rounded to the even cent ({@link RoundingMode#HALF_EVEN}), <br>
+ * - except an amount sent by a client, read by {@link #parse(String)}: it is
+ * refused, <br>
+ * - a percentage of an amount is rounded with the same rule. <br>
+ * <br>
+ * The static methods working on minor units let the callers do their
+ * arithmetic on primitives, without allocating any object. <br>
+ * It is mapped on a DECIMAL column by the {@link MoneyConverter}, and written
+ * to JSON as a plain number, as the amounts always were.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int SCALE = 2;
+	public static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_EVEN;
+	public static final Money ZERO = new Money(0);
+
+	private static final long BASIS_POINTS_DIVISOR = 10_000;
+
+	private final long minorUnits;
+
+	private Money(long minorUnits) {
+		this.minorUnits = minorUnits;
+	}
+
+	public static Money ofMinorUnits(long minorUnits) {
+		return minorUnits == 0 ? ZERO : new Money(minorUnits);
+	}
+
+	@JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+	public static Money of(BigDecimal amount) {
+		return ofMinorUnits(amount.setScale(SCALE, ROUNDING_MODE).unscaledValue().longValueExact());
+	}
+
+	public static Money of(String amount) {
+		return of(new BigDecimal(amount));
+	}
+
+	/**
+	 * Read an amount sent by a client. <br>
+	 * 
+	 * @param amount : the amount, with at most {@value #SCALE} decimals
+	 * @return the amount
+	 * @throws IllegalArgumentException when the amount is not a number, has more
+	 *                                  decimals, or does not fit
+	 */
+	public static Money parse(String amount) {
+		try {
+			BigDecimal value = new BigDecimal(amount);
+			if (value.stripTrailingZeros().scale() <= SCALE) {
+				return of(value);
+			}
+		} catch (NullPointerException | NumberFormatException | ArithmeticException e) {
+			// Refused below, as an amount with too many decimals is.
+		}
+		throw new IllegalArgumentException("The provided amount: << " + amount + " >> is not valid.");
+	}
+
+	/**
+	 * Compute a percentage of an amount, expressed in basis points (1% = 100
+	 * basis points), rounded to the nearest minor unit, ties to even. <br>
+	 * 
+	 * @param minorUnits  : the amount
+	 * @param basisPoints : the percentage
+	 * @return the percentage of the amount, in minor units
+	 */
+	public static long percentage(long minorUnits, long basisPoints) {
+		long product = Math.multiplyExact(minorUnits, basisPoints);
+		long quotient = product / BASIS_POINTS_DIVISOR;
+		long twiceTheRemainder = Math.abs(product % BASIS_POINTS_DIVISOR) * 2;
+
+		if (twiceTheRemainder > BASIS_POINTS_DIVISOR
+				|| (twiceTheRemainder == BASIS_POINTS_DIVISOR && (quotient & 1) != 0)) {
+			quotient += Long.signum(product);
+		}
+		return quotient;
+	}
+
+	public long getMinorUnits() {
+		return minorUnits;
+	}
+
+	public Money plus(Money other) {
+		return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+	}
+
+	public Money minus(Money other) {
+		return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+	}
+
+	public boolean isLessThan(Money other) {
+		return minorUnits < other.minorUnits;
+	}
+
+	public boolean isPositive() {
+		return minorUnits > 0;
+	}
+
+	@JsonValue
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(minorUnits, SCALE);
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Money && ((Money) other).minorUnits == minorUnits;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(minorUnits);
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Fee collected on a transaction which has not yet been credited to the
+ * paymybuddy account. <br>
+ * The rows are only inserted by the transactions and are spread over several
+ * shards, they are then summed and deleted by the flush of the pending fees.
+ */
+@Entity
+@Table(indexes = @Index(name = "pending_fee_shard_id_idx", columnList = "shard, id"))
+public class PendingFee {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int id;
+	private int shard;
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money amount;
+
+	protected PendingFee() {
+	}
+
+	public PendingFee(int shard, Money amount) {
+		this.shard = shard;
+		this.amount = amount;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getShard() {
+		return shard;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	@Override
+	public String toString() {
+		return "PendingFee [id=" + id + ", shard=" + shard + ", amount=" + amount + "]";
+	}
+
+}
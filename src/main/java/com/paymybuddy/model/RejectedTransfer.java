@@ -0,0 +1,69 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Transfer acknowledged by the
+ * {@link com.paymybuddy.wal.WriteAheadTransferService} which could no longer
+ * be done when applied to the database. <br>
+ * It is saved in the same database transaction as the
+ * {@link TransferJournalCheckpoint} skipping it, so that its sender can read
+ * why its transfer was not done.
+ */
+@Entity
+@Table(indexes = @Index(name = "rejected_transfer_journal_id_sequence_idx", columnList = "journalId, sequence",
+		unique = true))
+public class RejectedTransfer {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+	private String journalId;
+	private long sequence;
+	private String emailOfTheUserSendingMoney;
+	@Column(length = 512)
+	private String message;
+
+	protected RejectedTransfer() {
+	}
+
+	public RejectedTransfer(String journalId, long sequence, String emailOfTheUserSendingMoney, String message) {
+		this.journalId = journalId;
+		this.sequence = sequence;
+		this.emailOfTheUserSendingMoney = emailOfTheUserSendingMoney;
+		this.message = message;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getJournalId() {
+		return journalId;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getEmailOfTheUserSendingMoney() {
+		return emailOfTheUserSendingMoney;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "RejectedTransfer [id=" + id + ", journalId=" + journalId + ", sequence=" + sequence
+				+ ", emailOfTheUserSendingMoney=" + emailOfTheUserSendingMoney + ", message=" + message + "]";
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Revocation of an access token, or of every token of a user issued until a
+ * time, see {@link com.paymybuddy.security.AccessTokenService}. <br>
+ * It is saved so that every instance of the application refuses the tokens
+ * revoked by another one, and deleted once the tokens it revokes are expired.
+ */
+@Entity
+@Table(indexes = @Index(name = "token_revocation_expires_at_ms_idx", columnList = "expiresAtMs"))
+public class TokenRevocation {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+	private String tokenId;
+	private String email;
+	private long revokedBeforeMs;
+	private long expiresAtMs;
+
+	protected TokenRevocation() {
+	}
+
+	/**
+	 * @param tokenId         : the token revoked, null when every token of a
+	 *                        user is
+	 * @param email           : the user whose tokens are revoked, null when a
+	 *                        single token is
+	 * @param revokedBeforeMs : the tokens of the user issued until this time are
+	 *                        revoked
+	 * @param expiresAtMs     : the time the tokens revoked are expired anyway
+	 */
+	public TokenRevocation(String tokenId, String email, long revokedBeforeMs, long expiresAtMs) {
+		this.tokenId = tokenId;
+		this.email = email;
+		this.revokedBeforeMs = revokedBeforeMs;
+		this.expiresAtMs = expiresAtMs;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public long getRevokedBeforeMs() {
+		return revokedBeforeMs;
+	}
+
+	public long getExpiresAtMs() {
+		return expiresAtMs;
+	}
+
+	@Override
+	public String toString() {
+		return "TokenRevocation [id=" + id + ", tokenId=" + tokenId + ", email=" + email + ", revokedBeforeMs="
+				+ revokedBeforeMs + ", expiresAtMs=" + expiresAtMs + "]";
+	}
+
+}
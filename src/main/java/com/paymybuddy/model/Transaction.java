@@ -2,30 +2,56 @@ package com.paymybuddy.model;
 
 import java.sql.Date;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.PreRemove;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+
+/**
+ * Money sent by a user to another one. <br>
+ * The users are loaded lazily, the queries listing transactions with their
+ * users name the {@link #WITH_USERS} entity graph.
+ */
 @Entity
+@NamedEntityGraph(name = Transaction.WITH_USERS, attributeNodes = { @NamedAttributeNode("userSender"),
+		@NamedAttributeNode("userReceiver") })
+@Table(indexes = { @Index(name = "transaction_user_sender_date_id_idx", columnList = "userSender, date, id"),
+		@Index(name = "transaction_user_receiver_date_id_idx", columnList = "userReceiver, date, id") })
 public class Transaction {
 
+	public static final String WITH_USERS = "Transaction.withUsers";
+
 	@Id
-	private int id;
-	@ManyToOne
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_id")
+	@TableGenerator(name = "transaction_id", table = IdSequence.TABLE,
+			pkColumnName = IdSequence.NAME_COLUMN, valueColumnName = IdSequence.VALUE_COLUMN,
+			pkColumnValue = "transaction", allocationSize = IdSequence.ALLOCATION_SIZE)
+	private long id;
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "userSender")
 	private User userSender;
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "userReceiver")
 	private User userReceiver;
 	private Date date;
 	private String description;
-	private Double amount;
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money amount;
 
 	protected Transaction() {
 	}
 
-	public Transaction(User userSender, User userReceiver, Date date, String description, Double amount) {
+	public Transaction(User userSender, User userReceiver, Date date, String description, Money amount) {
 		this.userSender = userSender;
 		this.userReceiver = userReceiver;
 		this.date = date;
@@ -33,11 +59,22 @@ public class Transaction {
 		this.amount = amount;
 	}
 
-	public int getId() {
+	/**
+	 * The history of the user sending money changes, see
+	 * {@link User#historyChanged()}.
+	 */
+	@PreRemove
+	private void removed() {
+		if (userSender != null) {
+			userSender.historyChanged();
+		}
+	}
+
+	public long getId() {
 		return id;
 	}
 
-	public void setId(int id) {
+	public void setId(long id) {
 		this.id = id;
 	}
 
@@ -73,18 +110,20 @@ public class Transaction {
 		this.description = description;
 	}
 
-	public Double getAmount() {
+	public Money getAmount() {
 		return amount;
 	}
 
-	public void setAmount(Double amount) {
+	public void setAmount(Money amount) {
 		this.amount = amount;
 	}
 
 	@Override
 	public String toString() {
-		return "Transaction [id=" + id + ", userSender=" + userSender + ", userReceiver=" + userReceiver + ", date="
-				+ date + ", description=" + description + ", amount=" + amount + "]";
+		// Only the ids of the users, which do not load them.
+		return "Transaction [id=" + id + ", userSender=" + (userSender == null ? null : userSender.getId())
+				+ ", userReceiver=" + (userReceiver == null ? null : userReceiver.getId()) + ", date=" + date
+				+ ", description=" + description + ", amount=" + amount + "]";
 	}
 
 }
@@ -0,0 +1,82 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+import java.util.Objects;
+
+/**
+ * Position in the transaction history of a user, the (date, id) of the last
+ * transaction already read. <br>
+ * The history is ordered from the most recent transaction to the oldest one,
+ * the next page start just after the cursor. <br>
+ * The cursor can be given to a client as a text, see {@link #toString()} and
+ * {@link #parse(String)}.
+ */
+public final class TransactionCursor {
+
+	private static final char SEPARATOR = '_';
+
+	private final Date date;
+	private final long id;
+
+	public TransactionCursor(Date date, long id) {
+		if (date == null) {
+			throw new IllegalArgumentException("The provided cursor date cannot be null.");
+		}
+		this.date = date;
+		this.id = id;
+	}
+
+	/**
+	 * @return the cursor positioned on the provided transaction
+	 */
+	public static TransactionCursor of(Transaction transaction) {
+		return new TransactionCursor(transaction.getDate(), transaction.getId());
+	}
+
+	/**
+	 * Read a cursor written by {@link #toString()}, as <b>2020-07-01_1234</b>.
+	 */
+	public static TransactionCursor parse(String cursor) {
+		int separator = cursor == null ? -1 : cursor.lastIndexOf(SEPARATOR);
+		if (separator < 0) {
+			throw new IllegalArgumentException("The provided cursor: << " + cursor + " >> is not valid.");
+		}
+		try {
+			return new TransactionCursor(Date.valueOf(cursor.substring(0, separator)),
+					Long.parseLong(cursor.substring(separator + 1)));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("The provided cursor: << " + cursor + " >> is not valid.", e);
+		}
+	}
+
+	public Date getDate() {
+		return date;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof TransactionCursor)) {
+			return false;
+		}
+		TransactionCursor other = (TransactionCursor) obj;
+		return id == other.id && date.equals(other.date);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(date, id);
+	}
+
+	@Override
+	public String toString() {
+		return date.toString() + SEPARATOR + id;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.paymybuddy.model;
+
+/**
+ * Formats a transaction history can be exported to.
+ */
+public enum TransactionExportFormat {
+
+	/**
+	 * Comma separated values, with a header line.
+	 */
+	CSV("text/csv", "csv"),
+
+	/**
+	 * One JSON object per line.
+	 */
+	NDJSON("application/x-ndjson", "ndjson");
+
+	private final String contentType;
+	private final String fileExtension;
+
+	TransactionExportFormat(String contentType, String fileExtension) {
+		this.contentType = contentType;
+		this.fileExtension = fileExtension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+}
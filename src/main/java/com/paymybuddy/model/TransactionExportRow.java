@@ -0,0 +1,62 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+
+/**
+ * Row of a transaction export, or of a history summary. <br>
+ * It is built directly by the export and summary queries, from the columns of
+ * the transaction and of its two users, so that they never load the
+ * {@link Transaction} and {@link User} entities.
+ */
+public class TransactionExportRow {
+
+	private final long id;
+	private final Date date;
+	private final String description;
+	private final Money amount;
+	private final String emailOfTheUserSendingMoney;
+	private final String emailOfTheUserGettingMoney;
+
+	public TransactionExportRow(long id, java.util.Date date, String description, Money amount,
+			String emailOfTheUserSendingMoney, String emailOfTheUserGettingMoney) {
+		this.id = id;
+		// Hibernate type the date column as java.util.Date in the query.
+		this.date = date == null ? null : new Date(date.getTime());
+		this.description = description;
+		this.amount = amount;
+		this.emailOfTheUserSendingMoney = emailOfTheUserSendingMoney;
+		this.emailOfTheUserGettingMoney = emailOfTheUserGettingMoney;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public Date getDate() {
+		return date;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	public String getEmailOfTheUserSendingMoney() {
+		return emailOfTheUserSendingMoney;
+	}
+
+	public String getEmailOfTheUserGettingMoney() {
+		return emailOfTheUserGettingMoney;
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionExportRow [id=" + id + ", date=" + date + ", description=" + description + ", amount="
+				+ amount + ", emailOfTheUserSendingMoney=" + emailOfTheUserSendingMoney
+				+ ", emailOfTheUserGettingMoney=" + emailOfTheUserGettingMoney + "]";
+	}
+
+}
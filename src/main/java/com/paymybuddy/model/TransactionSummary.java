@@ -0,0 +1,26 @@
+package com.paymybuddy.model;
+
+import java.sql.Date;
+
+import org.springframework.data.rest.core.config.Projection;
+
+/**
+ * Flat view of a {@link Transaction}, without its two users. <br>
+ * It is the excerpt of the transaction resources: it only reads the columns of
+ * the transaction, so that a page of transactions does not load the users one
+ * by one. The history summary queries of
+ * {@link com.paymybuddy.repository.TransactionRepository} read the emails of
+ * the users too, joined in the same query, as {@link TransactionExportRow}.
+ */
+@Projection(name = "summary", types = Transaction.class)
+public interface TransactionSummary {
+
+	long getId();
+
+	Date getDate();
+
+	String getDescription();
+
+	Money getAmount();
+
+}
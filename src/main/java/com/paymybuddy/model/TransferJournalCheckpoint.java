@@ -0,0 +1,63 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Progress of the transfers of the local write-ahead journal applied to the
+ * database, see {@link com.paymybuddy.wal.WriteAheadTransferService}. <br>
+ * It is saved in the same database transaction as the transfers it covers, a
+ * transfer replayed from the journal after a restart is skipped if its
+ * sequence is not after the last one applied.
+ */
+@Entity
+public class TransferJournalCheckpoint {
+
+	@Id
+	private String journalId;
+	private long lastAppliedSequence;
+	private long rejected;
+
+	protected TransferJournalCheckpoint() {
+	}
+
+	public TransferJournalCheckpoint(String journalId) {
+		this.journalId = journalId;
+	}
+
+	/**
+	 * Record the transfers applied up to a sequence.
+	 */
+	public void advance(long sequence) {
+		if (sequence > lastAppliedSequence) {
+			lastAppliedSequence = sequence;
+		}
+	}
+
+	/**
+	 * Record a transfer which cannot be done, and is skipped.
+	 */
+	public void reject(long sequence) {
+		advance(sequence);
+		rejected++;
+	}
+
+	public String getJournalId() {
+		return journalId;
+	}
+
+	public long getLastAppliedSequence() {
+		return lastAppliedSequence;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferJournalCheckpoint [journalId=" + journalId + ", lastAppliedSequence=" + lastAppliedSequence
+				+ ", rejected=" + rejected + "]";
+	}
+
+}
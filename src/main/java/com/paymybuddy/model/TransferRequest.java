@@ -0,0 +1,62 @@
+package com.paymybuddy.model;
+
+/**
+ * Request of a transfer of money between two users, identified by their
+ * email, used by the batch transfer operation. <br>
+ * A request with an idempotency key is done once per key of its sender, see
+ * {@link com.paymybuddy.idempotency.IdempotencyStore}. <br>
+ * It is not persisted, the transfers done are saved as {@link Transaction}.
+ */
+public class TransferRequest {
+
+	private final String emailOfTheUserSendingMoney;
+	private final String emailOfTheUserGettingMoney;
+	private final String description;
+	private final Money amount;
+	private final String idempotencyKey;
+
+	public TransferRequest(String emailOfTheUserSendingMoney, String emailOfTheUserGettingMoney, String description,
+			Money amount) {
+		this(emailOfTheUserSendingMoney, emailOfTheUserGettingMoney, description, amount, null);
+	}
+
+	public TransferRequest(String emailOfTheUserSendingMoney, String emailOfTheUserGettingMoney, String description,
+			Money amount, String idempotencyKey) {
+		this.emailOfTheUserSendingMoney = emailOfTheUserSendingMoney;
+		this.emailOfTheUserGettingMoney = emailOfTheUserGettingMoney;
+		this.description = description;
+		this.amount = amount;
+		this.idempotencyKey = idempotencyKey;
+	}
+
+	public String getEmailOfTheUserSendingMoney() {
+		return emailOfTheUserSendingMoney;
+	}
+
+	public String getEmailOfTheUserGettingMoney() {
+		return emailOfTheUserGettingMoney;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Money getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return the idempotency key chosen by the sender, null if none
+	 */
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferRequest [emailOfTheUserSendingMoney=" + emailOfTheUserSendingMoney
+				+ ", emailOfTheUserGettingMoney=" + emailOfTheUserGettingMoney + ", description=" + description
+				+ ", amount=" + amount + ", idempotencyKey=" + idempotencyKey + "]";
+	}
+
+}
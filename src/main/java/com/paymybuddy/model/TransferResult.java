@@ -0,0 +1,55 @@
+package com.paymybuddy.model;
+
+/**
+ * Outcome of a {@link TransferRequest} processed by the batch transfer
+ * operation. <br>
+ * A failed transfer only carry the reason of its failure, the other transfers
+ * of the batch are not affected.
+ */
+public class TransferResult {
+
+	public enum Status {
+		SUCCEEDED, FAILED
+	}
+
+	private final TransferRequest transferRequest;
+	private final Status status;
+	private final String message;
+
+	private TransferResult(TransferRequest transferRequest, Status status, String message) {
+		this.transferRequest = transferRequest;
+		this.status = status;
+		this.message = message;
+	}
+
+	public static TransferResult succeeded(TransferRequest transferRequest) {
+		return new TransferResult(transferRequest, Status.SUCCEEDED, null);
+	}
+
+	public static TransferResult failed(TransferRequest transferRequest, String message) {
+		return new TransferResult(transferRequest, Status.FAILED, message);
+	}
+
+	public TransferRequest getTransferRequest() {
+		return transferRequest;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public boolean isSucceeded() {
+		return status == Status.SUCCEEDED;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferResult [transferRequest=" + transferRequest + ", status=" + status + ", message=" + message
+				+ "]";
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.paymybuddy.model;
+
+/**
+ * State of a transfer acknowledged once written to the transfer journal, read
+ * by its sender with its sequence. <br>
+ * A rejected transfer carry the reason why it could not be done.
+ */
+public class TransferStatus {
+
+	public enum State {
+		PENDING, APPLIED, REJECTED
+	}
+
+	private final long sequence;
+	private final State state;
+	private final String message;
+
+	private TransferStatus(long sequence, State state, String message) {
+		this.sequence = sequence;
+		this.state = state;
+		this.message = message;
+	}
+
+	public static TransferStatus pending(long sequence) {
+		return new TransferStatus(sequence, State.PENDING, null);
+	}
+
+	public static TransferStatus applied(long sequence) {
+		return new TransferStatus(sequence, State.APPLIED, null);
+	}
+
+	public static TransferStatus rejected(long sequence, String message) {
+		return new TransferStatus(sequence, State.REJECTED, message);
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferStatus [sequence=" + sequence + ", state=" + state + ", message=" + message + "]";
+	}
+
+}
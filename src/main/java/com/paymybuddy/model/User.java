@@ -3,37 +3,96 @@ package com.paymybuddy.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
-
-import org.springframework.security.crypto.bcrypt.BCrypt;
-
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
+import com.paymybuddy.graph.UserFriendsListener;
+import com.paymybuddy.security.PasswordHashPolicy;
+import com.paymybuddy.security.UserCredentialsListener;
+
+/**
+ * User of the application. <br>
+ * Its associations are loaded lazily, the queries needing them name the
+ * {@link #WITH_BANK_ACCOUNT} or {@link #WITH_FRIENDS} entity graph. The
+ * {@link #toString()} does not read them. <br>
+ * The users are kept in the second-level cache, and looked up by their email
+ * through the natural id cache. Every update of the balance goes through the
+ * entity, which updates the cached user when the database transaction commits.
+ */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@EntityListeners({ UserCredentialsListener.class, UserFriendsListener.class })
+@NamedEntityGraphs({
+		@NamedEntityGraph(name = User.WITH_BANK_ACCOUNT, attributeNodes = @NamedAttributeNode("bankAccount")),
+		@NamedEntityGraph(name = User.WITH_FRIENDS, attributeNodes = @NamedAttributeNode("friends")) })
 public class User {
 
+	public static final String WITH_BANK_ACCOUNT = "User.withBankAccount";
+	public static final String WITH_FRIENDS = "User.withFriends";
+
 	@Id
-	private int id;
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+	@TableGenerator(name = "user_id", table = IdSequence.TABLE,
+			pkColumnName = IdSequence.NAME_COLUMN, valueColumnName = IdSequence.VALUE_COLUMN,
+			pkColumnValue = "user", allocationSize = IdSequence.ALLOCATION_SIZE)
+	private long id;
+	@NaturalId(mutable = true)
 	private String email;
 	private String lastName;
 	private String firstName;
 	private String password;
-	private Double moneyAvailable;
-	@OneToOne
+	@Column(precision = 19, scale = Money.SCALE)
+	private Money moneyAvailable;
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "bank_account")
 	private BankAccount bankAccount;
 	@OneToMany(mappedBy = "userSender")
 	private List<Transaction> transaction = new ArrayList<>();
 	@ManyToMany
+	@JoinTable(name = "user_friends", joinColumns = @JoinColumn(name = "user_id"),
+			inverseJoinColumns = @JoinColumn(name = "friends_id"),
+			indexes = { @Index(name = "user_friends_user_id_friends_id_idx", columnList = "user_id, friends_id"),
+					@Index(name = "user_friends_friends_id_idx", columnList = "friends_id") })
 	private List<User> friends = new ArrayList<>();
+	@Version
+	private int version;
+	private long historyVersion;
+	@Transient
+	private boolean credentialsChanged;
+	@Transient
+	private String previousEmail;
 
 	protected User() {
 	}
 
-	public User(String email, String lastName, String firstName, String password, Double moneyAvailable,
+	public User(String email, String lastName, String firstName, String password, Money moneyAvailable,
 			BankAccount bankAccount, List<Transaction> transaction, List<User> friends) {
 		this.email = email;
 		this.lastName = lastName;
@@ -45,19 +104,50 @@ public class User {
 		this.friends = friends;
 	}
 
-	public int getId() {
+	public long getId() {
 		return id;
 	}
 
-	public void setId(int id) {
+	public void setId(long id) {
 		this.id = id;
 	}
 
+	public int getVersion() {
+		return version;
+	}
+
+	public void setVersion(int version) {
+		this.version = version;
+	}
+
+	/**
+	 * @return the version of the transaction history sent by the user
+	 */
+	@JsonIgnore
+	public long getHistoryVersion() {
+		return historyVersion;
+	}
+
+	/**
+	 * Increment the version of the transaction history sent by the user, when a
+	 * transaction is added to it or removed from it.
+	 */
+	public void historyChanged() {
+		historyVersion++;
+	}
+
 	public String getEmail() {
 		return email;
 	}
 
 	public void setEmail(String email) {
+		if (this.email != null && !this.email.equals(email)) {
+			// Keep the email the user was loaded with, its cached principal must go.
+			if (previousEmail == null) {
+				previousEmail = this.email;
+			}
+			credentialsChanged = true;
+		}
 		this.email = email;
 	}
 
@@ -77,20 +167,48 @@ public class User {
 		this.firstName = firstName;
 	}
 
+	// The password hash is read from the requests, never written to the
+	// responses.
+	@JsonProperty(access = Access.WRITE_ONLY)
 	public String getPassword() {
 		return password;
 	}
 
 	public void setPassword(String password) {
-		String newPasswordToEncrypt = BCrypt.hashpw(password, BCrypt.gensalt(10)); // Crypt the password when set again
+		String newPasswordToEncrypt = PasswordHashPolicy.hash(password); // Crypt the password when set again
 		this.password = newPasswordToEncrypt;
+		credentialsChanged = true;
+	}
+
+	/**
+	 * Hash the same password again with the current cost, see
+	 * {@link PasswordHashPolicy}. <br>
+	 * The credentials do not change, the cached principal and the access tokens
+	 * of the user stay valid.
+	 */
+	public void rehashPassword(String password) {
+		this.password = PasswordHashPolicy.hash(password);
+	}
+
+	/**
+	 * @return true if the password or the email was changed since the user was
+	 *         loaded
+	 */
+	@JsonIgnore
+	public boolean isCredentialsChanged() {
+		return credentialsChanged;
+	}
+
+	@JsonIgnore
+	public String getPreviousEmail() {
+		return previousEmail;
 	}
 
-	public Double getMoneyAvailable() {
+	public Money getMoneyAvailable() {
 		return moneyAvailable;
 	}
 
-	public void setMoneyAvailable(Double moneyAvailable) {
+	public void setMoneyAvailable(Money moneyAvailable) {
 		this.moneyAvailable = moneyAvailable;
 	}
 
@@ -121,8 +239,7 @@ public class User {
 	@Override
 	public String toString() {
 		return "User [id=" + id + ", email=" + email + ", lastName=" + lastName + ", firstName=" + firstName
-				+ ", password=" + password + ", moneyAvailable=" + moneyAvailable + ", bankAccount=" + bankAccount
-				+ ", transaction=" + transaction + ", friends=" + friends + "]";
+				+ ", password=" + password + ", moneyAvailable=" + moneyAvailable + "]";
 	}
 
 }
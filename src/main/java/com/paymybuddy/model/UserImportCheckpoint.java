@@ -0,0 +1,75 @@
+package com.paymybuddy.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Progress of a bulk user import, see
+ * {@link com.paymybuddy.service.UserImportService}. <br>
+ * It is saved in the same database transaction as every batch of users, an
+ * import started again with the same id skip the lines already processed.
+ */
+@Entity
+public class UserImportCheckpoint {
+
+	@Id
+	private String importId;
+	private long linesProcessed;
+	private long imported;
+	private long duplicates;
+	private long rejected;
+	private boolean completed;
+
+	protected UserImportCheckpoint() {
+	}
+
+	public UserImportCheckpoint(String importId) {
+		this.importId = importId;
+	}
+
+	/**
+	 * Record a batch of lines processed.
+	 */
+	public void advance(long lines, long imported, long duplicates, long rejected) {
+		this.linesProcessed += lines;
+		this.imported += imported;
+		this.duplicates += duplicates;
+		this.rejected += rejected;
+	}
+
+	public void complete() {
+		completed = true;
+	}
+
+	public String getImportId() {
+		return importId;
+	}
+
+	public long getLinesProcessed() {
+		return linesProcessed;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	@Override
+	public String toString() {
+		return "UserImportCheckpoint [importId=" + importId + ", linesProcessed=" + linesProcessed + ", imported="
+				+ imported + ", duplicates=" + duplicates + ", rejected=" + rejected + ", completed=" + completed
+				+ "]";
+	}
+
+}
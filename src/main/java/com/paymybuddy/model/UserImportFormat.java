@@ -0,0 +1,13 @@
+package com.paymybuddy.model;
+
+/**
+ * Formats of the files read by the bulk user import. <br>
+ * - CSV: a header line then <b>email,lastName,firstName,password,moneyAvailable</b>,
+ * the money being optional, <br>
+ * - NDJSON: one JSON object per line, with the same field names.
+ */
+public enum UserImportFormat {
+
+	CSV, NDJSON
+
+}
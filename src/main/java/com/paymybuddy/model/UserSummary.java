@@ -0,0 +1,22 @@
+package com.paymybuddy.model;
+
+import org.springframework.data.rest.core.config.Projection;
+
+/**
+ * Flat view of a {@link User}, without its password, bank account,
+ * transactions and friends. <br>
+ * It is the excerpt of the user resources, and is read straight from the
+ * columns by {@link com.paymybuddy.repository.UserRepository#findSummaries}.
+ */
+@Projection(name = "summary", types = User.class)
+public interface UserSummary {
+
+	long getId();
+
+	String getEmail();
+
+	String getLastName();
+
+	String getFirstName();
+
+}
@@ -0,0 +1,58 @@
+package com.paymybuddy.repository;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.BalanceSnapshot;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the balance_snapshot
+ * table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource. The snapshots of a user are read from
+ * the balance_snapshot_user_id_snapshot_date_idx index. The users to backfill
+ * are searched by a scan of the users, once per backfill run.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface BalanceSnapshotRepository extends CrudRepository<BalanceSnapshot, Long> {
+
+	/**
+	 * Find and lock the snapshots of users for a day. The users being locked
+	 * before, the lock is never waited for: it only makes the read see the
+	 * snapshot committed by the previous database transaction of the user.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from BalanceSnapshot s where s.userId in :userIds and s.snapshotDate = :date")
+	List<BalanceSnapshot> findByUserIdInAndSnapshotDateForUpdate(@Param("userIds") Collection<Long> userIds,
+			@Param("date") Date date);
+
+	Optional<BalanceSnapshot> findFirstByUserIdOrderBySnapshotDate(long userId);
+
+	Optional<BalanceSnapshot> findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(long userId,
+			Date date);
+
+	Optional<BalanceSnapshot> findFirstByUserIdAndSnapshotDateGreaterThanOrderBySnapshotDate(long userId, Date date);
+
+	List<BalanceSnapshot> findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(long userId, Date from, Date to);
+
+	/**
+	 * @return the ids of the users having a transaction on a day before their
+	 *         first snapshot, or having a transaction and no snapshot
+	 */
+	@Query("select u.id from User u where exists (select t.id from Transaction t"
+			+ " where (t.userSender = u or t.userReceiver = u) and not exists (select s.id from BalanceSnapshot s"
+			+ " where s.userId = u.id and s.snapshotDate <= t.date))")
+	List<Long> findUserIdsToBackfill();
+}
@@ -0,0 +1,16 @@
+package com.paymybuddy.repository;
+
+import java.util.Optional;
+
+import com.paymybuddy.model.BankAccount;
+
+/**
+ * Fragment of the {@link BankAccountRepository}, looking up the bank accounts
+ * by their IBAN through the Hibernate natural id cache, see
+ * {@link BankAccountNaturalIdRepositoryImpl}.
+ */
+public interface BankAccountNaturalIdRepository {
+
+	Optional<BankAccount> findByIBAN(String IBAN);
+
+}
@@ -0,0 +1,41 @@
+package com.paymybuddy.repository;
+
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.paymybuddy.model.BankAccount;
+
+/**
+ * Implementation of the {@link BankAccountNaturalIdRepository} fragment. <br>
+ * The IBAN is resolved to the id by the persistence context, then by the
+ * natural id cache, and the bank account is read from the second-level cache:
+ * the database is only queried on a cache miss. <br>
+ * The lookups are counted by {@link NaturalIdLookups}.
+ */
+public class BankAccountNaturalIdRepositoryImpl implements BankAccountNaturalIdRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final NaturalIdLookups naturalIdLookups;
+
+	/**
+	 * The slices of the context without the {@link NaturalIdLookups} bean, as
+	 * the repository tests, count their lookups apart.
+	 */
+	@Autowired
+	public BankAccountNaturalIdRepositoryImpl(ObjectProvider<NaturalIdLookups> naturalIdLookups) {
+		this.naturalIdLookups = naturalIdLookups.getIfAvailable(NaturalIdLookups::new);
+	}
+
+	@Override
+	public Optional<BankAccount> findByIBAN(String IBAN) {
+		return naturalIdLookups.find(entityManager, BankAccount.class, IBAN);
+	}
+
+}
@@ -1,20 +1,41 @@
 package com.paymybuddy.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.BankAccountSummary;
 
 /**
  * Interface used to define <b>CRUD</b> operations with the bank_account table.
  * <br>
  * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * The bank accounts are exported with the {@link BankAccountSummary} excerpt,
+ * and <b>/bankAccount/search/summaries</b> read the summaries straight from the
+ * columns, without loading the entities. <br>
+ * {@link #findByIBAN(String)} is a natural id lookup, see
+ * {@link BankAccountNaturalIdRepository}. Being implemented by a fragment, it
+ * is not exported: <b>/bankAccount/search/findByIBAN</b> is
+ * {@link #findOneByIBAN(String)}.
  */
 
-@RepositoryRestResource(collectionResourceRel = "bankAccount", path = "bankAccount")
-public interface BankAccountRepository extends CrudRepository<BankAccount, Integer> {
+@RepositoryRestResource(collectionResourceRel = "bankAccount", path = "bankAccount",
+		excerptProjection = BankAccountSummary.class)
+public interface BankAccountRepository extends CrudRepository<BankAccount, Long>, BankAccountNaturalIdRepository {
+
+	@RestResource(path = "findByIBAN", rel = "findByIBAN")
+	@Query("select b from BankAccount b where b.IBAN = :IBAN")
+	Optional<BankAccount> findOneByIBAN(@Param("IBAN") String IBAN);
 
-	Optional<BankAccount> findByIBAN(String IBAN);
+	@RestResource(path = "summaries", rel = "summaries")
+	@Query("select b.id as id, b.IBAN as IBAN, b.description as description from BankAccount b order by b.id")
+	List<BankAccountSummary> findSummaries(Pageable pageable);
 }
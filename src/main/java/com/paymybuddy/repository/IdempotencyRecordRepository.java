@@ -0,0 +1,27 @@
+package com.paymybuddy.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.IdempotencyRecord;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the idempotency_record
+ * table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, String> {
+
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+	int deleteByExpiresAtBefore(@Param("now") Instant now);
+}
@@ -0,0 +1,66 @@
+package com.paymybuddy.repository;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.JournalEntry;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the journal_entry table.
+ * <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource. The journal is only ever appended,
+ * there is no update nor delete query.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface JournalEntryRepository extends CrudRepository<JournalEntry, Long> {
+
+	String JOURNAL_FETCH_SIZE = "1000";
+
+	@Query("select max(e.id) from JournalEntry e")
+	Long findLastId();
+
+	/**
+	 * @return the last entry, read with a shared lock which waits for the
+	 *         entries not committed yet and keeps new ones from being appended
+	 *         until the end of the database transaction
+	 */
+	@Lock(LockModeType.PESSIMISTIC_READ)
+	Optional<JournalEntry> findFirstByOrderByIdDesc();
+
+	Optional<JournalEntry> findFirstByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(Instant createdAt);
+
+	/**
+	 * @return the account id, side and sum of the amounts of the entries after
+	 *         an id, excluded, up to another one, included
+	 */
+	@Query(value = "select account_id, side, sum(amount) from journal_entry where id > :afterId and id <= :upToId"
+			+ " group by account_id, side", nativeQuery = true)
+	List<Object[]> sumByAccountAndSide(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+	/**
+	 * @return the entries after an id, the stream must be consumed inside a
+	 *         database transaction
+	 */
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = JOURNAL_FETCH_SIZE),
+			@QueryHint(name = HINT_READONLY, value = "true") })
+	@Query("select e from JournalEntry e where e.id > :afterId")
+	Stream<JournalEntry> streamAfter(@Param("afterId") long afterId);
+}
@@ -0,0 +1,32 @@
+package com.paymybuddy.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.LedgerSnapshot;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the ledger_snapshot
+ * table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface LedgerSnapshotRepository extends CrudRepository<LedgerSnapshot, Long> {
+
+	@Query("select max(s.lastEntryId) from LedgerSnapshot s")
+	Long findLastEntryId();
+
+	List<LedgerSnapshot> findByLastEntryId(long lastEntryId);
+
+	@Modifying
+	@Query("delete from LedgerSnapshot s where s.lastEntryId < :lastEntryId")
+	int deleteByLastEntryIdLessThan(@Param("lastEntryId") long lastEntryId);
+}
@@ -0,0 +1,65 @@
+package com.paymybuddy.repository;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.PersistenceContext.NaturalIdHelper;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Look up the users by email and the bank accounts by IBAN, their natural ids.
+ * <br>
+ * Hibernate resolves a natural id from the persistence context before it asks
+ * the natural id cache or the database: inside one operation, that is one
+ * database transaction, a lookup of an email or IBAN already looked up sends
+ * no statement. <br>
+ * The lookups, and those answered by the persistence context of the operation,
+ * are counted, see {@link #getSavedLookups()}.
+ */
+@Component
+public class NaturalIdLookups {
+
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder savedLookups = new LongAdder();
+
+	/**
+	 * @param entityManager : the entity manager of the operation
+	 * @param type          : the type of the entity
+	 * @param naturalId     : the email, IBAN... identifying the entity
+	 * @return the entity, empty if there is none
+	 */
+	public <T> Optional<T> find(EntityManager entityManager, Class<T> type, Object naturalId) {
+		SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+		lookups.increment();
+		if (naturalId != null && isResolved(session, type, naturalId)) {
+			savedLookups.increment();
+		}
+		return session.bySimpleNaturalId(type).loadOptional(naturalId);
+	}
+
+	/**
+	 * @return the number of lookups asked so far
+	 */
+	public long getLookups() {
+		return lookups.sum();
+	}
+
+	/**
+	 * @return the number of lookups answered by the persistence context of their
+	 *         operation, without a statement
+	 */
+	public long getSavedLookups() {
+		return savedLookups.sum();
+	}
+
+	private static boolean isResolved(SessionImplementor session, Class<?> type, Object naturalId) {
+		Serializable id = session.getPersistenceContext().getNaturalIdHelper().findCachedNaturalIdResolution(
+				session.getFactory().getMetamodel().entityPersister(type), new Object[] { naturalId });
+		return id != null && id != NaturalIdHelper.INVALID_NATURAL_ID_REFERENCE;
+	}
+
+}
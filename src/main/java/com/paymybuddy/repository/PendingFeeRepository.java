@@ -0,0 +1,30 @@
+package com.paymybuddy.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.PendingFee;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the pending_fee table.
+ * <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface PendingFeeRepository extends CrudRepository<PendingFee, Integer> {
+
+	List<PendingFee> findByShard(int shard);
+
+	@Modifying
+	@Query("delete from PendingFee p where p.id in :ids")
+	int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+}
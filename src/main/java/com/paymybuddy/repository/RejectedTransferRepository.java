@@ -0,0 +1,22 @@
+package com.paymybuddy.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.RejectedTransfer;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the rejected_transfer
+ * table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface RejectedTransferRepository extends CrudRepository<RejectedTransfer, Long> {
+
+	Optional<RejectedTransfer> findByJournalIdAndSequence(String journalId, long sequence);
+}
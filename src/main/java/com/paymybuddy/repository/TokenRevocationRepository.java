@@ -0,0 +1,29 @@
+package com.paymybuddy.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.TokenRevocation;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the token_revocation
+ * table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface TokenRevocationRepository extends CrudRepository<TokenRevocation, Long> {
+
+	List<TokenRevocation> findByExpiresAtMsGreaterThan(long nowMs);
+
+	@Modifying
+	@Query("delete from TokenRevocation r where r.expiresAtMs <= :nowMs")
+	int deleteExpired(@Param("nowMs") long nowMs);
+}
@@ -1,19 +1,143 @@
 package com.paymybuddy.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionExportRow;
+import com.paymybuddy.model.TransactionSummary;
 import com.paymybuddy.model.User;
 
 /**
  * Interface used to define <b>CRUD</b> operations with the transaction table.
  * <br>
  * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * <br>
+ * The history of a user is read by keyset pagination, from the most recent
+ * transaction to the oldest one: a page start after the (date, id) of the last
+ * transaction of the previous page, instead of skipping an offset. Using the
+ * transaction_user_sender_date_id_idx index, every page costs the same time
+ * however deep it is. <br>
+ * The page size is the <b>size</b> of the {@link Pageable}, its page number
+ * must stay 0. They are exported as <b>/transaction/search/history</b> and
+ * <b>/transaction/search/historyAfter</b>. <br>
+ * <br>
+ * The export of a history is streamed from the database, the rows being
+ * fetched by blocks of {@link #EXPORT_FETCH_SIZE} and mapped directly to
+ * {@link TransactionExportRow}. The stream must be consumed, and closed,
+ * inside a database transaction. <br>
+ * <br>
+ * The transactions are exported with the {@link TransactionSummary} excerpt,
+ * which leaves out the users. To read the emails of the users as well,
+ * <b>/transaction/search/historySummary</b> and
+ * <b>/transaction/search/historySummaryAfter</b> page the history as the
+ * history queries do, but read the rows straight from the columns as
+ * {@link TransactionExportRow}, without loading the entities. <br>
+ * The transactions received by a user are read the same way, using the
+ * transaction_user_receiver_date_id_idx index, for the activity feed. <br>
+ * <br>
+ * The resource is read only: a transaction is written by a transfer, which
+ * moves the money and changes the history version of its sender, see
+ * {@link User#historyChanged()}. A POST, PUT, PATCH or DELETE on
+ * <b>/transaction</b> is answered with a 405 status.
  */
 
-@RepositoryRestResource(collectionResourceRel = "transaction", path = "transaction")
-public interface TransactionRepository extends CrudRepository<Transaction, Integer> {
+@RepositoryRestResource(collectionResourceRel = "transaction", path = "transaction",
+		excerptProjection = TransactionSummary.class)
+public interface TransactionRepository extends CrudRepository<Transaction, Long> {
+
+	String EXPORT_FETCH_SIZE = "500";
+
+	@Override
+	@RestResource(exported = false)
+	<S extends Transaction> S save(S transaction);
+
+	@Override
+	@RestResource(exported = false)
+	void deleteById(Long id);
+
+	@Override
+	@RestResource(exported = false)
+	void delete(Transaction transaction);
 
 	Iterable<Transaction> findAllByUserSender(User user);
+
+	@RestResource(path = "history", rel = "history")
+	@EntityGraph(Transaction.WITH_USERS)
+	@Query("select t from Transaction t where t.userSender.id = :userId order by t.date desc, t.id desc")
+	List<Transaction> findHistory(@Param("userId") long userId, Pageable pageable);
+
+	@RestResource(path = "historyAfter", rel = "historyAfter")
+	@EntityGraph(Transaction.WITH_USERS)
+	@Query("select t from Transaction t where t.userSender.id = :userId"
+			+ " and (t.date < :afterDate or (t.date = :afterDate and t.id < :afterId))"
+			+ " order by t.date desc, t.id desc")
+	List<Transaction> findHistoryAfter(@Param("userId") long userId, @Param("afterDate") Date afterDate,
+			@Param("afterId") long afterId, Pageable pageable);
+
+	@RestResource(path = "historySummary", rel = "historySummary")
+	@Query("select new com.paymybuddy.model.TransactionExportRow(t.id, t.date, t.description, t.amount,"
+			+ " s.email, r.email) from Transaction t join t.userSender s join t.userReceiver r"
+			+ " where s.id = :userId order by t.date desc, t.id desc")
+	List<TransactionExportRow> findHistorySummary(@Param("userId") long userId, Pageable pageable);
+
+	@RestResource(path = "historySummaryAfter", rel = "historySummaryAfter")
+	@Query("select new com.paymybuddy.model.TransactionExportRow(t.id, t.date, t.description, t.amount,"
+			+ " s.email, r.email) from Transaction t join t.userSender s join t.userReceiver r"
+			+ " where s.id = :userId and (t.date < :afterDate or (t.date = :afterDate and t.id < :afterId))"
+			+ " order by t.date desc, t.id desc")
+	List<TransactionExportRow> findHistorySummaryAfter(@Param("userId") long userId,
+			@Param("afterDate") Date afterDate, @Param("afterId") long afterId, Pageable pageable);
+
+	/**
+	 * The transactions sent to themselves are left out, they are already read
+	 * with the sent ones.
+	 */
+	@RestResource(exported = false)
+	@Query("select new com.paymybuddy.model.TransactionExportRow(t.id, t.date, t.description, t.amount,"
+			+ " s.email, r.email) from Transaction t join t.userSender s join t.userReceiver r"
+			+ " where r.id = :userId and s.id <> :userId order by t.date desc, t.id desc")
+	List<TransactionExportRow> findReceivedSummary(@Param("userId") long userId, Pageable pageable);
+
+	@RestResource(exported = false)
+	@Query("select new com.paymybuddy.model.TransactionExportRow(t.id, t.date, t.description, t.amount,"
+			+ " s.email, r.email) from Transaction t join t.userSender s join t.userReceiver r"
+			+ " where r.id = :userId and s.id <> :userId"
+			+ " and (t.date < :afterDate or (t.date = :afterDate and t.id < :afterId))"
+			+ " order by t.date desc, t.id desc")
+	List<TransactionExportRow> findReceivedSummaryAfter(@Param("userId") long userId,
+			@Param("afterDate") Date afterDate, @Param("afterId") long afterId, Pageable pageable);
+
+	@RestResource(exported = false)
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = HINT_READONLY, value = "true") })
+	@Query("select new com.paymybuddy.model.TransactionExportRow(t.id, t.date, t.description, t.amount,"
+			+ " s.email, r.email) from Transaction t join t.userSender s join t.userReceiver r"
+			+ " where s.id = :userId or r.id = :userId order by t.date, t.id")
+	Stream<TransactionExportRow> streamExportRows(@Param("userId") long userId);
+
+	/**
+	 * @return the date, sender id, receiver id and amount of the transactions
+	 *         sent or received by a user before a day, excluded
+	 */
+	@RestResource(exported = false)
+	@Query("select t.date, t.userSender.id, t.userReceiver.id, t.amount from Transaction t"
+			+ " where (t.userSender.id = :userId or t.userReceiver.id = :userId) and t.date < :before")
+	List<Object[]> findMovementsBefore(@Param("userId") long userId, @Param("before") Date before);
 }
@@ -0,0 +1,18 @@
+package com.paymybuddy.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.TransferJournalCheckpoint;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the
+ * transfer_journal_checkpoint table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface TransferJournalCheckpointRepository extends CrudRepository<TransferJournalCheckpoint, String> {
+}
@@ -0,0 +1,18 @@
+package com.paymybuddy.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.paymybuddy.model.UserImportCheckpoint;
+
+/**
+ * Interface used to define <b>CRUD</b> operations with the
+ * user_import_checkpoint table. <br>
+ * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * It is not exported as a REST resource.
+ */
+
+@RepositoryRestResource(exported = false)
+public interface UserImportCheckpointRepository extends CrudRepository<UserImportCheckpoint, String> {
+}
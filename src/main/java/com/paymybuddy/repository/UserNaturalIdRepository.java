@@ -0,0 +1,16 @@
+package com.paymybuddy.repository;
+
+import java.util.Optional;
+
+import com.paymybuddy.model.User;
+
+/**
+ * Fragment of the {@link UserRepository}, looking up the users by their email
+ * through the Hibernate natural id cache, see
+ * {@link UserNaturalIdRepositoryImpl}.
+ */
+public interface UserNaturalIdRepository {
+
+	Optional<User> findByEmail(String email);
+
+}
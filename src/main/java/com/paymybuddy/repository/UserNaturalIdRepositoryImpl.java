@@ -0,0 +1,41 @@
+package com.paymybuddy.repository;
+
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.paymybuddy.model.User;
+
+/**
+ * Implementation of the {@link UserNaturalIdRepository} fragment. <br>
+ * The email is resolved to the id by the persistence context, then by the
+ * natural id cache, and the user is read from the second-level cache: the
+ * database is only queried on a cache miss. <br>
+ * The lookups are counted by {@link NaturalIdLookups}.
+ */
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final NaturalIdLookups naturalIdLookups;
+
+	/**
+	 * The slices of the context without the {@link NaturalIdLookups} bean, as
+	 * the repository tests, count their lookups apart.
+	 */
+	@Autowired
+	public UserNaturalIdRepositoryImpl(ObjectProvider<NaturalIdLookups> naturalIdLookups) {
+		this.naturalIdLookups = naturalIdLookups.getIfAvailable(NaturalIdLookups::new);
+	}
+
+	@Override
+	public Optional<User> findByEmail(String email) {
+		return naturalIdLookups.find(entityManager, User.class, email);
+	}
+
+}
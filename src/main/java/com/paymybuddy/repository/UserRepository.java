@@ -1,19 +1,136 @@
 package com.paymybuddy.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.UserSummary;
 
 /**
  * Interface used to define <b>CRUD</b> operations with the user table. <br>
  * It extends the {@link CrudRepository} interface delivered by Spring Data JPA.
+ * <br>
+ * The users are exported with the {@link UserSummary} excerpt, and
+ * <b>/user/search/summaries</b> read the summaries straight from the columns,
+ * without loading the entities. <br>
+ * {@link #findByEmail(String)} is a natural id lookup, see
+ * {@link UserNaturalIdRepository}. Being implemented by a fragment, it is not
+ * exported: <b>/user/search/findByEmail</b> is {@link #findOneByEmail(String)}.
  */
 
-@RepositoryRestResource(collectionResourceRel = "user", path = "user")
-public interface UserRepository extends CrudRepository<User, Integer> {
+@RepositoryRestResource(collectionResourceRel = "user", path = "user", excerptProjection = UserSummary.class)
+public interface UserRepository extends CrudRepository<User, Long>, UserNaturalIdRepository {
+
+	String FRIENDSHIP_FETCH_SIZE = "1000";
+
+	@RestResource(path = "findByEmail", rel = "findByEmail")
+	@Query("select u from User u where u.email = :email")
+	Optional<User> findOneByEmail(@Param("email") String email);
+
+	@RestResource(path = "summaries", rel = "summaries")
+	@Query("select u.id as id, u.email as email, u.lastName as lastName, u.firstName as firstName"
+			+ " from User u order by u.id")
+	List<UserSummary> findSummaries(Pageable pageable);
+
+	@RestResource(exported = false)
+	@Query("select u.version from User u where u.id = :id")
+	Optional<Integer> findVersionById(@Param("id") long id);
+
+	@RestResource(exported = false)
+	@Query("select u.version from User u where u.email = :email")
+	Optional<Integer> findVersionByEmail(@Param("email") String email);
+
+	@RestResource(exported = false)
+	@Query("select u.historyVersion from User u where u.id = :id")
+	Optional<Long> findHistoryVersionById(@Param("id") long id);
+
+	/**
+	 * @return the balance of the user, read from its row and never from the
+	 *         second-level cache
+	 */
+	@RestResource(exported = false)
+	@Query("select u.moneyAvailable from User u where u.email = :email")
+	Optional<Money> findMoneyAvailableByEmail(@Param("email") String email);
+
+	@RestResource(exported = false)
+	@EntityGraph(User.WITH_BANK_ACCOUNT)
+	@Query("select u from User u where u.email = :email")
+	Optional<User> findWithBankAccountByEmail(@Param("email") String email);
+
+	@RestResource(exported = false)
+	@EntityGraph(User.WITH_FRIENDS)
+	@Query("select u from User u where u.email = :email")
+	Optional<User> findWithFriendsByEmail(@Param("email") String email);
+
+	@RestResource(exported = false)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select u from User u where u.email = :email")
+	Optional<User> findByEmailForUpdate(@Param("email") String email);
+
+	/**
+	 * Find and lock the users having one of the provided emails. <br>
+	 * The users are ordered by id, so that the concurrent callers lock the rows
+	 * in the same order and cannot deadlock each others.
+	 */
+	@RestResource(exported = false)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select u from User u where u.email in :emails order by u.id")
+	List<User> findAllByEmailInForUpdate(@Param("emails") Collection<String> emails);
+
+	/**
+	 * Find and lock the users having one of the provided ids, ordered by id as
+	 * {@link #findAllByEmailInForUpdate(Collection)}.
+	 */
+	@RestResource(exported = false)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select u from User u where u.id in :ids order by u.id")
+	List<User> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * @return the emails, among the provided ones, which already belong to a
+	 *         user
+	 */
+	@RestResource(exported = false)
+	@Query("select u.email from User u where u.email in :emails")
+	List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+	/**
+	 * @return every (user id, user version, friend id) row of the user_friends
+	 *         table, ordered by user id then friend id, without loading the
+	 *         users. A user without friend comes once, with a null friend id.
+	 */
+	@RestResource(exported = false)
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = FRIENDSHIP_FETCH_SIZE),
+			@QueryHint(name = HINT_READONLY, value = "true") })
+	@Query("select u.id, u.version, f.id from User u left join u.friends f order by u.id, f.id")
+	Stream<Object[]> streamFriendships();
 
-	Optional<User> findByEmail(String email);
+	/**
+	 * @return the id and balance of every user, read with a shared lock kept
+	 *         until the end of the database transaction
+	 */
+	@RestResource(exported = false)
+	@Lock(LockModeType.PESSIMISTIC_READ)
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = FRIENDSHIP_FETCH_SIZE))
+	@Query("select u.id, u.moneyAvailable from User u")
+	Stream<Object[]> streamBalancesForShare();
 }
@@ -0,0 +1,42 @@
+package com.paymybuddy.security;
+
+/**
+ * Content of a valid access token issued by the {@link AccessTokenService}.
+ */
+public final class AccessToken {
+
+	private final String tokenId;
+	private final String email;
+	private final long issuedAtMs;
+	private final long expiresAtMs;
+
+	public AccessToken(String tokenId, String email, long issuedAtMs, long expiresAtMs) {
+		this.tokenId = tokenId;
+		this.email = email;
+		this.issuedAtMs = issuedAtMs;
+		this.expiresAtMs = expiresAtMs;
+	}
+
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public long getIssuedAtMs() {
+		return issuedAtMs;
+	}
+
+	public long getExpiresAtMs() {
+		return expiresAtMs;
+	}
+
+	@Override
+	public String toString() {
+		return "AccessToken [tokenId=" + tokenId + ", email=" + email + ", issuedAtMs=" + issuedAtMs
+				+ ", expiresAtMs=" + expiresAtMs + "]";
+	}
+
+}
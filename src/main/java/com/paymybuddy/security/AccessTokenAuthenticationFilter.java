@@ -0,0 +1,80 @@
+package com.paymybuddy.security;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter authenticating the requests carrying an
+ * <b>Authorization: Bearer</b> access token, see {@link AccessTokenService}.
+ * <br>
+ * The token is only checked against its signature, the database is not read.
+ * The authentication lasts for the request only, no HTTP session is created.
+ * <br>
+ * A request with an invalid token is rejected with a 401 status.
+ */
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private static final List<GrantedAuthority> AUTHORITIES = Collections
+			.singletonList(new SimpleGrantedAuthority("USER"));
+
+	private final AccessTokenService accessTokenService;
+
+	public AccessTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+		this.accessTokenService = accessTokenService;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String token = getBearerToken(request);
+		if (token == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		Optional<AccessToken> accessToken = accessTokenService.validate(token);
+		if (!accessToken.isPresent()) {
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "The provided access token is not valid.");
+			return;
+		}
+
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+				accessToken.get().getEmail(), null, AUTHORITIES);
+		authentication.setDetails(accessToken.get());
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	/**
+	 * @return the access token of the Authorization header, null if there is
+	 *         none
+	 */
+	public static String getBearerToken(HttpServletRequest request) {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+			return null;
+		}
+		return header.substring(BEARER_PREFIX.length()).trim();
+	}
+
+}
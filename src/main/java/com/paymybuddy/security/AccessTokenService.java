@@ -0,0 +1,326 @@
+package com.paymybuddy.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.model.TokenRevocation;
+import com.paymybuddy.repository.TokenRevocationRepository;
+
+/**
+ * Issue and validate the short-lived access tokens sent as
+ * <b>Authorization: Bearer</b> headers. <br>
+ * <br>
+ * A token is <b>v1.keyId.tokenId.email.issuedAt.expiresAt.signature</b>, the
+ * signature being the HMAC-SHA256 of the rest of the token. It is validated
+ * from its content and the keys only, without reading the database nor
+ * running BCrypt. <br>
+ * <br>
+ * Key rotation: the tokens are signed with the active key and validated with
+ * any known key. The keys are read from
+ * <b>paymybuddy.security.token.keys</b>, as <b>keyId:base64Secret</b> separated
+ * by commas, the active one being <b>paymybuddy.security.token.active-key</b>.
+ * A new key can be activated at runtime by {@link #rotateKey}, the previous one
+ * is kept until {@link #retireKey} so that the tokens it signed stay valid
+ * until they expire. <br>
+ * <br>
+ * Revocation: a token can be revoked until it expires, and every token of a
+ * user issued before a given time can be revoked, as done when its
+ * credentials change. The revocations are checked in memory, and saved as
+ * {@link TokenRevocation} once the database transaction revoking them
+ * commits. Every instance reads the revocations saved by the others with
+ * {@link #refreshRevocations()}, every
+ * <b>paymybuddy.security.token.revocation-refresh-ms</b>, and they are
+ * deleted once the tokens they revoke are expired. <br>
+ * <br>
+ * The application does not start without a key: a key generated by each
+ * instance would not validate the tokens of the others, nor survive a
+ * restart.
+ */
+@Component
+public class AccessTokenService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AccessTokenService.class);
+
+	private static final String VERSION = "v1";
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final long PURGE_INTERVAL_MS = 60000;
+
+	private final long timeToLiveMs;
+	private final TokenRevocationRepository tokenRevocationRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final Clock clock;
+	private final SecureRandom secureRandom = new SecureRandom();
+	private final Map<String, SecretKeySpec> keys = new ConcurrentHashMap<>();
+	private volatile String activeKeyId;
+	private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+	private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+	private volatile long lastPurgeMs;
+	private volatile long lastTablePurgeMs;
+
+	@Autowired
+	public AccessTokenService(@Value("${paymybuddy.security.token.ttl-seconds:900}") long timeToLiveSeconds,
+			@Value("${paymybuddy.security.token.keys:}") String keys,
+			@Value("${paymybuddy.security.token.active-key:}") String activeKeyId,
+			TokenRevocationRepository tokenRevocationRepository, PlatformTransactionManager transactionManager) {
+		this(timeToLiveSeconds, keys, activeKeyId, tokenRevocationRepository,
+				newTransactionTemplate(transactionManager), Clock.systemUTC());
+	}
+
+	/**
+	 * @param transactionTemplate : the template saving and reading the
+	 *                            revocations, in a database transaction of
+	 *                            their own
+	 */
+	public AccessTokenService(long timeToLiveSeconds, String keys, String activeKeyId,
+			TokenRevocationRepository tokenRevocationRepository, TransactionTemplate transactionTemplate,
+			Clock clock) {
+		if (timeToLiveSeconds < 1) {
+			throw new IllegalArgumentException(
+					"The provided token time to live: << " + timeToLiveSeconds + " >> is not valid.");
+		}
+		if (keys.trim().isEmpty()) {
+			throw new IllegalArgumentException("The provided token keys: << " + keys
+					+ " >> is not valid, paymybuddy.security.token.keys must name a key at least.");
+		}
+		this.timeToLiveMs = timeToLiveSeconds * 1000;
+		this.tokenRevocationRepository = tokenRevocationRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.clock = clock;
+
+		for (String key : keys.split(",")) {
+			if (key.trim().isEmpty()) {
+				continue;
+			}
+			int separator = key.indexOf(':');
+			if (separator < 1) {
+				throw new IllegalArgumentException("The provided token key: << " + key.trim() + " >> is not valid.");
+			}
+			addKey(key.substring(0, separator).trim(), Base64.getDecoder().decode(key.substring(separator + 1).trim()));
+		}
+
+		if (!this.keys.containsKey(activeKeyId)) {
+			throw new IllegalArgumentException("The provided active token key: << " + activeKeyId + " >> is unknown.");
+		}
+		this.activeKeyId = activeKeyId;
+	}
+
+	/**
+	 * @return a new token for the user, signed with the active key
+	 */
+	public String issue(String email) {
+		byte[] id = new byte[16];
+		secureRandom.nextBytes(id);
+		long issuedAtMs = clock.millis();
+		String keyId = activeKeyId;
+		String payload = String.join(".", VERSION, keyId, encode(id),
+				encode(email.getBytes(StandardCharsets.UTF_8)), Long.toString(issuedAtMs),
+				Long.toString(issuedAtMs + timeToLiveMs));
+		return payload + "." + encode(sign(keys.get(keyId), payload));
+	}
+
+	/**
+	 * @return the content of the token, empty if it is malformed, badly signed,
+	 *         expired or revoked
+	 */
+	public Optional<AccessToken> validate(String token) {
+		if (token == null) {
+			return Optional.empty();
+		}
+		String[] parts = token.split("\\.", -1);
+		if (parts.length != 7 || !VERSION.equals(parts[0])) {
+			return Optional.empty();
+		}
+		SecretKeySpec key = keys.get(parts[1]);
+		if (key == null) {
+			return Optional.empty();
+		}
+
+		try {
+			String payload = token.substring(0, token.lastIndexOf('.'));
+			if (!MessageDigest.isEqual(sign(key, payload), Base64.getUrlDecoder().decode(parts[6]))) {
+				return Optional.empty();
+			}
+			AccessToken accessToken = new AccessToken(parts[2],
+					new String(Base64.getUrlDecoder().decode(parts[3]), StandardCharsets.UTF_8),
+					Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+			if (accessToken.getExpiresAtMs() <= clock.millis() || isRevoked(accessToken)) {
+				return Optional.empty();
+			}
+			return Optional.of(accessToken);
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Revoke a token until it expires.
+	 */
+	public void revoke(AccessToken accessToken) {
+		revokedTokens.put(accessToken.getTokenId(), accessToken.getExpiresAtMs());
+		save(new TokenRevocation(accessToken.getTokenId(), null, 0, accessToken.getExpiresAtMs()));
+		purgeExpiredRevocations();
+	}
+
+	/**
+	 * Revoke every token of the user issued until now.
+	 */
+	public void revokeAll(String email) {
+		long now = clock.millis();
+		String normalizedEmail = PrincipalCache.normalize(email);
+		revokedBefore.merge(normalizedEmail, now, Math::max);
+		save(new TokenRevocation(null, normalizedEmail, now, now + timeToLiveMs));
+		purgeExpiredRevocations();
+	}
+
+	/**
+	 * Read the revocations saved by every instance, and delete the expired
+	 * ones.
+	 */
+	public void refreshRevocations() {
+		long now = clock.millis();
+		boolean purgeTable = now - lastTablePurgeMs >= PURGE_INTERVAL_MS;
+		List<TokenRevocation> revocations = transactionTemplate.execute(status -> {
+			if (purgeTable) {
+				tokenRevocationRepository.deleteExpired(now);
+			}
+			return tokenRevocationRepository.findByExpiresAtMsGreaterThan(now);
+		});
+		if (purgeTable) {
+			lastTablePurgeMs = now;
+		}
+		for (TokenRevocation revocation : revocations) {
+			if (revocation.getTokenId() != null) {
+				revokedTokens.merge(revocation.getTokenId(), revocation.getExpiresAtMs(), Math::max);
+			} else if (revocation.getEmail() != null) {
+				revokedBefore.merge(revocation.getEmail(), revocation.getRevokedBeforeMs(), Math::max);
+			}
+		}
+		purgeExpiredRevocations();
+	}
+
+	/**
+	 * Add a key and sign the new tokens with it. The previous key still
+	 * validate the tokens it signed, until it is retired.
+	 */
+	public void rotateKey(String keyId, byte[] secret) {
+		addKey(keyId, secret);
+		activeKeyId = keyId;
+	}
+
+	/**
+	 * Remove a key, the tokens it signed are not valid anymore.
+	 */
+	public void retireKey(String keyId) {
+		if (keyId.equals(activeKeyId)) {
+			throw new IllegalArgumentException("The active token key: << " + keyId + " >> cannot be retired.");
+		}
+		keys.remove(keyId);
+	}
+
+	public String getActiveKeyId() {
+		return activeKeyId;
+	}
+
+	public long getTimeToLiveMs() {
+		return timeToLiveMs;
+	}
+
+	private void addKey(String keyId, byte[] secret) {
+		if (keyId.isEmpty() || keyId.contains(".") || secret.length < 32) {
+			throw new IllegalArgumentException("The provided token key: << " + keyId
+					+ " >> is not valid, it needs an id without dot and a secret of 32 bytes at least.");
+		}
+		keys.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+	}
+
+	/**
+	 * Save a revocation once the database transaction revoking it commits, in a
+	 * transaction of its own. Until it is saved, it is only known by this
+	 * instance.
+	 */
+	private void save(TokenRevocation revocation) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			transactionTemplate.execute(status -> tokenRevocationRepository.save(revocation));
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				try {
+					transactionTemplate.execute(status -> tokenRevocationRepository.save(revocation));
+				} catch (RuntimeException e) {
+					logger.error("The token revocation {} cannot be saved, only this instance knows it", revocation,
+							e);
+				}
+			}
+		});
+	}
+
+	private boolean isRevoked(AccessToken accessToken) {
+		if (revokedTokens.containsKey(accessToken.getTokenId())) {
+			return true;
+		}
+		Long before = revokedBefore.get(PrincipalCache.normalize(accessToken.getEmail()));
+		return before != null && accessToken.getIssuedAtMs() <= before;
+	}
+
+	private void purgeExpiredRevocations() {
+		long now = clock.millis();
+		if (now - lastPurgeMs < PURGE_INTERVAL_MS) {
+			return;
+		}
+		lastPurgeMs = now;
+		revokedTokens.values().removeIf(expiresAtMs -> expiresAtMs <= now);
+		// The tokens issued before now - timeToLive are expired anyway.
+		Iterator<Long> iterator = revokedBefore.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() + timeToLiveMs <= now) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private static byte[] sign(SecretKeySpec key, String payload) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("The access token cannot be signed.", e);
+		}
+	}
+
+	private static TransactionTemplate newTransactionTemplate(PlatformTransactionManager transactionManager) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return transactionTemplate;
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+}
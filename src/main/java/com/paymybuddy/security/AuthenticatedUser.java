@@ -0,0 +1,49 @@
+package com.paymybuddy.security;
+
+import java.util.Optional;
+
+import org.springframework.security.core.Authentication;
+
+import com.paymybuddy.service.UserService;
+
+/**
+ * Give the email of the user behind an {@link Authentication}: <br>
+ * - the {@link UserPrincipal} of a form login or of an HTTP basic
+ * authentication, <br>
+ * - the {@link AccessToken} of a bearer token, see
+ * {@link AccessTokenAuthenticationFilter}. <br>
+ * The controllers moving money take the user from here, never from a request
+ * parameter. The controllers reading the data of the user named by a request
+ * parameter check with {@link #isUser} that it is the authenticated one.
+ */
+public final class AuthenticatedUser {
+
+	private AuthenticatedUser() {
+	}
+
+	/**
+	 * @return the email of the authenticated user, empty if the request is not
+	 *         authenticated as a user
+	 */
+	public static Optional<String> getEmail(Authentication authentication) {
+		if (authentication == null || !authentication.isAuthenticated()) {
+			return Optional.empty();
+		}
+		if (authentication.getPrincipal() instanceof UserPrincipal) {
+			return Optional.ofNullable(((UserPrincipal) authentication.getPrincipal()).getEmail());
+		}
+		if (authentication.getDetails() instanceof AccessToken) {
+			return Optional.ofNullable(((AccessToken) authentication.getDetails()).getEmail());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @return true if the request is authenticated as the user of this id
+	 */
+	public static boolean isUser(Authentication authentication, long userId, UserService userService) {
+		return getEmail(authentication).flatMap(userService::getUser).filter(user -> user.getId() == userId)
+				.isPresent();
+	}
+
+}
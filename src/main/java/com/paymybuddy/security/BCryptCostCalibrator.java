@@ -0,0 +1,86 @@
+package com.paymybuddy.security;
+
+import java.util.function.IntToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Set the {@link PasswordHashPolicy} cost at startup. <br>
+ * <br>
+ * - <b>paymybuddy.security.bcrypt.cost</b> set a fixed cost, <br>
+ * - otherwise the hashing is measured on the current hardware and the highest
+ * cost between <b>paymybuddy.security.bcrypt.min-cost</b> and
+ * <b>paymybuddy.security.bcrypt.max-cost</b> hashing within
+ * <b>paymybuddy.security.bcrypt.target-ms</b> is used. <br>
+ * <br>
+ * Every cost step doubles the hashing time, the calibration stops at the first
+ * cost above the target so it lasts about twice the target at most.
+ */
+@Component
+public class BCryptCostCalibrator {
+
+	private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+	private static final String SAMPLE_PASSWORD = "calibration-password";
+
+	private final int cost;
+
+	@Autowired
+	public BCryptCostCalibrator(@Value("${paymybuddy.security.bcrypt.cost:0}") int fixedCost,
+			@Value("${paymybuddy.security.bcrypt.min-cost:10}") int minimumCost,
+			@Value("${paymybuddy.security.bcrypt.max-cost:14}") int maximumCost,
+			@Value("${paymybuddy.security.bcrypt.target-ms:250}") long targetMs) {
+		this(fixedCost, minimumCost, maximumCost, targetMs, BCryptCostCalibrator::measureHashingMs);
+	}
+
+	public BCryptCostCalibrator(int fixedCost, int minimumCost, int maximumCost, long targetMs,
+			IntToLongFunction hashingMs) {
+		if (fixedCost > 0) {
+			cost = fixedCost;
+			logger.info("BCrypt cost set to {}", cost);
+		} else {
+			cost = calibrate(minimumCost, maximumCost, targetMs, hashingMs);
+			logger.info("BCrypt cost calibrated to {} for a target of {} ms", cost, targetMs);
+		}
+		PasswordHashPolicy.setCost(cost);
+	}
+
+	public int getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return the highest cost hashing within the target, the minimum cost if
+	 *         none does
+	 */
+	private static int calibrate(int minimumCost, int maximumCost, long targetMs, IntToLongFunction hashingMs) {
+		if (minimumCost < PasswordHashPolicy.MINIMUM_COST || maximumCost < minimumCost
+				|| maximumCost > PasswordHashPolicy.MAXIMUM_COST) {
+			throw new IllegalArgumentException("The provided BCrypt cost range: << " + minimumCost + ", "
+					+ maximumCost + " >> is not valid.");
+		}
+		int calibratedCost = minimumCost;
+		for (int candidate = minimumCost; candidate <= maximumCost; candidate++) {
+			if (hashingMs.applyAsLong(candidate) > targetMs) {
+				break;
+			}
+			calibratedCost = candidate;
+		}
+		return calibratedCost;
+	}
+
+	private static long measureHashingMs(int cost) {
+		// Warm up with a cheap hash, the first one also pays for the class loading.
+		BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(PasswordHashPolicy.MINIMUM_COST));
+		String salt = BCrypt.gensalt(cost);
+		long start = System.nanoTime();
+		BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+}
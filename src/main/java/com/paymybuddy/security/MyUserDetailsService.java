@@ -1,8 +1,10 @@
 package com.paymybuddy.security;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,7 +18,11 @@ import com.paymybuddy.repository.UserRepository;
  * Service used to define the strategy used by the
  * {@link DaoAuthenticationProvider}. <br>
  * It implements the {@link UserDetailsService} interface and override the only
- * method it contain.
+ * method it contain. <br>
+ * The principals are kept in the {@link PrincipalCache}, the user table is only
+ * read when the principal is not cached. <br>
+ * The users whose email is listed by the
+ * <b>paymybuddy.security.admin-emails</b> property are administrators.
  */
 
 @Service
@@ -25,11 +31,26 @@ public class MyUserDetailsService implements UserDetailsService {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Value("${paymybuddy.security.admin-emails:}")
+	private String[] adminEmails = new String[0];
+
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+		UserPrincipal cachedPrincipal = principalCache.get(email);
+		if (cachedPrincipal != null) {
+			return cachedPrincipal;
+		}
+
+		long generation = principalCache.getGeneration();
 		Optional<User> optionalUser = userRepository.findByEmail(email);
 		if (optionalUser.isPresent()) {
-			return new UserPrincipal(optionalUser.get());
+			UserPrincipal principal = new UserPrincipal(optionalUser.get(),
+					Arrays.asList(adminEmails).contains(optionalUser.get().getEmail()));
+			principalCache.put(email, principal, generation);
+			return principal;
 		}
 
 		throw new UsernameNotFoundException("The user could not be found: " + email);
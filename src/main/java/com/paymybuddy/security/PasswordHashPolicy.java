@@ -0,0 +1,68 @@
+package com.paymybuddy.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * BCrypt work factor the passwords are hashed with. <br>
+ * It is read by the {@link com.paymybuddy.model.User} entity, which cannot be
+ * injected, and is set at startup by the {@link BCryptCostCalibrator}. Until
+ * then, and when the application runs without Spring, the
+ * {@link #DEFAULT_COST} is used. <br>
+ * A stored hash with a lower cost than the current one needs to be rehashed,
+ * see {@link #needsRehash(String)}.
+ */
+public final class PasswordHashPolicy {
+
+	public static final int DEFAULT_COST = 10;
+	public static final int MINIMUM_COST = 4;
+	public static final int MAXIMUM_COST = 31;
+
+	private static volatile int cost = DEFAULT_COST;
+
+	private PasswordHashPolicy() {
+	}
+
+	public static int getCost() {
+		return cost;
+	}
+
+	public static void setCost(int cost) {
+		if (cost < MINIMUM_COST || cost > MAXIMUM_COST) {
+			throw new IllegalArgumentException("The provided BCrypt cost: << " + cost + " >> is not valid.");
+		}
+		PasswordHashPolicy.cost = cost;
+	}
+
+	/**
+	 * @return the BCrypt hash of the password, with the current cost
+	 */
+	public static String hash(String password) {
+		return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+	}
+
+	/**
+	 * @return the cost of a BCrypt hash as <b>$2a$10$...</b>, -1 if it is not a
+	 *         BCrypt hash
+	 */
+	public static int getCost(String hash) {
+		if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$'
+				|| hash.charAt(6) != '$') {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(hash.substring(4, 6));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return true if the hash is a BCrypt hash with a lower cost than the
+	 *         current one
+	 */
+	public static boolean needsRehash(String hash) {
+		int hashCost = getCost(hash);
+		return hashCost != -1 && hashCost < cost;
+	}
+
+}
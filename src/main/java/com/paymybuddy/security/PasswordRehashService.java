@@ -0,0 +1,125 @@
+package com.paymybuddy.security;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.repository.UserRepository;
+
+/**
+ * Upgrade the password hash of a user to the current
+ * {@link PasswordHashPolicy} cost, in the background, after a successful
+ * login: the raw password is only known at that time. <br>
+ * <br>
+ * - the rehashes run on a single thread, at most
+ * <b>paymybuddy.security.bcrypt.rehash-queue-size</b> of them wait, the next
+ * ones are dropped and done at a later login, <br>
+ * - a user is rehashed once at a time, <br>
+ * - the hash is only replaced if it is still the one the password was checked
+ * against, a password changed in the meantime is kept.
+ */
+@Component
+public class PasswordRehashService {
+
+	private static final Logger logger = LoggerFactory.getLogger(PasswordRehashService.class);
+
+	private final UserRepository userRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ExecutorService executor;
+	private final Set<String> pendingEmails = ConcurrentHashMap.newKeySet();
+	private final LongAdder rehashed = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	@Autowired
+	public PasswordRehashService(UserRepository userRepository, TransactionTemplate transactionTemplate,
+			@Value("${paymybuddy.security.bcrypt.rehash-queue-size:100}") int queueSize) {
+		this(userRepository, transactionTemplate, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "password-rehash");
+					thread.setDaemon(true);
+					return thread;
+				}));
+	}
+
+	public PasswordRehashService(UserRepository userRepository, TransactionTemplate transactionTemplate,
+			ExecutorService executor) {
+		this.userRepository = userRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.executor = executor;
+	}
+
+	/**
+	 * Schedule the rehash of the password of a user if its hash is below the
+	 * current cost.
+	 *
+	 * @param email        : the email of the user
+	 * @param checkedHash  : the hash the password was checked against
+	 * @param password     : the raw password, just checked
+	 * @return true if the rehash was scheduled
+	 */
+	public boolean rehashIfNeeded(String email, String checkedHash, String password) {
+		if (!PasswordHashPolicy.needsRehash(checkedHash)) {
+			return false;
+		}
+		String key = PrincipalCache.normalize(email);
+		if (!pendingEmails.add(key)) {
+			return false;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					rehash(email, checkedHash, password);
+				} finally {
+					pendingEmails.remove(key);
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			pendingEmails.remove(key);
+			dropped.increment();
+			return false;
+		}
+	}
+
+	public long getRehashed() {
+		return rehashed.sum();
+	}
+
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private void rehash(String email, String checkedHash, String password) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> userRepository.findByEmail(email)
+					.filter(user -> checkedHash.equals(user.getPassword())).ifPresent(user -> {
+						user.rehashPassword(password);
+						userRepository.save(user);
+						rehashed.increment();
+					}));
+		} catch (RuntimeException e) {
+			// The old hash stays valid, the next login tries again.
+			logger.warn("The password of the user: << " + email + " >> cannot be rehashed.", e);
+		}
+	}
+
+}
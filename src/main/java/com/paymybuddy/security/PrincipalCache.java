@@ -0,0 +1,171 @@
+package com.paymybuddy.security;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of the {@link UserPrincipal} loaded by the
+ * {@link MyUserDetailsService}, so that a burst of logins does not read the
+ * user table every time. <br>
+ * <br>
+ * - the entries are keyed by the normalized email, trimmed and lower-cased,
+ * <br>
+ * - an entry expire <b>paymybuddy.security.principal-cache.ttl-ms</b> after
+ * it was loaded, <br>
+ * - at most <b>paymybuddy.security.principal-cache.max-size</b> entries are
+ * kept, the least recently used one being evicted first. <br>
+ * <br>
+ * The entry of a user is invalidated when its credentials change, see
+ * {@link UserCredentialsListener}. A principal read from the database before
+ * an invalidation is not cached, see {@link #getGeneration()}. <br>
+ * The hits, misses and evictions are counted.
+ */
+@Component
+public class PrincipalCache {
+
+	private final long timeToLiveMs;
+	private final int maxSize;
+	private final Clock clock;
+	private final Map<String, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private long generation;
+
+	@Autowired
+	public PrincipalCache(@Value("${paymybuddy.security.principal-cache.ttl-ms:60000}") long timeToLiveMs,
+			@Value("${paymybuddy.security.principal-cache.max-size:10000}") int maxSize) {
+		this(timeToLiveMs, maxSize, Clock.systemUTC());
+	}
+
+	public PrincipalCache(long timeToLiveMs, int maxSize, Clock clock) {
+		if (timeToLiveMs < 0 || maxSize < 0) {
+			throw new IllegalArgumentException("The provided principal cache limits: << " + timeToLiveMs + ", "
+					+ maxSize + " >> are not valid.");
+		}
+		this.timeToLiveMs = timeToLiveMs;
+		this.maxSize = maxSize;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > PrincipalCache.this.maxSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return the cached principal of the email, null if it is not cached or
+	 *         expired
+	 */
+	public UserPrincipal get(String email) {
+		String key = normalize(email);
+		long now = clock.millis();
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry != null && entry.expiresAt > now) {
+				hits.increment();
+				return entry.principal;
+			}
+			if (entry != null) {
+				entries.remove(key);
+				evictions.increment();
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * @return the number of invalidations so far, to read before loading a
+	 *         principal from the database
+	 */
+	public long getGeneration() {
+		synchronized (entries) {
+			return generation;
+		}
+	}
+
+	/**
+	 * Cache a principal, unless an invalidation happened since it was read from
+	 * the database: it may hold the credentials which were just changed.
+	 *
+	 * @param generation : the {@link #getGeneration()} read before loading the
+	 *                   principal
+	 */
+	public void put(String email, UserPrincipal principal, long generation) {
+		if (maxSize == 0 || timeToLiveMs == 0) {
+			return;
+		}
+		Entry entry = new Entry(principal, clock.millis() + timeToLiveMs);
+		synchronized (entries) {
+			if (generation == this.generation) {
+				entries.put(normalize(email), entry);
+			}
+		}
+	}
+
+	public void invalidate(String email) {
+		synchronized (entries) {
+			generation++;
+			if (email != null) {
+				entries.remove(normalize(email));
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		synchronized (entries) {
+			generation++;
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	static String normalize(String email) {
+		return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Entry {
+
+		private final UserPrincipal principal;
+		private final long expiresAt;
+
+		private Entry(UserPrincipal principal, long expiresAt) {
+			this.principal = principal;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
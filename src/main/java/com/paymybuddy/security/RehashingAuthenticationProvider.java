@@ -0,0 +1,37 @@
+package com.paymybuddy.security;
+
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * {@link DaoAuthenticationProvider} checking the passwords with BCrypt, whatever
+ * their cost, and upgrading the hashes below the current
+ * {@link PasswordHashPolicy} cost after a successful login, see
+ * {@link PasswordRehashService}. <br>
+ * The login does not wait for the rehash.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+	private final PasswordRehashService passwordRehashService;
+
+	public RehashingAuthenticationProvider(UserDetailsService userDetailsService,
+			PasswordRehashService passwordRehashService) {
+		this.passwordRehashService = passwordRehashService;
+		setUserDetailsService(userDetailsService);
+		setPasswordEncoder(new BCryptPasswordEncoder());
+	}
+
+	@Override
+	protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+			UserDetails user) {
+		if (user instanceof UserPrincipal && authentication.getCredentials() != null) {
+			passwordRehashService.rehashIfNeeded(((UserPrincipal) user).getEmail(), user.getPassword(),
+					authentication.getCredentials().toString());
+		}
+		return super.createSuccessAuthentication(principal, authentication, user);
+	}
+
+}
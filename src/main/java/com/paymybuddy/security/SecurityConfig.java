@@ -3,17 +3,29 @@ package com.paymybuddy.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
  * Configuration class used to define the application authentication. <br>
  * It use the {@link BCryptPasswordEncoder} class to encrypt the password. <br>
- * It extends the {@link WebSecurityConfigurerAdapter} abstract class.
+ * It extends the {@link WebSecurityConfigurerAdapter} abstract class. <br>
+ * <br>
+ * Besides the form login and the HTTP basic authentication, the requests can
+ * be authenticated by an access token, see {@link AccessTokenService}: the
+ * password is checked once, by <b>POST /login/token</b>, the next requests
+ * only check the token signature. <br>
+ * The import of users is kept for the administrators, see
+ * {@link MyUserDetailsService}, logged in with their password: an access
+ * token only carries the <b>USER</b> authority.
  */
 
 @Configuration
@@ -23,17 +35,43 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 	@Autowired
 	private UserDetailsService userDetailsService;
 
+	@Autowired
+	private AccessTokenService accessTokenService;
+
+	@Autowired
+	private PasswordRehashService passwordRehashService;
+
 	/**
-	 * Bean used to define a specific Authentication
+	 * Bean used to define a specific Authentication, the hashes below the
+	 * {@link PasswordHashPolicy} cost are upgraded after the login
 	 * 
 	 * @return DaoAuthenticationProvider
 	 */
 	@Bean
 	public AuthenticationProvider authProvider() {
-		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-		provider.setUserDetailsService(userDetailsService);
-		provider.setPasswordEncoder(new BCryptPasswordEncoder());
-		return provider;
+		return new RehashingAuthenticationProvider(userDetailsService, passwordRehashService);
+
+	}
+
+	/**
+	 * Bean used to authenticate the credentials exchanged for an access token
+	 * 
+	 * @return AuthenticationManager
+	 */
+	@Bean
+	@Override
+	public AuthenticationManager authenticationManagerBean() throws Exception {
+		return super.authenticationManagerBean();
+	}
 
+	@Override
+	protected void configure(HttpSecurity http) throws Exception {
+		http.authorizeRequests().antMatchers(HttpMethod.POST, "/login/token").permitAll().antMatchers("/import/**")
+				.hasAuthority("ADMIN").anyRequest().authenticated().and().formLogin().and().httpBasic();
+		// A token is not sent automatically by the browser, no CSRF protection is needed.
+		http.csrf().ignoringRequestMatchers(new AntPathRequestMatcher("/login/token", HttpMethod.POST.name()),
+				request -> AccessTokenAuthenticationFilter.getBearerToken(request) != null);
+		http.addFilterBefore(new AccessTokenAuthenticationFilter(accessTokenService),
+				UsernamePasswordAuthenticationFilter.class);
 	}
 }
@@ -0,0 +1,73 @@
+package com.paymybuddy.security;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.paymybuddy.model.User;
+
+/**
+ * Entity listener of the {@link User} invalidating its cached principal, see
+ * {@link PrincipalCache}, and revoking its access tokens, see
+ * {@link AccessTokenService}, when its password or email is changed or when it
+ * is deleted. <br>
+ * The entry is invalidated when the change is flushed, and once more when the
+ * database transaction completes, so that a login reading the user in between
+ * cannot cache the old credentials.
+ */
+public class UserCredentialsListener {
+
+	private final ObjectProvider<PrincipalCache> principalCache;
+	private final ObjectProvider<AccessTokenService> accessTokenService;
+
+	@Autowired
+	public UserCredentialsListener(ObjectProvider<PrincipalCache> principalCache,
+			ObjectProvider<AccessTokenService> accessTokenService) {
+		this.principalCache = principalCache;
+		this.accessTokenService = accessTokenService;
+	}
+
+	@PostUpdate
+	public void userUpdated(User user) {
+		if (user.isCredentialsChanged()) {
+			invalidate(user.getEmail(), user.getPreviousEmail());
+		}
+	}
+
+	@PostRemove
+	public void userRemoved(User user) {
+		invalidate(user.getEmail(), user.getPreviousEmail());
+	}
+
+	private void invalidate(String email, String previousEmail) {
+		AccessTokenService tokenService = accessTokenService.getIfAvailable();
+		if (tokenService != null) {
+			tokenService.revokeAll(email);
+			if (previousEmail != null) {
+				tokenService.revokeAll(previousEmail);
+			}
+		}
+
+		PrincipalCache cache = principalCache.getIfAvailable();
+		if (cache == null) {
+			return;
+		}
+
+		cache.invalidate(email);
+		cache.invalidate(previousEmail);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					cache.invalidate(email);
+					cache.invalidate(previousEmail);
+				}
+			});
+		}
+	}
+
+}
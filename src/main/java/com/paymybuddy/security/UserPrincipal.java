@@ -1,5 +1,6 @@
 package com.paymybuddy.security;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -12,31 +13,52 @@ import com.paymybuddy.model.User;
 /**
  * Store the user information which is then encapsulated into an Authentication
  * object, {@link SecurityConfig}. <br>
- * It implements the {@link UserDetails} interface.
+ * It implements the {@link UserDetails} interface. <br>
+ * It copy the credentials of the {@link User} instead of holding the entity,
+ * so that it can be kept by the {@link PrincipalCache}. <br>
+ * Every user has the <b>USER</b> authority, the administrators also have the
+ * <b>ADMIN</b> one.
  */
 
 public class UserPrincipal implements UserDetails {
 
-	private User user;
+	private final String email;
+	private final String firstName;
+	private final String password;
+	private final boolean admin;
 
 	public UserPrincipal(User user) {
+		this(user, false);
+	}
+
+	public UserPrincipal(User user, boolean admin) {
 		super();
-		this.user = user;
+		this.email = user.getEmail();
+		this.firstName = user.getFirstName();
+		this.password = user.getPassword();
+		this.admin = admin;
+	}
+
+	public String getEmail() {
+		return email;
 	}
 
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
+		if (admin) {
+			return Arrays.asList(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN"));
+		}
 		return Collections.singleton(new SimpleGrantedAuthority("USER"));
 	}
 
 	@Override
 	public String getPassword() {
-		return user.getPassword();
+		return password;
 	}
 
 	@Override
 	public String getUsername() {
-		return user.getFirstName();
+		return firstName;
 	}
 
 	@Override
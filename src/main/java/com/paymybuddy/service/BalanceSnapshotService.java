@@ -0,0 +1,30 @@
+package com.paymybuddy.service;
+
+import java.sql.Date;
+import java.util.List;
+
+import com.paymybuddy.model.BalancePoint;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.service.impl.BalanceSnapshotServiceImpl;
+
+/**
+ * Interface used for the business logic, it is implemented by the corresponding
+ * {@link BalanceSnapshotServiceImpl} class. <br>
+ * It is used to maintain the daily balance snapshots, to backfill the days
+ * before them and to read the balance of a user at a past date. <br>
+ * Can then be called/autowired in a controller layer.
+ */
+public interface BalanceSnapshotService {
+
+	void recordBalanceChange(User user, Money balanceBefore);
+
+	int backfill(long userId);
+
+	List<Long> findUserIdsToBackfill();
+
+	Money getBalanceAt(long userId, Date date);
+
+	List<BalancePoint> getDailyBalances(long userId, Date from, Date to);
+
+}
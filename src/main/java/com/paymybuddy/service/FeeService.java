@@ -0,0 +1,19 @@
+package com.paymybuddy.service;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.service.impl.FeeServiceImpl;
+
+/**
+ * Interface used for the business logic, it is implemented by the corresponding
+ * {@link FeeServiceImpl} class. <br>
+ * It is used to collect the fees of the transactions and to credit them, later
+ * on, to the paymybuddy account. <br>
+ * Can then be called/autowired in a controller layer.
+ */
+public interface FeeService {
+
+	void collectFee(Money fee);
+
+	Money flushPendingFees();
+
+}
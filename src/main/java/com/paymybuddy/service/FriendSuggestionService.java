@@ -0,0 +1,18 @@
+package com.paymybuddy.service;
+
+import java.util.List;
+
+import com.paymybuddy.model.FriendSuggestion;
+import com.paymybuddy.service.impl.FriendSuggestionServiceImpl;
+
+/**
+ * Interface used for the business logic, it is implemented by the corresponding
+ * {@link FriendSuggestionServiceImpl} class. <br>
+ * It is used to suggest new friends to a user, the "people you may know". <br>
+ * Can then be called/autowired in a controller layer.
+ */
+public interface FriendSuggestionService {
+
+	List<FriendSuggestion> suggestFriends(long userId);
+
+}
@@ -1,6 +1,11 @@
 package com.paymybuddy.service;
 
+import java.util.List;
+
 import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
 import com.paymybuddy.model.User;
 import com.paymybuddy.service.impl.PayMyBuddyServiceImpl;
 
@@ -18,17 +23,28 @@ public interface PayMyBuddyService {
 	void deleteBankAccount(User user, String iban);
 
 	void createTransaction(User userSendingMoney, User userGettingMoney, String description,
-			Double amountOfTheTransaction);
+			Money amountOfTheTransaction);
+
+	void createTransaction(User userSendingMoney, User userGettingMoney, String description,
+			Money amountOfTheTransaction, String idempotencyKey);
+
+	List<TransferResult> createTransactions(List<TransferRequest> transferRequests);
 
-	void makeTransaction(User userSendingMoney, User userGettingMoney, Double amountOfTheTransaction);
+	void makeTransaction(User userSendingMoney, User userGettingMoney, Money amountOfTheTransaction);
 
 	void addFriend(User user, User friend);
 
 	void deleteFriend(User user, User friend);
 
-	void addMoneyOnThePayMyBuddyAccountFromBankAccount(User user, BankAccount bankAccount, Double amountTransfered);
+	void addMoneyOnThePayMyBuddyAccountFromBankAccount(User user, BankAccount bankAccount, Money amountTransfered);
+
+	void addMoneyOnThePayMyBuddyAccountFromBankAccount(User user, BankAccount bankAccount, Money amountTransfered,
+			String idempotencyKey);
+
+	void transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(User user, BankAccount bankAccount,
+			Money amountTransfered);
 
 	void transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(User user, BankAccount bankAccount,
-			Double amountTransfered);
+			Money amountTransfered, String idempotencyKey);
 
 }
@@ -0,0 +1,28 @@
+package com.paymybuddy.service;
+
+import java.util.Optional;
+
+import com.paymybuddy.service.impl.ResourceVersionServiceImpl;
+
+/**
+ * Interface used for the business logic, it is implemented by the corresponding
+ * {@link ResourceVersionServiceImpl} class. <br>
+ * It give the ETag of the polled resources, read from a single column, so that
+ * a conditional request is answered without loading the resource.
+ */
+public interface ResourceVersionService {
+
+	/**
+	 * @return the ETag of the user, and of its balance, derived from its version
+	 */
+	Optional<String> getUserETag(long userId);
+
+	Optional<String> getUserETagByEmail(String email);
+
+	/**
+	 * @return the ETag of the transaction history sent by the user, derived from
+	 *         its history version
+	 */
+	String getHistoryETag(long userId);
+
+}
@@ -1,6 +1,12 @@
 package com.paymybuddy.service;
 
+import java.io.Writer;
+import java.util.List;
+
+import com.paymybuddy.model.ActivityEntry;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionCursor;
+import com.paymybuddy.model.TransactionExportFormat;
 import com.paymybuddy.model.User;
 import com.paymybuddy.service.impl.TransactionServiceImpl;
 
@@ -15,4 +21,10 @@ public interface TransactionService {
 
 	Iterable<Transaction> findAllByUserSender(User user);
 
+	List<Transaction> findHistory(long userId, TransactionCursor afterCursor, int limit);
+
+	List<ActivityEntry> findActivity(long userId, TransactionCursor afterCursor, int limit);
+
+	long exportHistory(long userId, TransactionExportFormat format, Writer writer);
+
 }
@@ -0,0 +1,20 @@
+package com.paymybuddy.service;
+
+import java.io.Reader;
+
+import com.paymybuddy.model.UserImportCheckpoint;
+import com.paymybuddy.model.UserImportFormat;
+import com.paymybuddy.service.impl.UserImportServiceImpl;
+
+/**
+ * Interface used for the business logic, it is implemented by the corresponding
+ * {@link UserImportServiceImpl} class. <br>
+ * It is used to create the users of a file in bulk, as when onboarding a
+ * partner. <br>
+ * Can then be called/autowired in a controller layer.
+ */
+public interface UserImportService {
+
+	UserImportCheckpoint importUsers(String importId, UserImportFormat format, Reader reader);
+
+}
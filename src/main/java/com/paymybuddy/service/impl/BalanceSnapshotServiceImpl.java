@@ -0,0 +1,320 @@
+package com.paymybuddy.service.impl;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.paymybuddy.model.BalancePoint;
+import com.paymybuddy.model.BalanceSnapshot;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.BalanceSnapshotRepository;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.BalanceSnapshotService;
+
+/**
+ * Service which implement the {@link BalanceSnapshotService} interface. <br>
+ * It override the methods and define the business logic. <br>
+ * It make use of the {@link BalanceSnapshotRepository},
+ * {@link TransactionRepository} and {@link UserRepository} interfaces.<br>
+ * <br>
+ * A snapshot holds the balance of a user at the opening and at the end of a
+ * day on which it changed. The services changing a balance record it with
+ * {@link #recordBalanceChange(User, Money)}, the snapshots of the day are
+ * then written just before the database transaction commits, with the money
+ * available of the users at that time: a transaction committed after midnight
+ * counts for the next day, whatever the day it started. The users are locked
+ * first, so that the database transactions changing the balance of a user
+ * write its snapshot one after the other. <br>
+ * The days before the first snapshot of a user are written by
+ * {@link #backfill(long)}, from its transactions. <br>
+ * The balance at a date is the end of the last snapshot up to that date, the
+ * opening of the first one after it when there is none, the money available
+ * of the user when its balance never changed since. <br>
+ * <br>
+ * The class is annotated with {@link Transactional}, rolling back every
+ * transactions in case of any Exceptions thrown by the different methods.
+ */
+@Service
+@Transactional(rollbackOn = { Exception.class })
+public class BalanceSnapshotServiceImpl implements BalanceSnapshotService {
+
+	public static final int MAXIMUM_STATEMENT_DAYS = 366;
+
+	private final BalanceSnapshotRepository balanceSnapshotRepository;
+	private final TransactionRepository transactionRepository;
+	private final UserRepository userRepository;
+	private final Clock clock;
+
+	@Autowired
+	public BalanceSnapshotServiceImpl(BalanceSnapshotRepository balanceSnapshotRepository,
+			TransactionRepository transactionRepository, UserRepository userRepository) {
+		this(balanceSnapshotRepository, transactionRepository, userRepository, Clock.systemDefaultZone());
+	}
+
+	public BalanceSnapshotServiceImpl(BalanceSnapshotRepository balanceSnapshotRepository,
+			TransactionRepository transactionRepository, UserRepository userRepository, Clock clock) {
+		this.balanceSnapshotRepository = balanceSnapshotRepository;
+		this.transactionRepository = transactionRepository;
+		this.userRepository = userRepository;
+		this.clock = clock;
+	}
+
+	/**
+	 * Method used to record a change of the balance of a user, made in the
+	 * current database transaction. <br>
+	 * The snapshot of the day is written when the transaction commits, from the
+	 * balance before its first change and the money available of the user then.
+	 * <br>
+	 * 
+	 * @param user          : the user, whose money available is already changed
+	 * @param balanceBefore : the balance of the user before the change
+	 */
+	@Override
+	public void recordBalanceChange(User user, Money balanceBefore) {
+		Map<Long, BalanceChange> changes = currentChanges();
+		if (changes == null) {
+			write(Collections.singletonList(new BalanceChange(user, balanceBefore)));
+			return;
+		}
+		changes.putIfAbsent(user.getId(), new BalanceChange(user, balanceBefore));
+	}
+
+	/**
+	 * Method used to write the snapshots of the days before the first one of a
+	 * user, or before tomorrow when it has none. <br>
+	 * They are computed backward, from the opening of the first snapshot or the
+	 * money available, by taking off the transactions of every day: the
+	 * amounts received, minus the amounts sent and their fee. The money moved
+	 * from or to a bank account before is not recorded, it is counted in the
+	 * oldest balances. <br>
+	 * The user is locked, a change of its balance waiting for the backfill.
+	 * <br>
+	 * 
+	 * @param userId : the user
+	 * @return the number of snapshots written
+	 */
+	@Override
+	public int backfill(long userId) {
+		List<User> users = userRepository.findAllByIdInForUpdate(Collections.singleton(userId));
+		if (users.isEmpty()) {
+			throw new NoSuchElementException("The provided User: << " + userId + " >> cannot be found.");
+		}
+
+		Optional<BalanceSnapshot> firstSnapshot = balanceSnapshotRepository
+				.findFirstByUserIdOrderBySnapshotDate(userId);
+		Date firstDay = firstSnapshot.map(BalanceSnapshot::getSnapshotDate)
+				.orElseGet(() -> Date.valueOf(LocalDate.now(clock).plusDays(1)));
+		long balance = firstSnapshot.map(BalanceSnapshot::getOpeningBalance)
+				.orElseGet(() -> users.get(0).getMoneyAvailable()).getMinorUnits();
+
+		Map<LocalDate, Long> changesByDay = new TreeMap<>(Collections.reverseOrder());
+		for (Object[] movement : transactionRepository.findMovementsBefore(userId, firstDay)) {
+			long amount = ((Money) movement[3]).getMinorUnits();
+			long change = 0;
+			if (((Number) movement[1]).longValue() == userId) {
+				change -= Math.addExact(amount,
+						Money.percentage(amount, PayMyBuddyServiceImpl.TRANSACTION_FEE_BASIS_POINTS));
+			}
+			if (((Number) movement[2]).longValue() == userId) {
+				change += amount;
+			}
+			changesByDay.merge(((Date) movement[0]).toLocalDate(), change, Math::addExact);
+		}
+
+		List<BalanceSnapshot> snapshots = new ArrayList<>(changesByDay.size());
+		for (Map.Entry<LocalDate, Long> changeOfTheDay : changesByDay.entrySet()) {
+			long openingBalance = Math.subtractExact(balance, changeOfTheDay.getValue());
+			snapshots.add(new BalanceSnapshot(userId, Date.valueOf(changeOfTheDay.getKey()),
+					Money.ofMinorUnits(openingBalance), Money.ofMinorUnits(balance)));
+			balance = openingBalance;
+		}
+		balanceSnapshotRepository.saveAll(snapshots);
+		return snapshots.size();
+	}
+
+	/**
+	 * Method used to find the users to backfill, see {@link #backfill(long)}.
+	 * <br>
+	 * 
+	 * @return the ids of the users having a transaction before their first
+	 *         snapshot
+	 */
+	@Override
+	public List<Long> findUserIdsToBackfill() {
+		return balanceSnapshotRepository.findUserIdsToBackfill();
+	}
+
+	/**
+	 * Method used to read the balance of a user at the end of a day. <br>
+	 * 
+	 * @param userId : the user
+	 * @param date   : the day
+	 * @return the balance
+	 */
+	@Override
+	public Money getBalanceAt(long userId, Date date) {
+		if (date == null) {
+			throw new IllegalArgumentException("The provided date: << " + date + " >> is not valid.");
+		}
+
+		Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository
+				.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(userId, date);
+		if (snapshot.isPresent()) {
+			return snapshot.get().getBalance();
+		}
+		Optional<BalanceSnapshot> nextSnapshot = balanceSnapshotRepository
+				.findFirstByUserIdAndSnapshotDateGreaterThanOrderBySnapshotDate(userId, date);
+		if (nextSnapshot.isPresent()) {
+			return nextSnapshot.get().getOpeningBalance();
+		}
+		return userRepository.findById(userId).orElseThrow(
+				() -> new NoSuchElementException("The provided User: << " + userId + " >> cannot be found."))
+				.getMoneyAvailable();
+	}
+
+	/**
+	 * Method used to read the balance of a user at the end of every day of a
+	 * period, to draw its chart or its statement. <br>
+	 * The balance of the first day is read as {@link #getBalanceAt}, the next
+	 * ones from the snapshots of the period, the days without one keeping the
+	 * balance of the day before. <br>
+	 * 
+	 * @param userId : the user
+	 * @param from   : the first day
+	 * @param to     : the last day, at most {@link #MAXIMUM_STATEMENT_DAYS} days
+	 *               after the first one
+	 * @return one balance per day, from the first day to the last one
+	 */
+	@Override
+	public List<BalancePoint> getDailyBalances(long userId, Date from, Date to) {
+		if (from == null || to == null || to.before(from)
+				|| ChronoUnit.DAYS.between(from.toLocalDate(), to.toLocalDate()) >= MAXIMUM_STATEMENT_DAYS) {
+			throw new IllegalArgumentException(
+					"The provided period: << " + from + " - " + to + " >> is not valid.");
+		}
+
+		Money balance = getBalanceAt(userId, from);
+		LocalDate firstDay = from.toLocalDate();
+		Map<LocalDate, Money> snapshots = new HashMap<>();
+		for (BalanceSnapshot snapshot : balanceSnapshotRepository
+				.findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(userId, Date.valueOf(firstDay.plusDays(1)),
+						to)) {
+			snapshots.put(snapshot.getSnapshotDate().toLocalDate(), snapshot.getBalance());
+		}
+
+		List<BalancePoint> points = new ArrayList<>();
+		points.add(new BalancePoint(from, balance));
+		for (LocalDate day = firstDay.plusDays(1); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+			balance = snapshots.getOrDefault(day, balance);
+			points.add(new BalancePoint(Date.valueOf(day), balance));
+		}
+		return points;
+	}
+
+	/**
+	 * @return the changes recorded in the current database transaction, null
+	 *         outside of one
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<Long, BalanceChange> currentChanges() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		Map<Long, BalanceChange> changes = (Map<Long, BalanceChange>) TransactionSynchronizationManager
+				.getResource(this);
+		if (changes == null) {
+			Map<Long, BalanceChange> newChanges = new LinkedHashMap<>();
+			TransactionSynchronizationManager.bindResource(this, newChanges);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					write(newChanges.values());
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(BalanceSnapshotServiceImpl.this);
+				}
+			});
+			changes = newChanges;
+		}
+		return changes;
+	}
+
+	/**
+	 * Write the snapshots of the day of the changed users, the snapshot already
+	 * written by another database transaction being updated. <br>
+	 * The users are locked first, in the order of their ids: two database
+	 * transactions cannot insert the first snapshot of the day of the same
+	 * user. A snapshot inserted meanwhile anyway is reported as a conflict, the
+	 * database transaction being then done again by the
+	 * {@link com.paymybuddy.concurrency.OptimisticRetryExecutor}.
+	 */
+	private void write(Collection<BalanceChange> changes) {
+		Date today = Date.valueOf(LocalDate.now(clock));
+		List<Long> userIds = new ArrayList<>(changes.size());
+		for (BalanceChange change : changes) {
+			userIds.add(change.user.getId());
+		}
+		userRepository.findAllByIdInForUpdate(userIds);
+		Map<Long, BalanceSnapshot> snapshotsOfTheDay = new HashMap<>();
+		for (BalanceSnapshot snapshot : balanceSnapshotRepository.findByUserIdInAndSnapshotDateForUpdate(userIds,
+				today)) {
+			snapshotsOfTheDay.put(snapshot.getUserId(), snapshot);
+		}
+
+		List<BalanceSnapshot> snapshots = new ArrayList<>(changes.size());
+		for (BalanceChange change : changes) {
+			User user = change.user;
+			BalanceSnapshot snapshot = snapshotsOfTheDay.get(user.getId());
+			if (snapshot != null) {
+				snapshot.close(user.getMoneyAvailable());
+				snapshots.add(snapshot);
+			} else {
+				snapshots.add(new BalanceSnapshot(user.getId(), today, change.balanceBefore,
+						user.getMoneyAvailable()));
+			}
+		}
+		try {
+			balanceSnapshotRepository.saveAll(snapshots);
+		} catch (DataIntegrityViolationException e) {
+			throw new ConcurrencyFailureException(
+					"The balance snapshots of the users: << " + userIds + " >> were written concurrently.", e);
+		}
+	}
+
+	private static final class BalanceChange {
+
+		private final User user;
+		private final Money balanceBefore;
+
+		private BalanceChange(User user, Money balanceBefore) {
+			this.user = user;
+			this.balanceBefore = balanceBefore;
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.paymybuddy.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.PendingFee;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.PendingFeeRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.BalanceSnapshotService;
+import com.paymybuddy.service.FeeService;
+
+/**
+ * Service which implement the {@link FeeService} interface. <br>
+ * It override the methods and define the business logic. <br>
+ * It make use of the {@link PendingFeeRepository} and {@link UserRepository}
+ * interfaces.<br>
+ * <br>
+ * The fees are not credited to the paymybuddy account by the transactions,
+ * they are inserted as pending fees in one of the shards, so that the
+ * transactions never read nor lock the paymybuddy account row. <br>
+ * The pending fees are then credited, all at once, by
+ * {@link #flushPendingFees()}, which records the credit in the daily balances
+ * of the {@link BalanceSnapshotService}. <br>
+ * <br>
+ * The class is annotated with {@link Transactional}, rolling back every
+ * transactions in case of any Exceptions thrown by the different methods.
+ */
+@Service
+@Transactional(rollbackOn = { Exception.class })
+public class FeeServiceImpl implements FeeService {
+
+	public static final String PAYMYBUDDY_ACCOUNT_EMAIL = "paymybuddy@paymybuddy.com";
+
+	private final PendingFeeRepository pendingFeeRepository;
+	private final UserRepository userRepository;
+	private final BalanceSnapshotService balanceSnapshotService;
+	private final int numberOfShards;
+
+	@Autowired
+	public FeeServiceImpl(PendingFeeRepository pendingFeeRepository, UserRepository userRepository,
+			BalanceSnapshotService balanceSnapshotService, @Value("${paymybuddy.fee.shards:16}") int numberOfShards) {
+		if (numberOfShards < 1) {
+			throw new IllegalArgumentException("The number of fee shards: << " + numberOfShards + " >> is not valid.");
+		}
+		this.pendingFeeRepository = pendingFeeRepository;
+		this.userRepository = userRepository;
+		this.balanceSnapshotService = balanceSnapshotService;
+		this.numberOfShards = numberOfShards;
+	}
+
+	/**
+	 * Add the fee of a transaction to the pending fees. <br>
+	 * The shard is chosen from the current thread, so that the concurrent
+	 * transactions are spread over the different shards. <br>
+	 * 
+	 * @param fee : the amount to credit to the paymybuddy account
+	 */
+	@Override
+	public void collectFee(Money fee) {
+		int shard = (int) (Thread.currentThread().getId() % numberOfShards);
+		pendingFeeRepository.save(new PendingFee(shard, fee));
+	}
+
+	/**
+	 * Credit the pending fees of every shards to the paymybuddy account. <br>
+	 * The paymybuddy account row is locked for the duration of the flush, so that
+	 * two concurrent flushes cannot credit the same fees twice. <br>
+	 * The pending fees are deleted in the same database transaction than the
+	 * credit, nothing is lost nor credited twice if the application stop in the
+	 * middle of the flush. <br>
+	 * The pending fees of a shard are read once, then exactly the ones read are
+	 * deleted: a fee committed meanwhile is left for the next flush. When one of
+	 * them is already gone, the flush is rolled back. <br>
+	 * 
+	 * @return the amount credited to the paymybuddy account
+	 */
+	@Override
+	public Money flushPendingFees() {
+		Optional<User> userPayMyBuddyOptional = userRepository.findByEmailForUpdate(PAYMYBUDDY_ACCOUNT_EMAIL);
+		if (!userPayMyBuddyOptional.isPresent()) {
+			throw new NoSuchElementException(
+					"The provided User: << " + PAYMYBUDDY_ACCOUNT_EMAIL + " >> cannot be found.");
+		}
+
+		long amountCredited = 0;
+		for (int shard = 0; shard < numberOfShards; shard++) {
+			List<PendingFee> pendingFees = pendingFeeRepository.findByShard(shard);
+			if (pendingFees.isEmpty()) {
+				continue;
+			}
+			List<Integer> ids = new ArrayList<>(pendingFees.size());
+			for (PendingFee pendingFee : pendingFees) {
+				ids.add(pendingFee.getId());
+				amountCredited = Math.addExact(amountCredited, pendingFee.getAmount().getMinorUnits());
+			}
+			int deleted = pendingFeeRepository.deleteByIdIn(ids);
+			if (deleted != ids.size()) {
+				throw new IllegalStateException("The pending fees of the shard: << " + shard
+						+ " >> were changed during the flush.");
+			}
+		}
+
+		Money fees = Money.ofMinorUnits(amountCredited);
+		if (fees.isPositive()) {
+			User userPayMyBuddy = userPayMyBuddyOptional.get();
+			Money moneyAvailableBefore = userPayMyBuddy.getMoneyAvailable();
+			userPayMyBuddy.setMoneyAvailable(moneyAvailableBefore.plus(fees));
+			userRepository.save(userPayMyBuddy);
+			balanceSnapshotService.recordBalanceChange(userPayMyBuddy, moneyAvailableBefore);
+		}
+		return fees;
+	}
+
+}
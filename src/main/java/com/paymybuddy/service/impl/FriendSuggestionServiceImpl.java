@@ -0,0 +1,158 @@
+package com.paymybuddy.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.graph.FriendshipListener;
+import com.paymybuddy.model.FriendSuggestion;
+import com.paymybuddy.service.FriendSuggestionService;
+
+/**
+ * Service which implement the {@link FriendSuggestionService} interface. <br>
+ * It override the methods and define the business logic. <br>
+ * It make use of the {@link FriendIndex}, no user entity is loaded.<br>
+ * <br>
+ * The candidates of a user are the friends of its friends which are not
+ * already its friends, ranked by number of mutual friends: <br>
+ * - the friend lists of the friends are concatenated in a <b>long[]</b>, in
+ * parallel for the users with at least
+ * <b>paymybuddy.suggestion.parallel-threshold</b> friends, <br>
+ * - the array is sorted, every run of the same id being one candidate and its
+ * length the number of mutual friends, <br>
+ * - the best <b>paymybuddy.suggestion.top-k</b> candidates are kept with a
+ * bounded heap. <br>
+ * The top candidates of a user are kept until the friend list of the user or
+ * of one of its friends change. <br>
+ * <br>
+ * The class is annotated with {@link Transactional}, rolling back every
+ * transactions in case of any Exceptions thrown by the different methods.
+ */
+@Service
+@Transactional(rollbackOn = { Exception.class })
+public class FriendSuggestionServiceImpl implements FriendSuggestionService, FriendshipListener {
+
+	private static final Comparator<FriendSuggestion> RANKING = Comparator
+			.comparingInt(FriendSuggestion::getMutualFriends).reversed()
+			.thenComparingLong(FriendSuggestion::getUserId);
+
+	private final FriendIndex friendIndex;
+	private final Map<Long, List<FriendSuggestion>> topSuggestions = new ConcurrentHashMap<>();
+	private final Map<Long, Set<Long>> dependentUsers = new ConcurrentHashMap<>();
+	private long changes;
+
+	@Value("${paymybuddy.suggestion.top-k:10}")
+	private int topK = 10;
+
+	@Value("${paymybuddy.suggestion.parallel-threshold:256}")
+	private int parallelThreshold = 256;
+
+	@Autowired
+	public FriendSuggestionServiceImpl(FriendIndex friendIndex) {
+		this.friendIndex = friendIndex;
+	}
+
+	@PostConstruct
+	public void listenToFriendships() {
+		friendIndex.addListener(this);
+	}
+
+	/**
+	 * @return the best friend suggestions for the user, the most mutual friends
+	 *         first
+	 */
+	@Override
+	@Transactional(value = TxType.SUPPORTS)
+	public List<FriendSuggestion> suggestFriends(long userId) {
+		List<FriendSuggestion> cachedSuggestions = topSuggestions.get(userId);
+		if (cachedSuggestions != null) {
+			return cachedSuggestions;
+		}
+
+		long changesBefore;
+		synchronized (this) {
+			changesBefore = changes;
+		}
+		long[] friendIds = friendIndex.getFriendIds(userId);
+		List<FriendSuggestion> suggestions = computeSuggestions(userId, friendIds);
+
+		for (long friendId : friendIds) {
+			dependentUsers.computeIfAbsent(friendId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+		}
+		synchronized (this) {
+			// A change during the computation may not be reflected, it is not cached.
+			if (changes == changesBefore) {
+				topSuggestions.put(userId, suggestions);
+			}
+		}
+		return suggestions;
+	}
+
+	/**
+	 * The suggestions of the user and of the users having it as friend are
+	 * computed again on their next request.
+	 */
+	@Override
+	public synchronized void friendshipChanged(long userId, long friendId) {
+		changes++;
+		topSuggestions.remove(userId);
+		Set<Long> dependents = dependentUsers.remove(userId);
+		if (dependents != null) {
+			dependents.forEach(topSuggestions::remove);
+		}
+	}
+
+	private List<FriendSuggestion> computeSuggestions(long userId, long[] friendIds) {
+		if (friendIds.length == 0) {
+			return Collections.emptyList();
+		}
+		boolean parallel = friendIds.length >= parallelThreshold;
+
+		LongStream friends = LongStream.of(friendIds);
+		long[] candidates = (parallel ? friends.parallel() : friends)
+				.flatMap(friendId -> LongStream.of(friendIndex.getFriendIds(friendId)))
+				.filter(candidate -> candidate != userId && Arrays.binarySearch(friendIds, candidate) < 0)
+				.toArray();
+		if (parallel) {
+			Arrays.parallelSort(candidates);
+		} else {
+			Arrays.sort(candidates);
+		}
+
+		// The heap hold the best suggestions found so far, the worst one on top.
+		PriorityQueue<FriendSuggestion> best = new PriorityQueue<>(topK + 1, RANKING.reversed());
+		int start = 0;
+		while (start < candidates.length) {
+			int end = start + 1;
+			while (end < candidates.length && candidates[end] == candidates[start]) {
+				end++;
+			}
+			best.add(new FriendSuggestion(candidates[start], end - start));
+			if (best.size() > topK) {
+				best.poll();
+			}
+			start = end;
+		}
+
+		List<FriendSuggestion> suggestions = new ArrayList<>(best);
+		suggestions.sort(RANKING);
+		return Collections.unmodifiableList(suggestions);
+	}
+
+}
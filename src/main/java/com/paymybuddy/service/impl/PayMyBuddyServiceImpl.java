@@ -2,21 +2,40 @@ package com.paymybuddy.service.impl;
 
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.ledger.Ledger;
 import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.IdempotencyRecord;
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.BankAccountRepository;
 import com.paymybuddy.repository.TransactionRepository;
 import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.BalanceSnapshotService;
+import com.paymybuddy.service.FeeService;
 import com.paymybuddy.service.PayMyBuddyService;
 
 /**
@@ -27,21 +46,64 @@ import com.paymybuddy.service.PayMyBuddyService;
  * <br>
  * The class is annotated with {@link Transactional}, rolling back every
  * transactions in case of any Exceptions thrown by the different methods.
+ * <br>
+ * <br>
+ * The methods updating the users are run by the
+ * {@link OptimisticRetryExecutor}: they work on the users read from the
+ * database, not on the ones provided by the caller, and are done again when a
+ * concurrent update of the same users is detected. <br>
+ * <br>
+ * Every movement of money is also appended to the {@link Ledger}, in the same
+ * database transaction, when it is enabled, and recorded in the daily balances
+ * of the {@link BalanceSnapshotService}. <br>
+ * <br>
+ * The transactions and the transfers to the bank account can be given an
+ * idempotency key: a request sent again with the same key is not done twice,
+ * see {@link IdempotencyStore}.
  */
 @Service
 @Transactional(rollbackOn = { Exception.class })
 public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 
+	/**
+	 * Fee taken on every transaction, in basis points: 500 = 5%.
+	 */
+	public static final long TRANSACTION_FEE_BASIS_POINTS = 500;
+	public static final Money MINIMUM_TRANSACTION_AMOUNT = Money.of("1.00");
+	/**
+	 * Operation the transactions done with an idempotency key are recorded
+	 * under, one by one, by group or journaled: a key is bound to the sender,
+	 * the receiver, the description and the amount, in this order.
+	 */
+	public static final String CREATE_TRANSACTION_OPERATION = "createTransaction";
+
 	private final UserRepository userRepository;
 	private final BankAccountRepository bankAccountRepository;
 	private final TransactionRepository transactionRepository;
+	private final FeeService feeService;
+	private final TransactionTemplate transactionTemplate;
+	private final OptimisticRetryExecutor optimisticRetryExecutor;
+	private final Ledger ledger;
+	private final IdempotencyStore idempotencyStore;
+	private final BalanceSnapshotService balanceSnapshotService;
+
+	@Value("${paymybuddy.transfer.chunk-size:500}")
+	private int transferChunkSize = 500;
 
 	@Autowired
 	public PayMyBuddyServiceImpl(UserRepository userRepository, BankAccountRepository bankAccountRepository,
-			TransactionRepository transactionRepository) {
+			TransactionRepository transactionRepository, FeeService feeService,
+			TransactionTemplate transactionTemplate, OptimisticRetryExecutor optimisticRetryExecutor,
+			Ledger ledger, IdempotencyStore idempotencyStore, BalanceSnapshotService balanceSnapshotService) {
 		this.userRepository = userRepository;
 		this.bankAccountRepository = bankAccountRepository;
 		this.transactionRepository = transactionRepository;
+		this.feeService = feeService;
+		this.transactionTemplate = transactionTemplate;
+		this.optimisticRetryExecutor = optimisticRetryExecutor;
+		this.ledger = ledger;
+		this.idempotencyStore = idempotencyStore;
+		this.balanceSnapshotService = balanceSnapshotService;
 	}
 
 	/**
@@ -54,17 +116,20 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * @param description : the user's description about the bank account
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void addBankAccount(User user, String iban, String description) {
-		Optional<User> userToUpdate = userRepository.findByEmail(user.getEmail());
-
-		if (!userToUpdate.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-
-		BankAccount bankAccount = new BankAccount(iban, description);
-		user.setBankAccount(bankAccount);
-		userRepository.save(user);
-		bankAccountRepository.save(bankAccount);
+		optimisticRetryExecutor.execute("addBankAccount", () -> {
+			Optional<User> userToUpdate = userRepository.findByEmail(user.getEmail());
+
+			if (!userToUpdate.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+
+			BankAccount bankAccount = new BankAccount(iban, description);
+			userToUpdate.get().setBankAccount(bankAccount);
+			userRepository.save(userToUpdate.get());
+			bankAccountRepository.save(bankAccount);
+		});
 	}
 
 	/**
@@ -76,25 +141,29 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * @param iban : the bank account to delete
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void deleteBankAccount(User user, String iban) {
-		Optional<BankAccount> bankAccountToDelete = bankAccountRepository.findByIBAN(iban);
-		Optional<User> userToUpdate = userRepository.findByEmail(user.getEmail());
-
-		if (!userToUpdate.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-		if (!bankAccountToDelete.isPresent()) {
-			throw new IllegalArgumentException("The provided IBAN: << " + iban + " >> is not valid.");
-		}
-		if (!userToUpdate.get().getBankAccount().equals(bankAccountToDelete.get())) {
-			throw new IllegalArgumentException(
-					"The provided IBAN: << " + iban + " >> is not associated to this: " + user + " account.");
-		}
-
-		bankAccountRepository.delete(bankAccountToDelete.get());
-		BankAccount bankAccount = new BankAccount(null, null);
-		user.setBankAccount(bankAccount);
-		userRepository.save(user);
+		optimisticRetryExecutor.execute("deleteBankAccount", () -> {
+			Optional<BankAccount> bankAccountToDelete = bankAccountRepository.findByIBAN(iban);
+			Optional<User> userToUpdate = userRepository.findWithBankAccountByEmail(user.getEmail());
+
+			if (!userToUpdate.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+			if (!bankAccountToDelete.isPresent()) {
+				throw new IllegalArgumentException("The provided IBAN: << " + iban + " >> is not valid.");
+			}
+			if (!userToUpdate.get().getBankAccount().equals(bankAccountToDelete.get())) {
+				throw new IllegalArgumentException(
+						"The provided IBAN: << " + iban + " >> is not associated to this: " + user + " account.");
+			}
+
+			bankAccountRepository.delete(bankAccountToDelete.get());
+			BankAccount bankAccount = new BankAccount(null, null);
+			userToUpdate.get().setBankAccount(bankAccount);
+			userRepository.save(userToUpdate.get());
+			bankAccountRepository.save(bankAccount);
+		});
 	}
 
 	/**
@@ -106,34 +175,202 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * @param {@link Transaction}
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void createTransaction(User userSendingMoney, User userGettingMoney, String description,
-			Double amountOfTheTransaction) {
-		Optional<User> userSendingToUpdate = userRepository.findByEmail(userSendingMoney.getEmail());
-		Optional<User> userGettingToUpdate = userRepository.findByEmail(userGettingMoney.getEmail());
+			Money amountOfTheTransaction) {
+		optimisticRetryExecutor.execute("createTransaction", () -> {
+			Optional<User> userSendingToUpdate = userRepository.findByEmail(userSendingMoney.getEmail());
+			Optional<User> userGettingToUpdate = userRepository.findByEmail(userGettingMoney.getEmail());
+
+			if (!userSendingToUpdate.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + userSendingMoney + " >> cannot be found.");
+			}
+			if (!userGettingToUpdate.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + userGettingMoney + " >> cannot be found.");
+			}
+			if (amountOfTheTransaction.isLessThan(MINIMUM_TRANSACTION_AMOUNT)) {
+				throw new IllegalArgumentException(
+						"The provided amount for the transaction: << " + amountOfTheTransaction + " >> is not valid.");
+			}
+
+			User userSending = userSendingToUpdate.get();
+			User userGetting = userGettingToUpdate.get();
+			makeTransaction(userSending, userGetting, amountOfTheTransaction);
+
+			Transaction transaction = new Transaction(userSending, userGetting, Date.valueOf(LocalDate.now()),
+					description, amountOfTheTransaction);
+			transactionRepository.save(transaction);
+
+			// The transactions of the user are not loaded only to add this one.
+			if (Hibernate.isInitialized(userSending.getTransaction())) {
+				List<Transaction> userTransactions = userSending.getTransaction();
+				userTransactions.add(transaction);
+				userSending.setTransaction(userTransactions);
+			}
+
+			userRepository.save(userSending);
+			userRepository.save(userGetting);
+		});
+	}
 
-		if (!userSendingToUpdate.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + userSendingMoney + " >> cannot be found.");
-		}
-		if (!userGettingToUpdate.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + userGettingMoney + " >> cannot be found.");
+	/**
+	 * Same as {@link #createTransaction(User, User, String, Money)}, done once
+	 * per idempotency key. <br>
+	 * 
+	 * @param idempotencyKey : the key chosen by the user sending money, the
+	 *                       transaction is not done again when it is sent again
+	 *                       with it
+	 */
+	@Override
+	@Transactional(value = TxType.SUPPORTS)
+	public void createTransaction(User userSendingMoney, User userGettingMoney, String description,
+			Money amountOfTheTransaction, String idempotencyKey) {
+		idempotencyStore.execute(userSendingMoney.getEmail(), idempotencyKey, CREATE_TRANSACTION_OPERATION,
+				() -> createTransaction(userSendingMoney, userGettingMoney, description, amountOfTheTransaction),
+				userSendingMoney.getEmail(), userGettingMoney.getEmail(), description, amountOfTheTransaction);
+	}
+
+	/**
+	 * This method allow to make many transactions at once, as for a payroll. <br>
+	 * The transfers are processed in chunks of <b>paymybuddy.transfer.chunk-size</b>
+	 * requests, every chunk being committed in its own database transaction: <br>
+	 * - the users of the chunk are all found and locked by a single query, in the
+	 * order of their id to avoid deadlocks, <br>
+	 * - the rows of the transaction table are inserted by JDBC batches, their ids
+	 * being reserved by blocks from the {@link com.paymybuddy.model.IdSequence}
+	 * table, <br>
+	 * - the fees of the chunk are collected once and the users are updated by a
+	 * single flush, when the chunk is committed. <br>
+	 * <br>
+	 * A request which cannot be done only fail itself, if a chunk cannot be
+	 * committed its requests are done again one by one. <br>
+	 * A request with an idempotency key already done is answered with its first
+	 * result, the record of the key being saved in the database transaction of
+	 * its chunk. <br>
+	 * 
+	 * @param transferRequests : the transfers to do, in the order of the list
+	 * @return the result of every request, in the same order
+	 */
+	@Override
+	@Transactional(value = TxType.NOT_SUPPORTED)
+	public List<TransferResult> createTransactions(List<TransferRequest> transferRequests) {
+		List<TransferResult> transferResults = new ArrayList<>(transferRequests.size());
+		for (int from = 0; from < transferRequests.size(); from += transferChunkSize) {
+			List<TransferRequest> chunk = transferRequests.subList(from,
+					Math.min(from + transferChunkSize, transferRequests.size()));
+			transferResults.addAll(createTransactionsChunk(chunk));
 		}
-		if (amountOfTheTransaction < 1) {
-			throw new IllegalArgumentException(
-					"The provided amount for the transaction: << " + amountOfTheTransaction + " >> is not valid.");
+		return transferResults;
+	}
+
+	private List<TransferResult> createTransactionsChunk(List<TransferRequest> chunk) {
+		try {
+			return transactionTemplate.execute(status -> applyTransferRequests(chunk));
+		} catch (RuntimeException e) {
+			if (chunk.size() == 1) {
+				return Collections.singletonList(TransferResult.failed(chunk.get(0), e.getMessage()));
+			}
+			// Find out which request made the chunk fail, the others are done again.
+			List<TransferResult> transferResults = new ArrayList<>(chunk.size());
+			for (TransferRequest transferRequest : chunk) {
+				transferResults.addAll(createTransactionsChunk(Collections.singletonList(transferRequest)));
+			}
+			return transferResults;
 		}
+	}
 
-		makeTransaction(userSendingMoney, userGettingMoney, amountOfTheTransaction);
+	private List<TransferResult> applyTransferRequests(List<TransferRequest> transferRequests) {
+		Set<String> emails = new HashSet<>();
+		for (TransferRequest transferRequest : transferRequests) {
+			emails.add(transferRequest.getEmailOfTheUserSendingMoney());
+			emails.add(transferRequest.getEmailOfTheUserGettingMoney());
+		}
+		Map<String, User> users = new HashMap<>();
+		for (User user : userRepository.findAllByEmailInForUpdate(emails)) {
+			users.put(user.getEmail(), user);
+		}
 
-		Transaction transaction = new Transaction(userSendingMoney, userGettingMoney, Date.valueOf(LocalDate.now()),
-				description, amountOfTheTransaction);
-		transactionRepository.save(transaction);
+		Date date = Date.valueOf(LocalDate.now());
+		List<TransferResult> transferResults = new ArrayList<>(transferRequests.size());
+		List<Transaction> transactions = new ArrayList<>(transferRequests.size());
+		long fees = 0;
+		for (TransferRequest transferRequest : transferRequests) {
+			if (transferRequest.getIdempotencyKey() != null) {
+				Optional<TransferResult> firstResult = findFirstResult(transferRequest);
+				if (firstResult.isPresent()) {
+					transferResults.add(firstResult.get());
+					continue;
+				}
+			}
+			User userSendingMoney = users.get(transferRequest.getEmailOfTheUserSendingMoney());
+			User userGettingMoney = users.get(transferRequest.getEmailOfTheUserGettingMoney());
+			Money amountOfTheTransaction = transferRequest.getAmount();
+
+			if (userSendingMoney == null) {
+				transferResults.add(TransferResult.failed(transferRequest, "The provided User: << "
+						+ transferRequest.getEmailOfTheUserSendingMoney() + " >> cannot be found."));
+				continue;
+			}
+			if (userGettingMoney == null) {
+				transferResults.add(TransferResult.failed(transferRequest, "The provided User: << "
+						+ transferRequest.getEmailOfTheUserGettingMoney() + " >> cannot be found."));
+				continue;
+			}
+			if (amountOfTheTransaction == null || amountOfTheTransaction.isLessThan(MINIMUM_TRANSACTION_AMOUNT)) {
+				transferResults.add(TransferResult.failed(transferRequest,
+						"The provided amount for the transaction: << " + amountOfTheTransaction + " >> is not valid."));
+				continue;
+			}
+
+			long tax;
+			try {
+				tax = moveMoney(userSendingMoney, userGettingMoney, amountOfTheTransaction);
+			} catch (IllegalArgumentException e) {
+				transferResults.add(TransferResult.failed(transferRequest, e.getMessage()));
+				continue;
+			}
+			fees = Math.addExact(fees, tax);
+			ledger.recordTransfer(userSendingMoney.getId(), userGettingMoney.getId(), amountOfTheTransaction,
+					Money.ofMinorUnits(tax));
+			transactions.add(new Transaction(userSendingMoney, userGettingMoney, date,
+					transferRequest.getDescription(), amountOfTheTransaction));
+			if (transferRequest.getIdempotencyKey() != null) {
+				idempotencyStore.saveSucceeded(userSendingMoney.getEmail(), transferRequest.getIdempotencyKey(),
+						CREATE_TRANSACTION_OPERATION, null, userSendingMoney.getEmail(), userGettingMoney.getEmail(),
+						transferRequest.getDescription(), amountOfTheTransaction);
+			}
+			transferResults.add(TransferResult.succeeded(transferRequest));
+		}
 
-		List<Transaction> userTransactions = userSendingMoney.getTransaction();
-		userTransactions.add(transaction);
-		userSendingMoney.setTransaction(userTransactions);
+		transactionRepository.saveAll(transactions);
+		if (fees > 0) {
+			feeService.collectFee(Money.ofMinorUnits(fees));
+		}
+		return transferResults;
+	}
 
-		userRepository.save(userSendingMoney);
-		userRepository.save(userGettingMoney);
+	/**
+	 * @return the result of the request already done with the same idempotency
+	 *         key, empty if it was not
+	 */
+	private Optional<TransferResult> findFirstResult(TransferRequest transferRequest) {
+		try {
+			Optional<IdempotencyRecord> record = idempotencyStore
+					.find(transferRequest.getEmailOfTheUserSendingMoney(), transferRequest.getIdempotencyKey());
+			if (!record.isPresent()) {
+				return Optional.empty();
+			}
+			if (!idempotencyStore.matches(record.get(), CREATE_TRANSACTION_OPERATION,
+					transferRequest.getEmailOfTheUserSendingMoney(), transferRequest.getEmailOfTheUserGettingMoney(),
+					transferRequest.getDescription(), transferRequest.getAmount())) {
+				throw new IllegalArgumentException("The provided idempotency key: << "
+						+ transferRequest.getIdempotencyKey() + " >> is already used by another request.");
+			}
+			record.get().replay();
+			return Optional.of(TransferResult.succeeded(transferRequest));
+		} catch (IllegalArgumentException | NoSuchElementException e) {
+			return Optional.of(TransferResult.failed(transferRequest, e.getMessage()));
+		}
 	}
 
 	/**
@@ -142,38 +379,63 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * 
 	 * Then, depending of the result, it proceed or not the transaction. <br>
 	 * 
+	 * The arithmetic is done on the minor units of the amounts, the tax being
+	 * rounded to the nearest cent as defined by {@link Money#percentage}. <br>
+	 * 
 	 * To finish, it give the amount of the tax to the paymybuddy account, which is
 	 * the enterprise's account. <br>
+	 * The tax is collected as a pending fee by the {@link FeeService}, the
+	 * paymybuddy account is credited later on, so that the transactions never
+	 * read nor lock its row. <br>
 	 * 
 	 * @param userSendingMoney
 	 * @param userGettingMoney
 	 * @param amountOfTheTransaction
 	 */
 	@Override
-	public void makeTransaction(User userSendingMoney, User userGettingMoney, Double amountOfTheTransaction) {
-		Double tax = amountOfTheTransaction * 0.05;
-		Double amountOfTheTransactionWithTax = amountOfTheTransaction + tax;
-		Double moneyAvailableBeforeTheTransactionUserSending = userSendingMoney.getMoneyAvailable();
+	public void makeTransaction(User userSendingMoney, User userGettingMoney, Money amountOfTheTransaction) {
+		long tax = moveMoney(userSendingMoney, userGettingMoney, amountOfTheTransaction);
+		ledger.recordTransfer(userSendingMoney.getId(), userGettingMoney.getId(), amountOfTheTransaction,
+				Money.ofMinorUnits(tax));
 
-		if (moneyAvailableBeforeTheTransactionUserSending < amountOfTheTransactionWithTax) {
-			throw new IllegalArgumentException("The money available on the account is not enough to afford the request."
-					+ " Money : " + moneyAvailableBeforeTheTransactionUserSending + " Tax : " + tax);
-		}
+		// Add the amount of the tax into the pending fees of the paymybuddy account.
+		feeService.collectFee(Money.ofMinorUnits(tax));
+	}
 
-		userSendingMoney
-				.setMoneyAvailable(moneyAvailableBeforeTheTransactionUserSending - amountOfTheTransactionWithTax);
-		userGettingMoney.setMoneyAvailable(userGettingMoney.getMoneyAvailable() + amountOfTheTransaction);
+	/**
+	 * Debit the amount and its tax from the user sending money and credit the
+	 * amount to the user getting money. The history of the user sending money
+	 * changes, see {@link User#historyChanged()}. <br>
+	 * A user cannot send money to itself. The balance of the user getting money
+	 * is read once the user sending money is debited.
+	 * 
+	 * @return the tax of the transaction, in minor units
+	 */
+	private long moveMoney(User userSendingMoney, User userGettingMoney, Money amountOfTheTransaction) {
+		if (isSameUser(userSendingMoney, userGettingMoney)) {
+			throw new IllegalArgumentException(
+					"The provided User: << " + userGettingMoney.getEmail() + " >> cannot send money to itself.");
+		}
+		long amount = amountOfTheTransaction.getMinorUnits();
+		long tax = Money.percentage(amount, TRANSACTION_FEE_BASIS_POINTS);
+		long amountOfTheTransactionWithTax = Math.addExact(amount, tax);
+		long moneyAvailableBeforeTheTransactionUserSending = userSendingMoney.getMoneyAvailable().getMinorUnits();
 
-		// Add the amount of the tax into the paymybuddy account.
-		Optional<User> userPayMyBuddyOptional = userRepository.findByEmail("paymybuddy@paymybuddy.com");
-		if (!userPayMyBuddyOptional.isPresent()) {
-			throw new NoSuchElementException(
-					"The provided User: << " + userPayMyBuddyOptional + " >> cannot be found.");
+		if (moneyAvailableBeforeTheTransactionUserSending < amountOfTheTransactionWithTax) {
+			throw new IllegalArgumentException("The money available on the account is not enough to afford the request."
+					+ " Money : " + userSendingMoney.getMoneyAvailable() + " Tax : " + Money.ofMinorUnits(tax));
 		}
 
-		User userPayMyBuddy = userPayMyBuddyOptional.get();
-		userPayMyBuddy.setMoneyAvailable(userPayMyBuddy.getMoneyAvailable() + tax);
-		userRepository.save(userPayMyBuddy);
+		userSendingMoney.setMoneyAvailable(
+				Money.ofMinorUnits(moneyAvailableBeforeTheTransactionUserSending - amountOfTheTransactionWithTax));
+		Money moneyAvailableBeforeTheTransactionUserGetting = userGettingMoney.getMoneyAvailable();
+		userGettingMoney.setMoneyAvailable(Money.ofMinorUnits(
+				Math.addExact(moneyAvailableBeforeTheTransactionUserGetting.getMinorUnits(), amount)));
+		userSendingMoney.historyChanged();
+		balanceSnapshotService.recordBalanceChange(userSendingMoney,
+				Money.ofMinorUnits(moneyAvailableBeforeTheTransactionUserSending));
+		balanceSnapshotService.recordBalanceChange(userGettingMoney, moneyAvailableBeforeTheTransactionUserGetting);
+		return tax;
 	}
 
 	/**
@@ -186,21 +448,24 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * @param user : to add as a friend
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void addFriend(User user, User friend) {
-		Optional<User> userCheck = userRepository.findByEmail(user.getEmail());
-		Optional<User> friendCheck = userRepository.findByEmail(friend.getEmail());
-
-		if (!userCheck.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-		if (!friendCheck.isPresent()) {
-			throw new NoSuchElementException("The provided Friend: << " + friend + " >> cannot be found.");
-		}
-
-		List<User> userFriendList = user.getFriends();
-		userFriendList.add(friend);
-		user.setFriends(userFriendList);
-		userRepository.save(user);
+		optimisticRetryExecutor.execute("addFriend", () -> {
+			Optional<User> userCheck = userRepository.findWithFriendsByEmail(user.getEmail());
+			Optional<User> friendCheck = userRepository.findByEmail(friend.getEmail());
+
+			if (!userCheck.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+			if (!friendCheck.isPresent()) {
+				throw new NoSuchElementException("The provided Friend: << " + friend + " >> cannot be found.");
+			}
+
+			List<User> userFriendList = userCheck.get().getFriends();
+			userFriendList.add(friendCheck.get());
+			userCheck.get().setFriends(userFriendList);
+			userRepository.save(userCheck.get());
+		});
 	}
 
 	/**
@@ -213,19 +478,22 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 * @param user : to delete
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void deleteFriend(User user, User friend) {
-		Optional<User> userCheck = userRepository.findByEmail(user.getEmail());
-		Optional<User> friendCheck = userRepository.findByEmail(friend.getEmail());
-
-		if (!userCheck.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-		if (!friendCheck.isPresent()) {
-			throw new NoSuchElementException("The provided Friend: << " + friend + " >> cannot be found.");
-		}
-
-		user.getFriends().remove(friendCheck.get());
-		userRepository.save(user);
+		optimisticRetryExecutor.execute("deleteFriend", () -> {
+			Optional<User> userCheck = userRepository.findWithFriendsByEmail(user.getEmail());
+			Optional<User> friendCheck = userRepository.findByEmail(friend.getEmail());
+
+			if (!userCheck.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+			if (!friendCheck.isPresent()) {
+				throw new NoSuchElementException("The provided Friend: << " + friend + " >> cannot be found.");
+			}
+
+			userCheck.get().getFriends().remove(friendCheck.get());
+			userRepository.save(userCheck.get());
+		});
 	}
 
 	/**
@@ -245,24 +513,48 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 *                         account
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void addMoneyOnThePayMyBuddyAccountFromBankAccount(User user, BankAccount bankAccount,
-			Double amountTransfered) {
-		Optional<User> userCheck = userRepository.findByEmail(user.getEmail());
-		Optional<BankAccount> bankAccountCheck = bankAccountRepository.findByIBAN(bankAccount.getIBAN());
-
-		if (!userCheck.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-		if (!bankAccountCheck.isPresent()) {
-			throw new NoSuchElementException("The provided Bank account: << " + bankAccount + " >> cannot be found.");
-		}
-		if (!userCheck.get().getBankAccount().equals(bankAccount)) {
-			throw new NoSuchElementException("The provided Bank account: << " + bankAccount
-					+ " >> is not associated to this: " + user + " account.");
-		}
+			Money amountTransfered) {
+		optimisticRetryExecutor.execute("addMoneyOnThePayMyBuddyAccountFromBankAccount", () -> {
+			Optional<User> userCheck = userRepository.findWithBankAccountByEmail(user.getEmail());
+			Optional<BankAccount> bankAccountCheck = bankAccountRepository.findByIBAN(bankAccount.getIBAN());
+
+			if (!userCheck.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+			if (!bankAccountCheck.isPresent()) {
+				throw new NoSuchElementException(
+						"The provided Bank account: << " + bankAccount + " >> cannot be found.");
+			}
+			if (!userCheck.get().getBankAccount().equals(bankAccountCheck.get())) {
+				throw new NoSuchElementException("The provided Bank account: << " + bankAccount
+						+ " >> is not associated to this: " + user + " account.");
+			}
+
+			Money moneyAvailableBefore = userCheck.get().getMoneyAvailable();
+			userCheck.get().setMoneyAvailable(moneyAvailableBefore.plus(amountTransfered));
+			userRepository.save(userCheck.get());
+			ledger.recordBankDeposit(userCheck.get().getId(), amountTransfered);
+			balanceSnapshotService.recordBalanceChange(userCheck.get(), moneyAvailableBefore);
+		});
+	}
 
-		user.setMoneyAvailable(user.getMoneyAvailable() + amountTransfered);
-		userRepository.save(user);
+	/**
+	 * Same as
+	 * {@link #addMoneyOnThePayMyBuddyAccountFromBankAccount(User, BankAccount, Money)},
+	 * done once per idempotency key. <br>
+	 * 
+	 * @param idempotencyKey : the key chosen by the user, the transfer is not
+	 *                       done again when it is sent again with it
+	 */
+	@Override
+	@Transactional(value = TxType.SUPPORTS)
+	public void addMoneyOnThePayMyBuddyAccountFromBankAccount(User user, BankAccount bankAccount,
+			Money amountTransfered, String idempotencyKey) {
+		idempotencyStore.execute(user.getEmail(), idempotencyKey, "addMoneyOnThePayMyBuddyAccountFromBankAccount",
+				() -> addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered),
+				user.getEmail(), bankAccount.getIBAN(), amountTransfered);
 	}
 
 	/**
@@ -282,29 +574,67 @@ public class PayMyBuddyServiceImpl implements PayMyBuddyService {
 	 *                         bankAccount
 	 */
 	@Override
+	@Transactional(value = TxType.SUPPORTS)
 	public void transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(User user, BankAccount bankAccount,
-			Double amountTransfered) {
-		Optional<User> userCheck = userRepository.findByEmail(user.getEmail());
-		Optional<BankAccount> bankAccountCheck = bankAccountRepository.findByIBAN(bankAccount.getIBAN());
+			Money amountTransfered) {
+		optimisticRetryExecutor.execute("transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount", () -> {
+			Optional<User> userCheck = userRepository.findWithBankAccountByEmail(user.getEmail());
+			Optional<BankAccount> bankAccountCheck = bankAccountRepository.findByIBAN(bankAccount.getIBAN());
+
+			if (!userCheck.isPresent()) {
+				throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
+			}
+			if (!bankAccountCheck.isPresent()) {
+				throw new NoSuchElementException(
+						"The provided Bank account: << " + bankAccount + " >> cannot be found.");
+			}
+			if (!userCheck.get().getBankAccount().equals(bankAccountCheck.get())) {
+				throw new NoSuchElementException("The provided Bank account: << " + bankAccount
+						+ " >> is not associated to this: " + user + " account.");
+			}
+			if (userCheck.get().getMoneyAvailable().isLessThan(amountTransfered)) {
+				throw new IllegalArgumentException(
+						"You do not own enough money on your account to afford the specified request: << "
+								+ amountTransfered + " >>");
+			}
+
+			Money moneyAvailableBefore = userCheck.get().getMoneyAvailable();
+			userCheck.get().setMoneyAvailable(moneyAvailableBefore.minus(amountTransfered));
+			userRepository.save(userCheck.get());
+			ledger.recordBankWithdrawal(userCheck.get().getId(), amountTransfered);
+			balanceSnapshotService.recordBalanceChange(userCheck.get(), moneyAvailableBefore);
+		});
+	}
 
-		if (!userCheck.isPresent()) {
-			throw new NoSuchElementException("The provided User: << " + user + " >> cannot be found.");
-		}
-		if (!bankAccountCheck.isPresent()) {
-			throw new NoSuchElementException("The provided Bank account: << " + bankAccount + " >> cannot be found.");
-		}
-		if (!userCheck.get().getBankAccount().equals(bankAccount)) {
-			throw new NoSuchElementException("The provided Bank account: << " + bankAccount
-					+ " >> is not associated to this: " + user + " account.");
+	/**
+	 * Same as
+	 * {@link #transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(User, BankAccount, Money)},
+	 * done once per idempotency key. <br>
+	 * 
+	 * @param idempotencyKey : the key chosen by the user, the transfer is not
+	 *                       done again when it is sent again with it
+	 */
+	@Override
+	@Transactional(value = TxType.SUPPORTS)
+	public void transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(User user, BankAccount bankAccount,
+			Money amountTransfered, String idempotencyKey) {
+		idempotencyStore.execute(user.getEmail(), idempotencyKey,
+				"transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount",
+				() -> transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered),
+				user.getEmail(), bankAccount.getIBAN(), amountTransfered);
+	}
+
+	/**
+	 * @return true if both are the same user, by id once saved, or by email
+	 */
+	private static boolean isSameUser(User userSendingMoney, User userGettingMoney) {
+		if (userSendingMoney == userGettingMoney) {
+			return true;
 		}
-		if (userCheck.get().getMoneyAvailable() < amountTransfered) {
-			throw new IllegalArgumentException(
-					"You do not own enough money on your account to afford the specified request: << "
-							+ amountTransfered + " >>");
+		if (userSendingMoney.getId() != 0 && userSendingMoney.getId() == userGettingMoney.getId()) {
+			return true;
 		}
-
-		user.setMoneyAvailable(user.getMoneyAvailable() - amountTransfered);
-		userRepository.save(user);
+		return userSendingMoney.getEmail() != null && userSendingMoney.getEmail().equals(userGettingMoney.getEmail());
 	}
 
 }
@@ -0,0 +1,48 @@
+package com.paymybuddy.service.impl;
+
+import java.util.Optional;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.ResourceVersionService;
+
+/**
+ * Service which implement the {@link ResourceVersionService} interface. <br>
+ * The ETag of a user is its version, quoted, as the one sent by Spring Data
+ * REST with the user resource. Every change of the balance increments the
+ * version. <br>
+ * The ETag of a history is the history version of the user, see
+ * {@link com.paymybuddy.model.User#historyChanged()}: a new or deleted
+ * transaction change it. Both are read from the row of the user only.
+ */
+@Service
+@Transactional(rollbackOn = { Exception.class })
+public class ResourceVersionServiceImpl implements ResourceVersionService {
+
+	private final UserRepository userRepository;
+
+	@Autowired
+	public ResourceVersionServiceImpl(UserRepository userRepository) {
+		this.userRepository = userRepository;
+	}
+
+	@Override
+	public Optional<String> getUserETag(long userId) {
+		return userRepository.findVersionById(userId).map(version -> "\"" + version + "\"");
+	}
+
+	@Override
+	public Optional<String> getUserETagByEmail(String email) {
+		return userRepository.findVersionByEmail(email).map(version -> "\"" + version + "\"");
+	}
+
+	@Override
+	public String getHistoryETag(long userId) {
+		return "\"h" + userRepository.findHistoryVersionById(userId).orElse(0L) + "\"";
+	}
+
+}
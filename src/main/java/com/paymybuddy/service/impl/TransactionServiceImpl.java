@@ -1,11 +1,26 @@
 package com.paymybuddy.service.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.paymybuddy.model.ActivityEntry;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionCursor;
+import com.paymybuddy.model.TransactionExportFormat;
+import com.paymybuddy.model.TransactionExportRow;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.TransactionRepository;
 import com.paymybuddy.service.TransactionService;
@@ -23,6 +38,9 @@ import com.paymybuddy.service.TransactionService;
 @Transactional(rollbackOn = { Exception.class })
 public class TransactionServiceImpl implements TransactionService {
 
+	public static final int MAXIMUM_HISTORY_LIMIT = 100;
+	public static final String CSV_HEADER = "id,date,description,amount,sender,receiver";
+
 	private final TransactionRepository transactionRepository;
 
 	@Autowired
@@ -34,4 +52,216 @@ public class TransactionServiceImpl implements TransactionService {
 	public Iterable<Transaction> findAllByUserSender(User user) {
 		return transactionRepository.findAllByUserSender(user);
 	}
+
+	/**
+	 * Method used to read the history of the transactions sent by a user, one
+	 * page at a time. <br>
+	 * The transactions are ordered from the most recent to the oldest one, by
+	 * date then by id. The next page is read by giving the cursor of the last
+	 * transaction of the page, see {@link TransactionCursor#of}. <br>
+	 * 
+	 * @param userId      : the user sending the transactions
+	 * @param afterCursor : the last transaction already read, null for the first
+	 *                    page
+	 * @param limit       : the maximum number of transactions to read, up to
+	 *                    {@link #MAXIMUM_HISTORY_LIMIT}
+	 * @return the page, shorter than the limit when it is the last one
+	 */
+	@Override
+	public List<Transaction> findHistory(long userId, TransactionCursor afterCursor, int limit) {
+		if (limit < 1 || limit > MAXIMUM_HISTORY_LIMIT) {
+			throw new IllegalArgumentException("The provided limit: << " + limit + " >> is not valid.");
+		}
+
+		PageRequest page = PageRequest.of(0, limit);
+		if (afterCursor == null) {
+			return transactionRepository.findHistory(userId, page);
+		}
+		return transactionRepository.findHistoryAfter(userId, afterCursor.getDate(), afterCursor.getId(), page);
+	}
+
+	/**
+	 * Method used to read the activity of a user, the transactions it sent and
+	 * received, one page at a time. <br>
+	 * The sent and received transactions are read by two keyset queries, each
+	 * using its own (user, date, id) index and reading at most a page, then
+	 * merged by date then id, from the most recent to the oldest one. A page
+	 * never read more than twice its size, however long the history is. The
+	 * next page is read by giving the cursor of the last entry of the page, see
+	 * {@link ActivityEntry#getCursor()}. <br>
+	 * 
+	 * @param userId      : the user sending and getting the transactions
+	 * @param afterCursor : the last entry already read, null for the first page
+	 * @param limit       : the maximum number of entries to read, up to
+	 *                    {@link #MAXIMUM_HISTORY_LIMIT}
+	 * @return the page, shorter than the limit when it is the last one
+	 */
+	@Override
+	public List<ActivityEntry> findActivity(long userId, TransactionCursor afterCursor, int limit) {
+		if (limit < 1 || limit > MAXIMUM_HISTORY_LIMIT) {
+			throw new IllegalArgumentException("The provided limit: << " + limit + " >> is not valid.");
+		}
+
+		PageRequest page = PageRequest.of(0, limit);
+		List<TransactionExportRow> sent;
+		List<TransactionExportRow> received;
+		if (afterCursor == null) {
+			sent = transactionRepository.findHistorySummary(userId, page);
+			received = transactionRepository.findReceivedSummary(userId, page);
+		} else {
+			sent = transactionRepository.findHistorySummaryAfter(userId, afterCursor.getDate(), afterCursor.getId(),
+					page);
+			received = transactionRepository.findReceivedSummaryAfter(userId, afterCursor.getDate(),
+					afterCursor.getId(), page);
+		}
+
+		List<Iterator<ActivityEntry>> streams = new ArrayList<>();
+		streams.add(sent.stream().map(ActivityEntry::sent).iterator());
+		streams.add(received.stream().map(ActivityEntry::received).iterator());
+		return merge(streams, limit);
+	}
+
+	/**
+	 * Merge streams each ordered from the most recent entry to the oldest one,
+	 * keeping the head of every stream in a priority queue. <br>
+	 * 
+	 * @return the first entries of the merged streams, up to the limit
+	 */
+	private static List<ActivityEntry> merge(List<Iterator<ActivityEntry>> streams, int limit) {
+		PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, streams.size()));
+		for (Iterator<ActivityEntry> stream : streams) {
+			if (stream.hasNext()) {
+				heads.add(new Head(stream.next(), stream));
+			}
+		}
+
+		List<ActivityEntry> merged = new ArrayList<>(limit);
+		while (merged.size() < limit && !heads.isEmpty()) {
+			Head head = heads.poll();
+			merged.add(head.entry);
+			if (head.stream.hasNext()) {
+				heads.add(new Head(head.stream.next(), head.stream));
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Next entry of a stream, the most recent one first, by date then id.
+	 */
+	private static final class Head implements Comparable<Head> {
+
+		private static final Comparator<ActivityEntry> MOST_RECENT_FIRST = Comparator
+				.comparing(ActivityEntry::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+				.thenComparing(Comparator.comparingLong(ActivityEntry::getTransactionId).reversed());
+
+		private final ActivityEntry entry;
+		private final Iterator<ActivityEntry> stream;
+
+		private Head(ActivityEntry entry, Iterator<ActivityEntry> stream) {
+			this.entry = entry;
+			this.stream = stream;
+		}
+
+		@Override
+		public int compareTo(Head other) {
+			return MOST_RECENT_FIRST.compare(entry, other.entry);
+		}
+
+	}
+
+	/**
+	 * Method used to export every transaction sent or received by a user, from
+	 * the oldest to the most recent one. <br>
+	 * The rows are streamed from the database and written one by one, the
+	 * transactions are never all held in memory whatever their number. <br>
+	 * 
+	 * @param userId : the user sending or getting the transactions
+	 * @param format : CSV, with a header line, or NDJSON
+	 * @param writer : where the rows are written, it is flushed but not closed
+	 * @return the number of transactions exported
+	 */
+	@Override
+	public long exportHistory(long userId, TransactionExportFormat format, Writer writer) {
+		try (Stream<TransactionExportRow> rows = transactionRepository.streamExportRows(userId)) {
+			if (format == TransactionExportFormat.CSV) {
+				writer.write(CSV_HEADER);
+				writer.write('\n');
+			}
+			long numberOfRows = 0;
+			Iterator<TransactionExportRow> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				if (format == TransactionExportFormat.CSV) {
+					writeCsv(iterator.next(), writer);
+				} else {
+					writeJson(iterator.next(), writer);
+				}
+				writer.write('\n');
+				numberOfRows++;
+			}
+			writer.flush();
+			return numberOfRows;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeCsv(TransactionExportRow row, Writer writer) throws IOException {
+		writer.write(Long.toString(row.getId()));
+		writer.write(',');
+		writer.write(row.getDate() == null ? "" : row.getDate().toString());
+		writer.write(',');
+		writer.write(csvField(row.getDescription()));
+		writer.write(',');
+		writer.write(row.getAmount().toString());
+		writer.write(',');
+		writer.write(csvField(row.getEmailOfTheUserSendingMoney()));
+		writer.write(',');
+		writer.write(csvField(row.getEmailOfTheUserGettingMoney()));
+	}
+
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static void writeJson(TransactionExportRow row, Writer writer) throws IOException {
+		writer.write("{\"id\":");
+		writer.write(Long.toString(row.getId()));
+		writer.write(",\"date\":");
+		writer.write(jsonString(row.getDate() == null ? null : row.getDate().toString()));
+		writer.write(",\"description\":");
+		writer.write(jsonString(row.getDescription()));
+		writer.write(",\"amount\":");
+		writer.write(row.getAmount().toString());
+		writer.write(",\"sender\":");
+		writer.write(jsonString(row.getEmailOfTheUserSendingMoney()));
+		writer.write(",\"receiver\":");
+		writer.write(jsonString(row.getEmailOfTheUserGettingMoney()));
+		writer.write('}');
+	}
+
+	private static String jsonString(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
 }
@@ -0,0 +1,265 @@
+package com.paymybuddy.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.UserImportCheckpoint;
+import com.paymybuddy.model.UserImportFormat;
+import com.paymybuddy.repository.UserImportCheckpointRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.security.PasswordHashPolicy;
+import com.paymybuddy.service.UserImportService;
+
+/**
+ * Service which implement the {@link UserImportService} interface. <br>
+ * It override the methods and define the business logic. <br>
+ * It make use of the {@link UserRepository} and
+ * {@link UserImportCheckpointRepository} interfaces.<br>
+ * <br>
+ * The file is read as a stream, by batches of
+ * <b>paymybuddy.import.batch-size</b> lines: <br>
+ * - the lines of a batch are parsed and their passwords hashed on a pool of
+ * <b>paymybuddy.import.parallelism</b> threads, all the cores by default,
+ * while the previous batch is written, <br>
+ * - the emails already used are found by a single query per batch, <br>
+ * - the users are inserted as JDBC batches, together with the
+ * {@link UserImportCheckpoint}, in one database transaction per batch. <br>
+ * An import interrupted by a crash and started again with the same id resume
+ * after the last batch committed. <br>
+ * The users are created with an empty balance, a balance sent in the file is
+ * ignored. <br>
+ * <br>
+ * The class is annotated with {@link Transactional}, rolling back every
+ * transactions in case of any Exceptions thrown by the different methods.
+ */
+@Service
+@Transactional(rollbackOn = { Exception.class })
+public class UserImportServiceImpl implements UserImportService {
+
+	public static final String CSV_HEADER = "email,lastName,firstName,password";
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final UserRepository userRepository;
+	private final UserImportCheckpointRepository userImportCheckpointRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	@Value("${paymybuddy.import.batch-size:1000}")
+	private int importBatchSize = 1000;
+
+	@Value("${paymybuddy.import.parallelism:0}")
+	private int importParallelism = 0;
+
+	@Autowired
+	public UserImportServiceImpl(UserRepository userRepository,
+			UserImportCheckpointRepository userImportCheckpointRepository, TransactionTemplate transactionTemplate) {
+		this.userRepository = userRepository;
+		this.userImportCheckpointRepository = userImportCheckpointRepository;
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	/**
+	 * Import the users of a CSV or NDJSON file. <br>
+	 * The users whose email is already used, in the database or earlier in the
+	 * file, are counted as duplicates. The lines without email or password, or
+	 * which cannot be read, are counted as rejected. Both are skipped.
+	 *
+	 * @param importId : id of the import, to resume it after a failure
+	 * @return the progress of the import, completed unless an exception is
+	 *         thrown
+	 */
+	@Override
+	@Transactional(value = TxType.NOT_SUPPORTED)
+	public UserImportCheckpoint importUsers(String importId, UserImportFormat format, Reader reader) {
+		if (importId == null || importId.trim().isEmpty() || importId.length() > 64) {
+			throw new IllegalArgumentException("The provided import id: << " + importId + " >> is not valid.");
+		}
+		UserImportCheckpoint checkpoint = userImportCheckpointRepository.findById(importId)
+				.orElseGet(() -> new UserImportCheckpoint(importId));
+		if (checkpoint.isCompleted()) {
+			return checkpoint;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(
+				importParallelism > 0 ? importParallelism : Runtime.getRuntime().availableProcessors());
+		try (BufferedReader lineReader = new BufferedReader(reader)) {
+			if (format == UserImportFormat.CSV) {
+				lineReader.readLine();
+			}
+			for (long line = 0; line < checkpoint.getLinesProcessed(); line++) {
+				if (lineReader.readLine() == null) {
+					break;
+				}
+			}
+
+			// The next batch is hashed while the current one is written.
+			CompletableFuture<List<User>> nextBatch = prepareBatch(readLines(lineReader), format, pool);
+			while (true) {
+				List<User> batch = nextBatch.join();
+				if (batch.isEmpty()) {
+					break;
+				}
+				nextBatch = prepareBatch(readLines(lineReader), format, pool);
+				checkpoint = writeBatch(checkpoint, batch);
+			}
+
+			UserImportCheckpoint completedCheckpoint = checkpoint;
+			completedCheckpoint.complete();
+			return transactionTemplate.execute(status -> userImportCheckpointRepository.save(completedCheckpoint));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private List<String> readLines(BufferedReader lineReader) throws IOException {
+		List<String> lines = new ArrayList<>(importBatchSize);
+		String line;
+		while (lines.size() < importBatchSize && (line = lineReader.readLine()) != null) {
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	/**
+	 * Parse the lines and hash the passwords on the pool. <br>
+	 * A line which is not a valid user give a null element, the blank lines are
+	 * kept as well so that the batch size is the number of lines read.
+	 */
+	private CompletableFuture<List<User>> prepareBatch(List<String> lines, UserImportFormat format,
+			ForkJoinPool pool) {
+		if (lines.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		return CompletableFuture.supplyAsync(
+				() -> lines.parallelStream().map(line -> toUser(line, format)).collect(Collectors.toList()), pool);
+	}
+
+	private UserImportCheckpoint writeBatch(UserImportCheckpoint checkpoint, List<User> batch) {
+		return transactionTemplate.execute(status -> {
+			long rejected = 0;
+			long duplicates = 0;
+			Map<String, User> usersByEmail = new LinkedHashMap<>();
+			for (User user : batch) {
+				if (user == null) {
+					rejected++;
+				} else if (usersByEmail.putIfAbsent(user.getEmail(), user) != null) {
+					duplicates++;
+				}
+			}
+
+			if (!usersByEmail.isEmpty()) {
+				Set<String> existingEmails = new HashSet<>(
+						userRepository.findExistingEmails(usersByEmail.keySet()));
+				duplicates += existingEmails.size();
+				usersByEmail.keySet().removeAll(existingEmails);
+				userRepository.saveAll(usersByEmail.values());
+			}
+
+			checkpoint.advance(batch.size(), usersByEmail.size(), duplicates, rejected);
+			return userImportCheckpointRepository.save(checkpoint);
+		});
+	}
+
+	private static User toUser(String line, UserImportFormat format) {
+		if (line.trim().isEmpty()) {
+			return null;
+		}
+		String[] fields;
+		if (format == UserImportFormat.CSV) {
+			fields = parseCsv(line);
+		} else {
+			try {
+				JsonNode node = OBJECT_MAPPER.readTree(line);
+				fields = new String[] { text(node, "email"), text(node, "lastName"), text(node, "firstName"),
+						text(node, "password") };
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		String email = field(fields, 0);
+		String password = field(fields, 3);
+		if (email == null || password == null) {
+			return null;
+		}
+		try {
+			// Money only enters an account by a bank transfer, never by the import.
+			return new User(email, field(fields, 1), field(fields, 2), PasswordHashPolicy.hash(password), Money.ZERO,
+					null, new ArrayList<>(), new ArrayList<>());
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static String text(JsonNode node, String fieldName) {
+		JsonNode field = node.get(fieldName);
+		return field == null || field.isNull() ? null : field.asText();
+	}
+
+	private static String field(String[] fields, int index) {
+		if (index >= fields.length || fields[index] == null || fields[index].trim().isEmpty()) {
+			return null;
+		}
+		return fields[index].trim();
+	}
+
+	/**
+	 * Split a CSV line, the fields can be quoted and hold escaped quotes.
+	 */
+	private static String[] parseCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields.toArray(new String[0]);
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.paymybuddy.wal;
+
+import com.paymybuddy.model.TransferRequest;
+
+/**
+ * Transfer written to the {@link TransferJournal}, with the sequence of its
+ * record.
+ */
+public class JournaledTransfer {
+
+	private final long sequence;
+	private final TransferRequest transferRequest;
+
+	public JournaledTransfer(long sequence, TransferRequest transferRequest) {
+		this.sequence = sequence;
+		this.transferRequest = transferRequest;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public TransferRequest getTransferRequest() {
+		return transferRequest;
+	}
+
+	@Override
+	public String toString() {
+		return "JournaledTransfer [sequence=" + sequence + ", transferRequest=" + transferRequest + "]";
+	}
+
+}
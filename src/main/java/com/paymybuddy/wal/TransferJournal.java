@@ -0,0 +1,322 @@
+package com.paymybuddy.wal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+
+/**
+ * Write-ahead journal of the transfers, on the local disk. <br>
+ * <br>
+ * The journal is a sequence of segment files of a fixed size, named after the
+ * sequence of their first record, each mapped in memory. A record is: <br>
+ * - its length and the CRC32 of its sequence and payload, <br>
+ * - its sequence, one more than the record before, <br>
+ * - its payload: the emails, the description and the amount of the transfer,
+ * then its idempotency key if it has one. <br>
+ * A length of zero ends a segment, a record which does not fit in the current
+ * segment starts the next one. <br>
+ * <br>
+ * {@link #append(TransferRequest)} only write to memory, the records are on
+ * disk once {@link #force()} returns, so that many appends are made durable by
+ * a single fsync. {@link #open()} read back the records, stopping at the first
+ * one torn by a crash or corrupted, the next appends overwrite it. <br>
+ * The methods are not thread-safe, except {@link #force()} which may run
+ * while appending.
+ */
+public class TransferJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(TransferJournal.class);
+
+	private static final String SEGMENT_PREFIX = "transfers-";
+	private static final String SEGMENT_SUFFIX = ".wal";
+	private static final int HEADER_SIZE = 4 + 4 + 8;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final List<Segment> segments = new ArrayList<>();
+	private final List<Segment> segmentsToForce = new ArrayList<>();
+
+	private long lastSequence;
+
+	public TransferJournal(Path directory, int segmentSize) {
+		if (segmentSize < 4096) {
+			throw new IllegalArgumentException("The provided segment size: << " + segmentSize + " >> is not valid.");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Map the segments of the directory and read their records. <br>
+	 *
+	 * @return the records written, in the order of their sequence
+	 */
+	public List<JournaledTransfer> open() {
+		List<JournaledTransfer> transfers = new ArrayList<>();
+		try {
+			Files.createDirectories(directory);
+			List<Path> paths = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+					SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+				stream.forEach(paths::add);
+			}
+			paths.sort(null);
+
+			boolean torn = false;
+			for (Path path : paths) {
+				if (torn) {
+					// Nothing after a torn record was acknowledged.
+					logger.warn("Deleting the journal segment written after a torn record: {}", path);
+					Files.delete(path);
+					continue;
+				}
+				Segment segment = map(path);
+				segments.add(segment);
+				torn = !read(segment, transfers);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return transfers;
+	}
+
+	/**
+	 * Write the record of a transfer, in memory. <br>
+	 *
+	 * @return the sequence of the record
+	 */
+	public long append(TransferRequest transferRequest) {
+		byte[] payload = encode(transferRequest);
+		int recordSize = HEADER_SIZE + payload.length;
+		if (recordSize + 4 > segmentSize) {
+			throw new IllegalArgumentException(
+					"The provided transfer: << " + transferRequest + " >> is too large for the journal.");
+		}
+
+		long sequence = lastSequence + 1;
+		Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		// Keep room for the length of zero ending the segment.
+		if (segment == null || segment.buffer.remaining() < recordSize + 4) {
+			segment = createSegment(sequence);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(ByteBuffer.allocate(8).putLong(0, sequence).array());
+		crc.update(payload);
+		MappedByteBuffer buffer = segment.buffer;
+		int start = buffer.position();
+		buffer.putInt(start + 4, (int) crc.getValue());
+		buffer.putLong(start + 8, sequence);
+		for (int i = 0; i < payload.length; i++) {
+			buffer.put(start + HEADER_SIZE + i, payload[i]);
+		}
+		buffer.putInt(start, payload.length);
+		buffer.position(start + recordSize);
+
+		lastSequence = sequence;
+		synchronized (segmentsToForce) {
+			if (!segmentsToForce.contains(segment)) {
+				segmentsToForce.add(segment);
+			}
+		}
+		return sequence;
+	}
+
+	/**
+	 * Write to disk the records appended so far.
+	 */
+	public void force() {
+		List<Segment> forcing;
+		synchronized (segmentsToForce) {
+			// A segment appended to after this point is added again.
+			forcing = new ArrayList<>(segmentsToForce);
+			segmentsToForce.clear();
+		}
+		for (Segment segment : forcing) {
+			segment.buffer.force();
+		}
+	}
+
+	/**
+	 * Delete the segments whose records are all applied, the last segment is
+	 * always kept.
+	 */
+	public void deleteSegmentsUpTo(long appliedSequence) {
+		while (segments.size() > 1 && segments.get(1).firstSequence <= appliedSequence + 1) {
+			Segment segment = segments.remove(0);
+			synchronized (segmentsToForce) {
+				segmentsToForce.remove(segment);
+			}
+			try {
+				segment.channel.close();
+				Files.deleteIfExists(segment.path);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Number the next records after a sequence, when the records up to it are
+	 * known to be applied but no longer in the journal.
+	 */
+	public void skipTo(long sequence) {
+		if (sequence > lastSequence) {
+			lastSequence = sequence;
+		}
+	}
+
+	public void close() {
+		force();
+		for (Segment segment : segments) {
+			try {
+				segment.channel.close();
+			} catch (IOException e) {
+				logger.warn("Cannot close the journal segment: {}", segment.path, e);
+			}
+		}
+		segments.clear();
+	}
+
+	/**
+	 * Read the records of a segment and set its position after the last one.
+	 *
+	 * @return false if the segment ends with a torn or corrupted record
+	 */
+	private boolean read(Segment segment, List<JournaledTransfer> transfers) {
+		MappedByteBuffer buffer = segment.buffer;
+		int position = 0;
+		boolean whole = true;
+		if (lastSequence < segment.firstSequence - 1) {
+			lastSequence = segment.firstSequence - 1;
+		}
+		while (position + 4 <= segmentSize) {
+			int length = buffer.getInt(position);
+			if (length == 0) {
+				break;
+			}
+			if (length < 0 || position + HEADER_SIZE + length + 4 > segmentSize) {
+				whole = false;
+				break;
+			}
+			long sequence = buffer.getLong(position + 8);
+			byte[] payload = new byte[length];
+			for (int i = 0; i < length; i++) {
+				payload[i] = buffer.get(position + HEADER_SIZE + i);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(ByteBuffer.allocate(8).putLong(0, sequence).array());
+			crc.update(payload);
+			if ((int) crc.getValue() != buffer.getInt(position + 4) || sequence != lastSequence + 1) {
+				whole = false;
+				break;
+			}
+			transfers.add(new JournaledTransfer(sequence, decode(payload)));
+			lastSequence = sequence;
+			position += HEADER_SIZE + length;
+		}
+		if (!whole) {
+			logger.warn("Torn or corrupted record at {} of the journal segment {}, the records after it are dropped",
+					position, segment.path);
+			for (int i = position; i < segmentSize; i++) {
+				buffer.put(i, (byte) 0);
+			}
+			buffer.force();
+		}
+		buffer.position(position);
+		return whole;
+	}
+
+	private Segment createSegment(long firstSequence) {
+		Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+		try {
+			Segment segment = map(path);
+			segments.add(segment);
+			return segment;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Segment map(Path path) throws IOException {
+		String name = path.getFileName().toString();
+		long firstSequence = Long
+				.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		return new Segment(path, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+	}
+
+	private static byte[] encode(TransferRequest transferRequest) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeUTF(transferRequest.getEmailOfTheUserSendingMoney());
+			output.writeUTF(transferRequest.getEmailOfTheUserGettingMoney());
+			output.writeBoolean(transferRequest.getDescription() != null);
+			output.writeUTF(transferRequest.getDescription() == null ? "" : transferRequest.getDescription());
+			output.writeLong(transferRequest.getAmount().getMinorUnits());
+			if (transferRequest.getIdempotencyKey() != null) {
+				output.writeUTF(transferRequest.getIdempotencyKey());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static TransferRequest decode(byte[] payload) {
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+			String emailOfTheUserSendingMoney = input.readUTF();
+			String emailOfTheUserGettingMoney = input.readUTF();
+			boolean hasDescription = input.readBoolean();
+			String description = input.readUTF();
+			Money amount = Money.ofMinorUnits(input.readLong());
+			// The records written before the idempotency keys end with the amount.
+			String idempotencyKey = input.available() > 0 ? input.readUTF() : null;
+			return new TransferRequest(emailOfTheUserSendingMoney, emailOfTheUserGettingMoney,
+					hasDescription ? description : null, amount, idempotencyKey);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static final class Segment {
+
+		private final Path path;
+		private final long firstSequence;
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+
+		private Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+			this.path = path;
+			this.firstSequence = firstSequence;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+	}
+
+}
@@ -0,0 +1,665 @@
+package com.paymybuddy.wal;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.model.IdempotencyRecord;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.RejectedTransfer;
+import com.paymybuddy.model.TransferJournalCheckpoint;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferStatus;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.RejectedTransferRepository;
+import com.paymybuddy.repository.TransferJournalCheckpointRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.PayMyBuddyService;
+import com.paymybuddy.service.impl.PayMyBuddyServiceImpl;
+
+/**
+ * Accept the transfers once written to the local {@link TransferJournal},
+ * instead of once committed to the database, enabled by the
+ * <b>paymybuddy.transfer.wal.enabled</b> property. <br>
+ * <br>
+ * {@link #submit(TransferRequest)} check the transfer, write it to the journal
+ * and return once its record is on disk. The records are forced to disk by a
+ * single thread, every fsync covering all the records written while the
+ * previous one was running: the acknowledgement waits for the local disk, not
+ * for the database. <br>
+ * The money sent and not yet applied is reserved in memory, so that a sender
+ * cannot be acknowledged more than its balance. The balance is read from its
+ * row, never from the second-level cache, and the lock of the sender is held
+ * from this read to the reservation. The applier holds it from the commit of
+ * a transfer to the release of its reservation: the balance read and the
+ * reservation always cover the same transfers. <br>
+ * <br>
+ * Another thread applies the records to the database in the order of their
+ * sequence, by batches of <b>paymybuddy.transfer.wal.apply-batch-size</b>,
+ * with {@link PayMyBuddyService#createTransaction}. The sequence of the last
+ * record applied is saved in the same database transaction, see
+ * {@link TransferJournalCheckpoint}: the records read back from the journal at
+ * startup are applied once, whether or not they were before the restart. <br>
+ * A transfer which can no longer be done when it is applied, the sender having
+ * been deleted or having spent its money meanwhile for instance, is skipped
+ * and saved as a {@link RejectedTransfer}. Its sender reads it with
+ * {@link #getStatus(String, long)}. When the
+ * database cannot be reached, the batch is tried again after
+ * <b>paymybuddy.transfer.wal.retry-delay-ms</b>. <br>
+ * <br>
+ * A transfer with an idempotency key is journaled once per key of its sender:
+ * sent again, it is given back the sequence of the first one. The key is kept
+ * in memory until the transfer is applied or rejected, then in the
+ * {@link IdempotencyStore} with its sequence, saved in the same database
+ * transaction. Both are read holding the lock of the sender, which the applier
+ * holds from the commit to forgetting the key in memory. <br>
+ * The journal directory, and the <b>paymybuddy.transfer.wal.journal-id</b> its
+ * progress is saved under, belong to a single instance of the application.
+ */
+@Component
+public class WriteAheadTransferService {
+
+	private static final Logger logger = LoggerFactory.getLogger(WriteAheadTransferService.class);
+
+	private static final int SENDER_LOCKS = 64;
+
+	private final PayMyBuddyService payMyBuddyService;
+	private final UserRepository userRepository;
+	private final TransferJournalCheckpointRepository transferJournalCheckpointRepository;
+	private final RejectedTransferRepository rejectedTransferRepository;
+	private final OptimisticRetryExecutor optimisticRetryExecutor;
+	private final IdempotencyStore idempotencyStore;
+	private final TransactionTemplate transactionTemplate;
+	private final TransferJournal journal;
+	private final boolean enabled;
+	private final String journalId;
+	private final int applyBatchSize;
+	private final long retryDelayMs;
+
+	private final Object durability = new Object();
+	private final BlockingQueue<JournaledTransfer> transfersToApply = new LinkedBlockingQueue<>();
+	private final ConcurrentHashMap<String, Long> reservedMinorUnits = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, JournaledTransfer> pendingKeys = new ConcurrentHashMap<>();
+	private final ReentrantLock[] senderLocks = new ReentrantLock[SENDER_LOCKS];
+
+	private volatile long appendedSequence;
+	private volatile long durableSequence;
+	private volatile RuntimeException failure;
+	private volatile boolean running;
+	private Thread flusher;
+	private Thread applier;
+
+	@Autowired
+	public WriteAheadTransferService(PayMyBuddyService payMyBuddyService, UserRepository userRepository,
+			TransferJournalCheckpointRepository transferJournalCheckpointRepository,
+			RejectedTransferRepository rejectedTransferRepository, OptimisticRetryExecutor optimisticRetryExecutor,
+			IdempotencyStore idempotencyStore, TransactionTemplate transactionTemplate,
+			@Value("${paymybuddy.transfer.wal.enabled:false}") boolean enabled,
+			@Value("${paymybuddy.transfer.wal.directory:wal}") String directory,
+			@Value("${paymybuddy.transfer.wal.journal-id:transfers}") String journalId,
+			@Value("${paymybuddy.transfer.wal.segment-size:16777216}") int segmentSize,
+			@Value("${paymybuddy.transfer.wal.apply-batch-size:100}") int applyBatchSize,
+			@Value("${paymybuddy.transfer.wal.retry-delay-ms:1000}") long retryDelayMs) {
+		this(payMyBuddyService, userRepository, transferJournalCheckpointRepository, rejectedTransferRepository,
+				optimisticRetryExecutor, idempotencyStore, transactionTemplate,
+				new TransferJournal(Paths.get(directory), segmentSize), enabled, journalId, applyBatchSize,
+				retryDelayMs);
+	}
+
+	public WriteAheadTransferService(PayMyBuddyService payMyBuddyService, UserRepository userRepository,
+			TransferJournalCheckpointRepository transferJournalCheckpointRepository,
+			RejectedTransferRepository rejectedTransferRepository, OptimisticRetryExecutor optimisticRetryExecutor,
+			IdempotencyStore idempotencyStore, TransactionTemplate transactionTemplate, TransferJournal journal,
+			boolean enabled, String journalId, int applyBatchSize, long retryDelayMs) {
+		if (applyBatchSize < 1) {
+			throw new IllegalArgumentException("The provided batch size: << " + applyBatchSize + " >> is not valid.");
+		}
+		this.payMyBuddyService = payMyBuddyService;
+		this.userRepository = userRepository;
+		this.transferJournalCheckpointRepository = transferJournalCheckpointRepository;
+		this.rejectedTransferRepository = rejectedTransferRepository;
+		this.optimisticRetryExecutor = optimisticRetryExecutor;
+		this.idempotencyStore = idempotencyStore;
+		this.transactionTemplate = transactionTemplate;
+		this.journal = journal;
+		this.enabled = enabled;
+		this.journalId = journalId;
+		this.applyBatchSize = applyBatchSize;
+		this.retryDelayMs = retryDelayMs;
+		for (int i = 0; i < SENDER_LOCKS; i++) {
+			senderLocks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Read back the journal, queue the records not applied yet, then start the
+	 * flushing and applying threads.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		List<JournaledTransfer> journaledTransfers = journal.open();
+		long lastAppliedSequence = transactionTemplate.execute(status -> transferJournalCheckpointRepository
+				.findById(journalId).map(TransferJournalCheckpoint::getLastAppliedSequence).orElse(0L));
+		journal.skipTo(lastAppliedSequence);
+		for (JournaledTransfer journaledTransfer : journaledTransfers) {
+			if (journaledTransfer.getSequence() > lastAppliedSequence) {
+				reservedMinorUnits.merge(journaledTransfer.getTransferRequest().getEmailOfTheUserSendingMoney(),
+						debit(journaledTransfer.getTransferRequest().getAmount()), Math::addExact);
+				if (journaledTransfer.getTransferRequest().getIdempotencyKey() != null) {
+					pendingKeys.put(pendingKey(journaledTransfer.getTransferRequest()), journaledTransfer);
+				}
+				transfersToApply.add(journaledTransfer);
+			}
+		}
+		appendedSequence = journal.getLastSequence();
+		durableSequence = appendedSequence;
+		logger.info("Transfer journal opened at the sequence {}, {} transfers to apply", appendedSequence,
+				transfersToApply.size());
+
+		running = true;
+		flusher = newThread("transfer-journal-flusher", this::flushLoop);
+		applier = newThread("transfer-journal-applier", this::applyLoop);
+		flusher.start();
+		applier.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (flusher == null) {
+			return;
+		}
+		running = false;
+		synchronized (durability) {
+			durability.notifyAll();
+		}
+		applier.interrupt();
+		try {
+			flusher.join(retryDelayMs);
+			applier.join(retryDelayMs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (journal) {
+			journal.close();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Check a transfer and write it to the journal. <br>
+	 * A transfer with an idempotency key already journaled is not written
+	 * again. <br>
+	 *
+	 * @param transferRequest : the transfer to do
+	 * @return the sequence of the transfer, once it is on disk
+	 */
+	public long submit(TransferRequest transferRequest) {
+		if (!running) {
+			throw new IllegalStateException("The transfer journal is not enabled.");
+		}
+		if (transferRequest.getIdempotencyKey() == null) {
+			long sequence = append(transferRequest);
+			awaitDurable(sequence);
+			return sequence;
+		}
+
+		long sequence;
+		ReentrantLock lock = senderLock(transferRequest.getEmailOfTheUserSendingMoney());
+		lock.lock();
+		try {
+			Optional<Long> firstSequence = findFirstSequence(transferRequest);
+			sequence = firstSequence.isPresent() ? firstSequence.get() : append(transferRequest);
+		} finally {
+			lock.unlock();
+		}
+		awaitDurable(sequence);
+		return sequence;
+	}
+
+	/**
+	 * @return the sequence of the last transfer on disk
+	 */
+	public long getDurableSequence() {
+		return durableSequence;
+	}
+
+	/**
+	 * Read what became of a transfer acknowledged by {@link #submit}. <br>
+	 *
+	 * @param emailOfTheUserSendingMoney : the sender of the transfer
+	 * @param sequence                   : the sequence of the transfer
+	 * @return the transfer pending, applied to the database, or rejected with
+	 *         the reason why
+	 */
+	public TransferStatus getStatus(String emailOfTheUserSendingMoney, long sequence) {
+		if (sequence < 1 || sequence > appendedSequence) {
+			throw new NoSuchElementException("The provided transfer: << " + sequence + " >> cannot be found.");
+		}
+		return transactionTemplate.execute(status -> {
+			Optional<RejectedTransfer> rejectedTransfer = rejectedTransferRepository
+					.findByJournalIdAndSequence(journalId, sequence);
+			if (rejectedTransfer.isPresent()) {
+				if (!rejectedTransfer.get().getEmailOfTheUserSendingMoney().equals(emailOfTheUserSendingMoney)) {
+					throw new NoSuchElementException(
+							"The provided transfer: << " + sequence + " >> cannot be found.");
+				}
+				return TransferStatus.rejected(sequence, rejectedTransfer.get().getMessage());
+			}
+			long lastAppliedSequence = transferJournalCheckpointRepository.findById(journalId)
+					.map(TransferJournalCheckpoint::getLastAppliedSequence).orElse(0L);
+			return sequence <= lastAppliedSequence ? TransferStatus.applied(sequence)
+					: TransferStatus.pending(sequence);
+		});
+	}
+
+	/**
+	 * @return the number of transfers acknowledged and not applied yet
+	 */
+	public int getPendingTransfers() {
+		return transfersToApply.size();
+	}
+
+	/**
+	 * Check a transfer, reserve its amount and append it to the journal. <br>
+	 *
+	 * @return the sequence of the transfer, not on disk yet
+	 */
+	private long append(TransferRequest transferRequest) {
+		String emailOfTheUserSendingMoney = transferRequest.getEmailOfTheUserSendingMoney();
+		long debit = check(transferRequest);
+
+		long sequence;
+		try {
+			synchronized (journal) {
+				sequence = journal.append(transferRequest);
+				JournaledTransfer journaledTransfer = new JournaledTransfer(sequence, transferRequest);
+				if (transferRequest.getIdempotencyKey() != null) {
+					pendingKeys.put(pendingKey(transferRequest), journaledTransfer);
+				}
+				transfersToApply.add(journaledTransfer);
+				appendedSequence = sequence;
+			}
+		} catch (RuntimeException e) {
+			release(emailOfTheUserSendingMoney, debit);
+			throw e;
+		}
+		synchronized (durability) {
+			durability.notifyAll();
+		}
+		return sequence;
+	}
+
+	/**
+	 * Read the sequence of the transfer journaled with the same idempotency key,
+	 * pending in memory or saved with the key, holding the lock of the sender.
+	 * <br>
+	 *
+	 * @return the sequence of the first transfer, empty if the key is not used
+	 */
+	private Optional<Long> findFirstSequence(TransferRequest transferRequest) {
+		JournaledTransfer pending = pendingKeys.get(pendingKey(transferRequest));
+		if (pending != null) {
+			TransferRequest first = pending.getTransferRequest();
+			if (!Objects.equals(first.getEmailOfTheUserGettingMoney(), transferRequest.getEmailOfTheUserGettingMoney())
+					|| !Objects.equals(first.getDescription(), transferRequest.getDescription())
+					|| !Objects.equals(first.getAmount(), transferRequest.getAmount())) {
+				throw keyAlreadyUsed(transferRequest);
+			}
+			return Optional.of(pending.getSequence());
+		}
+
+		Optional<IdempotencyRecord> record = transactionTemplate.execute(status -> idempotencyStore
+				.find(transferRequest.getEmailOfTheUserSendingMoney(), transferRequest.getIdempotencyKey()));
+		if (!record.isPresent()) {
+			return Optional.empty();
+		}
+		if (!idempotencyStore.matches(record.get(), PayMyBuddyServiceImpl.CREATE_TRANSACTION_OPERATION,
+				transferRequest.getEmailOfTheUserSendingMoney(), transferRequest.getEmailOfTheUserGettingMoney(),
+				transferRequest.getDescription(), transferRequest.getAmount())) {
+			throw keyAlreadyUsed(transferRequest);
+		}
+		record.get().replay();
+		if (record.get().getJournalSequence() == null) {
+			// Done by the group commit, before the transfer journal was enabled: there
+			// is no sequence to give back.
+			throw new IllegalArgumentException("The provided idempotency key: << "
+					+ transferRequest.getIdempotencyKey() + " >> is already used by a transfer not journaled.");
+		}
+		return Optional.of(record.get().getJournalSequence());
+	}
+
+	private static IllegalArgumentException keyAlreadyUsed(TransferRequest transferRequest) {
+		return new IllegalArgumentException("The provided idempotency key: << "
+				+ transferRequest.getIdempotencyKey() + " >> is already used by another request.");
+	}
+
+	private static String pendingKey(TransferRequest transferRequest) {
+		return transferRequest.getEmailOfTheUserSendingMoney() + ":" + transferRequest.getIdempotencyKey();
+	}
+
+	/**
+	 * Release the reservation of a transfer applied or rejected, and forget its
+	 * idempotency key now saved in the database.
+	 */
+	private void done(JournaledTransfer journaledTransfer) {
+		TransferRequest transferRequest = journaledTransfer.getTransferRequest();
+		ReentrantLock lock = senderLock(transferRequest.getEmailOfTheUserSendingMoney());
+		lock.lock();
+		try {
+			release(transferRequest.getEmailOfTheUserSendingMoney(), debit(transferRequest.getAmount()));
+			if (transferRequest.getIdempotencyKey() != null) {
+				pendingKeys.remove(pendingKey(transferRequest), journaledTransfer);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Check the users and the amount, then reserve the amount and its fee on the
+	 * balance of the sender, holding its lock. <br>
+	 *
+	 * @return the amount reserved, in minor units
+	 */
+	private long check(TransferRequest transferRequest) {
+		Money amount = transferRequest.getAmount();
+		if (amount == null || amount.isLessThan(PayMyBuddyServiceImpl.MINIMUM_TRANSACTION_AMOUNT)) {
+			throw new IllegalArgumentException(
+					"The provided amount for the transaction: << " + amount + " >> is not valid.");
+		}
+		String emailOfTheUserSendingMoney = transferRequest.getEmailOfTheUserSendingMoney();
+		if (emailOfTheUserSendingMoney.equals(transferRequest.getEmailOfTheUserGettingMoney())) {
+			throw new IllegalArgumentException(
+					"The provided User: << " + emailOfTheUserSendingMoney + " >> cannot send money to itself.");
+		}
+		if (!userRepository.findByEmail(transferRequest.getEmailOfTheUserGettingMoney()).isPresent()) {
+			throw new NoSuchElementException("The provided User: << "
+					+ transferRequest.getEmailOfTheUserGettingMoney() + " >> cannot be found.");
+		}
+
+		long debit = debit(amount);
+		ReentrantLock lock = senderLock(emailOfTheUserSendingMoney);
+		lock.lock();
+		try {
+			long moneyAvailable = userRepository.findMoneyAvailableByEmail(emailOfTheUserSendingMoney)
+					.orElseThrow(() -> new NoSuchElementException(
+							"The provided User: << " + emailOfTheUserSendingMoney + " >> cannot be found."))
+					.getMinorUnits();
+			long alreadyReserved = reservedMinorUnits.getOrDefault(emailOfTheUserSendingMoney, 0L);
+			if (moneyAvailable - alreadyReserved < debit) {
+				throw new IllegalArgumentException(
+						"The money available on the account is not enough to afford the request." + " Money : "
+								+ Money.ofMinorUnits(moneyAvailable - alreadyReserved));
+			}
+			reservedMinorUnits.put(emailOfTheUserSendingMoney, alreadyReserved + debit);
+		} finally {
+			lock.unlock();
+		}
+		return debit;
+	}
+
+	private void release(String emailOfTheUserSendingMoney, long debit) {
+		ReentrantLock lock = senderLock(emailOfTheUserSendingMoney);
+		lock.lock();
+		try {
+			reservedMinorUnits.computeIfPresent(emailOfTheUserSendingMoney,
+					(email, reserved) -> reserved - debit <= 0 ? null : reserved - debit);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private ReentrantLock senderLock(String emailOfTheUserSendingMoney) {
+		return senderLocks[Math.floorMod(emailOfTheUserSendingMoney.hashCode(), SENDER_LOCKS)];
+	}
+
+	/**
+	 * Take the locks of the senders of a batch, in the order of their index so
+	 * that the submitting threads, which take a single lock, cannot deadlock
+	 * with the applier.
+	 */
+	private List<ReentrantLock> lockSenders(List<JournaledTransfer> batch) {
+		TreeSet<Integer> indexes = new TreeSet<>();
+		for (JournaledTransfer journaledTransfer : batch) {
+			indexes.add(Math.floorMod(
+					journaledTransfer.getTransferRequest().getEmailOfTheUserSendingMoney().hashCode(), SENDER_LOCKS));
+		}
+		List<ReentrantLock> locks = new ArrayList<>(indexes.size());
+		for (int index : indexes) {
+			senderLocks[index].lock();
+			locks.add(senderLocks[index]);
+		}
+		return locks;
+	}
+
+	private static void unlock(List<ReentrantLock> locks) {
+		for (int i = locks.size() - 1; i >= 0; i--) {
+			locks.get(i).unlock();
+		}
+	}
+
+	private void awaitDurable(long sequence) {
+		synchronized (durability) {
+			while (durableSequence < sequence) {
+				if (failure != null) {
+					throw new IllegalStateException("The transfer journal cannot be written.", failure);
+				}
+				if (!running) {
+					throw new IllegalStateException("The transfer journal is stopped.");
+				}
+				try {
+					durability.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while writing the transfer journal.", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Force the records appended while the previous fsync was running, all at
+	 * once.
+	 */
+	private void flushLoop() {
+		while (running) {
+			synchronized (durability) {
+				while (running && appendedSequence <= durableSequence) {
+					try {
+						durability.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+			if (!running) {
+				return;
+			}
+
+			long forcedSequence = appendedSequence;
+			try {
+				journal.force();
+			} catch (RuntimeException e) {
+				logger.error("The transfer journal cannot be written, no transfer is accepted anymore", e);
+				failure = e;
+				running = false;
+			}
+			synchronized (durability) {
+				if (failure == null) {
+					durableSequence = forcedSequence;
+				}
+				durability.notifyAll();
+			}
+		}
+	}
+
+	private void applyLoop() {
+		while (running) {
+			List<JournaledTransfer> batch = new ArrayList<>(applyBatchSize);
+			try {
+				batch.add(transfersToApply.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			transfersToApply.drainTo(batch, applyBatchSize - 1);
+			try {
+				awaitDurable(batch.get(batch.size() - 1).getSequence());
+			} catch (IllegalStateException e) {
+				return;
+			}
+			apply(batch);
+		}
+	}
+
+	/**
+	 * Apply a batch in a single database transaction, or its transfers one by
+	 * one if it fails.
+	 */
+	private void apply(List<JournaledTransfer> batch) {
+		while (running) {
+			try {
+				List<ReentrantLock> locks = lockSenders(batch);
+				try {
+					applyInTransaction(batch);
+					for (JournaledTransfer journaledTransfer : batch) {
+						done(journaledTransfer);
+					}
+				} finally {
+					unlock(locks);
+				}
+				synchronized (journal) {
+					journal.deleteSegmentsUpTo(batch.get(batch.size() - 1).getSequence());
+				}
+				return;
+			} catch (IllegalArgumentException | NoSuchElementException e) {
+				if (batch.size() > 1) {
+					for (JournaledTransfer journaledTransfer : batch) {
+						apply(Collections.singletonList(journaledTransfer));
+					}
+					return;
+				}
+				reject(batch.get(0), e);
+				return;
+			} catch (RuntimeException e) {
+				logger.warn("The transfers cannot be applied to the database, trying again in {} ms", retryDelayMs,
+						e);
+				try {
+					Thread.sleep(retryDelayMs);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void applyInTransaction(List<JournaledTransfer> batch) {
+		optimisticRetryExecutor.execute("applyJournaledTransfers", () -> {
+			TransferJournalCheckpoint checkpoint = transferJournalCheckpointRepository.findById(journalId)
+					.orElseGet(() -> new TransferJournalCheckpoint(journalId));
+			for (JournaledTransfer journaledTransfer : batch) {
+				if (journaledTransfer.getSequence() <= checkpoint.getLastAppliedSequence()) {
+					continue;
+				}
+				TransferRequest transferRequest = journaledTransfer.getTransferRequest();
+				payMyBuddyService.createTransaction(findUser(transferRequest.getEmailOfTheUserSendingMoney()),
+						findUser(transferRequest.getEmailOfTheUserGettingMoney()), transferRequest.getDescription(),
+						transferRequest.getAmount());
+				saveIdempotencyKey(journaledTransfer);
+				checkpoint.advance(journaledTransfer.getSequence());
+			}
+			transferJournalCheckpointRepository.save(checkpoint);
+		});
+	}
+
+	private void reject(JournaledTransfer journaledTransfer, RuntimeException cause) {
+		logger.warn("The journaled transfer {} cannot be done and is skipped: {}", journaledTransfer,
+				cause.getMessage());
+		TransferRequest transferRequest = journaledTransfer.getTransferRequest();
+		while (running) {
+			try {
+				optimisticRetryExecutor.execute("rejectJournaledTransfer", () -> {
+					TransferJournalCheckpoint checkpoint = transferJournalCheckpointRepository.findById(journalId)
+							.orElseGet(() -> new TransferJournalCheckpoint(journalId));
+					checkpoint.reject(journaledTransfer.getSequence());
+					transferJournalCheckpointRepository.save(checkpoint);
+					rejectedTransferRepository.save(new RejectedTransfer(journalId, journaledTransfer.getSequence(),
+							transferRequest.getEmailOfTheUserSendingMoney(), cause.getMessage()));
+					saveIdempotencyKey(journaledTransfer);
+				});
+				done(journaledTransfer);
+				return;
+			} catch (RuntimeException e) {
+				logger.warn("The rejected transfer cannot be recorded, trying again in {} ms", retryDelayMs, e);
+				try {
+					Thread.sleep(retryDelayMs);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Save the idempotency key of a transfer with its sequence, its status being
+	 * read by the sequence.
+	 */
+	private void saveIdempotencyKey(JournaledTransfer journaledTransfer) {
+		TransferRequest transferRequest = journaledTransfer.getTransferRequest();
+		if (transferRequest.getIdempotencyKey() == null) {
+			return;
+		}
+		idempotencyStore.saveSucceeded(transferRequest.getEmailOfTheUserSendingMoney(),
+				transferRequest.getIdempotencyKey(), PayMyBuddyServiceImpl.CREATE_TRANSACTION_OPERATION,
+				journaledTransfer.getSequence(), transferRequest.getEmailOfTheUserSendingMoney(),
+				transferRequest.getEmailOfTheUserGettingMoney(), transferRequest.getDescription(),
+				transferRequest.getAmount());
+	}
+
+	private User findUser(String email) {
+		return userRepository.findByEmail(email).orElseThrow(
+				() -> new NoSuchElementException("The provided User: << " + email + " >> cannot be found."));
+	}
+
+	private static long debit(Money amount) {
+		long minorUnits = amount.getMinorUnits();
+		return Math.addExact(minorUnits,
+				Money.percentage(minorUnits, PayMyBuddyServiceImpl.TRANSACTION_FEE_BASIS_POINTS));
+	}
+
+	private static Thread newThread(String name, Runnable runnable) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
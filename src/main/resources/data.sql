@@ -3,19 +3,28 @@ CREATE SCHEMA IF NOT EXISTS paymybuddy;
 USE paymybuddy;
 COMMIT;
 BEGIN;
+CREATE TABLE id_sequence
+(
+   sequence_name VARCHAR (64) NOT NULL,
+   next_val BIGINT NOT NULL,
+   PRIMARY KEY (sequence_name)
+);
+COMMIT;
+BEGIN;
 CREATE TABLE bank_account
 (
-   id INT AUTO_INCREMENT NOT NULL,
+   id BIGINT NOT NULL,
    IBAN VARCHAR (34),
    description VARCHAR (128),
    PRIMARY KEY (id)
 );
+CREATE UNIQUE INDEX bank_account_iban_idx ON bank_account (IBAN);
 COMMIT;
 BEGIN;
 CREATE TABLE transaction
 (
-   id INT AUTO_INCREMENT NOT NULL,
-   amount DECIMAL NOT NULL,
+   id BIGINT NOT NULL,
+   amount DECIMAL (19, 2) NOT NULL,
    date DATE,
    description VARCHAR (128),
    PRIMARY KEY (id)
@@ -24,39 +33,153 @@ COMMIT;
 BEGIN;
 CREATE TABLE user
 (
-   id INT AUTO_INCREMENT NOT NULL,
+   id BIGINT NOT NULL,
    email VARCHAR (64) NOT NULL,
    first_name VARCHAR (32),
    last_name VARCHAR (32),
-   money_available DECIMAL NOT NULL,
+   money_available DECIMAL (19, 2) NOT NULL,
    password VARCHAR (255) NOT NULL,
+   version INT DEFAULT 0 NOT NULL,
+   history_version BIGINT DEFAULT 0 NOT NULL,
+   PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX user_email_idx ON user (email);
+COMMIT;
+BEGIN;
+CREATE TABLE pending_fee
+(
+   id INT AUTO_INCREMENT NOT NULL,
+   shard INT NOT NULL,
+   amount DECIMAL (19, 2) NOT NULL,
    PRIMARY KEY (id)
 );
+CREATE INDEX pending_fee_shard_id_idx ON pending_fee (shard, id);
 COMMIT;
 BEGIN;
 CREATE TABLE user_friends
 (
-   user_id INT,
-   friends_id INT
+   user_id BIGINT,
+   friends_id BIGINT
+);
+CREATE INDEX user_friends_user_id_friends_id_idx ON user_friends (user_id, friends_id);
+CREATE INDEX user_friends_friends_id_idx ON user_friends (friends_id);
+COMMIT;
+BEGIN;
+CREATE TABLE balance_snapshot
+(
+   id BIGINT AUTO_INCREMENT NOT NULL,
+   user_id BIGINT NOT NULL,
+   snapshot_date DATE NOT NULL,
+   opening_balance DECIMAL (19, 2) NOT NULL,
+   balance DECIMAL (19, 2) NOT NULL,
+   PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX balance_snapshot_user_id_snapshot_date_idx ON balance_snapshot (user_id, snapshot_date);
+COMMIT;
+BEGIN;
+CREATE TABLE journal_entry
+(
+   id BIGINT AUTO_INCREMENT NOT NULL,
+   transfer_id VARCHAR (36) NOT NULL,
+   account_id BIGINT NOT NULL,
+   side VARCHAR (8) NOT NULL,
+   kind VARCHAR (16) NOT NULL,
+   amount DECIMAL (19, 2) NOT NULL,
+   created_at TIMESTAMP NOT NULL,
+   PRIMARY KEY (id)
+);
+CREATE INDEX journal_entry_created_at_idx ON journal_entry (created_at);
+COMMIT;
+BEGIN;
+CREATE TABLE ledger_snapshot
+(
+   id BIGINT AUTO_INCREMENT NOT NULL,
+   last_entry_id BIGINT NOT NULL,
+   account_id BIGINT NOT NULL,
+   balance DECIMAL (19, 2) NOT NULL,
+   PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX ledger_snapshot_last_entry_id_account_id_idx ON ledger_snapshot (last_entry_id, account_id);
+COMMIT;
+BEGIN;
+CREATE TABLE transfer_journal_checkpoint
+(
+   journal_id VARCHAR (64) NOT NULL,
+   last_applied_sequence BIGINT NOT NULL,
+   rejected BIGINT NOT NULL,
+   PRIMARY KEY (journal_id)
+);
+COMMIT;
+BEGIN;
+CREATE TABLE rejected_transfer
+(
+   id BIGINT AUTO_INCREMENT NOT NULL,
+   journal_id VARCHAR (64) NOT NULL,
+   sequence BIGINT NOT NULL,
+   email_of_the_user_sending_money VARCHAR (64) NOT NULL,
+   message VARCHAR (512),
+   PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX rejected_transfer_journal_id_sequence_idx ON rejected_transfer (journal_id, sequence);
+COMMIT;
+BEGIN;
+CREATE TABLE idempotency_record
+(
+   idempotency_key VARCHAR (100) NOT NULL,
+   operation VARCHAR (64) NOT NULL,
+   fingerprint VARCHAR (32) NOT NULL,
+   outcome VARCHAR (16) NOT NULL,
+   message VARCHAR (512),
+   journal_sequence BIGINT,
+   expires_at TIMESTAMP NOT NULL,
+   version BIGINT,
+   PRIMARY KEY (idempotency_key)
+);
+CREATE INDEX idempotency_record_expires_at_idx ON idempotency_record (expires_at);
+COMMIT;
+BEGIN;
+CREATE TABLE token_revocation
+(
+   id BIGINT AUTO_INCREMENT NOT NULL,
+   token_id VARCHAR (32),
+   email VARCHAR (64),
+   revoked_before_ms BIGINT NOT NULL,
+   expires_at_ms BIGINT NOT NULL,
+   PRIMARY KEY (id)
+);
+CREATE INDEX token_revocation_expires_at_ms_idx ON token_revocation (expires_at_ms);
+COMMIT;
+BEGIN;
+CREATE TABLE user_import_checkpoint
+(
+   import_id VARCHAR (64) NOT NULL,
+   lines_processed BIGINT NOT NULL,
+   imported BIGINT NOT NULL,
+   duplicates BIGINT NOT NULL,
+   rejected BIGINT NOT NULL,
+   completed BOOLEAN NOT NULL,
+   PRIMARY KEY (import_id)
 );
 COMMIT;
 -- -------| FOREIGN KEYS |-------
 BEGIN;
-ALTER TABLE bank_account ADD COLUMN user INT;
+ALTER TABLE bank_account ADD COLUMN user BIGINT;
 ALTER TABLE bank_account ADD CONSTRAINT bank_account_user_id_fk FOREIGN KEY (user) REFERENCES user (id);
 COMMIT;
 BEGIN;
-ALTER TABLE transaction ADD COLUMN user_sender INT;
+ALTER TABLE transaction ADD COLUMN user_sender BIGINT;
 ALTER TABLE transaction ADD CONSTRAINT transaction_user_sender_id_fk FOREIGN KEY (user_sender) REFERENCES user (id);
+CREATE INDEX transaction_user_sender_date_id_idx ON transaction (user_sender, date, id);
 COMMIT;
 BEGIN;
-ALTER TABLE transaction ADD COLUMN user_receiver INT;
+ALTER TABLE transaction ADD COLUMN user_receiver BIGINT;
 ALTER TABLE transaction ADD CONSTRAINT transaction_user_receiver_id_fk FOREIGN KEY (user_receiver) REFERENCES user (id);
+CREATE INDEX transaction_user_receiver_date_id_idx ON transaction (user_receiver, date, id);
 COMMIT;
 BEGIN;
-ALTER TABLE user ADD COLUMN bank_account INT;
+ALTER TABLE user ADD COLUMN bank_account BIGINT;
 ALTER TABLE user ADD CONSTRAINT user_bank_account_id_fk FOREIGN KEY (bank_account) REFERENCES bank_account (id);
-ALTER TABLE user ADD COLUMN transaction_id INT;
+ALTER TABLE user ADD COLUMN transaction_id BIGINT;
 ALTER TABLE user ADD CONSTRAINT user_transaction_id_fk FOREIGN KEY (transaction_id) REFERENCES transaction (id);
 COMMIT;
 BEGIN;
@@ -67,6 +190,7 @@ COMMIT;
 BEGIN;
 INSERT INTO paymybuddy.user
 (
+   id,
    email,
    first_name,
    last_name,
@@ -75,6 +199,7 @@ INSERT INTO paymybuddy.user
 )
 VALUES
 (
+   1,
    'emailTest',
    'firstNameTest',
    'lastNameTest',
@@ -85,6 +210,7 @@ COMMIT;
 BEGIN;
 INSERT INTO paymybuddy.user
 (
+   id,
    email,
    first_name,
    last_name,
@@ -93,6 +219,7 @@ INSERT INTO paymybuddy.user
 )
 VALUES
 (
+   2,
    'emailTest2',
    'firstNameTest2',
    'lastNameTest2',
@@ -103,11 +230,13 @@ COMMIT;
 BEGIN;
 INSERT INTO paymybuddy.bank_account
 (
+   id,
    iban,
    description
 )
 VALUES
 (
+   1,
    'ibanTest',
    'descriptionTest'
 );
@@ -115,12 +244,20 @@ COMMIT;
 BEGIN;
 INSERT INTO paymybuddy.transaction
 (
+   id,
    amount,
    description
 )
 VALUES
 (
+   1,
    '10.0',
    'descriptionTest'
 );
+COMMIT;
+BEGIN;
+-- The ids generated by the application start after the ones above.
+INSERT INTO paymybuddy.id_sequence (sequence_name, next_val) VALUES ('user', 1000);
+INSERT INTO paymybuddy.id_sequence (sequence_name, next_val) VALUES ('bank_account', 1000);
+INSERT INTO paymybuddy.id_sequence (sequence_name, next_val) VALUES ('transaction', 1000);
 COMMIT;
\ No newline at end of file
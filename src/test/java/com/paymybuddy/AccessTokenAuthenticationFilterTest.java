@@ -0,0 +1,93 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.security.AccessTokenAuthenticationFilter;
+import com.paymybuddy.repository.TokenRevocationRepository;
+import com.paymybuddy.security.AccessTokenService;
+
+public class AccessTokenAuthenticationFilterTest {
+
+	private AccessTokenService accessTokenService;
+
+	private AccessTokenAuthenticationFilter accessTokenAuthenticationFilter;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	private AtomicReference<Authentication> authentication;
+
+	private FilterChain filterChain;
+
+	@Before
+	public void init() {
+		Clock clock = mock(Clock.class);
+		when(clock.millis()).thenReturn(1000L);
+		accessTokenService = new AccessTokenService(60,
+				"key1:" + Base64.getEncoder().encodeToString(new byte[32]), "key1",
+				mock(TokenRevocationRepository.class), mock(TransactionTemplate.class), clock);
+		accessTokenAuthenticationFilter = new AccessTokenAuthenticationFilter(accessTokenService);
+		request = new MockHttpServletRequest();
+		response = new MockHttpServletResponse();
+		authentication = new AtomicReference<>();
+		filterChain = (filterRequest, filterResponse) -> authentication
+				.set(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	public void givenAValidBearerToken_whenFilter_thenTheRequestIsAuthenticatedWithItsEmail() throws Exception {
+		// ARRANGE
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessTokenService.issue("emailFilter"));
+
+		// ACT
+		accessTokenAuthenticationFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertEquals("emailFilter", authentication.get().getName());
+		assertEquals(200, response.getStatus());
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	public void givenAnInvalidBearerToken_whenFilter_thenTheRequestIsRejected() throws Exception {
+		// ARRANGE
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer v1.key1.invalid");
+
+		// ACT
+		accessTokenAuthenticationFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertEquals(401, response.getStatus());
+		assertNull(authentication.get());
+	}
+
+	@Test
+	public void givenNoBearerToken_whenFilter_thenTheRequestIsLeftToTheOtherAuthentications() throws Exception {
+		// ACT
+		accessTokenAuthenticationFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertEquals(200, response.getStatus());
+		assertNull(authentication.get());
+	}
+
+}
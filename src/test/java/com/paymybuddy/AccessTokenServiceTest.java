@@ -0,0 +1,215 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.model.TokenRevocation;
+import com.paymybuddy.repository.TokenRevocationRepository;
+import com.paymybuddy.security.AccessToken;
+import com.paymybuddy.security.AccessTokenService;
+
+public class AccessTokenServiceTest {
+
+	private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+	private AccessTokenService accessTokenService;
+
+	private Clock clock;
+
+	private TokenRevocationRepository tokenRevocationRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	@Before
+	public void init() {
+		clock = mock(Clock.class);
+		when(clock.millis()).thenReturn(1000L);
+		// The table shared by the instances.
+		List<TokenRevocation> table = new ArrayList<>();
+		tokenRevocationRepository = mock(TokenRevocationRepository.class);
+		when(tokenRevocationRepository.save(any(TokenRevocation.class))).thenAnswer(invocation -> {
+			table.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+		when(tokenRevocationRepository.findByExpiresAtMsGreaterThan(anyLong()))
+				.thenAnswer(invocation -> table.stream()
+						.filter(revocation -> revocation.getExpiresAtMs() > invocation.<Long>getArgument(0))
+						.collect(Collectors.toList()));
+		transactionTemplate = mock(TransactionTemplate.class);
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+		accessTokenService = newInstance();
+	}
+
+	private AccessTokenService newInstance() {
+		return new AccessTokenService(60, "key1:" + SECRET, "key1", tokenRevocationRepository, transactionTemplate,
+				clock);
+	}
+
+	@Test
+	public void givenAnIssuedToken_whenValidate_thenItReturnItsContent() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+
+		// ACT
+		Optional<AccessToken> result = accessTokenService.validate(token);
+
+		// ASSERT
+		assertTrue(result.isPresent());
+		assertEquals("emailToken", result.get().getEmail());
+		assertEquals(1000L, result.get().getIssuedAtMs());
+		assertEquals(61000L, result.get().getExpiresAtMs());
+	}
+
+	@Test
+	public void givenATamperedToken_whenValidate_thenItReturnEmpty() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		String[] parts = token.split("\\.");
+		parts[3] = Base64.getUrlEncoder().withoutPadding().encodeToString("otherEmail".getBytes());
+		String tamperedToken = String.join(".", parts);
+
+		// ACT
+		Optional<AccessToken> result = accessTokenService.validate(tamperedToken);
+
+		// ASSERT
+		assertFalse(result.isPresent());
+		assertFalse(accessTokenService.validate("notAToken").isPresent());
+		assertFalse(accessTokenService.validate(null).isPresent());
+	}
+
+	@Test
+	public void givenAnExpiredToken_whenValidate_thenItReturnEmpty() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		when(clock.millis()).thenReturn(61000L);
+
+		// ACT
+		Optional<AccessToken> result = accessTokenService.validate(token);
+
+		// ASSERT
+		assertFalse(result.isPresent());
+	}
+
+	@Test
+	public void givenARevokedToken_whenValidate_thenItReturnEmptyForThisTokenOnly() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		String otherToken = accessTokenService.issue("emailToken");
+		accessTokenService.revoke(accessTokenService.validate(token).get());
+
+		// ACT
+		Optional<AccessToken> result = accessTokenService.validate(token);
+
+		// ASSERT
+		assertFalse(result.isPresent());
+		assertTrue(accessTokenService.validate(otherToken).isPresent());
+	}
+
+	@Test
+	public void givenTheTokensOfAUserRevoked_whenValidate_thenOnlyTheTokensIssuedAfterAreValid() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		String otherUserToken = accessTokenService.issue("otherEmail");
+		accessTokenService.revokeAll(" EMAILtoken");
+		when(clock.millis()).thenReturn(2000L);
+		String newToken = accessTokenService.issue("emailToken");
+
+		// ACT
+		Optional<AccessToken> result = accessTokenService.validate(token);
+
+		// ASSERT
+		assertFalse(result.isPresent());
+		assertTrue(accessTokenService.validate(otherUserToken).isPresent());
+		assertTrue(accessTokenService.validate(newToken).isPresent());
+	}
+
+	@Test
+	public void givenATokenRevokedByAnotherInstance_whenValidate_thenItIsRefusedOnceTheRevocationsAreRead() {
+		// ARRANGE
+		AccessTokenService otherInstance = newInstance();
+		String token = accessTokenService.issue("emailToken");
+		String otherToken = accessTokenService.issue("otherEmail");
+		otherInstance.revoke(otherInstance.validate(token).get());
+		otherInstance.revokeAll("otherEmail");
+
+		// ACT
+		boolean validBeforeRefresh = accessTokenService.validate(token).isPresent();
+		accessTokenService.refreshRevocations();
+
+		// ASSERT
+		assertTrue(validBeforeRefresh);
+		assertFalse(accessTokenService.validate(token).isPresent());
+		assertFalse(accessTokenService.validate(otherToken).isPresent());
+	}
+
+	@Test
+	public void givenARestartedInstance_whenValidate_thenTheTokensRevokedBeforeAreStillRefused() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		accessTokenService.revoke(accessTokenService.validate(token).get());
+		AccessTokenService restartedInstance = newInstance();
+
+		// ACT
+		restartedInstance.refreshRevocations();
+
+		// ASSERT
+		assertFalse(restartedInstance.validate(token).isPresent());
+	}
+
+	@Test
+	public void givenARotatedKey_whenValidate_thenTheTokensOfThePreviousKeyAreValidUntilItIsRetired() {
+		// ARRANGE
+		String token = accessTokenService.issue("emailToken");
+		byte[] newSecret = new byte[32];
+		newSecret[0] = 1;
+		accessTokenService.rotateKey("key2", newSecret);
+		String newToken = accessTokenService.issue("emailToken");
+
+		// ACT
+		boolean validBeforeRetire = accessTokenService.validate(token).isPresent();
+		accessTokenService.retireKey("key1");
+		boolean validAfterRetire = accessTokenService.validate(token).isPresent();
+
+		// ASSERT
+		assertEquals("key2", accessTokenService.getActiveKeyId());
+		assertTrue(validBeforeRetire);
+		assertFalse(validAfterRetire);
+		assertTrue(accessTokenService.validate(newToken).isPresent());
+		assertThrows(IllegalArgumentException.class, () -> accessTokenService.retireKey("key2"));
+	}
+
+	@Test
+	public void givenAnUnknownActiveKey_whenCreateTheService_thenItThrowsAnIllegalArgumentException() {
+		// ACT
+		assertThrows(IllegalArgumentException.class,
+				() -> new AccessTokenService(60, "key1:" + SECRET, "key2", tokenRevocationRepository,
+						transactionTemplate, clock));
+	}
+
+	@Test
+	public void givenNoKey_whenCreateTheService_thenItThrowsAnIllegalArgumentException() {
+		// ACT
+		assertThrows(IllegalArgumentException.class,
+				() -> new AccessTokenService(60, " ", "", tokenRevocationRepository, transactionTemplate, clock));
+	}
+
+}
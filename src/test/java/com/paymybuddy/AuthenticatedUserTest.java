@@ -0,0 +1,69 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.security.AccessToken;
+import com.paymybuddy.security.AuthenticatedUser;
+import com.paymybuddy.security.UserPrincipal;
+import com.paymybuddy.service.UserService;
+
+public class AuthenticatedUserTest {
+
+	@Mock
+	private UserService userService;
+
+	private User user;
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		user = new User("emailA", "lastNameA", "firstNameA", "passwordNotEncrypted", Money.of("100.0"), null, null,
+				null);
+		user.setId(1L);
+		when(userService.getUser("emailA")).thenReturn(Optional.of(user));
+	}
+
+	@Test
+	public void givenALoggedInUser_whenIsUser_thenOnlyItsOwnIdIsAccepted() {
+		// ARRANGE
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+				new UserPrincipal(user), null, Collections.singleton(new SimpleGrantedAuthority("USER")));
+
+		// ASSERT
+		assertTrue(AuthenticatedUser.isUser(authentication, 1L, userService));
+		assertFalse(AuthenticatedUser.isUser(authentication, 2L, userService));
+	}
+
+	@Test
+	public void givenABearerToken_whenIsUser_thenOnlyTheIdOfTheUserOfTheTokenIsAccepted() {
+		// ARRANGE
+		UsernamePasswordAuthenticationToken bearer = new UsernamePasswordAuthenticationToken("emailA", null,
+				Collections.singleton(new SimpleGrantedAuthority("USER")));
+		bearer.setDetails(new AccessToken("tokenId", "emailA", 0, Long.MAX_VALUE));
+
+		// ASSERT
+		assertTrue(AuthenticatedUser.isUser(bearer, 1L, userService));
+		assertFalse(AuthenticatedUser.isUser(bearer, 2L, userService));
+	}
+
+	@Test
+	public void givenNoAuthenticatedUser_whenIsUser_thenNoIdIsAccepted() {
+		// ASSERT
+		assertFalse(AuthenticatedUser.isUser(null, 1L, userService));
+	}
+
+}
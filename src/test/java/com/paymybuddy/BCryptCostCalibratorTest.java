@@ -0,0 +1,56 @@
+package com.paymybuddy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.paymybuddy.security.BCryptCostCalibrator;
+import com.paymybuddy.security.PasswordHashPolicy;
+
+public class BCryptCostCalibratorTest {
+
+	@After
+	public void clear() {
+		PasswordHashPolicy.setCost(PasswordHashPolicy.DEFAULT_COST);
+	}
+
+	@Test
+	public void givenAHashingTimeDoublingWithTheCost_whenCalibrate_thenItUseTheHighestCostWithinTheTarget() {
+		// ACT
+		BCryptCostCalibrator result = new BCryptCostCalibrator(0, 10, 14, 250, cost -> 50L << (cost - 10));
+
+		// ASSERT
+		assertEquals(12, result.getCost());
+		assertEquals(12, PasswordHashPolicy.getCost());
+	}
+
+	@Test
+	public void givenAHardwareTooSlowForTheMinimumCost_whenCalibrate_thenItUseTheMinimumCost() {
+		// ACT
+		BCryptCostCalibrator result = new BCryptCostCalibrator(0, 10, 14, 250, cost -> 1000L);
+
+		// ASSERT
+		assertEquals(10, result.getCost());
+	}
+
+	@Test
+	public void givenAFixedCost_whenCreateTheCalibrator_thenItDoesNotMeasureTheHashing() {
+		// ACT
+		BCryptCostCalibrator result = new BCryptCostCalibrator(11, 10, 14, 250, cost -> {
+			throw new IllegalStateException();
+		});
+
+		// ASSERT
+		assertEquals(11, result.getCost());
+		assertEquals(11, PasswordHashPolicy.getCost());
+	}
+
+	@Test
+	public void givenAnInvalidCostRange_whenCreateTheCalibrator_thenItThrowsAnIllegalArgumentException() {
+		// ACT
+		assertThrows(IllegalArgumentException.class, () -> new BCryptCostCalibrator(0, 14, 10, 250, cost -> 0L));
+	}
+
+}
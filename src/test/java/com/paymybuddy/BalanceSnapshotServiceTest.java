@@ -0,0 +1,256 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.paymybuddy.model.BalancePoint;
+import com.paymybuddy.model.BalanceSnapshot;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.BalanceSnapshotRepository;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.impl.BalanceSnapshotServiceImpl;
+
+public class BalanceSnapshotServiceTest {
+
+	private static final Date JULY_1 = Date.valueOf("2020-07-01");
+	private static final Date JULY_2 = Date.valueOf("2020-07-02");
+	private static final Date JULY_3 = Date.valueOf("2020-07-03");
+
+	private BalanceSnapshotServiceImpl balanceSnapshotServiceImpl;
+
+	@Mock
+	private BalanceSnapshotRepository balanceSnapshotRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	private User user;
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		Clock clock = Clock.fixed(Instant.parse("2020-07-03T12:00:00Z"), ZoneOffset.UTC);
+		balanceSnapshotServiceImpl = new BalanceSnapshotServiceImpl(balanceSnapshotRepository, transactionRepository,
+				userRepository, clock);
+		user = new User("emailSnapshot", "lastNameSnapshot", "firstNameSnapshot", "passwordNotEncrypted",
+				Money.of("90.0"), null, null, null);
+		user.setId(1L);
+	}
+
+	@Test
+	public void injectedComponentsAreRightlySetUp() {
+		assertThat(balanceSnapshotServiceImpl).isNotNull();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givenAFirstChangeOfTheDay_whenRecordBalanceChange_thenItWriteTheOpeningAndTheEndOfTheDay() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findByUserIdInAndSnapshotDateForUpdate(Collections.singletonList(1L), JULY_3))
+				.thenReturn(Collections.emptyList());
+		ArgumentCaptor<List<BalanceSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		balanceSnapshotServiceImpl.recordBalanceChange(user, Money.of("100.0"));
+
+		// ASSERT
+		verify(userRepository, times(1)).findAllByIdInForUpdate(Collections.singletonList(1L));
+		verify(balanceSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		BalanceSnapshot snapshot = snapshotsCaptor.getValue().get(0);
+		assertEquals(JULY_3, snapshot.getSnapshotDate());
+		assertEquals(Money.of("100.0"), snapshot.getOpeningBalance());
+		assertEquals(Money.of("90.0"), snapshot.getBalance());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givenAnotherChangeOfTheDay_whenRecordBalanceChange_thenItOnlyUpdateTheEndOfTheDay() {
+		// ARRANGE
+		BalanceSnapshot snapshot = new BalanceSnapshot(1L, JULY_3, Money.of("100.0"), Money.of("95.0"));
+		when(balanceSnapshotRepository.findByUserIdInAndSnapshotDateForUpdate(Collections.singletonList(1L), JULY_3))
+				.thenReturn(Collections.singletonList(snapshot));
+		ArgumentCaptor<List<BalanceSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		balanceSnapshotServiceImpl.recordBalanceChange(user, Money.of("95.0"));
+
+		// ASSERT
+		verify(balanceSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		assertSame(snapshot, snapshotsCaptor.getValue().get(0));
+		assertEquals(Money.of("100.0"), snapshot.getOpeningBalance());
+		assertEquals(Money.of("90.0"), snapshot.getBalance());
+	}
+
+	@Test
+	public void givenAFirstSnapshotOfTheDayInsertedConcurrently_whenRecordBalanceChange_thenItIsAConflict() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findByUserIdInAndSnapshotDateForUpdate(Collections.singletonList(1L), JULY_3))
+				.thenReturn(Collections.emptyList());
+		doThrow(new DataIntegrityViolationException("balance_snapshot_user_id_snapshot_date_idx"))
+				.when(balanceSnapshotRepository).saveAll(anyList());
+
+		// ACT & ASSERT
+		assertThrows(ConcurrencyFailureException.class,
+				() -> balanceSnapshotServiceImpl.recordBalanceChange(user, Money.of("100.0")));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givenTransactionsBeforeTheFirstSnapshot_whenBackfill_thenItWriteTheDaysBeforeFromItsOpening() {
+		// ARRANGE
+		when(userRepository.findAllByIdInForUpdate(Collections.singleton(1L)))
+				.thenReturn(Collections.singletonList(user));
+		when(balanceSnapshotRepository.findFirstByUserIdOrderBySnapshotDate(1L))
+				.thenReturn(Optional.of(new BalanceSnapshot(1L, JULY_3, Money.of("100.0"), Money.of("90.0"))));
+		when(transactionRepository.findMovementsBefore(1L, JULY_3)).thenReturn(Arrays.asList(
+				new Object[] { JULY_1, 2L, 1L, Money.of("30.0") }, new Object[] { JULY_2, 1L, 2L, Money.of("20.0") },
+				new Object[] { JULY_2, 2L, 1L, Money.of("1.0") }));
+		ArgumentCaptor<List<BalanceSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		int result = balanceSnapshotServiceImpl.backfill(1L);
+
+		// ASSERT
+		assertEquals(2, result);
+		verify(balanceSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		BalanceSnapshot july2 = snapshotsCaptor.getValue().get(0);
+		assertEquals(JULY_2, july2.getSnapshotDate());
+		assertEquals(Money.of("120.0"), july2.getOpeningBalance());
+		assertEquals(Money.of("100.0"), july2.getBalance());
+		BalanceSnapshot july1 = snapshotsCaptor.getValue().get(1);
+		assertEquals(JULY_1, july1.getSnapshotDate());
+		assertEquals(Money.of("90.0"), july1.getOpeningBalance());
+		assertEquals(Money.of("120.0"), july1.getBalance());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givenNoSnapshot_whenBackfill_thenItWriteTheDaysUpToTodayFromTheMoneyAvailable() {
+		// ARRANGE
+		when(userRepository.findAllByIdInForUpdate(Collections.singleton(1L)))
+				.thenReturn(Collections.singletonList(user));
+		when(balanceSnapshotRepository.findFirstByUserIdOrderBySnapshotDate(1L)).thenReturn(Optional.empty());
+		when(transactionRepository.findMovementsBefore(1L, Date.valueOf("2020-07-04")))
+				.thenReturn(Collections.singletonList(new Object[] { JULY_3, 2L, 1L, Money.of("10.0") }));
+		ArgumentCaptor<List<BalanceSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		balanceSnapshotServiceImpl.backfill(1L);
+
+		// ASSERT
+		verify(balanceSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		BalanceSnapshot july3 = snapshotsCaptor.getValue().get(0);
+		assertEquals(JULY_3, july3.getSnapshotDate());
+		assertEquals(Money.of("80.0"), july3.getOpeningBalance());
+		assertEquals(Money.of("90.0"), july3.getBalance());
+	}
+
+	@Test
+	public void givenAnUnknownUser_whenBackfill_thenItThrowANoSuchElementException() {
+		// ARRANGE
+		when(userRepository.findAllByIdInForUpdate(Collections.singleton(1L))).thenReturn(Collections.emptyList());
+
+		// ACT & ASSERT
+		assertThrows(NoSuchElementException.class, () -> balanceSnapshotServiceImpl.backfill(1L));
+	}
+
+	@Test
+	public void givenASnapshotUpToTheDate_whenGetBalanceAt_thenItReturnItsEndOfTheDay() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(1L,
+				JULY_3)).thenReturn(Optional.of(new BalanceSnapshot(1L, JULY_1, Money.of("50.0"), Money.of("100.0"))));
+
+		// ACT
+		Money result = balanceSnapshotServiceImpl.getBalanceAt(1L, JULY_3);
+
+		// ASSERT
+		assertEquals(Money.of("100.0"), result);
+		verify(userRepository, never()).findById(1L);
+	}
+
+	@Test
+	public void givenOnlyASnapshotAfterTheDate_whenGetBalanceAt_thenItReturnItsOpening() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(1L,
+				JULY_1)).thenReturn(Optional.empty());
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateGreaterThanOrderBySnapshotDate(1L, JULY_1))
+				.thenReturn(Optional.of(new BalanceSnapshot(1L, JULY_2, Money.of("20.0"), Money.of("80.0"))));
+
+		// ACT
+		Money result = balanceSnapshotServiceImpl.getBalanceAt(1L, JULY_1);
+
+		// ASSERT
+		assertEquals(Money.of("20.0"), result);
+	}
+
+	@Test
+	public void givenABalanceNeverChanged_whenGetBalanceAt_thenItReturnTheMoneyAvailable() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(1L,
+				JULY_1)).thenReturn(Optional.empty());
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateGreaterThanOrderBySnapshotDate(1L, JULY_1))
+				.thenReturn(Optional.empty());
+		when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+		// ACT
+		Money result = balanceSnapshotServiceImpl.getBalanceAt(1L, JULY_1);
+
+		// ASSERT
+		assertEquals(Money.of("90.0"), result);
+	}
+
+	@Test
+	public void givenAPeriod_whenGetDailyBalances_thenItReturnTheBalanceOfEveryDay() {
+		// ARRANGE
+		when(balanceSnapshotRepository.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(1L,
+				JULY_1)).thenReturn(Optional.of(new BalanceSnapshot(1L, JULY_1, Money.of("0.0"), Money.of("100.0"))));
+		when(balanceSnapshotRepository.findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(1L, JULY_2, JULY_3))
+				.thenReturn(Collections
+						.singletonList(new BalanceSnapshot(1L, JULY_2, Money.of("100.0"), Money.of("80.0"))));
+
+		// ACT
+		List<BalancePoint> result = balanceSnapshotServiceImpl.getDailyBalances(1L, JULY_1, JULY_3);
+
+		// ASSERT
+		assertThat(result).extracting(BalancePoint::getBalance).containsExactly(Money.of("100.0"),
+				Money.of("80.0"), Money.of("80.0"));
+	}
+
+	@Test
+	public void givenAPeriodEndingBeforeItStart_whenGetDailyBalances_thenItThrowAnIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class,
+				() -> balanceSnapshotServiceImpl.getDailyBalances(1L, JULY_3, JULY_1));
+	}
+
+}
@@ -55,7 +55,6 @@ public class BankAccountTest {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANFindAll", "descriptionFindAll");
 		BankAccount bankAccount2 = new BankAccount("IBANFindAll2", "descriptionFindAll2");
-		bankAccount2.setId(2);
 		testEntityManager.persist(bankAccount);
 		testEntityManager.persist(bankAccount2);
 
@@ -99,7 +98,6 @@ public class BankAccountTest {
 	public void givenDeletingABankAccount_whenDelete_thenItDeleteTheBankAccount() {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDelete", "descriptionDelete");
-		bankAccount.setId(1);
 		testEntityManager.persist(bankAccount);
 
 		// ACT
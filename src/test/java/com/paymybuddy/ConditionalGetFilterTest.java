@@ -0,0 +1,134 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.paymybuddy.controller.ConditionalGetFilter;
+import com.paymybuddy.service.ResourceVersionService;
+
+public class ConditionalGetFilterTest {
+
+	private ResourceVersionService resourceVersionService;
+
+	private ConditionalGetFilter conditionalGetFilter;
+
+	private MockHttpServletResponse response;
+
+	private AtomicBoolean chainCalled;
+
+	private FilterChain filterChain;
+
+	@Before
+	public void init() {
+		resourceVersionService = mock(ResourceVersionService.class);
+		conditionalGetFilter = new ConditionalGetFilter(resourceVersionService);
+		response = new MockHttpServletResponse();
+		chainCalled = new AtomicBoolean();
+		filterChain = (filterRequest, filterResponse) -> chainCalled.set(true);
+	}
+
+	@Test
+	public void givenAMatchingIfNoneMatch_whenGetUser_thenItAnswerNotModifiedWithoutLoadingTheUser()
+			throws Exception {
+		// ARRANGE
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/1");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"3\"");
+		when(resourceVersionService.getUserETag(1L)).thenReturn(Optional.of("\"3\""));
+
+		// ACT
+		conditionalGetFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertEquals(304, response.getStatus());
+		assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+		assertFalse(chainCalled.get());
+	}
+
+	@Test
+	public void givenAnOutdatedIfNoneMatch_whenGetHistory_thenTheRequestContinueWithTheNewETag() throws Exception {
+		// ARRANGE
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction/search/history");
+		request.setParameter("userId", "1");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"h1\"");
+		when(resourceVersionService.getHistoryETag(1L)).thenReturn("\"h2\"");
+
+		// ACT
+		conditionalGetFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertEquals(200, response.getStatus());
+		assertEquals("\"h2\"", response.getHeader(HttpHeaders.ETAG));
+		assertTrue(chainCalled.get());
+		verify(resourceVersionService).getHistoryETag(1L);
+	}
+
+	@Test
+	public void givenAnUnknownUser_whenGetHistory_thenTheNotFoundResponseHasNoETag() throws Exception {
+		// ARRANGE
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transaction/search/history");
+		request.setParameter("userId", "99");
+		when(resourceVersionService.getHistoryETag(99L)).thenReturn("\"h0\"");
+		FilterChain notFound = (filterRequest, filterResponse) -> {
+			((HttpServletResponse) filterResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+			filterResponse.getWriter().write("{}");
+		};
+
+		// ACT
+		conditionalGetFilter.doFilter(request, response, notFound);
+
+		// ASSERT
+		assertEquals(404, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void givenAResourceFound_whenGet_thenTheETagIsSetBeforeTheBodyIsWritten() throws Exception {
+		// ARRANGE
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/1");
+		when(resourceVersionService.getUserETag(1L)).thenReturn(Optional.of("\"3\""));
+		FilterChain found = (filterRequest, filterResponse) -> {
+			filterResponse.getWriter().write("{}");
+			filterResponse.flushBuffer();
+		};
+
+		// ACT
+		conditionalGetFilter.doFilter(request, response, found);
+
+		// ASSERT
+		assertTrue(response.isCommitted());
+		assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void givenAnotherResource_whenGet_thenTheVersionIsNotRead() throws Exception {
+		// ARRANGE
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bankAccount/1");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+		// ACT
+		conditionalGetFilter.doFilter(request, response, filterChain);
+
+		// ASSERT
+		assertTrue(chainCalled.get());
+		verifyNoInteractions(resourceVersionService);
+	}
+
+}
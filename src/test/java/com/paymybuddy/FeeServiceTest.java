@@ -0,0 +1,157 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.PendingFee;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.PendingFeeRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.BalanceSnapshotService;
+import com.paymybuddy.service.impl.FeeServiceImpl;
+
+public class FeeServiceTest {
+
+	private FeeServiceImpl feeServiceImpl;
+
+	@Mock
+	private PendingFeeRepository pendingFeeRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private BalanceSnapshotService balanceSnapshotService;
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		feeServiceImpl = new FeeServiceImpl(pendingFeeRepository, userRepository, balanceSnapshotService, 2);
+	}
+
+	@Test
+	public void injectedComponentsAreRightlySetUp() {
+		assertThat(feeServiceImpl).isNotNull();
+	}
+
+	@Test
+	public void givenCollectingAFee_whenCollectFee_thenItSaveAPendingFeeWithoutReadingThePayMyBuddyUser() {
+		// ARRANGE
+		ArgumentCaptor<PendingFee> pendingFeeCaptor = ArgumentCaptor.forClass(PendingFee.class);
+
+		// ACT
+		feeServiceImpl.collectFee(Money.of("0.5"));
+
+		// ASSERT
+		verify(pendingFeeRepository, times(1)).save(pendingFeeCaptor.capture());
+		assertEquals(Money.of("0.5"), pendingFeeCaptor.getValue().getAmount());
+		assertThat(pendingFeeCaptor.getValue().getShard()).isBetween(0, 1);
+		verify(userRepository, times(0)).findByEmail(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL);
+		verify(userRepository, times(0)).findByEmailForUpdate(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL);
+	}
+
+	@Test
+	public void givenFlushingThePendingFees_whenFlushPendingFees_thenItCreditTheSumOfEveryShardsToThePayMyBuddyUser() {
+		// ARRANGE
+		User userPayMyBuddy = new User(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL, "buddy", "paymy",
+				"passwordNotEncrypted", Money.of("1.0"), null, null, null);
+		when(userRepository.findByEmailForUpdate(userPayMyBuddy.getEmail())).thenReturn(Optional.of(userPayMyBuddy));
+		when(pendingFeeRepository.findByShard(0))
+				.thenReturn(Arrays.asList(pendingFee(3, 0, "1.00"), pendingFee(4, 0, "0.50")));
+		when(pendingFeeRepository.findByShard(1)).thenReturn(Collections.singletonList(pendingFee(7, 1, "0.50")));
+		when(pendingFeeRepository.deleteByIdIn(anyCollection()))
+				.thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+		// ACT
+		Money result = feeServiceImpl.flushPendingFees();
+
+		// ASSERT
+		assertEquals(Money.of("2.0"), result);
+		assertEquals(Money.of("3.0"), userPayMyBuddy.getMoneyAvailable());
+		verify(pendingFeeRepository, times(1)).deleteByIdIn(Arrays.asList(3, 4));
+		verify(pendingFeeRepository, times(1)).deleteByIdIn(Collections.singletonList(7));
+		verify(userRepository, times(1)).save(userPayMyBuddy);
+		verify(balanceSnapshotService, times(1)).recordBalanceChange(userPayMyBuddy, Money.of("1.0"));
+	}
+
+	@Test
+	public void givenFlushingWithoutPendingFees_whenFlushPendingFees_thenItDoesNotUpdateThePayMyBuddyUser() {
+		// ARRANGE
+		User userPayMyBuddy = new User(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL, "buddy", "paymy",
+				"passwordNotEncrypted", Money.of("1.0"), null, null, null);
+		when(userRepository.findByEmailForUpdate(userPayMyBuddy.getEmail())).thenReturn(Optional.of(userPayMyBuddy));
+		when(pendingFeeRepository.findByShard(0)).thenReturn(Collections.emptyList());
+		when(pendingFeeRepository.findByShard(1)).thenReturn(Collections.emptyList());
+
+		// ACT
+		Money result = feeServiceImpl.flushPendingFees();
+
+		// ASSERT
+		assertEquals(Money.ZERO, result);
+		assertEquals(Money.of("1.0"), userPayMyBuddy.getMoneyAvailable());
+		verify(userRepository, times(0)).save(any(User.class));
+	}
+
+	@Test
+	public void givenFlushingWithAMissingPayMyBuddyUser_whenFlushPendingFees_thenItKeepsThePendingFees() {
+		// ARRANGE
+		when(userRepository.findByEmailForUpdate(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL))
+				.thenReturn(Optional.empty());
+
+		// ACT
+		// In the assert, because it throw the exception (that is what it is tested) but
+		// then it fail the test.
+
+		// ASSERT
+		assertThrows(NoSuchElementException.class, () -> feeServiceImpl.flushPendingFees());
+		verify(pendingFeeRepository, times(0)).deleteByIdIn(anyCollection());
+		verify(userRepository, times(0)).save(any(User.class));
+	}
+
+	@Test
+	public void givenAPendingFeeAlreadyGone_whenFlushPendingFees_thenTheFlushFailsWithoutCreditingIt() {
+		// ARRANGE
+		User userPayMyBuddy = new User(FeeServiceImpl.PAYMYBUDDY_ACCOUNT_EMAIL, "buddy", "paymy",
+				"passwordNotEncrypted", Money.of("1.0"), null, null, null);
+		when(userRepository.findByEmailForUpdate(userPayMyBuddy.getEmail())).thenReturn(Optional.of(userPayMyBuddy));
+		when(pendingFeeRepository.findByShard(0))
+				.thenReturn(Arrays.asList(pendingFee(3, 0, "1.00"), pendingFee(4, 0, "0.50")));
+		when(pendingFeeRepository.deleteByIdIn(anyCollection())).thenReturn(1);
+
+		// ACT
+		// In the assert, because it throw the exception (that is what it is tested) but
+		// then it fail the test.
+
+		// ASSERT
+		assertThrows(IllegalStateException.class, () -> feeServiceImpl.flushPendingFees());
+		assertEquals(Money.of("1.0"), userPayMyBuddy.getMoneyAvailable());
+		verify(userRepository, times(0)).save(any(User.class));
+	}
+
+	private static PendingFee pendingFee(int id, int shard, String amount) {
+		PendingFee pendingFee = new PendingFee(shard, Money.of(amount));
+		ReflectionTestUtils.setField(pendingFee, "id", id);
+		return pendingFee;
+	}
+
+}
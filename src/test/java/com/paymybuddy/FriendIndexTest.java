@@ -0,0 +1,155 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.repository.UserRepository;
+
+public class FriendIndexTest {
+
+	private FriendIndex friendIndex;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		friendIndex = new FriendIndex(userRepository, transactionTemplate);
+		doAnswer(invocation -> {
+			((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		when(userRepository.streamFriendships()).thenReturn(Stream.of(new Object[] { 1L, 0, 2L },
+				new Object[] { 1L, 0, 3L }, new Object[] { 2L, 1, 1L }, new Object[] { 3L, 2, null }));
+	}
+
+	@Test
+	public void givenTheFriendshipsOfTheDatabase_whenIsFriend_thenItAnswerFromTheIndexLoadedOnce() {
+		// ACT
+		boolean result = friendIndex.isFriend(1L, 3L);
+
+		// ASSERT
+		assertTrue(result);
+		assertFalse(friendIndex.isFriend(3L, 1L));
+		assertArrayEquals(new long[] { 2L, 3L }, friendIndex.getFriendIds(1L));
+		assertArrayEquals(new long[0], friendIndex.getFriendIds(3L));
+		assertEquals(3, friendIndex.getNumberOfUsers());
+		assertEquals(3, friendIndex.getNumberOfEdges());
+		verify(userRepository, times(1)).streamFriendships();
+	}
+
+	@Test
+	public void givenFriendsAddedAndRemoved_whenGetFriendIds_thenTheyStaySortedWithoutDuplicate() {
+		// ARRANGE
+		friendIndex.isFriend(1L, 2L);
+
+		// ACT
+		friendIndex.friendAdded(1L, 0L);
+		friendIndex.friendAdded(1L, 5L);
+		friendIndex.friendAdded(1L, 5L);
+		friendIndex.friendRemoved(1L, 2L);
+		friendIndex.friendRemoved(4L, 2L);
+
+		// ASSERT
+		assertArrayEquals(new long[] { 0L, 3L, 5L }, friendIndex.getFriendIds(1L));
+		assertEquals(3, friendIndex.countFriends(1L));
+		assertEquals(4, friendIndex.getNumberOfEdges());
+	}
+
+	@Test
+	public void givenAWholeFriendList_whenFriendsChanged_thenTheListIsReplacedAndTheListenersToldOfTheDifferences() {
+		// ARRANGE
+		friendIndex.isFriend(1L, 2L);
+		List<Long> changedFriendIds = new ArrayList<>();
+		friendIndex.addListener((userId, friendId) -> changedFriendIds.add(friendId));
+
+		// ACT
+		friendIndex.friendsChanged(1L, 1, new long[] { 4L, 3L, 4L });
+		friendIndex.friendsChanged(2L, 2, new long[0]);
+
+		// ASSERT
+		assertArrayEquals(new long[] { 3L, 4L }, friendIndex.getFriendIds(1L));
+		assertArrayEquals(new long[0], friendIndex.getFriendIds(2L));
+		assertEquals(2, friendIndex.getNumberOfEdges());
+		assertEquals(Arrays.asList(2L, 4L, 1L), changedFriendIds);
+	}
+
+	@Test
+	public void givenManyUsers_whenFriendAdded_thenTheTableGrowsAndKeepEveryUser() {
+		// ARRANGE
+		friendIndex.isFriend(1L, 2L);
+
+		// ACT
+		for (long userId = 10; userId < 5000; userId++) {
+			friendIndex.friendAdded(userId, userId + 1);
+		}
+
+		// ASSERT
+		for (long userId = 10; userId < 5000; userId++) {
+			assertTrue(friendIndex.isFriend(userId, userId + 1));
+		}
+		assertEquals(4993, friendIndex.getNumberOfUsers());
+	}
+
+	@Test
+	public void givenTheListsOfTwoVersionsToldOutOfOrder_whenFriendsChanged_thenTheOlderListIsIgnored() {
+		// ARRANGE
+		friendIndex.isFriend(1L, 2L);
+		List<Long> changedFriendIds = new ArrayList<>();
+		friendIndex.addListener((userId, friendId) -> changedFriendIds.add(friendId));
+
+		// ACT
+		friendIndex.friendsChanged(1L, 2, new long[] { 2L });
+		friendIndex.friendsChanged(1L, 1, new long[] { 2L, 3L, 4L });
+		friendIndex.friendsChanged(2L, 1, new long[] { 5L });
+		friendIndex.friendsChanged(3L, 3, new long[] { 5L });
+
+		// ASSERT
+		assertArrayEquals(new long[] { 2L }, friendIndex.getFriendIds(1L));
+		assertArrayEquals(new long[] { 1L }, friendIndex.getFriendIds(2L));
+		assertArrayEquals(new long[] { 5L }, friendIndex.getFriendIds(3L));
+		assertEquals(3, friendIndex.getNumberOfEdges());
+		assertEquals(Arrays.asList(3L, 5L), changedFriendIds);
+	}
+
+	@Test
+	public void givenADeletedUser_whenALateListIsTold_thenTheUserStaysWithoutFriend() {
+		// ARRANGE
+		friendIndex.isFriend(1L, 2L);
+
+		// ACT
+		friendIndex.friendsChanged(1L, Integer.MAX_VALUE, new long[0]);
+		friendIndex.friendsChanged(1L, 1, new long[] { 2L, 3L });
+
+		// ASSERT
+		assertFalse(friendIndex.isFriend(1L, 2L));
+		assertEquals(0, friendIndex.countFriends(1L));
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertSame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.model.FriendSuggestion;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.impl.FriendSuggestionServiceImpl;
+
+public class FriendSuggestionServiceTest {
+
+	private FriendSuggestionServiceImpl friendSuggestionService;
+
+	private FriendIndex friendIndex;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private List<Object[]> friendships;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		doAnswer(invocation -> {
+			((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		friendships = new ArrayList<>();
+		// The repository return the friendships ordered by user id then friend id.
+		when(userRepository.streamFriendships()).thenAnswer(invocation -> friendships.stream()
+				.sorted(Comparator.<Object[]>comparingLong(friendship -> (long) friendship[0])
+						.thenComparingLong(friendship -> (long) friendship[2])));
+		friendIndex = new FriendIndex(userRepository, transactionTemplate);
+		friendSuggestionService = new FriendSuggestionServiceImpl(friendIndex);
+		friendSuggestionService.listenToFriendships();
+	}
+
+	private void addFriendship(long userId, long friendId) {
+		friendships.add(new Object[] { userId, 0, friendId });
+	}
+
+	@Test
+	public void givenFriendsOfFriends_whenSuggestFriends_thenTheyAreRankedByMutualFriends() {
+		// ARRANGE
+		addFriendship(1L, 2L);
+		addFriendship(1L, 3L);
+		addFriendship(2L, 1L);
+		addFriendship(2L, 3L);
+		addFriendship(2L, 4L);
+		addFriendship(2L, 5L);
+		addFriendship(3L, 5L);
+
+		// ACT
+		List<FriendSuggestion> result = friendSuggestionService.suggestFriends(1L);
+
+		// ASSERT
+		assertThat(result).containsExactly(new FriendSuggestion(5L, 2), new FriendSuggestion(4L, 1));
+		assertSame(result, friendSuggestionService.suggestFriends(1L));
+	}
+
+	@Test
+	public void givenAFriendshipChangedForAFriend_whenSuggestFriends_thenTheSuggestionsAreComputedAgain() {
+		// ARRANGE
+		addFriendship(1L, 2L);
+		addFriendship(2L, 4L);
+		List<FriendSuggestion> before = friendSuggestionService.suggestFriends(1L);
+
+		// ACT
+		friendIndex.friendAdded(2L, 6L);
+		List<FriendSuggestion> result = friendSuggestionService.suggestFriends(1L);
+
+		// ASSERT
+		assertThat(before).containsExactly(new FriendSuggestion(4L, 1));
+		assertThat(result).containsExactly(new FriendSuggestion(4L, 1), new FriendSuggestion(6L, 1));
+	}
+
+	@Test
+	public void givenAUserWithALargeNetwork_whenSuggestFriends_thenOnlyTheTopCandidatesAreKept() {
+		// ARRANGE
+		for (long friendId = 2; friendId < 402; friendId++) {
+			addFriendship(1L, friendId);
+			for (long candidate = 1000; candidate < 1000 + friendId % 20; candidate++) {
+				addFriendship(friendId, candidate);
+			}
+		}
+
+		// ACT
+		List<FriendSuggestion> result = friendSuggestionService.suggestFriends(1L);
+
+		// ASSERT
+		assertEquals(10, result.size());
+		assertEquals(new FriendSuggestion(1000L, 380), result.get(0));
+		assertEquals(new FriendSuggestion(1009L, 200), result.get(9));
+	}
+
+}
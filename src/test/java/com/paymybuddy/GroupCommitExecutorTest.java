@@ -0,0 +1,113 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.paymybuddy.concurrency.GroupCommitExecutor;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
+import com.paymybuddy.service.PayMyBuddyService;
+
+public class GroupCommitExecutorTest {
+
+	@Mock
+	private PayMyBuddyService payMyBuddyService;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		when(payMyBuddyService.createTransactions(any())).thenAnswer(invocation -> {
+			List<TransferResult> transferResults = new ArrayList<>();
+			for (TransferRequest transferRequest : (List<TransferRequest>) invocation.getArgument(0)) {
+				transferResults.add(transferRequest.getAmount().isLessThan(Money.of("1.00"))
+						? TransferResult.failed(transferRequest, "not valid")
+						: TransferResult.succeeded(transferRequest));
+			}
+			return transferResults;
+		});
+	}
+
+	@Test
+	public void givenASingleTransfer_whenSubmit_thenItIsCommittedAloneAfterTheWindow() {
+		// ARRANGE
+		GroupCommitExecutor groupCommitExecutor = new GroupCommitExecutor(payMyBuddyService, 10, 1);
+		TransferRequest transferRequest = new TransferRequest("emailSender", "emailReceiver", "description",
+				Money.of("10.0"));
+
+		// ACT
+		TransferResult result = groupCommitExecutor.submit(transferRequest);
+
+		// ASSERT
+		assertThat(result.isSucceeded()).isTrue();
+		assertEquals(transferRequest, result.getTransferRequest());
+		assertEquals(1, groupCommitExecutor.getGroups());
+		assertEquals(1, groupCommitExecutor.getTransfers());
+	}
+
+	@Test
+	public void givenConcurrentTransfers_whenSubmit_thenTheyAreCommittedTogetherWithTheirOwnResult()
+			throws Exception {
+		// ARRANGE
+		// The window is long enough for the group to be closed by its size only.
+		GroupCommitExecutor groupCommitExecutor = new GroupCommitExecutor(payMyBuddyService, 4, 60000);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		List<Future<TransferResult>> results = new ArrayList<>();
+
+		// ACT
+		for (int i = 0; i < 4; i++) {
+			TransferRequest transferRequest = new TransferRequest("emailSender", "emailReceiver", "description" + i,
+					i == 2 ? Money.of("0.50") : Money.of("10.0"));
+			results.add(executorService.submit(() -> groupCommitExecutor.submit(transferRequest)));
+		}
+
+		// ASSERT
+		for (int i = 0; i < 4; i++) {
+			TransferResult result = results.get(i).get();
+			assertEquals("description" + i, result.getTransferRequest().getDescription());
+			assertEquals(i != 2, result.isSucceeded());
+		}
+		executorService.shutdown();
+		verify(payMyBuddyService, times(1)).createTransactions(any());
+		assertEquals(1, groupCommitExecutor.getGroups());
+		assertEquals(4, groupCommitExecutor.getTransfers());
+	}
+
+	@Test
+	public void givenTheGroupCannotBeApplied_whenSubmit_thenTheCallerGetTheException() {
+		// ARRANGE
+		GroupCommitExecutor groupCommitExecutor = new GroupCommitExecutor(payMyBuddyService, 10, 0);
+		when(payMyBuddyService.createTransactions(any())).thenThrow(new IllegalStateException("database down"));
+
+		// ACT
+		IllegalStateException result = assertThrows(IllegalStateException.class, () -> groupCommitExecutor
+				.submit(new TransferRequest("emailSender", "emailReceiver", "description", Money.of("10.0"))));
+
+		// ASSERT
+		assertEquals("database down", result.getMessage());
+		assertEquals(0, groupCommitExecutor.getGroups());
+	}
+
+	@Test
+	public void givenAGroupSizeOfZero_whenCreate_thenItThrowsAnException() {
+		assertThrows(IllegalArgumentException.class, () -> new GroupCommitExecutor(payMyBuddyService, 0, 1));
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.model.IdempotencyRecord;
+import com.paymybuddy.model.IdempotencyRecord.Outcome;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.repository.IdempotencyRecordRepository;
+
+public class IdempotencyStoreTest {
+
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2020-07-01T10:00:00Z"), ZoneOffset.UTC);
+
+	@Mock
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Mock
+	private OptimisticRetryExecutor optimisticRetryExecutor;
+
+	private IdempotencyStore idempotencyStore;
+
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		idempotencyStore = new IdempotencyStore(idempotencyRecordRepository, optimisticRetryExecutor, null, 60000,
+				100, CLOCK);
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArgument(1)).run();
+			return null;
+		}).when(optimisticRetryExecutor).execute(anyString(), any(Runnable.class));
+		when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+		when(idempotencyRecordRepository.save(any(IdempotencyRecord.class)))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	public void givenAKeyAlreadyUsed_whenExecute_thenTheOperationIsNotRunAgainNorLookedUp() {
+		// ARRANGE
+		idempotencyStore.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ACT
+		idempotencyStore.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ASSERT
+		assertEquals(1, runs.get());
+		verify(idempotencyRecordRepository, times(1)).findById(anyString());
+		verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+		assertEquals(2, idempotencyStore.getLookups());
+		assertEquals(1, idempotencyStore.getMemoryHits());
+	}
+
+	@Test
+	public void givenAKeySavedInTheTable_whenExecute_thenTheOperationIsNotRunAgain() {
+		// ARRANGE
+		IdempotencyStore withoutMemory = new IdempotencyStore(idempotencyRecordRepository, optimisticRetryExecutor,
+				null, 60000, 0, CLOCK);
+		AtomicReference<IdempotencyRecord> saved = new AtomicReference<>();
+		when(idempotencyRecordRepository.findById(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(saved.get()));
+		when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+			saved.set(invocation.getArgument(0));
+			return saved.get();
+		});
+		withoutMemory.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ACT
+		withoutMemory.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ASSERT
+		assertEquals(1, runs.get());
+		assertEquals(1, withoutMemory.getTableHits());
+	}
+
+	@Test
+	public void givenARefusedOperation_whenExecuteAgain_thenItThrowsTheSameExceptionWithoutRunningIt() {
+		// ARRANGE
+		Runnable refused = () -> {
+			runs.incrementAndGet();
+			throw new IllegalArgumentException("The money available on the account is not enough.");
+		};
+		assertThrows(IllegalArgumentException.class,
+				() -> idempotencyStore.execute("owner", "key", "operation", refused));
+
+		// ACT
+		IllegalArgumentException result = assertThrows(IllegalArgumentException.class,
+				() -> idempotencyStore.execute("owner", "key", "operation", refused));
+
+		// ASSERT
+		assertEquals(1, runs.get());
+		assertEquals("The money available on the account is not enough.", result.getMessage());
+		verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+	}
+
+	@Test
+	public void givenAKeyUsedForOtherArguments_whenExecute_thenItThrowsAnException() {
+		// ARRANGE
+		idempotencyStore.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ACT
+		IllegalArgumentException result = assertThrows(IllegalArgumentException.class,
+				() -> idempotencyStore.execute("owner", "key", "operation", runs::incrementAndGet, "email",
+						Money.of("20.0")));
+
+		// ASSERT
+		assertEquals(1, runs.get());
+		assertThat(result.getMessage()).contains("is already used by another request");
+	}
+
+	@Test
+	public void givenAFailureOfTheDatabase_whenExecuteAgain_thenTheOperationIsRunAgain() {
+		// ARRANGE
+		Runnable failingOnce = () -> {
+			if (runs.incrementAndGet() == 1) {
+				throw new IllegalStateException("database down");
+			}
+		};
+		assertThrows(IllegalStateException.class,
+				() -> idempotencyStore.execute("owner", "key", "operation", failingOnce));
+
+		// ACT
+		idempotencyStore.execute("owner", "key", "operation", failingOnce);
+
+		// ASSERT
+		assertEquals(2, runs.get());
+		verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+	}
+
+	@Test
+	public void givenAKeyExpiredButNotPurged_whenExecute_thenTheOperationIsRunAgainAndTheRecordRenewed() {
+		// ARRANGE
+		IdempotencyStore withoutMemory = new IdempotencyStore(idempotencyRecordRepository, optimisticRetryExecutor,
+				null, 60000, 0, CLOCK);
+		IdempotencyRecord expired = new IdempotencyRecord("recordKey", "operation", "fingerprint", Outcome.SUCCEEDED,
+				null, CLOCK.instant().minusMillis(1));
+		when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.of(expired));
+
+		// ACT
+		withoutMemory.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ASSERT
+		assertEquals(1, runs.get());
+		verify(idempotencyRecordRepository, times(1)).save(expired);
+		assertEquals(CLOCK.instant().plusMillis(60000), expired.getExpiresAt());
+		assertEquals(0, withoutMemory.getTableHits());
+	}
+
+	@Test
+	public void givenTheSameKeyChosenByTwoOwners_whenExecute_thenTheOperationIsRunForEach() {
+		// ACT
+		idempotencyStore.execute("owner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+		idempotencyStore.execute("otherOwner", "key", "operation", runs::incrementAndGet, "email", Money.of("10.0"));
+
+		// ASSERT
+		assertEquals(2, runs.get());
+		verify(idempotencyRecordRepository, times(2)).save(any(IdempotencyRecord.class));
+		assertEquals(0, idempotencyStore.getMemoryHits());
+	}
+
+	@Test
+	public void givenNoKey_whenExecute_thenTheOperationIsAlwaysRun() {
+		// ACT
+		idempotencyStore.execute("owner", null, "operation", runs::incrementAndGet);
+		idempotencyStore.execute("owner", null, "operation", runs::incrementAndGet);
+
+		// ASSERT
+		assertEquals(2, runs.get());
+		verify(idempotencyRecordRepository, never()).findById(anyString());
+	}
+
+	@Test
+	public void givenATooLongKey_whenExecute_thenItThrowsAnException() {
+		// ARRANGE
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i <= IdempotencyStore.MAXIMUM_KEY_LENGTH; i++) {
+			key.append('k');
+		}
+
+		// ACT
+		assertThrows(IllegalArgumentException.class,
+				() -> idempotencyStore.execute("owner", key.toString(), "operation", runs::incrementAndGet));
+
+		// ASSERT
+		assertEquals(0, runs.get());
+	}
+
+}
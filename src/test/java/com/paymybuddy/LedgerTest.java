@@ -0,0 +1,257 @@
+package com.paymybuddy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.ledger.Ledger;
+import com.paymybuddy.model.JournalEntry;
+import com.paymybuddy.model.JournalEntry.Kind;
+import com.paymybuddy.model.JournalEntry.Side;
+import com.paymybuddy.model.LedgerSnapshot;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.repository.JournalEntryRepository;
+import com.paymybuddy.repository.LedgerSnapshotRepository;
+import com.paymybuddy.repository.UserRepository;
+
+public class LedgerTest {
+
+	private static final Instant NOW = Instant.parse("2020-07-01T12:00:00Z");
+
+	private Ledger ledger;
+
+	@Mock
+	private JournalEntryRepository journalEntryRepository;
+
+	@Mock
+	private LedgerSnapshotRepository ledgerSnapshotRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private long nextEntryId;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		ledger = new Ledger(journalEntryRepository, ledgerSnapshotRepository, userRepository, transactionTemplate,
+				true, 60000, Clock.fixed(NOW, ZoneOffset.UTC));
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+		doAnswer(invocation -> {
+			((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		nextEntryId = 11;
+		doAnswer(invocation -> {
+			for (JournalEntry entry : (List<JournalEntry>) invocation.getArgument(0)) {
+				ReflectionTestUtils.setField(entry, "id", nextEntryId++);
+			}
+			return invocation.getArgument(0);
+		}).when(journalEntryRepository).saveAll(anyList());
+		when(ledgerSnapshotRepository.findLastEntryId()).thenReturn(10L);
+		when(ledgerSnapshotRepository.findByLastEntryId(10L))
+				.thenReturn(Collections.singletonList(new LedgerSnapshot(10L, 1L, Money.of("100.0"))));
+		when(journalEntryRepository.streamAfter(10L)).thenReturn(Stream.empty());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void givenATransfer_whenRecordTransfer_thenItAppendBalancedEntriesForTheAmountAndTheFee() {
+		// ARRANGE
+		ArgumentCaptor<List<JournalEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		ledger.recordTransfer(1L, 2L, Money.of("10.0"), Money.of("0.5"));
+
+		// ASSERT
+		verify(journalEntryRepository, times(1)).saveAll(entriesCaptor.capture());
+		List<JournalEntry> entries = entriesCaptor.getValue();
+		assertEquals(4, entries.size());
+		assertEquals(0, entries.stream().mapToLong(JournalEntry::getSignedMinorUnits).sum());
+		assertEquals(1, entries.stream().map(JournalEntry::getTransferId).distinct().count());
+		assertEquals(Ledger.HOUSE_ACCOUNT_ID, entries.get(3).getAccountId());
+		assertEquals(Kind.FEE, entries.get(3).getKind());
+		assertEquals(Side.CREDIT, entries.get(3).getSide());
+	}
+
+	@Test
+	public void givenTheLedgerDisabled_whenRecordTransfer_thenItAppendNothing() {
+		// ARRANGE
+		ledger = new Ledger(journalEntryRepository, ledgerSnapshotRepository, userRepository, transactionTemplate,
+				false, 60000, Clock.fixed(NOW, ZoneOffset.UTC));
+
+		// ACT
+		ledger.recordTransfer(1L, 2L, Money.of("10.0"), Money.of("0.5"));
+
+		// ASSERT
+		verify(journalEntryRepository, never()).saveAll(anyList());
+		assertThrows(IllegalStateException.class, () -> ledger.getBalance(1L));
+	}
+
+	@Test
+	public void givenASnapshotAndLaterEntries_whenGetBalance_thenItLoadThemOnceAndApplyTheNewEntriesInMemory() {
+		// ARRANGE
+		JournalEntry entryAfterTheSnapshot = new JournalEntry("transfer", 1L, Side.DEBIT, Kind.AMOUNT,
+				Money.of("10.0"), NOW);
+		ReflectionTestUtils.setField(entryAfterTheSnapshot, "id", 11L);
+		when(journalEntryRepository.streamAfter(10L)).thenReturn(Stream.of(entryAfterTheSnapshot));
+		nextEntryId = 12;
+
+		// ACT
+		Money result = ledger.getBalance(1L);
+		ledger.recordBankDeposit(1L, Money.of("5.0"));
+
+		// ASSERT
+		assertEquals(Money.of("90.0"), result);
+		assertEquals(Money.of("95.0"), ledger.getBalance(1L));
+		assertEquals(Money.of("-5.0"), ledger.getBalance(Ledger.BANK_ACCOUNT_ID));
+		verify(journalEntryRepository, times(1)).streamAfter(anyLong());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void givenATransactionCompletingAfterTheLoadReadItsEntries_whenGetBalance_thenTheyAreCountedOnce() {
+		// ARRANGE
+		ArgumentCaptor<List<JournalEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ledger.recordBankDeposit(1L, Money.of("5.0"));
+			verify(journalEntryRepository, times(1)).saveAll(entriesCaptor.capture());
+			when(journalEntryRepository.streamAfter(10L)).thenReturn(entriesCaptor.getValue().stream());
+
+			// ACT
+			Money balanceLoaded = ledger.getBalance(1L);
+			completeTheTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+			// ASSERT
+			assertEquals(Money.of("105.0"), balanceLoaded);
+			assertEquals(Money.of("105.0"), ledger.getBalance(1L));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void givenTheBalancesLoaded_whenATransactionCommitOrRollBack_thenOnlyTheCommittedEntriesAreApplied() {
+		// ARRANGE
+		assertEquals(Money.of("100.0"), ledger.getBalance(1L));
+
+		// ACT
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ledger.recordBankDeposit(1L, Money.of("5.0"));
+			completeTheTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			ledger.recordBankWithdrawal(1L, Money.of("20.0"));
+			completeTheTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		// ASSERT
+		assertEquals(Money.of("80.0"), ledger.getBalance(1L));
+		assertEquals(Money.of("20.0"), ledger.getBalance(Ledger.BANK_ACCOUNT_ID));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void givenNoSnapshot_whenSnapshot_thenItOpenTheLedgerFromTheBalancesOfTheUsers() {
+		// ARRANGE
+		when(ledgerSnapshotRepository.findLastEntryId()).thenReturn(null);
+		when(journalEntryRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+		when(userRepository.streamBalancesForShare()).thenReturn(Stream.of(new Object[] { 1L, Money.of("100.0") },
+				new Object[] { 2L, Money.of("20.0") }));
+		ArgumentCaptor<List<LedgerSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		long result = ledger.snapshot();
+
+		// ASSERT
+		assertEquals(0L, result);
+		InOrder lockOrder = inOrder(journalEntryRepository, userRepository);
+		lockOrder.verify(journalEntryRepository).findFirstByOrderByIdDesc();
+		lockOrder.verify(userRepository).streamBalancesForShare();
+		verify(ledgerSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		List<LedgerSnapshot> snapshots = new ArrayList<>(snapshotsCaptor.getValue());
+		assertEquals(4, snapshots.size());
+		assertEquals(0, snapshots.stream().mapToLong(snapshot -> snapshot.getBalance().getMinorUnits()).sum());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void givenAPreviousSnapshot_whenSnapshot_thenItAddTheCommittedEntriesAndDeleteThePreviousOne() {
+		// ARRANGE
+		when(ledgerSnapshotRepository.findLastEntryId()).thenReturn(10L);
+		when(ledgerSnapshotRepository.findByLastEntryId(10L)).thenReturn(Arrays.asList(
+				new LedgerSnapshot(10L, 1L, Money.of("100.0")), new LedgerSnapshot(10L, 2L, Money.of("0.0"))));
+		JournalEntry firstRecentEntry = new JournalEntry("transfer", 1L, Side.DEBIT, Kind.AMOUNT, Money.of("1.0"),
+				NOW);
+		ReflectionTestUtils.setField(firstRecentEntry, "id", 15L);
+		when(journalEntryRepository.findFirstByCreatedAtGreaterThanEqualOrderByCreatedAtAsc(NOW.minusMillis(60000)))
+				.thenReturn(Optional.of(firstRecentEntry));
+		when(journalEntryRepository.sumByAccountAndSide(10L, 14L))
+				.thenReturn(Arrays.asList(new Object[] { 1L, "DEBIT", new BigDecimal("10.00") },
+						new Object[] { 2L, "CREDIT", new BigDecimal("10.00") }));
+		ArgumentCaptor<List<LedgerSnapshot>> snapshotsCaptor = ArgumentCaptor.forClass(List.class);
+
+		// ACT
+		long result = ledger.snapshot();
+
+		// ASSERT
+		assertEquals(14L, result);
+		verify(ledgerSnapshotRepository, times(1)).saveAll(snapshotsCaptor.capture());
+		for (LedgerSnapshot snapshot : snapshotsCaptor.getValue()) {
+			assertEquals(snapshot.getAccountId() == 1L ? Money.of("90.0") : Money.of("10.0"), snapshot.getBalance());
+		}
+		verify(ledgerSnapshotRepository, times(1)).deleteByLastEntryIdLessThan(14L);
+	}
+
+	private void completeTheTransaction(int status) {
+		TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+				status);
+	}
+
+}
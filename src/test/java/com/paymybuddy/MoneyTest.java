@@ -0,0 +1,111 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.MoneyConverter;
+import com.paymybuddy.model.User;
+
+public class MoneyTest {
+
+	@Test
+	public void givenCreatingAMoneyFromADecimal_whenOf_thenItIsStoredInMinorUnits() {
+		// ACT
+		Money result = Money.of("10.5");
+
+		// ASSERT
+		assertEquals(1050, result.getMinorUnits());
+		assertEquals("10.50", result.toString());
+	}
+
+	@Test
+	public void givenCreatingAMoneyWithMoreThanTwoDecimals_whenOf_thenItIsRoundedHalfEven() {
+		// ASSERT
+		assertEquals(0, Money.of("0.005").getMinorUnits());
+		assertEquals(2, Money.of("0.015").getMinorUnits());
+		assertEquals(2, Money.of("0.016").getMinorUnits());
+		assertEquals(-2, Money.of("-0.015").getMinorUnits());
+	}
+
+	@Test
+	public void givenParsingAnAmount_whenParse_thenOnlyANumberWithAtMostTwoDecimalsIsAccepted() {
+		// ASSERT
+		assertEquals(1050, Money.parse("10.5").getMinorUnits());
+		assertEquals(1000, Money.parse("10.000").getMinorUnits());
+		assertThrows(IllegalArgumentException.class, () -> Money.parse("10.001"));
+		assertThrows(IllegalArgumentException.class, () -> Money.parse("ten"));
+		assertThrows(IllegalArgumentException.class, () -> Money.parse(null));
+	}
+
+	@Test
+	public void givenComputingAPercentage_whenPercentage_thenItIsRoundedHalfEvenToTheMinorUnit() {
+		// ASSERT
+		assertEquals(50, Money.percentage(1000, 500)); // 5% of 10.00
+		assertEquals(0, Money.percentage(10, 500)); // 5% of 0.10 = 0.005 -> 0.00
+		assertEquals(2, Money.percentage(30, 500)); // 5% of 0.30 = 0.015 -> 0.02
+		assertEquals(3, Money.percentage(55, 500)); // 5% of 0.55 = 0.0275 -> 0.03
+		assertEquals(-2, Money.percentage(-30, 500));
+	}
+
+	@Test
+	public void givenComparingMoney_whenIsLessThan_thenItComparesTheMinorUnits() {
+		// ASSERT
+		assertTrue(Money.of("0.99").isLessThan(Money.of("1")));
+		assertFalse(Money.of("1.00").isLessThan(Money.of("1")));
+		assertEquals(Money.of("1"), Money.of("1.00"));
+		assertEquals(Money.of("9.50"), Money.of("20").minus(Money.of("10.50")));
+	}
+
+	@Test
+	public void givenAnAmountOverflowingALong_whenPlus_thenItThrowsAnException() {
+		// ASSERT
+		assertThrows(ArithmeticException.class,
+				() -> Money.ofMinorUnits(Long.MAX_VALUE).plus(Money.ofMinorUnits(1)));
+	}
+
+	@Test
+	public void givenConvertingMoney_whenConvert_thenItUsesADecimalWithTwoDigits() {
+		// ARRANGE
+		MoneyConverter moneyConverter = new MoneyConverter();
+
+		// ACT
+		BigDecimal result = moneyConverter.convertToDatabaseColumn(Money.of("9.5"));
+
+		// ASSERT
+		assertEquals(new BigDecimal("9.50"), result);
+		assertEquals(Money.of("9.5"), moneyConverter.convertToEntityAttribute(result));
+		assertEquals(null, moneyConverter.convertToDatabaseColumn(null));
+	}
+
+	@Test
+	public void givenAUser_whenWrittenAndReadAsJson_thenItsMoneyIsAPlainNumber() throws Exception {
+		// ARRANGE
+		// The REST resources are written with the defaults of Spring Boot.
+		ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		User user = new User("emailJson", "lastNameJson", "firstNameJson", "passwordNotEncrypted", Money.of("10.5"),
+				null, null, null);
+
+		// ACT
+		JsonNode written = objectMapper.readTree(objectMapper.writeValueAsString(user));
+		User read = objectMapper.readValue("{\"email\":\"emailJson\",\"moneyAvailable\":20.25}", User.class);
+		User readBack = objectMapper.readValue(written.toString(), User.class);
+
+		// ASSERT
+		assertTrue(written.get("moneyAvailable").isNumber());
+		assertEquals(0, new BigDecimal("10.5").compareTo(written.get("moneyAvailable").decimalValue()));
+		assertEquals(Money.of("20.25"), read.getMoneyAvailable());
+		assertEquals(Money.of("10.5"), readBack.getMoneyAvailable());
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.security.MyUserDetailsService;
+import com.paymybuddy.security.PrincipalCache;
+
+public class MyUserDetailsServiceTest {
+
+	@InjectMocks
+	private MyUserDetailsService myUserDetailsService;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Spy
+	private PrincipalCache principalCache = new PrincipalCache(60000, 10);
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+	}
+
+	@Test
+	public void givenLoadingAUserTwice_whenLoadUserByUsername_thenItReadTheDatabaseOnlyOnce() {
+		// ARRANGE
+		User user = new User("emailLogin", "lastNameLogin", "firstNameLogin", "passwordNotEncrypted",
+				Money.of("0.0"), null, null, null);
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+		// ACT
+		UserDetails result = myUserDetailsService.loadUserByUsername(user.getEmail());
+		UserDetails result2 = myUserDetailsService.loadUserByUsername(user.getEmail());
+
+		// ASSERT
+		assertSame(result, result2);
+		verify(userRepository, times(1)).findByEmail(user.getEmail());
+	}
+
+	@Test
+	public void givenAnAdministratorEmail_whenLoadUserByUsername_thenOnlyThisUserHasTheAdminAuthority() {
+		// ARRANGE
+		ReflectionTestUtils.setField(myUserDetailsService, "adminEmails", new String[] { "emailAdmin" });
+		User admin = new User("emailAdmin", "lastNameAdmin", "firstNameAdmin", "passwordNotEncrypted",
+				Money.of("0.0"), null, null, null);
+		User user = new User("emailLogin", "lastNameLogin", "firstNameLogin", "passwordNotEncrypted",
+				Money.of("0.0"), null, null, null);
+		when(userRepository.findByEmail(admin.getEmail())).thenReturn(Optional.of(admin));
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+		// ACT
+		UserDetails resultAdmin = myUserDetailsService.loadUserByUsername(admin.getEmail());
+		UserDetails resultUser = myUserDetailsService.loadUserByUsername(user.getEmail());
+
+		// ASSERT
+		assertThat(resultAdmin.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactlyInAnyOrder("USER", "ADMIN");
+		assertThat(resultUser.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("USER");
+	}
+
+	@Test
+	public void givenLoadingAnUnknownUser_whenLoadUserByUsername_thenItThrowAUsernameNotFoundException() {
+		// ARRANGE
+		when(userRepository.findByEmail("unknown")).thenReturn(Optional.empty());
+
+		// ACT
+		// ASSERT
+		assertThrows(UsernameNotFoundException.class, () -> myUserDetailsService.loadUserByUsername("unknown"));
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.concurrency.OperationStatistics;
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.model.User;
+
+public class OptimisticRetryExecutorTest {
+
+	private OptimisticRetryExecutor optimisticRetryExecutor;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		optimisticRetryExecutor = new OptimisticRetryExecutor(transactionTemplate, 3, 0, 0);
+		doAnswer(invocation -> {
+			((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+	}
+
+	@After
+	public void clear() {
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+	}
+
+	@Test
+	public void injectedComponentsAreRightlySetUp() {
+		assertThat(optimisticRetryExecutor).isNotNull();
+	}
+
+	@Test
+	public void givenAnOperationWithoutConflict_whenExecute_thenItRunItOnceInATransaction() {
+		// ARRANGE
+		AtomicInteger attempts = new AtomicInteger();
+
+		// ACT
+		optimisticRetryExecutor.execute("operation", attempts::incrementAndGet);
+		OperationStatistics result = optimisticRetryExecutor.getStatistics("operation");
+
+		// ASSERT
+		assertEquals(1, attempts.get());
+		verify(transactionTemplate, times(1)).executeWithoutResult(any());
+		assertEquals(0, result.getConflicts());
+		assertEquals(0, result.getRetries());
+		assertEquals(0, result.getGiveUps());
+	}
+
+	@Test
+	public void givenAnOperationConflictingOnce_whenExecute_thenItRetryItAndCountTheConflict() {
+		// ARRANGE
+		AtomicInteger attempts = new AtomicInteger();
+
+		// ACT
+		optimisticRetryExecutor.execute("operation", () -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new ObjectOptimisticLockingFailureException(User.class, 1);
+			}
+		});
+		OperationStatistics result = optimisticRetryExecutor.getStatistics("operation");
+
+		// ASSERT
+		assertEquals(2, attempts.get());
+		verify(transactionTemplate, times(2)).executeWithoutResult(any());
+		assertEquals(1, result.getConflicts());
+		assertEquals(1, result.getRetries());
+		assertEquals(0, result.getGiveUps());
+	}
+
+	@Test
+	public void givenAnOperationAlwaysConflicting_whenExecute_thenItGiveUpAfterTheMaximumNumberOfAttempts() {
+		// ARRANGE
+		AtomicInteger attempts = new AtomicInteger();
+
+		// ACT
+		assertThrows(ObjectOptimisticLockingFailureException.class,
+				() -> optimisticRetryExecutor.execute("operation", () -> {
+					attempts.incrementAndGet();
+					throw new ObjectOptimisticLockingFailureException(User.class, 1);
+				}));
+		OperationStatistics result = optimisticRetryExecutor.getStatistics("operation");
+
+		// ASSERT
+		assertEquals(3, attempts.get());
+		assertEquals(3, result.getConflicts());
+		assertEquals(2, result.getRetries());
+		assertEquals(1, result.getGiveUps());
+	}
+
+	@Test
+	public void givenAnOperationFailingWithoutConflict_whenExecute_thenItDoesNotRetryIt() {
+		// ARRANGE
+		AtomicInteger attempts = new AtomicInteger();
+
+		// ACT
+		assertThrows(NoSuchElementException.class, () -> optimisticRetryExecutor.execute("operation", () -> {
+			attempts.incrementAndGet();
+			throw new NoSuchElementException();
+		}));
+		OperationStatistics result = optimisticRetryExecutor.getStatistics("operation");
+
+		// ASSERT
+		assertEquals(1, attempts.get());
+		assertEquals(0, result.getConflicts());
+		assertEquals(0, result.getGiveUps());
+	}
+
+	@Test
+	public void givenAnOperationConflictingInsideAnExistingTransaction_whenExecute_thenItJoinTheTransactionAndDoesNotRetryIt() {
+		// ARRANGE
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		AtomicInteger attempts = new AtomicInteger();
+
+		// ACT
+		assertThrows(ObjectOptimisticLockingFailureException.class,
+				() -> optimisticRetryExecutor.execute("operation", () -> {
+					attempts.incrementAndGet();
+					throw new ObjectOptimisticLockingFailureException(User.class, 1);
+				}));
+		OperationStatistics result = optimisticRetryExecutor.getStatistics("operation");
+
+		// ASSERT
+		assertEquals(1, attempts.get());
+		verify(transactionTemplate, times(0)).executeWithoutResult(any());
+		assertEquals(1, result.getConflicts());
+		assertEquals(0, result.getRetries());
+		assertEquals(1, result.getGiveUps());
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.paymybuddy.security.PasswordHashPolicy;
+
+public class PasswordHashPolicyTest {
+
+	@After
+	public void clear() {
+		PasswordHashPolicy.setCost(PasswordHashPolicy.DEFAULT_COST);
+	}
+
+	@Test
+	public void givenACost_whenHash_thenTheHashUseThisCost() {
+		// ARRANGE
+		PasswordHashPolicy.setCost(5);
+
+		// ACT
+		String result = PasswordHashPolicy.hash("passwordPolicy");
+
+		// ASSERT
+		assertEquals(5, PasswordHashPolicy.getCost(result));
+		assertFalse(PasswordHashPolicy.needsRehash(result));
+	}
+
+	@Test
+	public void givenAHigherCost_whenNeedsRehash_thenTheOlderHashesNeedARehash() {
+		// ARRANGE
+		PasswordHashPolicy.setCost(4);
+		String hash = PasswordHashPolicy.hash("passwordPolicy");
+		PasswordHashPolicy.setCost(5);
+
+		// ACT
+		boolean result = PasswordHashPolicy.needsRehash(hash);
+
+		// ASSERT
+		assertTrue(result);
+		assertFalse(PasswordHashPolicy.needsRehash("passwordNotEncrypted"));
+		assertEquals(-1, PasswordHashPolicy.getCost("passwordNotEncrypted"));
+	}
+
+	@Test
+	public void givenAnInvalidCost_whenSetCost_thenItThrowsAnIllegalArgumentException() {
+		// ACT
+		assertThrows(IllegalArgumentException.class, () -> PasswordHashPolicy.setCost(3));
+	}
+
+}
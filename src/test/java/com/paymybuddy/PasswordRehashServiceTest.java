@@ -0,0 +1,115 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.security.PasswordHashPolicy;
+import com.paymybuddy.security.PasswordRehashService;
+
+public class PasswordRehashServiceTest {
+
+	private PasswordRehashService passwordRehashService;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private ExecutorService executor;
+
+	private User user;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		passwordRehashService = new PasswordRehashService(userRepository, transactionTemplate, executor);
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArgument(0)).run();
+			return null;
+		}).when(executor).execute(any());
+		doAnswer(invocation -> {
+			((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		PasswordHashPolicy.setCost(5);
+		user = new User("emailRehash", "lastNameRehash", "firstNameRehash",
+				BCrypt.hashpw("passwordRehash", BCrypt.gensalt(4)), Money.of("0.0"), null, null, null);
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+	}
+
+	@After
+	public void clear() {
+		PasswordHashPolicy.setCost(PasswordHashPolicy.DEFAULT_COST);
+	}
+
+	@Test
+	public void givenAHashBelowTheCurrentCost_whenRehashIfNeeded_thenThePasswordIsHashedWithTheCurrentCost() {
+		// ARRANGE
+		String checkedHash = user.getPassword();
+
+		// ACT
+		boolean result = passwordRehashService.rehashIfNeeded(user.getEmail(), checkedHash, "passwordRehash");
+
+		// ASSERT
+		assertTrue(result);
+		assertEquals(5, PasswordHashPolicy.getCost(user.getPassword()));
+		assertTrue(BCrypt.checkpw("passwordRehash", user.getPassword()));
+		assertFalse(user.isCredentialsChanged());
+		verify(userRepository).save(user);
+		assertEquals(1, passwordRehashService.getRehashed());
+	}
+
+	@Test
+	public void givenAHashWithTheCurrentCost_whenRehashIfNeeded_thenNothingIsScheduled() {
+		// ARRANGE
+		PasswordHashPolicy.setCost(4);
+
+		// ACT
+		boolean result = passwordRehashService.rehashIfNeeded(user.getEmail(), user.getPassword(), "passwordRehash");
+
+		// ASSERT
+		assertFalse(result);
+		verify(executor, never()).execute(any());
+	}
+
+	@Test
+	public void givenAPasswordChangedSinceTheLogin_whenRehashIfNeeded_thenTheNewPasswordIsKept() {
+		// ARRANGE
+		String checkedHash = user.getPassword();
+		user.setPassword("passwordChanged");
+		String changedHash = user.getPassword();
+
+		// ACT
+		passwordRehashService.rehashIfNeeded(user.getEmail(), checkedHash, "passwordRehash");
+
+		// ASSERT
+		assertEquals(changedHash, user.getPassword());
+		verify(userRepository, never()).save(any());
+	}
+
+}
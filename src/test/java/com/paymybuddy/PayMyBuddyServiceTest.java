@@ -1,7 +1,15 @@
 package com.paymybuddy;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -10,6 +18,7 @@ import static org.mockito.Mockito.when;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -19,13 +28,25 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.ledger.Ledger;
 import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.IdempotencyRecord;
+import com.paymybuddy.model.IdempotencyRecord.Outcome;
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.BankAccountRepository;
 import com.paymybuddy.repository.TransactionRepository;
 import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.BalanceSnapshotService;
+import com.paymybuddy.service.FeeService;
 import com.paymybuddy.service.impl.PayMyBuddyServiceImpl;
 
 public class PayMyBuddyServiceTest {
@@ -42,9 +63,31 @@ public class PayMyBuddyServiceTest {
 	@Mock
 	private TransactionRepository transactionRepository;
 
+	@Mock
+	private FeeService feeService;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private OptimisticRetryExecutor optimisticRetryExecutor;
+
+	@Mock
+	private Ledger ledger;
+
+	@Mock
+	private IdempotencyStore idempotencyStore;
+
+	@Mock
+	private BalanceSnapshotService balanceSnapshotService;
+
 	@Before
 	public void init() {
 		MockitoAnnotations.initMocks(this);
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArgument(1)).run();
+			return null;
+		}).when(optimisticRetryExecutor).execute(anyString(), any(Runnable.class));
 	}
 
 	@Test
@@ -56,7 +99,7 @@ public class PayMyBuddyServiceTest {
 	public void givenAddingABankAccount_whenAddBankAccount_thenItAddTheBankAccountToTheUserAndSaveItInTheBankAccountTable() {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANAddBankAccount", "descriptionAddBankAccount");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		Optional<User> userOptional = Optional.of(user);
 		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
@@ -76,7 +119,7 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANAddBankAccountWithWrongUSer",
 				"descriptionAddBankAccountWithWrongUSer");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
@@ -98,13 +141,13 @@ public class PayMyBuddyServiceTest {
 	public void givenDeletingABankAccount_whenDeleteBankAccount_thenItDeleteTheBankAccountFromTheUserAccountAndDeleteItInTheBankAccountTable() {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccount", "descriptionDeleteBankAccount");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, bankAccount,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), bankAccount,
 				null, null);
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.save(user)).thenReturn(user);
 		doNothing().when(bankAccountRepository).delete(bankAccount);
 
@@ -114,7 +157,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		verify(bankAccountRepository, times(1)).delete(bankAccount);
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(userRepository, times(1)).save(user);
 	}
 
@@ -123,11 +166,11 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccountWrongProvidedUser",
 				"descriptionDeleteBankAccountWrongProvidedUser");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
 		doNothing().when(bankAccountRepository).delete(bankAccount);
 
@@ -140,7 +183,7 @@ public class PayMyBuddyServiceTest {
 				() -> payMyBuddyServiceImpl.deleteBankAccount(user, bankAccount.getIBAN()));
 		verify(bankAccountRepository, times(0)).delete(bankAccount);
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(userRepository, times(0)).save(user);
 	}
 
@@ -149,11 +192,11 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccountWrongProvidedIBAN",
 				"descriptionDeleteBankAccountWrongProvidedIBAN");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		Optional<User> userOptional = Optional.of(user);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(Optional.empty());
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.save(user)).thenReturn(user);
 		doNothing().when(bankAccountRepository).delete(bankAccount);
 
@@ -166,7 +209,7 @@ public class PayMyBuddyServiceTest {
 				() -> payMyBuddyServiceImpl.deleteBankAccount(user, bankAccount.getIBAN()));
 		verify(bankAccountRepository, times(0)).delete(bankAccount);
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(userRepository, times(0)).save(user);
 	}
 
@@ -176,7 +219,7 @@ public class PayMyBuddyServiceTest {
 		BankAccount bankAccountNotAssociated = new BankAccount("Void", "Void");
 		BankAccount bankAccountAssociated = new BankAccount("IBANDeleteBankAccountWrongProvidedIBAN",
 				"descriptionDeleteBankAccountWrongProvidedIBAN");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"),
 				bankAccountAssociated, null, null);
 		bankAccountNotAssociated.setId(2);
 
@@ -184,7 +227,7 @@ public class PayMyBuddyServiceTest {
 		Optional<User> userOptional = Optional.of(user);
 
 		when(bankAccountRepository.findByIBAN(bankAccountNotAssociated.getIBAN())).thenReturn(bankAccountOptional);
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.save(user)).thenReturn(user);
 		doNothing().when(bankAccountRepository).delete(bankAccountNotAssociated);
 
@@ -196,7 +239,7 @@ public class PayMyBuddyServiceTest {
 		assertThrows(IllegalArgumentException.class,
 				() -> payMyBuddyServiceImpl.deleteBankAccount(user, bankAccountNotAssociated.getIBAN()));
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccountNotAssociated.getIBAN());
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(0)).delete(bankAccountNotAssociated);
 		verify(userRepository, times(0)).save(user);
 	}
@@ -206,12 +249,12 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		List<Transaction> listOfTheUserTransaction = new ArrayList<>();
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, listOfTheUserTransaction, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, listOfTheUserTransaction, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
+		Money amountOfTheTransaction = Money.of("10.0");
 		Transaction transaction = new Transaction(userSender, userReceiver, Date.valueOf(LocalDate.now()),
 				"description", amountOfTheTransaction);
 
@@ -233,22 +276,25 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		verify(userRepository, times(1)).findByEmail(userSender.getEmail());
 		verify(userRepository, times(1)).findByEmail(userReceiver.getEmail());
-		verify(userRepository, times(1)).findByEmail(userPayMyBuddy.getEmail());
+		verify(userRepository, times(0)).findByEmail(userPayMyBuddy.getEmail());
 		verify(userRepository, times(1)).save(userSender);
 		verify(userRepository, times(1)).save(userReceiver);
-		verify(userRepository, times(1)).save(userPayMyBuddy);
+		verify(userRepository, times(0)).save(userPayMyBuddy);
+		verify(feeService, times(1)).collectFee(Money.of("0.5"));
+		assertEquals(1, userSender.getHistoryVersion());
+		assertEquals(0, userReceiver.getHistoryVersion());
 	}
 
 	@Test
 	public void givenCreatingATransactionWithAWrongProvidedUserSender_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
+		Money amountOfTheTransaction = Money.of("10.0");
 		Transaction transaction = new Transaction(userSender, userReceiver, Date.valueOf(LocalDate.now()),
 				"description", amountOfTheTransaction);
 
@@ -282,12 +328,12 @@ public class PayMyBuddyServiceTest {
 	public void givenCreatingATransactionWithAWrongProvidedUserReceiver_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
+		Money amountOfTheTransaction = Money.of("10.0");
 		Transaction transaction = new Transaction(userSender, userReceiver, Date.valueOf(LocalDate.now()),
 				"description", amountOfTheTransaction);
 
@@ -321,12 +367,12 @@ public class PayMyBuddyServiceTest {
 	public void givenCreatingATransactionWithAWrongProvidedAmount_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 0.99;
+		Money amountOfTheTransaction = Money.of("0.99");
 		Transaction transaction = new Transaction(userSender, userReceiver, Date.valueOf(LocalDate.now()),
 				"description", amountOfTheTransaction);
 
@@ -358,15 +404,162 @@ public class PayMyBuddyServiceTest {
 	}
 
 	@Test
-	public void givenMakingATransaction_whenMakeTransaction_thenItDoTheTransactionAndUpdateThePayMyBuddyUser() {
+	@SuppressWarnings("unchecked")
+	public void givenCreatingTransactionsInABatch_whenCreateTransactions_thenItLockTheUsersOnceAndOnlyFailTheWrongRequests() {
+		// ARRANGE
+		User userSender = new User("emailBatch", "lastNameBatch", "firstNameBatch", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailBatch2", "lastNameBatch2", "firstNameBatch2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		TransferRequest transferRequest = new TransferRequest(userSender.getEmail(), userReceiver.getEmail(),
+				"description", Money.of("10.0"));
+		TransferRequest transferRequestToAnUnknownUser = new TransferRequest(userSender.getEmail(), "unknown",
+				"description", Money.of("1.0"));
+		TransferRequest transferRequestNotAffordable = new TransferRequest(userSender.getEmail(),
+				userReceiver.getEmail(), "description", Money.of("10.0"));
+		TransferRequest transferRequestWithAWrongAmount = new TransferRequest(userReceiver.getEmail(),
+				userSender.getEmail(), "description", Money.of("0.99"));
+
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+		when(userRepository.findAllByEmailInForUpdate(anyCollection()))
+				.thenReturn(Arrays.asList(userSender, userReceiver));
+
+		// ACT
+		List<TransferResult> result = payMyBuddyServiceImpl.createTransactions(Arrays.asList(transferRequest,
+				transferRequestToAnUnknownUser, transferRequestNotAffordable, transferRequestWithAWrongAmount));
+
+		// ASSERT
+		assertThat(result).extracting(TransferResult::getStatus).containsExactly(TransferResult.Status.SUCCEEDED,
+				TransferResult.Status.FAILED, TransferResult.Status.FAILED, TransferResult.Status.FAILED);
+		assertEquals(Money.of("9.50"), userSender.getMoneyAvailable());
+		assertEquals(Money.of("10.00"), userReceiver.getMoneyAvailable());
+		verify(userRepository, times(1)).findAllByEmailInForUpdate(anyCollection());
+		verify(userRepository, times(0)).findByEmail(anyString());
+		verify(transactionRepository, times(1)).saveAll(anyList());
+		verify(feeService, times(1)).collectFee(Money.of("0.5"));
+	}
+
+	@Test
+	public void givenAUserSendingMoneyToItself_whenCreateTransaction_thenItIsRefusedAndNoMoneyIsCreated() {
+		// ARRANGE
+		User user = new User("emailSelf", "lastNameSelf", "firstNameSelf", "passwordNotEncrypted", Money.of("20.0"),
+				null, null, null);
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+		// ACT
+		assertThrows(IllegalArgumentException.class,
+				() -> payMyBuddyServiceImpl.createTransaction(user, user, "description", Money.of("10.0")));
+
+		// ASSERT
+		assertEquals(Money.of("20.0"), user.getMoneyAvailable());
+		verify(feeService, times(0)).collectFee(any(Money.class));
+		verify(userRepository, times(0)).save(user);
+	}
+
+	@Test
+	public void givenATransferToItselfInABatch_whenCreateTransactions_thenOnlyThisRequestFails() {
+		// ARRANGE
+		User userSender = new User("emailBatchSelf", "lastNameBatch", "firstNameBatch", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailBatchSelf2", "lastNameBatch2", "firstNameBatch2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		TransferRequest transferRequestToItself = new TransferRequest(userSender.getEmail(), userSender.getEmail(),
+				"description", Money.of("10.0"));
+		TransferRequest transferRequest = new TransferRequest(userSender.getEmail(), userReceiver.getEmail(),
+				"description", Money.of("1.0"));
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+		when(userRepository.findAllByEmailInForUpdate(anyCollection()))
+				.thenReturn(Arrays.asList(userSender, userReceiver));
+
+		// ACT
+		List<TransferResult> result = payMyBuddyServiceImpl
+				.createTransactions(Arrays.asList(transferRequestToItself, transferRequest));
+
+		// ASSERT
+		assertThat(result).extracting(TransferResult::getStatus).containsExactly(TransferResult.Status.FAILED,
+				TransferResult.Status.SUCCEEDED);
+		assertEquals(Money.of("18.95"), userSender.getMoneyAvailable());
+		assertEquals(Money.of("1.00"), userReceiver.getMoneyAvailable());
+		verify(feeService, times(1)).collectFee(Money.of("0.05"));
+	}
+
+	@Test
+	public void givenTransfersWithIdempotencyKeysInABatch_whenCreateTransactions_thenAKeyAlreadyUsedIsNotDoneTwice() {
+		// ARRANGE
+		User userSender = new User("emailBatchKey", "lastNameBatch", "firstNameBatch", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailBatchKey2", "lastNameBatch2", "firstNameBatch2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		TransferRequest transferRequestAlreadyDone = new TransferRequest(userSender.getEmail(),
+				userReceiver.getEmail(), "description", Money.of("10.0"), "keyAlreadyUsed");
+		TransferRequest transferRequest = new TransferRequest(userSender.getEmail(), userReceiver.getEmail(),
+				"description", Money.of("1.0"), "newKey");
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+		when(userRepository.findAllByEmailInForUpdate(anyCollection()))
+				.thenReturn(Arrays.asList(userSender, userReceiver));
+		when(idempotencyStore.find(userSender.getEmail(), "keyAlreadyUsed")).thenReturn(Optional.of(
+				new IdempotencyRecord("recordKey", "createTransaction", "fingerprint", Outcome.SUCCEEDED, null, null)));
+		when(idempotencyStore.find(userSender.getEmail(), "newKey")).thenReturn(Optional.empty());
+		when(idempotencyStore.matches(any(IdempotencyRecord.class), anyString(), any())).thenReturn(true);
+
+		// ACT
+		List<TransferResult> result = payMyBuddyServiceImpl
+				.createTransactions(Arrays.asList(transferRequestAlreadyDone, transferRequest));
+
+		// ASSERT
+		assertThat(result).extracting(TransferResult::getStatus).containsExactly(TransferResult.Status.SUCCEEDED,
+				TransferResult.Status.SUCCEEDED);
+		assertEquals(Money.of("18.95"), userSender.getMoneyAvailable());
+		verify(idempotencyStore, times(1)).saveSucceeded(userSender.getEmail(), "newKey",
+				PayMyBuddyServiceImpl.CREATE_TRANSACTION_OPERATION, null, userSender.getEmail(),
+				userReceiver.getEmail(), "description", Money.of("1.0"));
+		verify(idempotencyStore, times(0)).saveSucceeded(anyString(), eq("keyAlreadyUsed"), anyString(), any(),
+				any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givenAChunkFailingToCommit_whenCreateTransactions_thenItDoTheRequestsOfTheChunkOneByOne() {
+		// ARRANGE
+		User userSender = new User("emailBatch", "lastNameBatch", "firstNameBatch", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailBatch2", "lastNameBatch2", "firstNameBatch2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		TransferRequest transferRequest = new TransferRequest(userSender.getEmail(), userReceiver.getEmail(),
+				"description", Money.of("1.0"));
+		TransferRequest transferRequest2 = new TransferRequest(userSender.getEmail(), userReceiver.getEmail(),
+				"description2", Money.of("2.0"));
+
+		when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("Commit failed"))
+				.thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null))
+				.thenThrow(new IllegalStateException("Commit failed"));
+		when(userRepository.findAllByEmailInForUpdate(anyCollection()))
+				.thenReturn(Arrays.asList(userSender, userReceiver));
+
+		// ACT
+		List<TransferResult> result = payMyBuddyServiceImpl
+				.createTransactions(Arrays.asList(transferRequest, transferRequest2));
+
+		// ASSERT
+		assertThat(result).extracting(TransferResult::getStatus).containsExactly(TransferResult.Status.SUCCEEDED,
+				TransferResult.Status.FAILED);
+		assertEquals("Commit failed", result.get(1).getMessage());
+		verify(transactionTemplate, times(3)).execute(any());
+	}
+
+	@Test
+	public void givenMakingATransaction_whenMakeTransaction_thenItDoTheTransactionAndCollectTheFeeWithoutReadingThePayMyBuddyUser() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
+		Money amountOfTheTransaction = Money.of("10.0");
 
 		Optional<User> userPayMyBuddyOptional = Optional.of(userPayMyBuddy);
 
@@ -377,20 +570,25 @@ public class PayMyBuddyServiceTest {
 		payMyBuddyServiceImpl.makeTransaction(userSender, userReceiver, amountOfTheTransaction);
 
 		// ASSERT
-		verify(userRepository, times(1)).findByEmail(userPayMyBuddy.getEmail());
-		verify(userRepository, times(1)).save(userPayMyBuddy);
+		verify(userRepository, times(0)).findByEmail(userPayMyBuddy.getEmail());
+		verify(userRepository, times(0)).save(userPayMyBuddy);
+		verify(feeService, times(1)).collectFee(Money.of("0.5"));
+		verify(ledger, times(1)).recordTransfer(userSender.getId(), userReceiver.getId(), amountOfTheTransaction,
+				Money.of("0.5"));
+		verify(balanceSnapshotService, times(1)).recordBalanceChange(userSender, Money.of("20.0"));
+		verify(balanceSnapshotService, times(1)).recordBalanceChange(userReceiver, Money.of("0.0"));
 	}
 
 	@Test
 	public void givenMakingATransactionWithNotEnoughMoneyAvailable_whenMakeTransaction_thenItDoesNotTheTransactionAndDoesNotUpdateThePayMyBuddyUser() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 20.0;
+		Money amountOfTheTransaction = Money.of("20.0");
 
 		Optional<User> userPayMyBuddyOptional = Optional.of(userPayMyBuddy);
 
@@ -406,20 +604,21 @@ public class PayMyBuddyServiceTest {
 				() -> payMyBuddyServiceImpl.makeTransaction(userSender, userReceiver, amountOfTheTransaction));
 		verify(userRepository, times(0)).findByEmail(userPayMyBuddy.getEmail());
 		verify(userRepository, times(0)).save(userPayMyBuddy);
+		verify(feeService, times(0)).collectFee(any(Money.class));
 	}
 
 	@Test
 	public void givenAddingAFriend_whenAddFriend_thenItAddTheFriendToTheUserFriendList() {
 		// ARRANGE
 		List<User> friendList = new ArrayList<User>();
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, friendList);
 		User userFriend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		Optional<User> userOptional = Optional.of(user);
 		Optional<User> userFriendOptional = Optional.of(userFriend);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.findByEmail(userFriend.getEmail())).thenReturn(userFriendOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -427,21 +626,22 @@ public class PayMyBuddyServiceTest {
 		payMyBuddyServiceImpl.addFriend(user, userFriend);
 
 		// ASSERT
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(userFriend.getEmail());
 		verify(userRepository, times(1)).save(user);
+		assertThat(user.getFriends()).containsExactly(userFriend);
 	}
 
 	@Test
 	public void givenAddingAFriendWithAWrongProvidedUser_whenAddFriend_thenItDoesNotAddTheFriendToTheUserFriendList() {
 		// ARRANGE
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, null);
 		User friend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2", "passwordNotEncrypted2",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		Optional<User> friendOptional = Optional.of(friend);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.findByEmail(friend.getEmail())).thenReturn(friendOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -451,7 +651,7 @@ public class PayMyBuddyServiceTest {
 
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl.addFriend(user, friend));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(friend.getEmail());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -459,13 +659,13 @@ public class PayMyBuddyServiceTest {
 	@Test
 	public void givenAddingAFriendWithAWrongProvidedUserFriend_whenAddFriend_thenItDoesNotAddTheFriendToTheUserFriendList() {
 		// ARRANGE
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, null);
 		User friend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2", "passwordNotEncrypted2",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 
 		Optional<User> userOptional = Optional.of(user);
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.findByEmail(friend.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -475,7 +675,7 @@ public class PayMyBuddyServiceTest {
 
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl.addFriend(user, friend));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(friend.getEmail());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -484,15 +684,15 @@ public class PayMyBuddyServiceTest {
 	public void givenDeletingAFriend_whenDeleteFriend_thenItDeleteTheFriendFromTheUserFriendList() {
 		// ARRANGE
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend2", "firstNameDeleteFriend2",
-				"passwordNotEncrypted", 0.0, null, null, null);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		List<User> friendList = new ArrayList<User>();
 		friendList.add(friend);
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, friendList);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, friendList);
 		Optional<User> userOptional = Optional.of(user);
 		Optional<User> friendOptional = Optional.of(friend);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.findByEmail(friend.getEmail())).thenReturn(friendOptional);
 		when(userRepository.save(user)).thenReturn(user);
 		when(userRepository.save(friend)).thenReturn(friend);
@@ -502,21 +702,22 @@ public class PayMyBuddyServiceTest {
 		payMyBuddyServiceImpl.deleteFriend(user, friend);
 
 		// ASSERT
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(friend.getEmail());
 		verify(userRepository, times(1)).save(user);
+		assertThat(user.getFriends()).isEmpty();
 	}
 
 	@Test
 	public void givenDeletingAFriendWithAWrongProvidedUser_whenDeleteFriend_thenItDoesNotDeleteTheFriendFromTheUserFriendList() {
 		// ARRANGE
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend2", "firstNameDeleteFriend2",
-				"passwordNotEncrypted", 0.0, null, null, null);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		Optional<User> friendOptional = Optional.of(friend);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.findByEmail(friend.getEmail())).thenReturn(friendOptional);
 		when(userRepository.save(user)).thenReturn(user);
 		when(userRepository.save(friend)).thenReturn(friend);
@@ -528,7 +729,7 @@ public class PayMyBuddyServiceTest {
 
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl.deleteFriend(user, friend));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(friend.getEmail());
 		verify(userRepository, times(0)).save(user);
 		verify(userRepository, times(0)).delete(friend);
@@ -538,12 +739,12 @@ public class PayMyBuddyServiceTest {
 	public void givenDeletingAFriendWithAWrongProvidedFriend_whenDeleteFriend_thenItDoesNotDeleteTheFriendFromTheUserFriendList() {
 		// ARRANGE
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend2", "firstNameDeleteFriend2",
-				"passwordNotEncrypted", 0.0, null, null, null);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		Optional<User> userOptional = Optional.of(user);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithFriendsByEmail(user.getEmail())).thenReturn(userOptional);
 		when(userRepository.findByEmail(friend.getEmail())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
 		when(userRepository.save(friend)).thenReturn(friend);
@@ -555,7 +756,7 @@ public class PayMyBuddyServiceTest {
 
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl.deleteFriend(user, friend));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithFriendsByEmail(user.getEmail());
 		verify(userRepository, times(1)).findByEmail(friend.getEmail());
 		verify(userRepository, times(0)).save(user);
 		verify(userRepository, times(0)).delete(friend);
@@ -566,16 +767,16 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -583,9 +784,10 @@ public class PayMyBuddyServiceTest {
 		payMyBuddyServiceImpl.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered);
 
 		// ASSERT
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(1)).save(user);
+		verify(balanceSnapshotService, times(1)).recordBalanceChange(user, Money.of("20.0"));
 	}
 
 	@Test
@@ -593,14 +795,14 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -611,7 +813,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -621,14 +823,14 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		Optional<User> userOptional = Optional.of(user);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -639,7 +841,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -652,16 +854,16 @@ public class PayMyBuddyServiceTest {
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"),
 				bankAccountAssociated, null, null);
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		bankAccountAssociated.setId(1);
 		bankAccountNotAssociated.setId(2);
 
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccountNotAssociated);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccountNotAssociated.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -672,7 +874,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccountNotAssociated, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccountNotAssociated.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -682,16 +884,16 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -699,24 +901,52 @@ public class PayMyBuddyServiceTest {
 		payMyBuddyServiceImpl.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered);
 
 		// ASSERT
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(1)).save(user);
 	}
 
+	@Test
+	public void givenTransferingMoneyOnTheBankAccountWithAnIdempotencyKey_whenTransfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount_thenItIsDoneByTheIdempotencyStore() {
+		// ARRANGE
+		User user = new User("emailIdempotencyKey", "lastNameIdempotencyKey", "firstNameIdempotencyKey",
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
+		BankAccount bankAccount = new BankAccount("IBANIdempotencyKey", "descriptionIdempotencyKey");
+		Money amountTransfered = Money.of("10.0");
+		user.setBankAccount(bankAccount);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(Optional.of(user));
+		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(Optional.of(bankAccount));
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArgument(3)).run();
+			return null;
+		}).when(idempotencyStore).execute(anyString(), anyString(), anyString(), any(Runnable.class), any(), any(),
+				any());
+
+		// ACT
+		payMyBuddyServiceImpl.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount,
+				amountTransfered, "idempotencyKey");
+
+		// ASSERT
+		verify(idempotencyStore, times(1)).execute(eq(user.getEmail()), eq("idempotencyKey"),
+				eq("transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount"), any(Runnable.class),
+				eq(user.getEmail()), eq(bankAccount.getIBAN()), eq(amountTransfered));
+		verify(userRepository, times(1)).save(user);
+		assertEquals(Money.of("10.0"), user.getMoneyAvailable());
+	}
+
 	@Test
 	public void givenTransferingMoneyOnTheBankAccountWithAWrongProvidedUser_whenTransfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount_thenItDoesNotTransfertTheMoney() {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccount);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(Optional.empty());
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -727,7 +957,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -737,14 +967,14 @@ public class PayMyBuddyServiceTest {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		Optional<User> userOptional = Optional.of(user);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccount.getIBAN())).thenReturn(Optional.empty());
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -755,7 +985,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccount.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -768,16 +998,16 @@ public class PayMyBuddyServiceTest {
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"),
 				bankAccountAssociated, null, null);
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		bankAccountAssociated.setId(1);
 		bankAccountNotAssociated.setId(2);
 
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccountNotAssociated);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccountNotAssociated.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -788,7 +1018,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyServiceImpl
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccountNotAssociated, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccountNotAssociated.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -800,14 +1030,14 @@ public class PayMyBuddyServiceTest {
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"),
 				bankAccountAssociated, null, null);
-		Double amountTransfered = 100.0;
+		Money amountTransfered = Money.of("100.0");
 
 		Optional<User> userOptional = Optional.of(user);
 		Optional<BankAccount> bankAccountOptional = Optional.of(bankAccountAssociated);
 
-		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
+		when(userRepository.findWithBankAccountByEmail(user.getEmail())).thenReturn(userOptional);
 		when(bankAccountRepository.findByIBAN(bankAccountAssociated.getIBAN())).thenReturn(bankAccountOptional);
 		when(userRepository.save(user)).thenReturn(user);
 
@@ -818,7 +1048,7 @@ public class PayMyBuddyServiceTest {
 		// ASSERT
 		assertThrows(IllegalArgumentException.class, () -> payMyBuddyServiceImpl
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccountAssociated, amountTransfered));
-		verify(userRepository, times(1)).findByEmail(user.getEmail());
+		verify(userRepository, times(1)).findWithBankAccountByEmail(user.getEmail());
 		verify(bankAccountRepository, times(1)).findByIBAN(bankAccountAssociated.getIBAN());
 		verify(userRepository, times(0)).save(user);
 	}
@@ -0,0 +1,96 @@
+package com.paymybuddy;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.security.PrincipalCache;
+import com.paymybuddy.security.UserPrincipal;
+
+public class PrincipalCacheTest {
+
+	private PrincipalCache principalCache;
+
+	private Clock clock;
+
+	private UserPrincipal principal;
+
+	@Before
+	public void init() {
+		clock = mock(Clock.class);
+		when(clock.millis()).thenReturn(0L);
+		principalCache = new PrincipalCache(1000, 2, clock);
+		principal = new UserPrincipal(new User("emailCache", "lastNameCache", "firstNameCache",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null));
+	}
+
+	@Test
+	public void givenACachedPrincipal_whenGetWithTheSameEmailNormalized_thenItReturnTheCachedPrincipal() {
+		// ARRANGE
+		principalCache.put("emailCache", principal, principalCache.getGeneration());
+
+		// ACT
+		UserPrincipal result = principalCache.get("  EMAILcache ");
+
+		// ASSERT
+		assertSame(principal, result);
+		assertEquals(1, principalCache.getHits());
+		assertEquals(0, principalCache.getMisses());
+	}
+
+	@Test
+	public void givenAnExpiredPrincipal_whenGet_thenItReturnNullAndCountAMiss() {
+		// ARRANGE
+		principalCache.put("emailCache", principal, principalCache.getGeneration());
+		when(clock.millis()).thenReturn(1000L);
+
+		// ACT
+		UserPrincipal result = principalCache.get("emailCache");
+
+		// ASSERT
+		assertNull(result);
+		assertEquals(0, principalCache.getHits());
+		assertEquals(1, principalCache.getMisses());
+		assertEquals(0, principalCache.size());
+	}
+
+	@Test
+	public void givenAFullCache_whenPut_thenItEvictTheLeastRecentlyUsedPrincipal() {
+		// ARRANGE
+		principalCache.put("email1", principal, principalCache.getGeneration());
+		principalCache.put("email2", principal, principalCache.getGeneration());
+		principalCache.get("email1");
+
+		// ACT
+		principalCache.put("email3", principal, principalCache.getGeneration());
+
+		// ASSERT
+		assertEquals(2, principalCache.size());
+		assertEquals(1, principalCache.getEvictions());
+		assertSame(principal, principalCache.get("email1"));
+		assertNull(principalCache.get("email2"));
+	}
+
+	@Test
+	public void givenAnInvalidationDuringTheLoad_whenPut_thenItDoesNotCacheThePrincipal() {
+		// ARRANGE
+		long generation = principalCache.getGeneration();
+		principalCache.invalidate("emailCache");
+
+		// ACT
+		principalCache.put("emailCache", principal, generation);
+
+		// ASSERT
+		assertNull(principalCache.get("emailCache"));
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.paymybuddy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Date;
+
+import org.junit.Test;
+
+import com.paymybuddy.model.TransactionCursor;
+
+public class TransactionCursorTest {
+
+	@Test
+	public void givenACursor_whenToStringThenParse_thenItReturnTheSameCursor() {
+		// ARRANGE
+		TransactionCursor cursor = new TransactionCursor(Date.valueOf("2020-07-02"), 1234L);
+
+		// ACT
+		TransactionCursor result = TransactionCursor.parse(cursor.toString());
+
+		// ASSERT
+		assertEquals("2020-07-02_1234", cursor.toString());
+		assertEquals(cursor, result);
+	}
+
+	@Test
+	public void givenAWrongCursor_whenParse_thenItThrowAnIllegalArgumentException() {
+		// ACT
+		// ASSERT
+		assertThrows(IllegalArgumentException.class, () -> TransactionCursor.parse("2020-07-02"));
+		assertThrows(IllegalArgumentException.class, () -> TransactionCursor.parse("notADate_1234"));
+		assertThrows(IllegalArgumentException.class, () -> TransactionCursor.parse("2020-07-02_notAnId"));
+		assertThrows(IllegalArgumentException.class, () -> TransactionCursor.parse(null));
+	}
+
+}
@@ -1,20 +1,34 @@
 package com.paymybuddy;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.StringWriter;
+import java.sql.Date;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
+import com.paymybuddy.model.ActivityEntry;
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionCursor;
+import com.paymybuddy.model.TransactionExportFormat;
+import com.paymybuddy.model.TransactionExportRow;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.TransactionRepository;
 import com.paymybuddy.service.impl.TransactionServiceImpl;
@@ -41,14 +55,14 @@ public class TransactionServiceTest {
 	public void givenGettingTransactions_whenFindAllTransactionByUserSender_thenItReturnAllTheTransactionsForTheSpecifiedUser() {
 		// ARRANGE
 		User userSender = new User("emailFindAllTransactionByUserSender", "lastNameFindAllTransactionByUserSender",
-				"firstNameFindAllTransactionByUserSender", "passwordNotEncrypted", 20.0, null, null, null);
+				"firstNameFindAllTransactionByUserSender", "passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailFindAllTransactionByUserSender2", "lastNameFindAllTransactionByUserSender2",
-				"firstNameFindAllTransactionByUserSender2", "passwordNotEncrypted2", 0.0, null, null, null);
+				"firstNameFindAllTransactionByUserSender2", "passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
 		Transaction transaction = new Transaction(userSender, userReceiver, date,
-				"descriptionFindAllTransactionByUserEmail", 10.0);
+				"descriptionFindAllTransactionByUserEmail", Money.of("10.0"));
 		Transaction transaction2 = new Transaction(userSender, userReceiver, date,
-				"descriptionFindAllTransactionByUserEmail2", 10.0);
+				"descriptionFindAllTransactionByUserEmail2", Money.of("10.0"));
 		List<Transaction> transactionIterable = new ArrayList<Transaction>();
 		transactionIterable.add(transaction);
 		transactionIterable.add(transaction2);
@@ -62,4 +76,130 @@ public class TransactionServiceTest {
 		verify(transactionRepository, times(1)).findAllByUserSender(transaction.getUserSender());
 	}
 
+	@Test
+	public void givenGettingTheFirstPageOfTheHistory_whenFindHistory_thenItReadTheMostRecentTransactionsUpToTheLimit() {
+		// ARRANGE
+		User userSender = new User("emailFindHistory", "lastNameFindHistory", "firstNameFindHistory",
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
+		Transaction transaction = new Transaction(userSender, userSender, Date.valueOf("2020-07-02"),
+				"descriptionFindHistory", Money.of("10.0"));
+		when(transactionRepository.findHistory(1L, PageRequest.of(0, 20))).thenReturn(Arrays.asList(transaction));
+
+		// ACT
+		List<Transaction> result = transactionServiceImpl.findHistory(1L, null, 20);
+
+		// ASSERT
+		assertThat(result).containsExactly(transaction);
+		verify(transactionRepository, times(1)).findHistory(1L, PageRequest.of(0, 20));
+	}
+
+	@Test
+	public void givenGettingTheNextPageOfTheHistory_whenFindHistory_thenItReadTheTransactionsAfterTheCursor() {
+		// ARRANGE
+		TransactionCursor cursor = new TransactionCursor(Date.valueOf("2020-07-02"), 42L);
+		when(transactionRepository.findHistoryAfter(1L, cursor.getDate(), cursor.getId(), PageRequest.of(0, 20)))
+				.thenReturn(new ArrayList<Transaction>());
+
+		// ACT
+		List<Transaction> result = transactionServiceImpl.findHistory(1L, cursor, 20);
+
+		// ASSERT
+		assertThat(result).isEmpty();
+		verify(transactionRepository, times(1)).findHistoryAfter(1L, cursor.getDate(), cursor.getId(),
+				PageRequest.of(0, 20));
+		verify(transactionRepository, times(0)).findHistory(any(Long.class), any(Pageable.class));
+	}
+
+	@Test
+	public void givenSentAndReceivedTransactions_whenFindActivity_thenItMergeThemByDateWithSignedAmounts() {
+		// ARRANGE
+		TransactionExportRow sentRecent = new TransactionExportRow(3L, Date.valueOf("2020-07-03"), "descriptionSent",
+				Money.of("10.0"), "emailActivity", "emailFriend");
+		TransactionExportRow sentOld = new TransactionExportRow(1L, Date.valueOf("2020-07-01"), "descriptionSentOld",
+				Money.of("1.0"), "emailActivity", "emailFriend");
+		TransactionExportRow received = new TransactionExportRow(2L, Date.valueOf("2020-07-02"),
+				"descriptionReceived", Money.of("5.0"), "emailFriend2", "emailActivity");
+		when(transactionRepository.findHistorySummary(1L, PageRequest.of(0, 2)))
+				.thenReturn(Arrays.asList(sentRecent, sentOld));
+		when(transactionRepository.findReceivedSummary(1L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(received));
+
+		// ACT
+		List<ActivityEntry> result = transactionServiceImpl.findActivity(1L, null, 2);
+
+		// ASSERT
+		assertEquals(2, result.size());
+		assertEquals(3L, result.get(0).getTransactionId());
+		assertEquals(Money.of("-10.0"), result.get(0).getAmount());
+		assertEquals("emailFriend", result.get(0).getCounterpartEmail());
+		assertEquals(2L, result.get(1).getTransactionId());
+		assertEquals(Money.of("5.0"), result.get(1).getAmount());
+		assertEquals("emailFriend2", result.get(1).getCounterpartEmail());
+		assertEquals("2020-07-02_2", result.get(1).getCursor());
+	}
+
+	@Test
+	public void givenGettingTheNextPageOfTheActivity_whenFindActivity_thenBothStreamsStartAfterTheCursor() {
+		// ARRANGE
+		TransactionCursor cursor = new TransactionCursor(Date.valueOf("2020-07-02"), 2L);
+		when(transactionRepository.findHistorySummaryAfter(1L, cursor.getDate(), cursor.getId(),
+				PageRequest.of(0, 20))).thenReturn(new ArrayList<TransactionExportRow>());
+		when(transactionRepository.findReceivedSummaryAfter(1L, cursor.getDate(), cursor.getId(),
+				PageRequest.of(0, 20))).thenReturn(new ArrayList<TransactionExportRow>());
+
+		// ACT
+		List<ActivityEntry> result = transactionServiceImpl.findActivity(1L, cursor, 20);
+
+		// ASSERT
+		assertThat(result).isEmpty();
+		verify(transactionRepository, times(1)).findHistorySummaryAfter(1L, cursor.getDate(), cursor.getId(),
+				PageRequest.of(0, 20));
+		verify(transactionRepository, times(1)).findReceivedSummaryAfter(1L, cursor.getDate(), cursor.getId(),
+				PageRequest.of(0, 20));
+	}
+
+	@Test
+	public void givenGettingTheHistoryWithAWrongLimit_whenFindHistory_thenItThrowAnIllegalArgumentException() {
+		// ACT
+		// ASSERT
+		assertThrows(IllegalArgumentException.class, () -> transactionServiceImpl.findHistory(1L, null, 0));
+		assertThrows(IllegalArgumentException.class, () -> transactionServiceImpl.findHistory(1L, null,
+				TransactionServiceImpl.MAXIMUM_HISTORY_LIMIT + 1));
+	}
+
+	@Test
+	public void givenExportingTheHistoryAsCsv_whenExportHistory_thenItWriteAHeaderAndOneEscapedLinePerTransaction() {
+		// ARRANGE
+		StringWriter writer = new StringWriter();
+		when(transactionRepository.streamExportRows(1L)).thenReturn(Stream.of(
+				new TransactionExportRow(1L, Date.valueOf("2020-07-01"), "rent, july", Money.of("10.0"), "emailSender",
+						"emailReceiver"),
+				new TransactionExportRow(2L, Date.valueOf("2020-07-02"), "the \"best\" pizza", Money.of("2.5"),
+						"emailReceiver", "emailSender")));
+
+		// ACT
+		long result = transactionServiceImpl.exportHistory(1L, TransactionExportFormat.CSV, writer);
+
+		// ASSERT
+		assertEquals(2, result);
+		assertEquals(TransactionServiceImpl.CSV_HEADER + "\n"
+				+ "1,2020-07-01,\"rent, july\",10.00,emailSender,emailReceiver\n"
+				+ "2,2020-07-02,\"the \"\"best\"\" pizza\",2.50,emailReceiver,emailSender\n", writer.toString());
+	}
+
+	@Test
+	public void givenExportingTheHistoryAsNdjson_whenExportHistory_thenItWriteOneJsonObjectPerLine() {
+		// ARRANGE
+		StringWriter writer = new StringWriter();
+		when(transactionRepository.streamExportRows(1L)).thenReturn(Stream.of(new TransactionExportRow(1L,
+				Date.valueOf("2020-07-01"), "the \"best\" pizza", Money.of("10.0"), "emailSender", "emailReceiver")));
+
+		// ACT
+		long result = transactionServiceImpl.exportHistory(1L, TransactionExportFormat.NDJSON, writer);
+
+		// ASSERT
+		assertEquals(1, result);
+		assertEquals("{\"id\":1,\"date\":\"2020-07-01\",\"description\":\"the \\\"best\\\" pizza\","
+				+ "\"amount\":10.00,\"sender\":\"emailSender\",\"receiver\":\"emailReceiver\"}\n", writer.toString());
+	}
+
 }
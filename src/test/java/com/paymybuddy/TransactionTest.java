@@ -16,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.TransactionRepository;
@@ -40,20 +41,17 @@ public class TransactionTest {
 	public void givenGettingATransaction_whenFindById_thenItReturnTheRightTransaction() {
 		// ARRANGE
 		User userSender = new User("emailFindById", "lastNameFindById", "firstNameFindById", "passwordNotEncrypted",
-				20.0, null, null, null);
+				Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailFindById2", "lastNameFindById2", "firstNameFindById2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
-		transaction.setId(1);
-		userSender.setId(1);
-		userReceiver.setId(2);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
 
 		// ACT
-		Optional<Transaction> result = transactionRepository.findById(1);
+		Optional<Transaction> result = transactionRepository.findById(transaction.getId());
 
 		// ASSERT
 		assertTrue(result.isPresent());
@@ -65,17 +63,13 @@ public class TransactionTest {
 	@Test
 	public void givenGettingTransactions_whenFindAll_thenItReturnAllTheTransactionsForTheSpecifiedUser() {
 		// ARRANGE
-		User userSender = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", 20.0,
+		User userSender = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, null);
 		User userReceiver = new User("emailFindAll2", "lastNameFindAll2", "firstNameFindAll2", "passwordNotEncrypted2",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
-		Transaction transaction2 = new Transaction(userSender, userReceiver, date, "descriptionFindAll2", 10.0);
-		transaction.setId(1);
-		transaction2.setId(2);
-		userSender.setId(1);
-		userReceiver.setId(2);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
+		Transaction transaction2 = new Transaction(userSender, userReceiver, date, "descriptionFindAll2", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
@@ -92,17 +86,13 @@ public class TransactionTest {
 	public void givenGettingTransactions_whenFindAllByUserSender_thenItReturnAllTheTransactionsForTheSpecifiedUser() {
 		// ARRANGE
 		User userSender = new User("emailFindAllByUserSender", "lastNameFindAllByUserSender",
-				"firstNameFindAllByUserSender", "passwordNotEncrypted", 20.0, null, null, null);
+				"firstNameFindAllByUserSender", "passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailFindAllByUserSender2", "lastNameFindAllByUserSender2",
-				"firstNameFindAllByUserSender2", "passwordNotEncrypted2", 0.0, null, null, null);
+				"firstNameFindAllByUserSender2", "passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		Transaction transaction2 = new Transaction(userSender, userReceiver, date, "descriptionFindAllByUserEmail2",
-				10.0);
-		transaction.setId(1);
-		transaction2.setId(2);
-		userSender.setId(1);
-		userReceiver.setId(2);
+				Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
@@ -118,21 +108,18 @@ public class TransactionTest {
 	@Test
 	public void givenSavingATransaction_whenSave_thenItSaveTheTransaction() {
 		// ARRANGE
-		User userSender = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 20.0, null,
+		User userSender = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("20.0"), null,
 				null, null);
-		User userReceiver = new User("emailSave2", "lastNameSave2", "firstNameSave2", "passwordNotEncrypted2", 0.0,
+		User userReceiver = new User("emailSave2", "lastNameSave2", "firstNameSave2", "passwordNotEncrypted2", Money.of("0.0"),
 				null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
-		transaction.setId(1);
-		userSender.setId(1);
-		userReceiver.setId(2);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 
 		// ACT
 		transactionRepository.save(transaction);
-		Optional<Transaction> result = transactionRepository.findById(1);
+		Optional<Transaction> result = transactionRepository.findById(transaction.getId());
 
 		// ASSERT
 		assertEquals(transaction.getUserSender().getEmail(), result.get().getUserSender().getEmail());
@@ -144,25 +131,22 @@ public class TransactionTest {
 	public void givenUpdatingATransaction_whenFindSetSave_thenItUpdateTheTransaction() {
 		// ARRANGE
 		User userSender = new User("emailFindSetSave", "lastNameFindSetSave", "firstNameFindSetSave",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailFindSetSave2", "lastNameFindSetSave2", "firstNameFindSetSave2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
-		transaction.setId(1);
-		userSender.setId(1);
-		userReceiver.setId(2);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
 
 		// ACT
-		Optional<Transaction> transactionToUpdate = transactionRepository.findById(1);
+		Optional<Transaction> transactionToUpdate = transactionRepository.findById(transaction.getId());
 		transactionToUpdate.get().setDescription("descriptionUpdated");
-		transactionToUpdate.get().setAmount(20.0);
+		transactionToUpdate.get().setAmount(Money.of("20.0"));
 		transactionToUpdate.get().setDate(date);
 		transactionRepository.save(transactionToUpdate.get());
-		Optional<Transaction> result = transactionRepository.findById(1);
+		Optional<Transaction> result = transactionRepository.findById(transaction.getId());
 
 		// ASSERT
 		assertEquals(transactionToUpdate.get().getUserSender().getEmail(), result.get().getUserSender().getEmail());
@@ -172,22 +156,19 @@ public class TransactionTest {
 	@Test
 	public void givenDeletingATransaction_whenDelete_thenItDeleteTheTransaction() {
 		// ARRANGE
-		User userSender = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", 20.0,
+		User userSender = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, null);
 		User userReceiver = new User("emailDelete2", "lastNameDelete2", "firstNameDelete2", "passwordNotEncrypted2",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
-		transaction.setId(1);
-		userSender.setId(1);
-		userReceiver.setId(2);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
 
 		// ACT
-		transactionRepository.deleteById(1);
-		Optional<Transaction> result = transactionRepository.findById(1);
+		transactionRepository.deleteById(transaction.getId());
+		Optional<Transaction> result = transactionRepository.findById(transaction.getId());
 
 		// ASSERT
 		assertThat(result).isEmpty();
@@ -198,15 +179,15 @@ public class TransactionTest {
 	public void givenGettingAWrongTransaction_whenFindById_thenItThrowsAnException() {
 		// ARRANGE
 		User userSender = new User("emailFindById", "lastNameFindById", "firstNameFindById", "passwordNotEncrypted",
-				20.0, null, null, null);
+				Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailFindById2", "lastNameFindById2", "firstNameFindById2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", 10.0);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionFindById", Money.of("10.0"));
 		testEntityManager.persist(transaction);
 
 		// ACT
-		Optional<Transaction> result = transactionRepository.findById(999);
+		Optional<Transaction> result = transactionRepository.findById(999L);
 
 		// ASSERT
 		assertFalse(result.isPresent());
@@ -0,0 +1,220 @@
+package com.paymybuddy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.paymybuddy.concurrency.GroupCommitExecutor;
+import com.paymybuddy.controller.TransferController;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
+import com.paymybuddy.model.TransferStatus;
+import com.paymybuddy.model.User;
+import com.paymybuddy.security.AccessToken;
+import com.paymybuddy.security.UserPrincipal;
+import com.paymybuddy.wal.WriteAheadTransferService;
+
+public class TransferControllerTest {
+
+	@Mock
+	private GroupCommitExecutor groupCommitExecutor;
+
+	@Mock
+	private WriteAheadTransferService writeAheadTransferService;
+
+	private TransferController transferController;
+
+	private UsernamePasswordAuthenticationToken userA;
+
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		transferController = new TransferController(groupCommitExecutor, writeAheadTransferService);
+		User user = new User("emailA", "lastNameA", "firstNameA", "passwordNotEncrypted", Money.of("100.0"), null,
+				null, null);
+		userA = new UsernamePasswordAuthenticationToken(new UserPrincipal(user), null,
+				Collections.singleton(new SimpleGrantedAuthority("USER")));
+		when(groupCommitExecutor.submit(any(TransferRequest.class)))
+				.thenAnswer(invocation -> TransferResult.succeeded(invocation.getArgument(0)));
+	}
+
+	@Test
+	public void givenUserATryingToDebitUserB_whenTransfer_thenItIsForbidden() {
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, "emailB", "emailC", "10.0", null, null);
+
+		// ASSERT
+		assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+		verify(groupCommitExecutor, never()).submit(any(TransferRequest.class));
+		verify(writeAheadTransferService, never()).submit(any(TransferRequest.class));
+	}
+
+	@Test
+	public void givenALoggedInUser_whenTransfer_thenTheMoneyIsSentByTheAuthenticatedUser() {
+		// ARRANGE
+		ArgumentCaptor<TransferRequest> transferRequest = ArgumentCaptor.forClass(TransferRequest.class);
+
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, null, "emailB", "10.0", "description", null);
+
+		// ASSERT
+		assertEquals(HttpStatus.OK, result.getStatusCode());
+		verify(groupCommitExecutor, times(1)).submit(transferRequest.capture());
+		assertEquals("emailA", transferRequest.getValue().getEmailOfTheUserSendingMoney());
+		assertEquals("emailB", transferRequest.getValue().getEmailOfTheUserGettingMoney());
+	}
+
+	@Test
+	public void givenABearerToken_whenTransfer_thenTheMoneyIsSentByTheUserOfTheToken() {
+		// ARRANGE
+		UsernamePasswordAuthenticationToken bearer = new UsernamePasswordAuthenticationToken("emailA", null,
+				Collections.singleton(new SimpleGrantedAuthority("USER")));
+		bearer.setDetails(new AccessToken("tokenId", "emailA", 0, Long.MAX_VALUE));
+		ArgumentCaptor<TransferRequest> transferRequest = ArgumentCaptor.forClass(TransferRequest.class);
+
+		// ACT
+		ResponseEntity<Object> forbidden = transferController.transfer(bearer, "emailB", "emailC", "10.0", null, null);
+		transferController.transfer(bearer, null, "emailB", "10.0", null, null);
+
+		// ASSERT
+		assertEquals(HttpStatus.FORBIDDEN, forbidden.getStatusCode());
+		verify(groupCommitExecutor, times(1)).submit(transferRequest.capture());
+		assertEquals("emailA", transferRequest.getValue().getEmailOfTheUserSendingMoney());
+	}
+
+	@Test
+	public void givenNoAuthenticatedUser_whenTransfer_thenItIsForbidden() {
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(null, null, "emailB", "10.0", null, null);
+
+		// ASSERT
+		assertEquals(HttpStatus.FORBIDDEN, result.getStatusCode());
+	}
+
+	@Test
+	public void givenAnIdempotencyKey_whenTransfer_thenTheTransferIsJournaledWithItsKey() {
+		// ARRANGE
+		when(writeAheadTransferService.isEnabled()).thenReturn(true);
+		when(writeAheadTransferService.submit(any(TransferRequest.class))).thenReturn(3L);
+		ArgumentCaptor<TransferRequest> transferRequest = ArgumentCaptor.forClass(TransferRequest.class);
+
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, null, "emailB", "10.0", "description",
+				"idempotencyKey");
+
+		// ASSERT
+		assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+		assertEquals(3L, result.getBody());
+		verify(writeAheadTransferService, times(1)).submit(transferRequest.capture());
+		assertEquals("idempotencyKey", transferRequest.getValue().getIdempotencyKey());
+		verify(groupCommitExecutor, never()).submit(any(TransferRequest.class));
+	}
+
+	@Test
+	public void givenAnIdempotencyKeyAndNoJournal_whenTransfer_thenTheTransferIsCommittedByGroupWithItsKey() {
+		// ARRANGE
+		ArgumentCaptor<TransferRequest> transferRequest = ArgumentCaptor.forClass(TransferRequest.class);
+
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, null, "emailB", "10.0", "description",
+				"idempotencyKey");
+
+		// ASSERT
+		assertEquals(HttpStatus.OK, result.getStatusCode());
+		verify(groupCommitExecutor, times(1)).submit(transferRequest.capture());
+		assertEquals("idempotencyKey", transferRequest.getValue().getIdempotencyKey());
+		assertEquals(Money.of("10.0"), transferRequest.getValue().getAmount());
+	}
+
+	@Test
+	public void givenAKeyAlreadyUsedForAnotherTransfer_whenTransfer_thenItIsABadRequest() {
+		// ARRANGE
+		when(writeAheadTransferService.isEnabled()).thenReturn(true);
+		when(writeAheadTransferService.submit(any(TransferRequest.class))).thenThrow(new IllegalArgumentException(
+				"The provided idempotency key: << idempotencyKey >> is already used by another request."));
+
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, null, "emailB", "20.0", null,
+				"idempotencyKey");
+
+		// ASSERT
+		assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+	}
+
+	@Test
+	public void givenAMalformedAmount_whenTransfer_thenItIsABadRequest() {
+		// ACT
+		ResponseEntity<Object> notANumber = transferController.transfer(userA, null, "emailB", "ten", null, null);
+		ResponseEntity<Object> tooManyDecimals = transferController.transfer(userA, null, "emailB", "10.001", null,
+				null);
+
+		// ASSERT
+		assertEquals(HttpStatus.BAD_REQUEST, notANumber.getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, tooManyDecimals.getStatusCode());
+		verify(groupCommitExecutor, never()).submit(any(TransferRequest.class));
+	}
+
+	@Test
+	public void givenAnUnknownReceiver_whenTransfer_thenItIsNotFound() {
+		// ARRANGE
+		when(writeAheadTransferService.isEnabled()).thenReturn(true);
+		when(writeAheadTransferService.submit(any(TransferRequest.class)))
+				.thenThrow(new NoSuchElementException("The provided User: << emailB >> cannot be found."));
+
+		// ACT
+		ResponseEntity<Object> result = transferController.transfer(userA, null, "emailB", "10.0", null, null);
+
+		// ASSERT
+		assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+	}
+
+	@Test
+	public void givenARejectedJournaledTransfer_whenGetStatus_thenItsSenderReadsWhyItWasRejected() {
+		// ARRANGE
+		when(writeAheadTransferService.isEnabled()).thenReturn(true);
+		when(writeAheadTransferService.getStatus("emailA", 7L))
+				.thenReturn(TransferStatus.rejected(7L, "The money available on the account is not enough."));
+
+		// ACT
+		ResponseEntity<TransferStatus> result = transferController.getStatus(userA, 7L);
+
+		// ASSERT
+		assertEquals(HttpStatus.OK, result.getStatusCode());
+		assertEquals(TransferStatus.State.REJECTED, result.getBody().getState());
+		assertEquals("The money available on the account is not enough.", result.getBody().getMessage());
+	}
+
+	@Test
+	public void givenATransferOfAnotherUser_whenGetStatus_thenItIsNotFound() {
+		// ARRANGE
+		when(writeAheadTransferService.isEnabled()).thenReturn(true);
+		when(writeAheadTransferService.getStatus(anyString(), anyLong()))
+				.thenThrow(new NoSuchElementException("The provided transfer: << 7 >> cannot be found."));
+
+		// ACT
+		ResponseEntity<TransferStatus> result = transferController.getStatus(userA, 7L);
+
+		// ASSERT
+		assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+	}
+
+}
@@ -0,0 +1,158 @@
+package com.paymybuddy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.wal.JournaledTransfer;
+import com.paymybuddy.wal.TransferJournal;
+
+public class TransferJournalTest {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("transferJournalTest");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (Path path : segments()) {
+			Files.delete(path);
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void givenAppendedTransfers_whenOpenAgain_thenTheTransfersAreReadInOrder() {
+		// ARRANGE
+		TransferJournal transferJournal = new TransferJournal(directory, 4096);
+		transferJournal.open();
+		transferJournal.append(new TransferRequest("emailSender", "emailReceiver", "description", Money.of("10.0")));
+		transferJournal.append(new TransferRequest("emailSender", "emailReceiver", null, Money.of("2.50"), "key"));
+		transferJournal.force();
+		transferJournal.close();
+
+		// ACT
+		TransferJournal reopened = new TransferJournal(directory, 4096);
+		List<JournaledTransfer> result = reopened.open();
+
+		// ASSERT
+		assertEquals(2, result.size());
+		assertEquals(1L, result.get(0).getSequence());
+		assertEquals("description", result.get(0).getTransferRequest().getDescription());
+		assertEquals(Money.of("10.0"), result.get(0).getTransferRequest().getAmount());
+		assertNull(result.get(0).getTransferRequest().getIdempotencyKey());
+		assertEquals(2L, result.get(1).getSequence());
+		assertNull(result.get(1).getTransferRequest().getDescription());
+		assertEquals("key", result.get(1).getTransferRequest().getIdempotencyKey());
+		assertEquals(2L, reopened.getLastSequence());
+		reopened.close();
+	}
+
+	@Test
+	public void givenACorruptedLastRecord_whenOpen_thenItIsDroppedAndOverwritten() throws IOException {
+		// ARRANGE
+		TransferJournal transferJournal = new TransferJournal(directory, 4096);
+		transferJournal.open();
+		transferJournal.append(new TransferRequest("emailSender", "emailReceiver", "first", Money.of("1.0")));
+		transferJournal.append(new TransferRequest("emailSender", "emailReceiver", "second", Money.of("2.0")));
+		transferJournal.close();
+		corruptLastByteOfSecondRecord();
+
+		// ACT
+		TransferJournal reopened = new TransferJournal(directory, 4096);
+		List<JournaledTransfer> result = reopened.open();
+		long sequence = reopened.append(new TransferRequest("emailSender", "emailReceiver", "third", Money.of("3.0")));
+		reopened.close();
+
+		// ASSERT
+		assertEquals(1, result.size());
+		assertEquals(2L, sequence);
+		TransferJournal afterAppend = new TransferJournal(directory, 4096);
+		List<JournaledTransfer> transfers = afterAppend.open();
+		afterAppend.close();
+		assertEquals(2, transfers.size());
+		assertEquals("third", transfers.get(1).getTransferRequest().getDescription());
+	}
+
+	@Test
+	public void givenSegmentsFilled_whenDeleteSegmentsUpTo_thenTheAppliedSegmentsAreDeleted() throws IOException {
+		// ARRANGE
+		TransferJournal transferJournal = new TransferJournal(directory, 4096);
+		transferJournal.open();
+		for (int i = 0; i < 200; i++) {
+			transferJournal.append(new TransferRequest("emailSender", "emailReceiver", "description", Money.of("1.0")));
+		}
+		int segmentsBefore = segments().size();
+
+		// ACT
+		transferJournal.deleteSegmentsUpTo(200);
+		transferJournal.close();
+
+		// ASSERT
+		assertEquals(true, segmentsBefore > 1);
+		assertEquals(1, segments().size());
+	}
+
+	@Test
+	public void givenAnEmptyJournal_whenSkipTo_thenTheNextSequenceFollowsIt() {
+		// ARRANGE
+		TransferJournal transferJournal = new TransferJournal(directory, 4096);
+		transferJournal.open();
+
+		// ACT
+		transferJournal.skipTo(41);
+		long result = transferJournal
+				.append(new TransferRequest("emailSender", "emailReceiver", "description", Money.of("1.0")));
+		transferJournal.close();
+
+		// ASSERT
+		TransferJournal reopened = new TransferJournal(directory, 4096);
+		assertEquals(42L, result);
+		assertEquals(42L, reopened.open().get(0).getSequence());
+		reopened.close();
+	}
+
+	private void corruptLastByteOfSecondRecord() throws IOException {
+		try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			channel.read(length, 0);
+			int secondRecord = 16 + length.getInt(0);
+			channel.read((ByteBuffer) length.clear(), secondRecord);
+			int lastByte = secondRecord + 16 + length.getInt(0) - 1;
+			ByteBuffer value = ByteBuffer.allocate(1);
+			channel.read(value, lastByte);
+			value.put(0, (byte) (value.get(0) + 1));
+			value.rewind();
+			channel.write(value, lastByte);
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			stream.forEach(paths::add);
+		}
+		paths.sort(null);
+		return paths;
+	}
+
+}
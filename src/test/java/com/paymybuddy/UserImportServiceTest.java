@@ -0,0 +1,161 @@
+package com.paymybuddy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.UserImportCheckpoint;
+import com.paymybuddy.model.UserImportFormat;
+import com.paymybuddy.repository.UserImportCheckpointRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.security.PasswordHashPolicy;
+import com.paymybuddy.service.impl.UserImportServiceImpl;
+
+public class UserImportServiceTest {
+
+	@InjectMocks
+	private UserImportServiceImpl userImportService;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private UserImportCheckpointRepository userImportCheckpointRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private List<User> savedUsers;
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void init() {
+		MockitoAnnotations.initMocks(this);
+		PasswordHashPolicy.setCost(4);
+		savedUsers = new ArrayList<>();
+		doAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null))
+				.when(transactionTemplate).execute(any());
+		doAnswer(invocation -> {
+			((Iterable<User>) invocation.getArgument(0)).forEach(savedUsers::add);
+			return invocation.getArgument(0);
+		}).when(userRepository).saveAll(any());
+		when(userImportCheckpointRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(userImportCheckpointRepository.findById("import")).thenReturn(Optional.empty());
+		when(userRepository.findExistingEmails(anyCollection())).thenReturn(Collections.emptyList());
+	}
+
+	@After
+	public void clear() {
+		PasswordHashPolicy.setCost(PasswordHashPolicy.DEFAULT_COST);
+	}
+
+	@Test
+	public void givenACsvFile_whenImportUsers_thenTheValidUsersAreSavedWithAHashedPasswordAndAnEmptyBalance() {
+		// ARRANGE
+		String file = UserImportServiceImpl.CSV_HEADER + "\n"
+				+ "emailImport,lastNameImport,firstNameImport,passwordImport,10.5\n"
+				+ "\"emailImport2\",\"lastName, Import2\",firstNameImport2,passwordImport2,\n"
+				+ "emailImport3,lastNameImport3,firstNameImport3,,\n";
+
+		// ACT
+		UserImportCheckpoint result = userImportService.importUsers("import", UserImportFormat.CSV,
+				new StringReader(file));
+
+		// ASSERT
+		assertThat(savedUsers).extracting(User::getEmail).containsExactly("emailImport", "emailImport2");
+		assertEquals(Money.ZERO, savedUsers.get(0).getMoneyAvailable());
+		assertEquals("lastName, Import2", savedUsers.get(1).getLastName());
+		assertTrue(BCrypt.checkpw("passwordImport", savedUsers.get(0).getPassword()));
+		assertEquals(3, result.getLinesProcessed());
+		assertEquals(2, result.getImported());
+		assertEquals(1, result.getRejected());
+		assertTrue(result.isCompleted());
+	}
+
+	@Test
+	public void givenAnNdjsonFileWithDuplicates_whenImportUsers_thenTheDuplicatesAreSkipped() {
+		// ARRANGE
+		String file = "{\"email\":\"emailImport\",\"password\":\"passwordImport\"}\n"
+				+ "{\"email\":\"emailImport\",\"password\":\"passwordImport\"}\n"
+				+ "{\"email\":\"emailExisting\",\"password\":\"passwordImport\"}\n" + "not json\n";
+		when(userRepository.findExistingEmails(anyCollection())).thenReturn(Arrays.asList("emailExisting"));
+
+		// ACT
+		UserImportCheckpoint result = userImportService.importUsers("import", UserImportFormat.NDJSON,
+				new StringReader(file));
+
+		// ASSERT
+		assertThat(savedUsers).extracting(User::getEmail).containsExactly("emailImport");
+		assertEquals(2, result.getDuplicates());
+		assertEquals(1, result.getRejected());
+	}
+
+	@Test
+	public void givenAnInterruptedImport_whenImportUsersAgain_thenItResumeAfterTheLinesAlreadyProcessed() {
+		// ARRANGE
+		UserImportCheckpoint checkpoint = new UserImportCheckpoint("import");
+		checkpoint.advance(1, 1, 0, 0);
+		when(userImportCheckpointRepository.findById("import")).thenReturn(Optional.of(checkpoint));
+		String file = UserImportServiceImpl.CSV_HEADER + "\n" + "emailImport,,,passwordImport,\n"
+				+ "emailImport2,,,passwordImport2,\n";
+
+		// ACT
+		UserImportCheckpoint result = userImportService.importUsers("import", UserImportFormat.CSV,
+				new StringReader(file));
+
+		// ASSERT
+		assertThat(savedUsers).extracting(User::getEmail).containsExactly("emailImport2");
+		assertEquals(2, result.getLinesProcessed());
+		assertEquals(2, result.getImported());
+	}
+
+	@Test
+	public void givenACompletedImport_whenImportUsersAgain_thenNothingIsRead() {
+		// ARRANGE
+		UserImportCheckpoint checkpoint = new UserImportCheckpoint("import");
+		checkpoint.complete();
+		when(userImportCheckpointRepository.findById("import")).thenReturn(Optional.of(checkpoint));
+
+		// ACT
+		UserImportCheckpoint result = userImportService.importUsers("import", UserImportFormat.CSV,
+				new StringReader("emailImport,,,passwordImport,\n"));
+
+		// ASSERT
+		assertTrue(result.isCompleted());
+		verify(userRepository, never()).saveAll(any());
+	}
+
+	@Test
+	public void givenABlankImportId_whenImportUsers_thenItThrowsAnIllegalArgumentException() {
+		// ACT
+		assertThrows(IllegalArgumentException.class,
+				() -> userImportService.importUsers(" ", UserImportFormat.CSV, new StringReader("")));
+	}
+
+}
@@ -19,6 +19,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.UserRepository;
 import com.paymybuddy.service.impl.UserServiceImpl;
@@ -45,7 +46,7 @@ public class UserServiceTest {
 	public void givenGettingAnUser_whenGetUser_thenItReturnTheRightUser() {
 		// ARRANGE
 		User user = new User("emailFindByEmail", "lastNameFindByEmail", "firstNameFindByEmail", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		Optional<User> userOptional = Optional.of(user);
 		when(userRepository.findByEmail(user.getEmail())).thenReturn(userOptional);
 
@@ -61,9 +62,9 @@ public class UserServiceTest {
 	@Test
 	public void givenGettingUsers_whenFindAllUser_thenItReturnAllUsers() {
 		// ARRANGE
-		User user = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		User user2 = new User("emailFindAll2", "lastNameFindAll2", "firstNameFindAll2", "passwordNotEncrypted2", 0.02,
+		User user2 = new User("emailFindAll2", "lastNameFindAll2", "firstNameFindAll2", "passwordNotEncrypted2", Money.of("0.02"),
 				null, null, null);
 		List<User> userIterable = new ArrayList<User>();
 		userIterable.add(user);
@@ -81,7 +82,7 @@ public class UserServiceTest {
 	@Test
 	public void givenCreatingAnUser_whenCreateUser_thenItSaveTheUser() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		Optional<User> userOptional = Optional.of(user);
 		when(userRepository.save(user)).thenReturn(user);
@@ -104,7 +105,7 @@ public class UserServiceTest {
 	@Test
 	public void givenUpdatingAnUser_whenUpdateUser_thenItUpdateTheUser() {
 		// ARRANGE
-		User user = new User("emailUpdate", "lastNameUpdate", "firstNameUpdate", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailUpdate", "lastNameUpdate", "firstNameUpdate", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
 		Optional<User> userOptional = Optional.of(user);
 		when(userRepository.save(user)).thenReturn(user);
@@ -115,7 +116,7 @@ public class UserServiceTest {
 		userToUpdate.get().setFirstName("firstNameUpdated");
 		userToUpdate.get().setLastName("lastNameUpdated");
 		userToUpdate.get().setPassword("passwordUpdated");
-		userToUpdate.get().setMoneyAvailable(10.0);
+		userToUpdate.get().setMoneyAvailable(Money.of("10.0"));
 		userToUpdate.get().setBankAccount(null);
 		userToUpdate.get().setTransaction(null);
 		userToUpdate.get().setFriends(null);
@@ -132,7 +133,7 @@ public class UserServiceTest {
 	@Test
 	public void givenDeletingAnUser_whenDeleteUser_thenItDeleteTheUser() {
 		// ARRANGE
-		User user = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
 
 		// ACT
@@ -17,6 +17,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.UserRepository;
 
@@ -40,7 +41,7 @@ public class UserTest {
 	public void givenGettingAnUser_whenFindByEmail_thenItReturnTheRightUser() {
 		// ARRANGE
 		User user = new User("emailFindByEmail", "lastNameFindByEmail", "firstNameFindByEmail", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -55,11 +56,10 @@ public class UserTest {
 	@Test
 	public void givenGettingUsers_whenFindAll_thenItReturnAllUsers() {
 		// ARRANGE
-		User user = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailFindAll", "lastNameFindAll", "firstNameFindAll", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		User user2 = new User("emailFindAll2", "lastNameFindAll2", "firstNameFindAll2", "passwordNotEncrypted2", 0.02,
+		User user2 = new User("emailFindAll2", "lastNameFindAll2", "firstNameFindAll2", "passwordNotEncrypted2", Money.of("0.02"),
 				null, null, null);
-		user2.setId(2);
 		testEntityManager.persist(user);
 		testEntityManager.persist(user2);
 
@@ -73,7 +73,7 @@ public class UserTest {
 	@Test
 	public void givenSavingAnUser_whenSave_thenItSaveTheUser() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 
 		// ACT
@@ -91,7 +91,7 @@ public class UserTest {
 	@Test
 	public void givenUpdatingAnUser_whenFindSetSave_thenItUpdateTheUser() {
 		// ARRANGE
-		User user = new User("emailUpdate", "lastNameUpdate", "firstNameUpdate", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailUpdate", "lastNameUpdate", "firstNameUpdate", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
 		testEntityManager.persist(user);
 
@@ -100,7 +100,7 @@ public class UserTest {
 		userToUpdate.get().setFirstName("firstNameUpdated");
 		userToUpdate.get().setLastName("lastNameUpdated");
 		userToUpdate.get().setPassword("passwordUpdated");
-		userToUpdate.get().setMoneyAvailable(10.0);
+		userToUpdate.get().setMoneyAvailable(Money.of("10.0"));
 		userToUpdate.get().setBankAccount(null);
 		userToUpdate.get().setTransaction(null);
 		userRepository.save(userToUpdate.get());
@@ -114,9 +114,8 @@ public class UserTest {
 	@Test
 	public void givenDeletingAnUser_whenDelete_thenItDeleteTheUser() {
 		// ARRANGE
-		User user = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailDelete", "lastNameDelete", "firstNameDelete", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		user.setId(1);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -132,7 +131,7 @@ public class UserTest {
 	public void givenGettingAWrongUser_whenFindByEmail_thenItThrowsAnException() {
 		// ARRANGE
 		User user = new User("emailFindByEmail", "lastNameFindByEmail", "firstNameFindByEmail", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -146,7 +145,7 @@ public class UserTest {
 	@Test
 	public void givenSettingANewUser_whenSave_thenTheUserIsSavedAndThePasswordIsEncrypted() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		testEntityManager.persist(user);
 
@@ -0,0 +1,151 @@
+package com.paymybuddy.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark comparing the transfer throughput when the fee is credited to the
+ * paymybuddy account row by every transfer (<b>direct</b>) and when it is
+ * inserted as a pending fee (<b>pending</b>), as the number of concurrent
+ * transfers increase. <br>
+ * It runs against an in-memory H2 database, every statement is followed by a
+ * pause simulating the round-trip to the database server, so that the row
+ * locks are held as long as they would be in production. <br>
+ * <br>
+ * It is not run by the build, launch it with its main method: <br>
+ * <code>java PendingFeeBenchmark [durationInSeconds] [roundTripMicros]</code>
+ */
+public class PendingFeeBenchmark {
+
+	private static final int NUMBER_OF_USERS = 1_000;
+	private static final int PAYMYBUDDY_ACCOUNT_ID = 0;
+	private static final int[] CONCURRENCY_LEVELS = { 1, 2, 4, 8, 16, 32 };
+
+	private final String url;
+	private final long roundTripNanos;
+
+	public PendingFeeBenchmark(String url, long roundTripNanos) {
+		this.url = url;
+		this.roundTripNanos = roundTripNanos;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int durationInSeconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		long roundTripMicros = args.length > 1 ? Long.parseLong(args[1]) : 200;
+
+		PendingFeeBenchmark benchmark = new PendingFeeBenchmark(
+				"jdbc:h2:mem:pending_fee_benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000",
+				TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+		benchmark.createSchema();
+
+		System.out.printf("%-8s %14s %14s %8s%n", "threads", "direct tx/s", "pending tx/s", "ratio");
+		for (int threads : CONCURRENCY_LEVELS) {
+			double direct = benchmark.run(threads, durationInSeconds, false);
+			double pending = benchmark.run(threads, durationInSeconds, true);
+			System.out.printf("%-8d %14.0f %14.0f %7.2fx%n", threads, direct, pending, pending / direct);
+		}
+	}
+
+	private void createSchema() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url); Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE user (id INT PRIMARY KEY, money_available DECIMAL(19, 2) NOT NULL)");
+			statement.execute("CREATE TABLE pending_fee (id INT AUTO_INCREMENT PRIMARY KEY, shard INT NOT NULL,"
+					+ " amount DECIMAL(19, 2) NOT NULL)");
+			try (PreparedStatement insert = connection
+					.prepareStatement("INSERT INTO user (id, money_available) VALUES (?, ?)")) {
+				for (int id = 0; id <= NUMBER_OF_USERS; id++) {
+					insert.setInt(1, id);
+					insert.setBigDecimal(2, new java.math.BigDecimal("1000000.00"));
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		}
+	}
+
+	/**
+	 * Run the transfers on the given number of threads for the given duration.
+	 * 
+	 * @return the number of committed transfers per second
+	 */
+	private double run(int threads, int durationInSeconds, boolean pendingFee) throws InterruptedException {
+		AtomicBoolean running = new AtomicBoolean(true);
+		LongAdder committed = new LongAdder();
+		CountDownLatch done = new CountDownLatch(threads);
+		List<Thread> workers = new ArrayList<>();
+
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(() -> {
+				try (Connection connection = DriverManager.getConnection(url)) {
+					connection.setAutoCommit(false);
+					while (running.get()) {
+						transfer(connection, pendingFee);
+						committed.increment();
+					}
+				} catch (SQLException e) {
+					throw new IllegalStateException(e);
+				} finally {
+					done.countDown();
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+
+		long start = System.nanoTime();
+		Thread.sleep(TimeUnit.SECONDS.toMillis(durationInSeconds));
+		running.set(false);
+		done.await();
+		long elapsed = System.nanoTime() - start;
+		return committed.sum() / (elapsed / 1_000_000_000.0);
+	}
+
+	private void transfer(Connection connection, boolean pendingFee) throws SQLException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int sender = 1 + random.nextInt(NUMBER_OF_USERS);
+		int receiver = 1 + random.nextInt(NUMBER_OF_USERS);
+
+		try (PreparedStatement fee = connection.prepareStatement(pendingFee
+				? "INSERT INTO pending_fee (shard, amount) VALUES (?, 0.50)"
+				: "UPDATE user SET money_available = money_available + 0.50 WHERE id = ?");
+				PreparedStatement debit = connection
+						.prepareStatement("UPDATE user SET money_available = money_available - 10.50 WHERE id = ?");
+				PreparedStatement credit = connection
+						.prepareStatement("UPDATE user SET money_available = money_available + 10.00 WHERE id = ?")) {
+			// The rows are updated in the id order to avoid deadlocks between the workers, the
+			// paymybuddy account having the lowest id its row is always the first one locked.
+			fee.setInt(1, pendingFee ? (int) (Thread.currentThread().getId() % 16) : PAYMYBUDDY_ACCOUNT_ID);
+			execute(fee);
+			debit.setInt(1, sender);
+			credit.setInt(1, receiver);
+			if (sender < receiver) {
+				execute(debit);
+				execute(credit);
+			} else {
+				execute(credit);
+				execute(debit);
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		}
+	}
+
+	private void execute(PreparedStatement statement) throws SQLException {
+		statement.executeUpdate();
+		LockSupport.parkNanos(roundTripNanos);
+	}
+
+}
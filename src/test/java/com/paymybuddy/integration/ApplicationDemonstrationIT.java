@@ -18,6 +18,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.TransactionRepository;
@@ -40,7 +41,7 @@ public class ApplicationDemonstrationIT {
 
 	private String emailSendingMoney = "emailTest";
 	private String emailReceivingMoney = "emailTest2";
-	private Double amountTransfered = 10.0;
+	private Money amountTransfered = Money.of("10.0");
 
 	@Test
 	public void injectedComponentsAreRightlySetUp() {
@@ -65,17 +66,18 @@ public class ApplicationDemonstrationIT {
 		}
 
 		User userSendingMoney = userSendingMoneyOptional.get();
-		Double tax = amountTransfered * 0.05;
-		Double moneyAvailableBeforeTheTransactionUserSending = userSendingMoney.getMoneyAvailable();
-		if (moneyAvailableBeforeTheTransactionUserSending < amountTransfered + tax) {
+		Money tax = Money.ofMinorUnits(Money.percentage(amountTransfered.getMinorUnits(), 500));
+		Money moneyAvailableBeforeTheTransactionUserSending = userSendingMoney.getMoneyAvailable();
+		if (moneyAvailableBeforeTheTransactionUserSending.isLessThan(amountTransfered.plus(tax))) {
 			throw new IllegalAccessError("The money available on the account is not enough to afford the request."
 					+ " Money : " + moneyAvailableBeforeTheTransactionUserSending + " Tax : " + tax);
 		}
 
 		// OK to proceed
-		userSendingMoney.setMoneyAvailable(moneyAvailableBeforeTheTransactionUserSending - (amountTransfered + tax));
+		userSendingMoney
+				.setMoneyAvailable(moneyAvailableBeforeTheTransactionUserSending.minus(amountTransfered.plus(tax)));
 		User userReceivingMoney = userReceivingMoneyOptional.get();
-		userReceivingMoney.setMoneyAvailable(userReceivingMoney.getMoneyAvailable() + amountTransfered);
+		userReceivingMoney.setMoneyAvailable(userReceivingMoney.getMoneyAvailable().plus(amountTransfered));
 
 		User userSendingMoneyUpdated = userRepository.save(userSendingMoney);
 		User userGettingMoneyUpdated = userRepository.save(userReceivingMoney);
@@ -86,8 +88,8 @@ public class ApplicationDemonstrationIT {
 		Transaction resultTransaction = transactionRepository.save(transaction);
 
 		assertNotNull(resultTransaction);
-		assertEquals(userSendingMoneyUpdated.getMoneyAvailable(), 19.5);
-		assertEquals(userGettingMoneyUpdated.getMoneyAvailable(), 10);
+		assertEquals(userSendingMoneyUpdated.getMoneyAvailable(), Money.of("19.5"));
+		assertEquals(userGettingMoneyUpdated.getMoneyAvailable(), Money.of("10"));
 		assertEquals(userSendingMoney, resultTransaction.getUserSender());
 		assertEquals(userReceivingMoney, resultTransaction.getUserReceiver());
 		assertEquals(amountTransfered, resultTransaction.getAmount());
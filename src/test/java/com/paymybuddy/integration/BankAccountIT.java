@@ -81,7 +81,7 @@ public class BankAccountIT {
 	@Test
 	public void givenDeletingABankAccount_whenDelete_thenItDeleteTheBankAccount() {
 		// ACT
-		bankAccountRepository.deleteById(1);
+		bankAccountRepository.deleteById(1L);
 		Optional<BankAccount> result = bankAccountRepository.findByIBAN("ibanTest");
 
 		// ASSERT
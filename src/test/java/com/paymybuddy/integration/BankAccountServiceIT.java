@@ -58,7 +58,6 @@ public class BankAccountServiceIT {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANFindAllBankAccount", "descriptionFindAllBankAccount");
 		BankAccount bankAccount2 = new BankAccount("IBANFindAllBankAccount2", "descriptionFindAllBankAccount2");
-		bankAccount2.setId(2);
 		testEntityManager.persist(bankAccount);
 		testEntityManager.persist(bankAccount2);
 
@@ -103,7 +102,6 @@ public class BankAccountServiceIT {
 	public void givenDeletingABankAccount_whenDeleteBankAccount_thenItDeleteTheBankAccount() {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccount", "descriptionDeleteBankAccount");
-		bankAccount.setId(1);
 		testEntityManager.persist(bankAccount);
 
 		// ACT
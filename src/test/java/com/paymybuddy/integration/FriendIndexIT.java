@@ -0,0 +1,57 @@
+package com.paymybuddy.integration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(FriendIndex.class)
+public class FriendIndexIT {
+
+	@Autowired
+	private FriendIndex friendIndex;
+
+	@Autowired
+	private TestEntityManager testEntityManager;
+
+	@Test
+	public void givenUsersWithFriends_whenIsFriend_thenTheIndexLoadedHoldTheirFriendIds() {
+		// ARRANGE
+		User friend = new User("emailFriendIndex2", "lastNameFriendIndex2", "firstNameFriendIndex2",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, new ArrayList<>());
+		User otherFriend = new User("emailFriendIndex3", "lastNameFriendIndex3", "firstNameFriendIndex3",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, new ArrayList<>());
+		testEntityManager.persist(friend);
+		testEntityManager.persist(otherFriend);
+		User user = new User("emailFriendIndex", "lastNameFriendIndex", "firstNameFriendIndex",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, new ArrayList<>(Arrays.asList(otherFriend, friend)));
+		testEntityManager.persist(user);
+		testEntityManager.flush();
+
+		// ACT
+		boolean result = friendIndex.isFriend(user.getId(), friend.getId());
+
+		// ASSERT
+		assertTrue(result);
+		assertFalse(friendIndex.isFriend(friend.getId(), user.getId()));
+		assertArrayEquals(new long[] { Math.min(friend.getId(), otherFriend.getId()),
+				Math.max(friend.getId(), otherFriend.getId()) }, friendIndex.getFriendIds(user.getId()));
+	}
+
+}
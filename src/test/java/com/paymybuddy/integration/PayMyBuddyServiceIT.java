@@ -3,14 +3,20 @@ package com.paymybuddy.integration;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,15 +25,30 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.ledger.Ledger;
 import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransferRequest;
+import com.paymybuddy.model.TransferResult;
 import com.paymybuddy.model.User;
+import com.paymybuddy.repository.PendingFeeRepository;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.repository.UserRepository;
 import com.paymybuddy.service.BankAccountService;
+import com.paymybuddy.service.FeeService;
 import com.paymybuddy.service.PayMyBuddyService;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.UserService;
+import com.paymybuddy.service.impl.BalanceSnapshotServiceImpl;
 import com.paymybuddy.service.impl.BankAccountServiceImpl;
+import com.paymybuddy.service.impl.FeeServiceImpl;
 import com.paymybuddy.service.impl.PayMyBuddyServiceImpl;
 import com.paymybuddy.service.impl.TransactionServiceImpl;
 import com.paymybuddy.service.impl.UserServiceImpl;
@@ -35,7 +56,8 @@ import com.paymybuddy.service.impl.UserServiceImpl;
 @RunWith(SpringRunner.class)
 @DataJpaTest
 @Import({ PayMyBuddyServiceImpl.class, UserServiceImpl.class, BankAccountServiceImpl.class,
-		TransactionServiceImpl.class })
+		TransactionServiceImpl.class, FeeServiceImpl.class, OptimisticRetryExecutor.class,
+		FriendIndex.class, Ledger.class, IdempotencyStore.class, BalanceSnapshotServiceImpl.class })
 public class PayMyBuddyServiceIT {
 
 	@Autowired
@@ -50,6 +72,21 @@ public class PayMyBuddyServiceIT {
 	@Autowired
 	private TransactionService transactionService;
 
+	@Autowired
+	private FeeService feeService;
+
+	@Autowired
+	private PendingFeeRepository pendingFeeRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OptimisticRetryExecutor optimisticRetryExecutor;
+
 	@Autowired
 	private TestEntityManager testEntityManager;
 
@@ -66,7 +103,7 @@ public class PayMyBuddyServiceIT {
 	public void givenAddingABankAccount_whenAddBankAccount_thenItAddTheBankAccountToTheUserAndSaveItInTheBankAccountTable() {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANAddBankAccount", "descriptionAddBankAccount");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		testEntityManager.persist(user);
 
@@ -90,7 +127,7 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANAddBankAccountWithWrongUSer",
 				"descriptionAddBankAccountWithWrongUSer");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, bankAccount,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), bankAccount,
 				null, null);
 
 		// ACT
@@ -112,7 +149,7 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccount", "descriptionDeleteBankAccount");
 		testEntityManager.persist(bankAccount);
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, bankAccount,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), bankAccount,
 				null, null);
 		testEntityManager.persist(user);
 
@@ -122,7 +159,8 @@ public class PayMyBuddyServiceIT {
 
 		// ASSERT
 		assertTrue(resultUser.isPresent());
-		assertEquals(resultUser.get().getBankAccount().toString(), new BankAccount(null, null).toString());
+		assertNull(resultUser.get().getBankAccount().getIBAN());
+		assertNull(resultUser.get().getBankAccount().getDescription());
 	}
 
 	@Test
@@ -130,7 +168,7 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccountWrongProvidedUser",
 				"descriptionDeleteBankAccountWrongProvidedUser");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		testEntityManager.persist(bankAccount);
 
@@ -150,7 +188,7 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		BankAccount bankAccount = new BankAccount("IBANDeleteBankAccountWrongProvidedIBAN",
 				"descriptionDeleteBankAccountWrongProvidedIBAN");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		testEntityManager.persist(user);
 
@@ -172,9 +210,8 @@ public class PayMyBuddyServiceIT {
 		BankAccount bankAccountNotAssociated = new BankAccount("Void", "Void");
 		BankAccount bankAccountAssociated = new BankAccount("IBANDeleteBankAccountWrongProvidedIBAN",
 				"descriptionDeleteBankAccountWrongProvidedIBAN");
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"),
 				bankAccountAssociated, null, null);
-		bankAccountNotAssociated.setId(2);
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccountAssociated);
 		testEntityManager.persist(bankAccountNotAssociated);
@@ -198,21 +235,19 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		List<Transaction> listOfTheUserTransaction = new ArrayList<>();
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, listOfTheUserTransaction, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, listOfTheUserTransaction, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
-		userSender.setId(1);
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("10.0");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(userPayMyBuddy);
 
 		// ACT
 		payMyBuddyService.createTransaction(userSender, userReceiver, "description", amountOfTheTransaction);
+		feeService.flushPendingFees();
 		Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
 		Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
 		Optional<User> resultUserPayMyBuddy = userService.getUser(userPayMyBuddy.getEmail());
@@ -222,24 +257,48 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 9.5);
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 10);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0.5);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("9.5"));
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("10"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0.5"));
 		assertThat(resultTransaction).size().isGreaterThan(0);
 	}
 
+	@Test
+	public void givenATransactionSentTwiceWithTheSameIdempotencyKey_whenCreateTransaction_thenItIsDoneOnce() {
+		// ARRANGE
+		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
+				"passwordNotEncrypted", Money.of("30.0"), null, null, null);
+		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		Money amountOfTheTransaction = Money.of("10.0");
+		testEntityManager.persist(userSender);
+		testEntityManager.persist(userReceiver);
+
+		// ACT
+		payMyBuddyService.createTransaction(userSender, userReceiver, "description", amountOfTheTransaction,
+				"idempotencyKey");
+		payMyBuddyService.createTransaction(userSender, userReceiver, "description", amountOfTheTransaction,
+				"idempotencyKey");
+		Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
+		Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
+
+		// ASSERT
+		assertEquals(Money.of("19.5"), resultUserSender.get().getMoneyAvailable());
+		assertEquals(Money.of("10"), resultUserReceiver.get().getMoneyAvailable());
+		assertThrows(IllegalArgumentException.class, () -> payMyBuddyService.createTransaction(userSender,
+				userReceiver, "description", Money.of("5.0"), "idempotencyKey"));
+	}
+
 	@Test
 	public void givenCreatingATransactionWithAWrongProvidedUserSender_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("10.0");
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(userPayMyBuddy);
 
@@ -249,7 +308,7 @@ public class PayMyBuddyServiceIT {
 		Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
 		Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
 		Optional<User> resultUserPayMyBuddy = userService.getUser(userPayMyBuddy.getEmail());
-		Iterable<Transaction> resultTransaction = transactionService.findAllByUserSender(userSender);
+		Iterable<Transaction> resultTransaction = transactionRepository.findAll();
 		// ASSERT
 		assertThrows(NoSuchElementException.class, () -> payMyBuddyService.createTransaction(userSender, userReceiver,
 				"description", amountOfTheTransaction));
@@ -257,8 +316,8 @@ public class PayMyBuddyServiceIT {
 		assertFalse(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 0);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0);
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("0"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0"));
 		assertThat(resultTransaction).size().isEqualTo(0);
 	}
 
@@ -266,14 +325,12 @@ public class PayMyBuddyServiceIT {
 	public void givenCreatingATransactionWithAWrongProvidedUserReceiver_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
-		userSender.setId(1);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("10.0");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userPayMyBuddy);
 
@@ -291,8 +348,8 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUserSender.isPresent());
 		assertFalse(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 20);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("20"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0"));
 		assertThat(resultTransaction).size().isEqualTo(0);
 	}
 
@@ -300,15 +357,12 @@ public class PayMyBuddyServiceIT {
 	public void givenCreatingATransactionWithAWrongProvidedAmount_whenCreateTransaction_thenItDoesNotUpdateTheUserAndDoesNotSaveTheTransactionInTheTransactionTable() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 0.99;
-		userSender.setId(1);
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("0.99");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(userPayMyBuddy);
@@ -327,31 +381,113 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 20);
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 0);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("20"));
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("0"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0"));
 		assertThat(resultTransaction).size().isEqualTo(0);
 	}
 
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void givenCreatingTransactionsInABatch_whenCreateTransactions_thenItCommitTheValidTransactionsAndFailTheOthers() {
+		// ARRANGE
+		// The chunks are committed in their own database transactions, the users have
+		// to be committed beforehand and are deleted at the end of the test.
+		User userSender = new User("emailBatch", "lastNameBatch", "firstNameBatch", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailBatch2", "lastNameBatch2", "firstNameBatch2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		userService.createUser(userSender);
+		userService.createUser(userReceiver);
+
+		try {
+			// ACT
+			List<TransferResult> result = payMyBuddyService.createTransactions(Arrays.asList(
+					new TransferRequest(userSender.getEmail(), userReceiver.getEmail(), "description", Money.of("5")),
+					new TransferRequest(userSender.getEmail(), "unknown", "description", Money.of("5")),
+					new TransferRequest(userSender.getEmail(), userReceiver.getEmail(), "description2", Money.of("5")),
+					new TransferRequest(userSender.getEmail(), userReceiver.getEmail(), "description3", Money.of("20"))));
+			Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
+			Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
+
+			// ASSERT
+			assertThat(result).extracting(TransferResult::getStatus).containsExactly(TransferResult.Status.SUCCEEDED,
+					TransferResult.Status.FAILED, TransferResult.Status.SUCCEEDED, TransferResult.Status.FAILED);
+			assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("9.5"));
+			assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("10"));
+			assertThat(transactionService.findAllByUserSender(resultUserSender.get())).size().isEqualTo(2);
+		} finally {
+			transactionRepository.deleteAll();
+			pendingFeeRepository.deleteAll();
+			userRepository.deleteAll();
+		}
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void givenCreatingConcurrentTransactions_whenCreateTransaction_thenNoUpdateOfTheUsersIsLost() throws Exception {
+		// ARRANGE
+		// Every transaction is committed in its own database transaction, the users
+		// have to be committed beforehand and are deleted at the end of the test.
+		User userSender = new User("emailConcurrent", "lastNameConcurrent", "firstNameConcurrent",
+				"passwordNotEncrypted", Money.of("100.0"), null, null, null);
+		User userReceiver = new User("emailConcurrent2", "lastNameConcurrent2", "firstNameConcurrent2",
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		userService.createUser(userSender);
+		userService.createUser(userReceiver);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		try {
+			// ACT
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(executorService.submit(() -> payMyBuddyService.createTransaction(userSender,
+						userReceiver, "descriptionConcurrent", Money.of("1.0"))));
+			}
+			int succeeded = 0;
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+					succeeded++;
+				} catch (ExecutionException e) {
+					// Gave up after too many conflicts, nothing was done.
+				}
+			}
+			Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
+			Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
+
+			// ASSERT
+			assertEquals(20 - succeeded,
+					optimisticRetryExecutor.getStatistics("createTransaction").getGiveUps());
+			assertEquals(Money.of("100.0").minus(Money.ofMinorUnits(105L * succeeded)),
+					resultUserSender.get().getMoneyAvailable());
+			assertEquals(Money.ofMinorUnits(100L * succeeded), resultUserReceiver.get().getMoneyAvailable());
+			assertThat(transactionService.findAllByUserSender(resultUserSender.get())).size().isEqualTo(succeeded);
+		} finally {
+			executorService.shutdownNow();
+			transactionRepository.deleteAll();
+			pendingFeeRepository.deleteAll();
+			userRepository.deleteAll();
+		}
+	}
+
 	@Test
 	public void givenMakingATransaction_whenMakeTransaction_thenItDoTheTransactionAndUpdateThePayMyBuddyUser() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 10.0;
-		userSender.setId(1);
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("10.0");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(userPayMyBuddy);
 
 		// ACT
 		payMyBuddyService.makeTransaction(userSender, userReceiver, amountOfTheTransaction);
+		feeService.flushPendingFees();
 		Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
 		Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
 		Optional<User> resultUserPayMyBuddy = userService.getUser(userPayMyBuddy.getEmail());
@@ -361,9 +497,9 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 9.5);
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 10);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0.5);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("9.5"));
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("10"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0.5"));
 		assertThat(resultTransaction).size().isEqualTo(0);
 	}
 
@@ -371,15 +507,12 @@ public class PayMyBuddyServiceIT {
 	public void givenMakingATransactionWithNotEnoughMoneyAvailable_whenMakeTransaction_thenItDoesNotTheTransactionAndDoesNotUpdateThePayMyBuddyUser() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", 0.0, null,
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("paymybuddy@paymybuddy.com", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
-		Double amountOfTheTransaction = 100.0;
-		userSender.setId(1);
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+		Money amountOfTheTransaction = Money.of("100.0");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(userPayMyBuddy);
@@ -398,56 +531,49 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertTrue(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 20);
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 0);
-		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), 0);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("20"));
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("0"));
+		assertEquals(resultUserPayMyBuddy.get().getMoneyAvailable(), Money.of("0"));
 		assertThat(resultTransaction).size().isEqualTo(0);
 	}
 
 	@Test
-	public void givenMakingATransactionWithAWrongProvidedPayMyBuddyAccount_whenMakeTransaction_thenItDoesNotTheTransactionAndDoesNotUpdateThePayMyBuddyUser() {
+	public void givenMakingATransactionWithAWrongProvidedPayMyBuddyAccount_whenFlushPendingFees_thenTheTransactionIsDoneAndTheFeeStaysPending() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, new ArrayList<>(), null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		User userPayMyBuddy = new User("Void", "buddy", "paymy", "passwordNotEncrypted", 0.0, null, null, null);
-		Double amountOfTheTransaction = 10.0;
-		userSender.setId(1);
-		userReceiver.setId(2);
-		userPayMyBuddy.setId(3);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		User userPayMyBuddy = new User("Void", "buddy", "paymy", "passwordNotEncrypted", Money.of("0.0"), null, null, null);
+		Money amountOfTheTransaction = Money.of("10.0");
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 
 		// ACT
-		// Method used in the assert, because it throw the exception (that is what it is
-		// tested) but then it fail the test.
+		// The fee is only credited to the paymybuddy account by the flush of the pending
+		// fees, the transaction does not need the paymybuddy account.
+		payMyBuddyService.createTransaction(userSender, userReceiver, "description", amountOfTheTransaction);
 		Optional<User> resultUserSender = userService.getUser(userSender.getEmail());
 		Optional<User> resultUserReceiver = userService.getUser(userReceiver.getEmail());
 		Optional<User> resultUserPayMyBuddy = userService.getUser(userPayMyBuddy.getEmail());
-		Iterable<Transaction> resultTransaction = transactionService.findAllByUserSender(userSender);
 
 		// ASSERT
-		assertThrows(NoSuchElementException.class, () -> payMyBuddyService.createTransaction(userSender, userReceiver,
-				"description", amountOfTheTransaction));
+		assertThrows(NoSuchElementException.class, () -> feeService.flushPendingFees());
 		assertTrue(resultUserSender.isPresent());
 		assertTrue(resultUserReceiver.isPresent());
 		assertFalse(resultUserPayMyBuddy.isPresent());
-		assertEquals(resultUserSender.get().getMoneyAvailable(), 9.5);
-		assertEquals(resultUserReceiver.get().getMoneyAvailable(), 10);
-		assertThrows(NoSuchElementException.class, () -> resultUserPayMyBuddy.get().getMoneyAvailable());
-		assertThat(resultTransaction).size().isEqualTo(0);
+		assertEquals(resultUserSender.get().getMoneyAvailable(), Money.of("9.5"));
+		assertEquals(resultUserReceiver.get().getMoneyAvailable(), Money.of("10"));
+		assertThat(pendingFeeRepository.findAll()).size().isEqualTo(1);
 	}
 
 	@Test
 	public void givenAddingAFriend_whenAddFriend_thenItAddTheFriendToTheUserFriendList() {
 		// ARRANGE
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, new ArrayList<User>());
 		User userFriend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		user.setId(1);
-		userFriend.setId(2);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 		testEntityManager.persist(userFriend);
 
@@ -465,11 +591,10 @@ public class PayMyBuddyServiceIT {
 	@Test
 	public void givenAddingAFriendWithAWrongProvidedUser_whenAddFriend_thenItDoesNotAddTheFriendToTheUserFriendList() {
 		// ARRANGE
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, new ArrayList<User>());
 		User userFriend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
-		userFriend.setId(2);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		testEntityManager.persist(userFriend);
 
 		// ACT
@@ -487,11 +612,10 @@ public class PayMyBuddyServiceIT {
 	@Test
 	public void givenAddingAFriendWithAWrongProvidedFriend_whenAddFriend_thenItDoesNotAddTheFriendToTheUserFriendList() {
 		// ARRANGE
-		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", 20.0,
+		User user = new User("emailAddFriend", "lastNameAddFriend", "firstNameAddFriend", "passwordNotEncrypted", Money.of("20.0"),
 				null, null, new ArrayList<User>());
 		User friend = new User("emailAddFriend2", "lastNameAddFriend2", "firstNameAddFriend2", "passwordNotEncrypted2",
-				0.0, null, null, null);
-		user.setId(1);
+				Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -512,13 +636,11 @@ public class PayMyBuddyServiceIT {
 	public void givenDeletingAFriend_whenDeleteFriend_thenItDeleteTheFriendFromTheUserFriendList() {
 		// ARRANGE
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 0.0, null, null, null);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		List<User> friendList = new ArrayList<User>();
 		friendList.add(friend);
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, friendList);
-		user.setId(1);
-		friend.setId(2);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, friendList);
 		testEntityManager.persist(user);
 		testEntityManager.persist(friend);
 
@@ -537,15 +659,13 @@ public class PayMyBuddyServiceIT {
 	public void givenDeletingAFriendWithAWrongProvidedUser_whenDeleteFriend_thenItDoesNotDeleteTheFriend() {
 		// ARRANGE
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 0.0, null, null, null);
-		friend.setId(2);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		testEntityManager.persist(friend);
 
 		List<User> friendList = new ArrayList<User>();
 		friendList.add(friend);
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, friendList);
-		user.setId(1);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, friendList);
 
 		// ACT
 		// Method used in the assert, because it throw the exception (that is what it is
@@ -563,16 +683,14 @@ public class PayMyBuddyServiceIT {
 	public void givenDeletingAFriendWithAWrongProvidedFriend_whenDeleteFriend_thenItDoesNotDeleteTheFriend() {
 		// ARRANGE
 		User friend = new User("emailDeleteFriend2", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 0.0, null, null, null);
-		friend.setId(2);
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
 		testEntityManager.persist(friend);
 
 		List<User> friendList = new ArrayList<User>();
 		friendList.add(friend);
 		User user = new User("emailDeleteFriend", "lastNameDeleteFriend", "firstNameDeleteFriend",
-				"passwordNotEncrypted", 20.0, null, null, friendList);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, friendList);
 
-		user.setId(1);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -594,11 +712,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccount);
@@ -611,7 +729,7 @@ public class PayMyBuddyServiceIT {
 		// ASSERT
 		assertTrue(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
-		assertEquals(resultUser.get().getMoneyAvailable(), 30);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("30"));
 	}
 
 	@Test
@@ -619,11 +737,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		testEntityManager.persist(bankAccount);
 
@@ -638,7 +756,7 @@ public class PayMyBuddyServiceIT {
 				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered));
 		assertFalse(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
-		assertEquals(user.getMoneyAvailable(), 20);
+		assertEquals(user.getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -647,11 +765,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		testEntityManager.persist(user);
 
 		// ACT
@@ -665,7 +783,7 @@ public class PayMyBuddyServiceIT {
 				.addMoneyOnThePayMyBuddyAccountFromBankAccount(user, bankAccount, amountTransfered));
 		assertTrue(resultUser.isPresent());
 		assertFalse(resultBankAccount.isPresent());
-		assertEquals(resultUser.get().getMoneyAvailable(), 20);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -675,13 +793,11 @@ public class PayMyBuddyServiceIT {
 		BankAccount bankAccountUser = new BankAccount("Void", "Void");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, bankAccountUser,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), bankAccountUser,
 				null, null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
-		bankAccount.setId(1);
-		bankAccountUser.setId(2);
+		Money amountTransfered = Money.of("10.0");
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccount);
 		testEntityManager.persist(bankAccountUser);
@@ -698,7 +814,7 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
 		assertNotEquals(resultBankAccount.get(), user.getBankAccount());
-		assertEquals(resultUser.get().getMoneyAvailable(), 20);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -707,11 +823,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccount);
@@ -725,7 +841,7 @@ public class PayMyBuddyServiceIT {
 		// ASSERT
 		assertTrue(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
-		assertEquals(resultUser.get().getMoneyAvailable(), 10);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("10"));
 	}
 
 	@Test
@@ -733,11 +849,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		user.setBankAccount(bankAccount);
 		testEntityManager.persist(bankAccount);
 
@@ -752,7 +868,7 @@ public class PayMyBuddyServiceIT {
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered));
 		assertFalse(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
-		assertEquals(user.getMoneyAvailable(), 20);
+		assertEquals(user.getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -761,11 +877,11 @@ public class PayMyBuddyServiceIT {
 		// ARRANGE
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, null, null,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), null, null,
 				null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
+		Money amountTransfered = Money.of("10.0");
 		testEntityManager.persist(user);
 
 		// ACT
@@ -779,7 +895,7 @@ public class PayMyBuddyServiceIT {
 				.transfertMoneyFromThePayMyBuddyAccountToTheUserBankAccount(user, bankAccount, amountTransfered));
 		assertTrue(resultUser.isPresent());
 		assertFalse(resultBankAccount.isPresent());
-		assertEquals(resultUser.get().getMoneyAvailable(), 20);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -789,13 +905,11 @@ public class PayMyBuddyServiceIT {
 		BankAccount bankAccountUser = new BankAccount("Void", "Void");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, bankAccountUser,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), bankAccountUser,
 				null, null);
 		BankAccount bankAccount = new BankAccount("IBANAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
-		Double amountTransfered = 10.0;
-		bankAccount.setId(1);
-		bankAccountUser.setId(2);
+		Money amountTransfered = Money.of("10.0");
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccount);
 		testEntityManager.persist(bankAccountUser);
@@ -812,7 +926,7 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
 		assertNotEquals(resultBankAccount.get(), user.getBankAccount());
-		assertEquals(resultUser.get().getMoneyAvailable(), 20);
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("20"));
 
 	}
 
@@ -823,9 +937,9 @@ public class PayMyBuddyServiceIT {
 				"descriptionAddMoneyOnThePayMyBuddyAccountFromBankAccount");
 		User user = new User("emailAddMoneyOnThePayMyBuddyAccountFromBankAccount",
 				"lastNameAddMoneyOnThePayMyBuddyAccountFromBankAccount",
-				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", 20.0, bankAccount,
+				"firstNameAddMoneyOnThePayMyBuddyAccountFromBankAccount", "passwordNotEncrypted", Money.of("20.0"), bankAccount,
 				null, null);
-		Double amountTransfered = 100.0;
+		Money amountTransfered = Money.of("100.0");
 		testEntityManager.persist(user);
 		testEntityManager.persist(bankAccount);
 
@@ -841,8 +955,8 @@ public class PayMyBuddyServiceIT {
 		assertTrue(resultUser.isPresent());
 		assertTrue(resultBankAccount.isPresent());
 		assertEquals(resultBankAccount.get(), user.getBankAccount());
-		assertTrue(resultUser.get().getMoneyAvailable() < amountTransfered);
-		assertEquals(resultUser.get().getMoneyAvailable(), 20);
+		assertTrue(resultUser.get().getMoneyAvailable().isLessThan(amountTransfered));
+		assertEquals(resultUser.get().getMoneyAvailable(), Money.of("20"));
 
 	}
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.paymybuddy.integration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.BalanceSnapshotRepository;
+import com.paymybuddy.repository.BankAccountRepository;
+import com.paymybuddy.repository.PendingFeeRepository;
+import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.repository.UserRepository;
+
+/**
+ * Run EXPLAIN on the statements generated for the hot queries of the
+ * repositories, against the embedded database, and fail if one of them scan a
+ * whole table instead of using an index. <br>
+ * Not covered: the friendships stream, the summaries and the export, which
+ * read a whole table, or every transaction of a user, by design.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.paymybuddy.integration.SqlStatementCounter")
+public class QueryPlanIT {
+
+	private static final String TABLE_SCAN = ".tableScan";
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BankAccountRepository bankAccountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private PendingFeeRepository pendingFeeRepository;
+
+	@Autowired
+	private BalanceSnapshotRepository balanceSnapshotRepository;
+
+	@Autowired
+	private TestEntityManager testEntityManager;
+
+	@Test
+	public void givenTheUserLookups_whenExplain_thenTheyUseAnIndex() {
+		assertIndexed(() -> userRepository.findByEmail("emailQueryPlan"));
+		assertIndexed(() -> userRepository.findOneByEmail("emailQueryPlan"));
+		assertIndexed(() -> userRepository.findWithBankAccountByEmail("emailQueryPlan"));
+		assertIndexed(() -> userRepository.findWithFriendsByEmail("emailQueryPlan"));
+		assertIndexed(() -> userRepository.findByEmailForUpdate("emailQueryPlan"));
+		assertIndexed(
+				() -> userRepository.findAllByEmailInForUpdate(Arrays.asList("emailQueryPlan", "emailQueryPlan2")));
+		assertIndexed(() -> userRepository.findExistingEmails(Arrays.asList("emailQueryPlan", "emailQueryPlan2")));
+		assertIndexed(() -> userRepository.findVersionById(1L));
+		assertIndexed(() -> userRepository.findVersionByEmail("emailQueryPlan"));
+	}
+
+	@Test
+	public void givenTheBankAccountLookups_whenExplain_thenTheyUseAnIndex() {
+		assertIndexed(() -> bankAccountRepository.findByIBAN("IBANQueryPlan"));
+		assertIndexed(() -> bankAccountRepository.findOneByIBAN("IBANQueryPlan"));
+	}
+
+	@Test
+	public void givenTheHistoryQueries_whenExplain_thenTheyUseAnIndex() {
+		User user = new User("emailQueryPlan", "lastNameQueryPlan", "firstNameQueryPlan", "passwordNotEncrypted",
+				Money.of("0.0"), null, null, null);
+		testEntityManager.persistAndFlush(user);
+
+		assertIndexed(() -> transactionRepository.findAllByUserSender(user));
+		assertIndexed(() -> transactionRepository.findHistory(user.getId(), PageRequest.of(0, 10)));
+		assertIndexed(() -> transactionRepository.findHistoryAfter(user.getId(), Date.valueOf("2020-07-01"), 1L,
+				PageRequest.of(0, 10)));
+		assertIndexed(() -> transactionRepository.findHistorySummary(user.getId(), PageRequest.of(0, 10)));
+		assertIndexed(() -> transactionRepository.findHistorySummaryAfter(user.getId(), Date.valueOf("2020-07-01"),
+				1L, PageRequest.of(0, 10)));
+		assertIndexed(() -> transactionRepository.findReceivedSummary(user.getId(), PageRequest.of(0, 10)));
+		assertIndexed(() -> transactionRepository.findReceivedSummaryAfter(user.getId(), Date.valueOf("2020-07-01"),
+				1L, PageRequest.of(0, 10)));
+	}
+
+	@Test
+	public void givenTheBalanceSnapshotQueries_whenExplain_thenTheyUseAnIndex() {
+		Date date = Date.valueOf("2020-07-01");
+
+		assertIndexed(() -> balanceSnapshotRepository
+				.findByUserIdInAndSnapshotDateForUpdate(Collections.singletonList(1L), date));
+		assertIndexed(() -> balanceSnapshotRepository.findFirstByUserIdOrderBySnapshotDate(1L));
+		assertIndexed(() -> balanceSnapshotRepository
+				.findFirstByUserIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(1L, date));
+		assertIndexed(() -> balanceSnapshotRepository
+				.findFirstByUserIdAndSnapshotDateGreaterThanOrderBySnapshotDate(1L, date));
+		assertIndexed(() -> balanceSnapshotRepository.findByUserIdAndSnapshotDateBetweenOrderBySnapshotDate(1L,
+				date, Date.valueOf("2020-07-31")));
+	}
+
+	@Test
+	public void givenThePendingFeeQueries_whenExplain_thenTheyUseAnIndex() {
+		assertIndexed(() -> pendingFeeRepository.findByShard(0));
+	}
+
+	private void assertIndexed(Runnable query) {
+		testEntityManager.clear();
+		SqlStatementCounter.reset();
+		query.run();
+
+		List<String> statements = SqlStatementCounter.getStatements();
+		assertFalse(statements.isEmpty());
+		for (String statement : statements) {
+			String plan = explain(statement);
+			assertFalse(plan.contains(TABLE_SCAN), "Full scan for: " + statement + "\n" + plan);
+		}
+	}
+
+	private String explain(String statement) {
+		return testEntityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+			try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement);
+					ResultSet resultSet = explain.executeQuery()) {
+				StringBuilder plan = new StringBuilder();
+				while (resultSet.next()) {
+					plan.append(resultSet.getString(1)).append('\n');
+				}
+				return plan.toString();
+			}
+		});
+	}
+
+}
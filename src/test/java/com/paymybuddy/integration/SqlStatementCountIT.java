@@ -0,0 +1,231 @@
+package com.paymybuddy.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.paymybuddy.concurrency.OptimisticRetryExecutor;
+import com.paymybuddy.graph.FriendIndex;
+import com.paymybuddy.idempotency.IdempotencyStore;
+import com.paymybuddy.ledger.Ledger;
+import com.paymybuddy.model.BankAccount;
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.User;
+import com.paymybuddy.repository.NaturalIdLookups;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.service.PayMyBuddyService;
+import com.paymybuddy.service.TransactionService;
+import com.paymybuddy.service.impl.BalanceSnapshotServiceImpl;
+import com.paymybuddy.service.impl.BankAccountServiceImpl;
+import com.paymybuddy.service.impl.FeeServiceImpl;
+import com.paymybuddy.service.impl.PayMyBuddyServiceImpl;
+import com.paymybuddy.service.impl.TransactionServiceImpl;
+import com.paymybuddy.service.impl.UserServiceImpl;
+
+/**
+ * Pin the number of SQL statements sent by the service calls, so that a
+ * change bringing back the N+1 loading of the users fails the build. <br>
+ * The persistence context is flushed and cleared before each call, the
+ * entities are loaded as they would be by a new request. The JDBC batching is
+ * disabled, so that every statement sent is counted once. <br>
+ * The second-level cache is emptied with the persistence context: a user or a
+ * bank account looked up by its natural id on a cold cache cost two
+ * statements, its id then its row, and none once cached.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.paymybuddy.integration.SqlStatementCounter",
+		"spring.jpa.properties.hibernate.jdbc.batch_size=0",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=true" })
+@Import({ PayMyBuddyServiceImpl.class, UserServiceImpl.class, BankAccountServiceImpl.class,
+		TransactionServiceImpl.class, FeeServiceImpl.class, OptimisticRetryExecutor.class,
+		FriendIndex.class, Ledger.class, IdempotencyStore.class, BalanceSnapshotServiceImpl.class,
+		NaturalIdLookups.class })
+public class SqlStatementCountIT {
+
+	@Autowired
+	private PayMyBuddyService payMyBuddyService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private NaturalIdLookups naturalIdLookups;
+
+	@Autowired
+	private TestEntityManager testEntityManager;
+
+	private User userSender;
+	private User userReceiver;
+
+	@Before
+	public void setUp() {
+		userSender = new User("emailStatementCount", "lastNameStatementCount", "firstNameStatementCount",
+				"passwordNotEncrypted", Money.of("100.0"), null, null, null);
+		userReceiver = new User("emailStatementCount2", "lastNameStatementCount2", "firstNameStatementCount2",
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		testEntityManager.persist(userSender);
+		testEntityManager.persist(userReceiver);
+	}
+
+	@Test
+	public void givenFiftyTransactions_whenFindHistory_thenItSendOneStatement() {
+		// ARRANGE
+		for (int i = 0; i < 50; i++) {
+			testEntityManager.persist(new Transaction(userSender, userReceiver, Date.valueOf("2020-07-01"),
+					"descriptionStatementCount" + i, Money.of("1.0")));
+		}
+		startCounting();
+
+		// ACT
+		List<Transaction> result = transactionService.findHistory(userSender.getId(), null, 50);
+		result.forEach(transaction -> transaction.getUserReceiver().getEmail());
+
+		// ASSERT
+		assertEquals(50, result.size());
+		assertEquals(1, SqlStatementCounter.getCount());
+	}
+
+	@Test
+	public void givenTwoTransactions_whenFindAllByUserSender_thenItSendOneStatement() {
+		// ARRANGE
+		for (int i = 0; i < 2; i++) {
+			testEntityManager.persist(new Transaction(userSender, userReceiver, Date.valueOf("2020-07-01"),
+					"descriptionStatementCount" + i, Money.of("1.0")));
+		}
+		startCounting();
+
+		// ACT
+		transactionService.findAllByUserSender(userSender).forEach(Transaction::getDescription);
+
+		// ASSERT
+		assertEquals(1, SqlStatementCounter.getCount());
+	}
+
+	@Test
+	public void givenCreatingATransaction_whenCreateTransaction_thenItSendTheExpectedStatements() {
+		// ARRANGE
+		startCounting();
+
+		// ACT
+		payMyBuddyService.createTransaction(userSender, userReceiver, "descriptionStatementCount", Money.of("10.0"));
+		testEntityManager.flush();
+
+		// ASSERT
+		// Sender and receiver ids and rows, pending fee insert, transaction insert,
+		// sender and receiver updates.
+		assertEquals(8, SqlStatementCounter.getCount());
+	}
+
+	@Test
+	public void givenATransferRequest_whenTheUsersAreLookedUpThenCreateTransaction_thenTheServiceLookupsAreSaved() {
+		// ARRANGE
+		startCounting();
+		long savedLookups = naturalIdLookups.getSavedLookups();
+
+		// ACT
+		// As a transfer request: the users are looked up by email, then the service
+		// looks them up again in the same operation.
+		User sender = userRepository.findByEmail(userSender.getEmail()).get();
+		User receiver = userRepository.findByEmail(userReceiver.getEmail()).get();
+		payMyBuddyService.createTransaction(sender, receiver, "descriptionStatementCount", Money.of("10.0"));
+		testEntityManager.flush();
+
+		// ASSERT
+		// Sender and receiver ids and rows, pending fee insert, transaction insert,
+		// sender and receiver updates: the lookups of the service send nothing.
+		assertEquals(8, SqlStatementCounter.getCount());
+		assertEquals(2, naturalIdLookups.getSavedLookups() - savedLookups);
+	}
+
+	@Test
+	public void givenCachedUsers_whenCreateTransaction_thenItOnlySendTheWrites() {
+		// ARRANGE
+		startCounting();
+		userRepository.findByEmail(userSender.getEmail());
+		userRepository.findByEmail(userReceiver.getEmail());
+		testEntityManager.clear();
+		SqlStatementCounter.reset();
+
+		// ACT
+		payMyBuddyService.createTransaction(userSender, userReceiver, "descriptionStatementCount", Money.of("10.0"));
+		testEntityManager.flush();
+
+		// ASSERT
+		// Pending fee insert, transaction insert, sender and receiver updates.
+		assertEquals(4, SqlStatementCounter.getCount());
+	}
+
+	@Test
+	public void givenCachedUsers_whenCreateTransaction_thenTheNextLookupReadTheNewBalances() {
+		// ARRANGE
+		startCounting();
+		userRepository.findByEmail(userSender.getEmail());
+		userRepository.findByEmail(userReceiver.getEmail());
+		testEntityManager.clear();
+
+		// ACT
+		payMyBuddyService.createTransaction(userSender, userReceiver, "descriptionStatementCount", Money.of("10.0"));
+		testEntityManager.flush();
+		testEntityManager.clear();
+
+		// ASSERT
+		assertEquals(Money.of("89.50"), userRepository.findByEmail(userSender.getEmail()).get().getMoneyAvailable());
+		assertEquals(Money.of("10.0"), userRepository.findByEmail(userReceiver.getEmail()).get().getMoneyAvailable());
+	}
+
+	@Test
+	public void givenAddingAFriend_whenAddFriend_thenItSendTheExpectedStatements() {
+		// ARRANGE
+		startCounting();
+
+		// ACT
+		payMyBuddyService.addFriend(userSender, userReceiver);
+		testEntityManager.flush();
+
+		// ASSERT
+		// User with its friends, friend id and row, user version update,
+		// friendship insert.
+		assertEquals(5, SqlStatementCounter.getCount());
+	}
+
+	@Test
+	public void givenAddingMoney_whenAddMoneyOnThePayMyBuddyAccountFromBankAccount_thenItSendTheExpectedStatements() {
+		// ARRANGE
+		BankAccount bankAccount = new BankAccount("IBANStatementCount", "descriptionStatementCount");
+		userSender.setBankAccount(bankAccount);
+		testEntityManager.persist(bankAccount);
+		startCounting();
+
+		// ACT
+		payMyBuddyService.addMoneyOnThePayMyBuddyAccountFromBankAccount(userSender, bankAccount, Money.of("10.0"));
+		testEntityManager.flush();
+
+		// ASSERT
+		// User with its bank account, user update. The IBAN is resolved by the
+		// bank account loaded with the user.
+		assertEquals(2, SqlStatementCounter.getCount());
+	}
+
+	private void startCounting() {
+		testEntityManager.flush();
+		testEntityManager.clear();
+		testEntityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+		SqlStatementCounter.reset();
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.paymybuddy.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} counting the SQL statements sent by the
+ * sessions, set with the
+ * <b>spring.jpa.properties.hibernate.session_factory.statement_inspector</b>
+ * property. <br>
+ * The statements of the table id generator run on their own connection and
+ * are not counted. The statements since the last reset are kept, see
+ * {@link #getStatements()}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final AtomicInteger count = new AtomicInteger();
+	private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		count.incrementAndGet();
+		statements.add(sql);
+		return sql;
+	}
+
+	public static void reset() {
+		count.set(0);
+		statements.clear();
+	}
+
+	public static List<String> getStatements() {
+		return Collections.unmodifiableList(new ArrayList<>(statements));
+	}
+
+	public static int getCount() {
+		return count.get();
+	}
+
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -15,11 +16,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionExportRow;
 import com.paymybuddy.model.User;
 import com.paymybuddy.repository.TransactionRepository;
+import com.paymybuddy.repository.UserRepository;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -29,6 +34,9 @@ public class TransactionIT {
 	@Autowired
 	private TransactionRepository transactionRepository;
 
+	@Autowired
+	private UserRepository userRepository;
+
 	@Test
 	public void injectedComponentsAreRightlySetUp() {
 		assertThat(transactionRepository).isNotNull();
@@ -37,11 +45,11 @@ public class TransactionIT {
 	@Test
 	public void givenGettingATransaction_whenFindById_thenItReturnTheRightTransaction() {
 		// ACT
-		Optional<Transaction> result = transactionRepository.findById(1);
+		Optional<Transaction> result = transactionRepository.findById(1L);
 
 		// ASSERT
 		assertTrue(result.isPresent());
-		assertEquals(10, result.get().getAmount());
+		assertEquals(Money.of("10"), result.get().getAmount());
 		assertEquals("descriptionTest", result.get().getDescription());
 	}
 
@@ -58,11 +66,11 @@ public class TransactionIT {
 	public void givenSavingATransaction_whenSave_thenItSaveTheTransaction() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
-		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionSave", 10.0);
+		Transaction transaction = new Transaction(userSender, userReceiver, date, "descriptionSave", Money.of("10.0"));
 
 		// ACT
 		transactionRepository.save(transaction);
@@ -75,7 +83,7 @@ public class TransactionIT {
 	@Test
 	public void givenUpdatingATransaction_whenFindSetSave_thenItUpdateTheTransaction() {
 		// ACT
-		Optional<Transaction> transactionToUpdate = transactionRepository.findById(1);
+		Optional<Transaction> transactionToUpdate = transactionRepository.findById(1L);
 		transactionToUpdate.get().setDescription("descriptionUpdated");
 		transactionRepository.save(transactionToUpdate.get());
 		Optional<Transaction> result = transactionRepository.findById(transactionToUpdate.get().getId());
@@ -88,8 +96,8 @@ public class TransactionIT {
 	@Test
 	public void givenDeletingATransaction_whenDelete_thenItDeleteTheTransaction() {
 		// ACT
-		transactionRepository.deleteById(1);
-		Optional<Transaction> result = transactionRepository.findById(1);
+		transactionRepository.deleteById(1L);
+		Optional<Transaction> result = transactionRepository.findById(1L);
 
 		// ASSERT
 		assertThat(result).isEmpty();
@@ -99,11 +107,37 @@ public class TransactionIT {
 	@Test
 	public void givenGettingAWrongTransaction_whenFindById_thenItThrowsAnException() {
 		// ACT
-		Optional<Transaction> result = transactionRepository.findById(0);
+		Optional<Transaction> result = transactionRepository.findById(0L);
 
 		// ASSERT
 		assertFalse(result.isPresent());
 		assertThrows(NoSuchElementException.class, () -> result.get().getUserSender().getEmail());
 	}
 
+	@Test
+	public void givenTransactions_whenFindHistorySummary_thenItReturnTheMostRecentRowsWithTheEmails() {
+		// ARRANGE
+		User userSender = new User("emailTransactionSummary", "lastNameTransaction", "firstNameTransaction",
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailTransactionSummary2", "lastNameTransaction2", "firstNameTransaction2",
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		userRepository.save(userSender);
+		userRepository.save(userReceiver);
+		transactionRepository.save(new Transaction(userSender, userReceiver, java.sql.Date.valueOf("2020-07-01"),
+				"descriptionOld", Money.of("1.0")));
+		transactionRepository.save(new Transaction(userSender, userReceiver, java.sql.Date.valueOf("2020-07-02"),
+				"descriptionRecent", Money.of("2.0")));
+
+		// ACT
+		List<TransactionExportRow> result = transactionRepository.findHistorySummary(userSender.getId(),
+				PageRequest.of(0, 1));
+
+		// ASSERT
+		assertEquals(1, result.size());
+		assertEquals("descriptionRecent", result.get(0).getDescription());
+		assertEquals(Money.of("2.0"), result.get(0).getAmount());
+		assertEquals(userSender.getEmail(), result.get(0).getEmailOfTheUserSendingMoney());
+		assertEquals(userReceiver.getEmail(), result.get(0).getEmailOfTheUserGettingMoney());
+	}
+
 }
@@ -2,6 +2,11 @@ package com.paymybuddy.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.StringWriter;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +15,10 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.Transaction;
+import com.paymybuddy.model.TransactionCursor;
+import com.paymybuddy.model.TransactionExportFormat;
 import com.paymybuddy.model.User;
 import com.paymybuddy.service.TransactionService;
 import com.paymybuddy.service.impl.TransactionServiceImpl;
@@ -36,18 +44,14 @@ public class TransactionServiceIT {
 	public void givenGettingTransactions_whenFindAllTransactionByUserEmail_thenItReturnAllTheTransactionsForTheSpecifiedUser() {
 		// ARRANGE
 		User userSender = new User("emailTransaction", "lastNameTransaction", "firstNameTransaction",
-				"passwordNotEncrypted", 20.0, null, null, null);
+				"passwordNotEncrypted", Money.of("20.0"), null, null, null);
 		User userReceiver = new User("emailTransaction2", "lastNameTransaction2", "firstNameTransaction2",
-				"passwordNotEncrypted2", 0.0, null, null, null);
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
 		java.sql.Date date = new java.sql.Date(0);
 		Transaction transaction = new Transaction(userSender, userReceiver, date,
-				"descriptionFindAllTransactionByUserEmail", 10.0);
+				"descriptionFindAllTransactionByUserEmail", Money.of("10.0"));
 		Transaction transaction2 = new Transaction(userSender, userReceiver, date,
-				"descriptionFindAllTransactionByUserEmail2", 10.0);
-		transaction.setId(1);
-		transaction2.setId(2);
-		userSender.setId(1);
-		userReceiver.setId(2);
+				"descriptionFindAllTransactionByUserEmail2", Money.of("10.0"));
 		testEntityManager.persist(userSender);
 		testEntityManager.persist(userReceiver);
 		testEntityManager.persist(transaction);
@@ -60,4 +64,69 @@ public class TransactionServiceIT {
 		assertThat(result).size().isGreaterThan(1);
 	}
 
+	@Test
+	public void givenGettingTheHistoryPageByPage_whenFindHistory_thenItReturnEveryTransactionOnceFromTheMostRecent() {
+		// ARRANGE
+		User userSender = new User("emailHistory", "lastNameHistory", "firstNameHistory", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User userReceiver = new User("emailHistory2", "lastNameHistory2", "firstNameHistory2",
+				"passwordNotEncrypted2", Money.of("0.0"), null, null, null);
+		testEntityManager.persist(userSender);
+		testEntityManager.persist(userReceiver);
+		List<Transaction> expected = new ArrayList<>();
+		for (String date : new String[] { "2020-07-01", "2020-07-02", "2020-07-02", "2020-07-02", "2020-07-03" }) {
+			Transaction transaction = new Transaction(userSender, userReceiver, Date.valueOf(date),
+					"descriptionHistory", Money.of("1.0"));
+			testEntityManager.persist(transaction);
+			expected.add(0, transaction);
+		}
+		testEntityManager.persist(new Transaction(userReceiver, userSender, Date.valueOf("2020-07-02"),
+				"descriptionHistoryOfAnotherUser", Money.of("1.0")));
+
+		// ACT
+		List<Transaction> result = new ArrayList<>();
+		List<Transaction> page = transactionService.findHistory(userSender.getId(), null, 2);
+		while (!page.isEmpty()) {
+			result.addAll(page);
+			page = transactionService.findHistory(userSender.getId(),
+					TransactionCursor.of(page.get(page.size() - 1)), 2);
+		}
+
+		// ASSERT
+		assertThat(result).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	public void givenExportingTheHistory_whenExportHistory_thenItWriteTheSentAndReceivedTransactionsOfTheUserOnly() {
+		// ARRANGE
+		User user = new User("emailExport", "lastNameExport", "firstNameExport", "passwordNotEncrypted",
+				Money.of("20.0"), null, null, null);
+		User friend = new User("emailExport2", "lastNameExport2", "firstNameExport2", "passwordNotEncrypted2",
+				Money.of("0.0"), null, null, null);
+		User stranger = new User("emailExport3", "lastNameExport3", "firstNameExport3", "passwordNotEncrypted3",
+				Money.of("0.0"), null, null, null);
+		testEntityManager.persist(user);
+		testEntityManager.persist(friend);
+		testEntityManager.persist(stranger);
+		Transaction sent = new Transaction(user, friend, Date.valueOf("2020-07-01"), "sent", Money.of("1.0"));
+		Transaction received = new Transaction(friend, user, Date.valueOf("2020-07-02"), "received",
+				Money.of("2.0"));
+		testEntityManager.persist(sent);
+		testEntityManager.persist(received);
+		testEntityManager.persist(
+				new Transaction(friend, stranger, Date.valueOf("2020-07-03"), "notExported", Money.of("3.0")));
+		testEntityManager.flush();
+		testEntityManager.clear();
+		StringWriter writer = new StringWriter();
+
+		// ACT
+		long result = transactionService.exportHistory(user.getId(), TransactionExportFormat.CSV, writer);
+
+		// ASSERT
+		assertThat(result).isEqualTo(2);
+		assertThat(writer.toString().split("\n")).containsExactly(TransactionServiceImpl.CSV_HEADER,
+				sent.getId() + ",2020-07-01,sent,1.00,emailExport,emailExport2",
+				received.getId() + ",2020-07-02,received,2.00,emailExport2,emailExport");
+	}
+
 }
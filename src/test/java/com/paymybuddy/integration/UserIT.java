@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -15,9 +16,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.User;
+import com.paymybuddy.model.UserSummary;
 import com.paymybuddy.repository.UserRepository;
 
 @RunWith(SpringRunner.class)
@@ -56,7 +60,7 @@ public class UserIT {
 	@Test
 	public void givenSavingAnUser_whenSave_thenItSaveTheUser() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 
 		// ACT
@@ -83,7 +87,7 @@ public class UserIT {
 	@Test
 	public void givenDeletingAnUser_whenDelete_thenItDeleteTheUser() {
 		// ACT
-		userRepository.deleteById(1);
+		userRepository.deleteById(1L);
 		Optional<User> result = userRepository.findByEmail("emailTest");
 
 		// ASSERT
@@ -104,7 +108,7 @@ public class UserIT {
 	@Test
 	public void givenSettingANewUser_whenFindById_thenTheUserIsSavedAndThePasswordIsEncrypted() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 
 		// ACT
@@ -115,4 +119,17 @@ public class UserIT {
 		assertEquals(user.getPassword(), result.get().getPassword());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void givenGettingUserSummaries_whenFindSummaries_thenItReturnTheColumnsOfTheUsers() {
+		// ACT
+		List<UserSummary> result = userRepository.findSummaries(PageRequest.of(0, 1));
+
+		// ASSERT
+		assertEquals(1, result.size());
+		assertEquals(1L, result.get(0).getId());
+		assertEquals("emailTest", result.get(0).getEmail());
+		assertEquals("lastNameTest", result.get(0).getLastName());
+		assertEquals("firstNameTest", result.get(0).getFirstName());
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.paymybuddy.integration;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.paymybuddy.model.Money;
+import com.paymybuddy.model.User;
+import com.paymybuddy.model.UserImportCheckpoint;
+import com.paymybuddy.model.UserImportFormat;
+import com.paymybuddy.repository.UserImportCheckpointRepository;
+import com.paymybuddy.repository.UserRepository;
+import com.paymybuddy.security.PasswordHashPolicy;
+import com.paymybuddy.service.UserImportService;
+import com.paymybuddy.service.impl.UserImportServiceImpl;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(UserImportServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserImportServiceIT {
+
+	@Autowired
+	private UserImportService userImportService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserImportCheckpointRepository userImportCheckpointRepository;
+
+	@Before
+	public void init() {
+		PasswordHashPolicy.setCost(4);
+	}
+
+	@After
+	public void clear() {
+		// Every batch is committed in its own database transaction.
+		PasswordHashPolicy.setCost(PasswordHashPolicy.DEFAULT_COST);
+		userRepository.deleteAll();
+		userImportCheckpointRepository.deleteAll();
+	}
+
+	@Test
+	public void givenAFileWithAnExistingUser_whenImportUsers_thenTheOtherUsersAreCreatedAndTheProgressSaved() {
+		// ARRANGE
+		userRepository.save(new User("emailExisting", "lastNameExisting", "firstNameExisting",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null));
+		StringBuilder file = new StringBuilder(UserImportServiceImpl.CSV_HEADER).append('\n');
+		for (int i = 0; i < 30; i++) {
+			file.append("emailImport").append(i).append(",lastNameImport,firstNameImport,passwordImport,1\n");
+		}
+		file.append("emailExisting,lastNameExisting,firstNameExisting,passwordImport,1\n");
+
+		// ACT
+		UserImportCheckpoint result = userImportService.importUsers("importIT", UserImportFormat.CSV,
+				new StringReader(file.toString()));
+
+		// ASSERT
+		assertEquals(31, userRepository.count());
+		assertEquals(30, result.getImported());
+		assertEquals(1, result.getDuplicates());
+		assertTrue(userImportCheckpointRepository.findById("importIT").get().isCompleted());
+		assertEquals(Money.ZERO, userRepository.findByEmail("emailImport29").get().getMoneyAvailable());
+	}
+
+}
@@ -16,15 +16,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.paymybuddy.model.Money;
 import com.paymybuddy.model.User;
+import com.paymybuddy.security.MyUserDetailsService;
+import com.paymybuddy.security.PrincipalCache;
 import com.paymybuddy.service.UserService;
 import com.paymybuddy.service.impl.UserServiceImpl;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
-@Import(UserServiceImpl.class)
+@Import({ UserServiceImpl.class, MyUserDetailsService.class, PrincipalCache.class })
 public class UserServiceIT {
 
 	@Autowired
@@ -33,6 +38,12 @@ public class UserServiceIT {
 	@Autowired
 	private TestEntityManager testEntityManager;
 
+	@Autowired
+	private MyUserDetailsService myUserDetailsService;
+
+	@Autowired
+	private PrincipalCache principalCache;
+
 	@Test
 	public void injectedComponentsAreRightlySetUp() {
 		assertThat(userService).isNotNull();
@@ -42,7 +53,7 @@ public class UserServiceIT {
 	@Test
 	public void givenGettingAnUser_whenGetUser_thenItReturnTheRightUser() {
 		// ARRANGE
-		User user = new User("emailGetUser", "lastNameGetUser", "firstNameGetUser", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailGetUser", "lastNameGetUser", "firstNameGetUser", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
 		testEntityManager.persist(user);
 
@@ -59,10 +70,9 @@ public class UserServiceIT {
 	public void givenGettingAllUser_whenFindAllUser_thenItReturnAllUser() {
 		// ARRANGE
 		User user = new User("emailFindAllUser", "lastNameFindAllUser", "firstNameFindAllUser", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		User user2 = new User("emailFindAllUser2", "lastNameFindAllUser2", "firstNameFindAllUser2",
-				"passwordNotEncryptedUser2", 0.0, null, null, null);
-		user.setId(1);
+				"passwordNotEncryptedUser2", Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 		testEntityManager.persist(user2);
 
@@ -77,7 +87,7 @@ public class UserServiceIT {
 	public void givenCreatingAnUser_whenCreateUser_thenItCreateTheUser() {
 		// ARRANGE
 		User user = new User("emailCreateUser", "lastNameCreateUser", "firstNameCreateUser", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 
 		// ACT
 		userService.createUser(user);
@@ -93,7 +103,7 @@ public class UserServiceIT {
 	public void givenUpdatingAnUser_whenUpdateUser_thenItUpdateTheUser() {
 		// ARRANGE
 		User user = new User("emailUpdateUser", "lastNameUpdateUser", "firstNameUpdateUser", "passwordNotEncrypted",
-				0.0, null, null, null);
+				Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -101,7 +111,7 @@ public class UserServiceIT {
 		userToUpdate.get().setFirstName("firstNameUpdated");
 		userToUpdate.get().setLastName("lastNameUpdated");
 		userToUpdate.get().setPassword("passwordUpdated");
-		userToUpdate.get().setMoneyAvailable(10.0);
+		userToUpdate.get().setMoneyAvailable(Money.of("10.0"));
 		userToUpdate.get().setBankAccount(null);
 		userToUpdate.get().setTransaction(null);
 		userService.createUser(userToUpdate.get());
@@ -117,8 +127,7 @@ public class UserServiceIT {
 	public void givenDeletingAnUser_whenDeleteUser_thenItDeleteTheUser() {
 		// ARRANGE
 		User user = new User("emailDeleteUser", "lastNameDeleteUser", "firstNameDeleteUser", "passwordNotEncrypted",
-				0.0, null, null, null);
-		user.setId(1);
+				Money.of("0.0"), null, null, null);
 		testEntityManager.persist(user);
 
 		// ACT
@@ -132,7 +141,7 @@ public class UserServiceIT {
 	@Test
 	public void givenGettingAWrongUser_whenGetUser_thenItThrowsAnException() {
 		// ARRANGE
-		User user = new User("emailGetUser", "lastNameGetUser", "firstNameGetUser", "passwordNotEncrypted", 0.0, null,
+		User user = new User("emailGetUser", "lastNameGetUser", "firstNameGetUser", "passwordNotEncrypted", Money.of("0.0"), null,
 				null, null);
 		testEntityManager.persist(user);
 
@@ -147,7 +156,7 @@ public class UserServiceIT {
 	@Test
 	public void givenSettingANewUser_whenSave_thenTheUserIsSavedAndThePasswordIsEncrypted() {
 		// ARRANGE
-		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", 0.0, null, null,
+		User user = new User("emailSave", "lastNameSave", "firstNameSave", "passwordNotEncrypted", Money.of("0.0"), null, null,
 				null);
 		testEntityManager.persist(user);
 
@@ -160,4 +169,43 @@ public class UserServiceIT {
 		assertNotEquals("passwordEncrypted", result.get().getPassword());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void givenChangingThePasswordOfACachedUser_whenUpdateUser_thenTheNewPasswordIsLoaded() {
+		// ARRANGE
+		User user = new User("emailCachedPassword", "lastNameCachedPassword", "firstNameCachedPassword",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
+		testEntityManager.persist(user);
+		testEntityManager.flush();
+		UserDetails cachedPrincipal = myUserDetailsService.loadUserByUsername(user.getEmail());
+
+		// ACT
+		user.setPassword("newPassword");
+		userService.updateUser(user);
+		testEntityManager.flush();
+		UserDetails result = myUserDetailsService.loadUserByUsername(user.getEmail());
+
+		// ASSERT
+		assertNotEquals(cachedPrincipal.getPassword(), result.getPassword());
+		assertEquals(user.getPassword(), result.getPassword());
+	}
+
+	@Test
+	public void givenDeletingACachedUser_whenDeleteUser_thenItCannotBeLoadedAnymore() {
+		// ARRANGE
+		User user = new User("emailCachedDelete", "lastNameCachedDelete", "firstNameCachedDelete",
+				"passwordNotEncrypted", Money.of("0.0"), null, null, null);
+		testEntityManager.persist(user);
+		testEntityManager.flush();
+		myUserDetailsService.loadUserByUsername(user.getEmail());
+		long misses = principalCache.getMisses();
+
+		// ACT
+		userService.deleteUser(user);
+		testEntityManager.flush();
+
+		// ASSERT
+		assertThrows(UsernameNotFoundException.class, () -> myUserDetailsService.loadUserByUsername(user.getEmail()));
+		assertEquals(misses + 1, principalCache.getMisses());
+	}
+
+}